@@ -3,6 +3,7 @@ package com.prolearn.api;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -72,6 +73,17 @@ public class ApiExceptionHandler {
                 .body(body);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> onOptimisticLock(OptimisticLockingFailureException ex) {
+        log.debug("Optimistic lock failure", ex);
+        Map<String, Object> body = base(HttpStatus.CONFLICT, "Dane zostały zmienione w międzyczasie – odśwież i spróbuj ponownie");
+        body.put("detail", body.get("message"));
+        body.put("code", "CONCURRENT_MODIFICATION");
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, Object>> onStatus(ResponseStatusException ex) {
         log.debug("RSE", ex);
@@ -86,10 +98,13 @@ public class ApiExceptionHandler {
             case "Nowe hasło musi mieć co najmniej 6 znaków" -> "NEW_PASSWORD_TOO_SHORT";
             case "Nie jesteś członkiem tej klasy" -> "NOT_CLASS_MEMBER";
             case "Tę operację może wykonać tylko nauczyciel tej klasy" -> "NOT_CLASS_TEACHER";
+            case "Zbyt wiele uruchomień – spróbuj ponownie za chwilę" -> "RATE_LIMITED";
+            case "Serwer jest przeciążony – spróbuj ponownie za chwilę" -> "OVERLOADED";
             default -> null;
         };
         if (code != null) body.put("code", code);
         return ResponseEntity.status(ex.getStatusCode())
+                .headers(ex.getHeaders())
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(body);
     }
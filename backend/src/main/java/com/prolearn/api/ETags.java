@@ -0,0 +1,53 @@
+package com.prolearn.api;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Warunkowe GET-y (If-None-Match → 304). ETag liczony jest z wersji encji przed budowaniem DTO,
+ * więc przy trafieniu nie ma mapowania ani serializacji odpowiedzi.
+ */
+public final class ETags {
+
+    /** Przeglądarka trzyma odpowiedź, ale przy każdym użyciu pyta serwer (rewalidacja ETagiem). */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ETags() {}
+
+    /** Silny ETag (w cudzysłowie) z podanych części. */
+    public static String strong(Object... parts) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) sb.append('-');
+            sb.append(parts[i]);
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 304 gdy If-None-Match pasuje do {@code etag}, w przeciwnym razie 200 z treścią z {@code body}.
+     * {@code etag == null} (np. brak zasobu) – zwykła odpowiedź; body zgłasza wtedy 404.
+     */
+    public static <T> ResponseEntity<T> conditional(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (etag == null) return ResponseEntity.ok(body.get());
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+
+    /** Porównanie słabe, jak wymaga RFC 9110 dla If-None-Match. */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*")) return true;
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.prolearn.classes;
 
+import com.prolearn.classes.dto.ClassPurgeJobDto;
 import com.prolearn.classes.dto.ClassroomDto;
 import com.prolearn.classes.dto.CreateClassRequest;
 import com.prolearn.classes.dto.JoinClassRequest;
@@ -21,6 +22,7 @@ import java.util.UUID;
 public class ClassController {
 
     private final ClassService classService;
+    private final ClassPurgeService purgeService;
 
     @PostMapping
     @PreAuthorize("hasRole('TEACHER')")
@@ -58,14 +60,27 @@ public class ClassController {
 
     @DeleteMapping("/{classId}")
     @PreAuthorize("hasRole('TEACHER')")
-    public ResponseEntity<Void> delete(@PathVariable Long classId) {
+    public ResponseEntity<?> delete(@PathVariable Long classId) {
         UUID userId = SecurityUtils.currentUserId();
         if (userId == null) {
             throw new org.springframework.web.server.ResponseStatusException(
                     org.springframework.http.HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
         }
 
-        classService.deleteClass(classId, userId);
-        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        // małe klasy: 204 od razu; duże: 202 z zadaniem usuwania w tle (klasa znika z list natychmiast)
+        return purgeService.deleteClass(classId, userId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.accepted().body(ClassPurgeJobDto.fromEntity(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NO_CONTENT).build());
+    }
+
+    @GetMapping("/purge-jobs/{jobId}")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ClassPurgeJobDto purgeJob(@PathVariable UUID jobId) {
+        UUID userId = SecurityUtils.currentUserId();
+        if (userId == null) {
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
+        }
+        return ClassPurgeJobDto.fromEntity(purgeService.getJob(jobId, userId));
     }
 }
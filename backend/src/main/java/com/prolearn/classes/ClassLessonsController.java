@@ -1,12 +1,15 @@
 package com.prolearn.classes;
 
+import com.prolearn.api.ETags;
 import com.prolearn.lesson.LessonService;
 import com.prolearn.lesson.dto.LessonCreateRequest;
 import com.prolearn.lesson.dto.LessonListItem;
 import com.prolearn.security.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,14 +26,16 @@ public class ClassLessonsController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public List<LessonListItem> list(@PathVariable("classId") Long classId) {
+    public ResponseEntity<List<LessonListItem>> list(@PathVariable("classId") Long classId,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         UUID userId = SecurityUtils.currentUserId();
         if (userId == null) {
             throw new org.springframework.web.server.ResponseStatusException(
                     org.springframework.http.HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
         }
         classService.requireMembership(classId, userId);
-        return lessonService.getLessonsInClass(classId);
+        return ETags.conditional(ifNoneMatch, lessonService.classLessonsEtag(classId),
+                () -> lessonService.getLessonsInClass(classId));
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -1,6 +1,9 @@
 package com.prolearn.classes;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
@@ -11,4 +14,8 @@ public interface ClassMemberRepository extends JpaRepository<ClassMember, ClassM
     boolean existsByIdClassIdAndIdMemberId(Long classId, UUID memberId);
     // find all members for a given class id
     List<ClassMember> findByIdClassId(Long classId);
+
+    @Modifying
+    @Query("delete from ClassMember m where m.id.classId = :classId")
+    int deleteAllByClassId(@Param("classId") Long classId);
 }
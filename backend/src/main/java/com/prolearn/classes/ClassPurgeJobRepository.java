@@ -0,0 +1,18 @@
+package com.prolearn.classes;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ClassPurgeJobRepository extends JpaRepository<ClassPurgeJob, UUID> {
+    List<ClassPurgeJob> findAllByStatusIn(Collection<ClassPurgeJob.Status> statuses);
+
+    @Modifying
+    @Query("update ClassPurgeJob j set j.deletedRows = j.deletedRows + :n, j.updatedAt = CURRENT_TIMESTAMP where j.id = :id")
+    int addProgress(@Param("id") UUID id, @Param("n") long n);
+}
@@ -0,0 +1,167 @@
+package com.prolearn.classes;
+
+import com.prolearn.config.CourseCache;
+import com.prolearn.lesson.LessonDetailCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Usuwanie klas instrukcjami zbiorczymi. Lekcje, zadania, aktywności i testy usuwają kaskady ON DELETE (V24).
+ * Klasy z dużą liczbą zgłoszeń są od razu ukrywane (usunięcie członków), a zgłoszenia i próby quizów
+ * są kasowane w tle paczkami w krótkich transakcjach, żeby nie trzymać blokad na submissions.
+ */
+@Service
+public class ClassPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassPurgeService.class);
+
+    private final ClassroomRepository classroomRepo;
+    private final ClassMemberRepository memberRepo;
+    private final ClassPurgeJobRepository jobRepo;
+    private final ClassService classService;
+    private final CourseCache courseCache;
+    private final LessonDetailCache lessonDetailCache;
+    private final TransactionTemplate tx;
+    private final long asyncThreshold;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "class-purge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ClassPurgeService(ClassroomRepository classroomRepo,
+                             ClassMemberRepository memberRepo,
+                             ClassPurgeJobRepository jobRepo,
+                             ClassService classService,
+                             CourseCache courseCache,
+                             LessonDetailCache lessonDetailCache,
+                             PlatformTransactionManager txManager,
+                             @Value("${app.purge.async-threshold:5000}") long asyncThreshold,
+                             @Value("${app.purge.batch-size:2000}") int batchSize) {
+        this.classroomRepo = classroomRepo;
+        this.memberRepo = memberRepo;
+        this.jobRepo = jobRepo;
+        this.classService = classService;
+        this.courseCache = courseCache;
+        this.lessonDetailCache = lessonDetailCache;
+        this.tx = new TransactionTemplate(txManager);
+        this.asyncThreshold = asyncThreshold;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Usuwa klasę (tylko nauczyciel klasy). Zwraca pusty wynik, gdy klasa została usunięta od razu,
+     * albo zadanie w tle dla dużych klas – klasa znika z list natychmiast.
+     */
+    public Optional<ClassPurgeJob> deleteClass(Long classId, UUID userId) {
+        classService.requireTeacherMembership(classId, userId);
+        ClassPurgeJob job = tx.execute(status -> {
+            if (!classroomRepo.existsById(classId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Class not found");
+            }
+            long rows = classroomRepo.countSubmissionsInClass(classId) + classroomRepo.countQuizAttemptsInClass(classId);
+            memberRepo.deleteAllByClassId(classId);
+            if (rows <= asyncThreshold) {
+                classroomRepo.deleteClassById(classId);
+                courseCache.evictCourseContent();
+                lessonDetailCache.invalidateAll();
+                return null;
+            }
+            classroomRepo.detachForPurge(classId);
+            ClassPurgeJob j = new ClassPurgeJob();
+            j.setId(UUID.randomUUID());
+            j.setClassId(classId);
+            j.setRequestedBy(userId);
+            j.setTotalRows(rows);
+            return jobRepo.save(j);
+        });
+        if (job == null) return Optional.empty();
+        executor.submit(() -> run(job.getId()));
+        return Optional.of(job);
+    }
+
+    /** Postęp zadania usuwania – widoczny tylko dla nauczyciela, który je zlecił. */
+    public ClassPurgeJob getJob(UUID jobId, UUID userId) {
+        return jobRepo.findById(jobId)
+                .filter(j -> userId != null && userId.equals(j.getRequestedBy()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania usuwania"));
+    }
+
+    /** Wznawia zadania przerwane restartem aplikacji. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        for (ClassPurgeJob j : jobRepo.findAllByStatusIn(EnumSet.of(ClassPurgeJob.Status.PENDING, ClassPurgeJob.Status.RUNNING))) {
+            log.info("Wznawianie usuwania klasy {} (zadanie {})", j.getClassId(), j.getId());
+            executor.submit(() -> run(j.getId()));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void run(UUID jobId) {
+        ClassPurgeJob job = jobRepo.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() == ClassPurgeJob.Status.DONE) return;
+        Long classId = job.getClassId();
+        try {
+            update(jobId, j -> j.setStatus(ClassPurgeJob.Status.RUNNING));
+            while (deleteBatch(jobId, () -> classroomRepo.deleteSubmissionsBatch(classId, batchSize)) > 0) {
+                if (Thread.currentThread().isInterrupted()) return;
+            }
+            while (deleteBatch(jobId, () -> classroomRepo.deleteQuizAttemptsBatch(classId, batchSize)) > 0) {
+                if (Thread.currentThread().isInterrupted()) return;
+            }
+            tx.executeWithoutResult(status -> {
+                memberRepo.deleteAllByClassId(classId);
+                classroomRepo.deleteClassById(classId);
+                courseCache.evictCourseContent();
+                lessonDetailCache.invalidateAll();
+            });
+            update(jobId, j -> j.setStatus(ClassPurgeJob.Status.DONE));
+            log.info("Usunięto klasę {} (zadanie {})", classId, jobId);
+        } catch (RuntimeException e) {
+            log.error("Usuwanie klasy {} nie powiodło się", classId, e);
+            update(jobId, j -> {
+                j.setStatus(ClassPurgeJob.Status.FAILED);
+                j.setError(e.getMessage());
+            });
+        }
+    }
+
+    private int deleteBatch(UUID jobId, IntSupplier delete) {
+        Integer n = tx.execute(status -> {
+            int deleted = delete.getAsInt();
+            if (deleted > 0) jobRepo.addProgress(jobId, deleted);
+            return deleted;
+        });
+        return n == null ? 0 : n;
+    }
+
+    private void update(UUID jobId, Consumer<ClassPurgeJob> change) {
+        tx.executeWithoutResult(status -> jobRepo.findById(jobId).ifPresent(j -> {
+            change.accept(j);
+            j.setUpdatedAt(Instant.now());
+        }));
+    }
+}
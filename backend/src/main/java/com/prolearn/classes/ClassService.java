@@ -20,7 +20,6 @@ public class ClassService {
     private final ClassroomRepository classroomRepo;
     private final ClassMemberRepository memberRepo;
     private final UserRepository userRepo;
-    private final com.prolearn.lesson.LessonService lessonService;
 
     /**
      * Generuje unikalny 6-znakowy kod dołączenia do klasy.
@@ -143,35 +142,6 @@ public class ClassService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Class not found"));
     }
 
-    /**
-     * Usuwa klasę wraz z członkostwami. Dostęp tylko dla nauczyciela danej klasy.
-     */
-    @Transactional
-    public void deleteClass(Long classId, UUID userId) {
-        // upewnij się, że użytkownik jest nauczycielem w tej klasie
-        requireTeacherMembership(classId, userId);
-
-        Classroom classroom = classroomRepo.findById(classId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Class not found"));
-
-        // najpierw usuń wszystkie lekcje w tej klasie, używając istniejącej logiki LessonService
-        var lessons = lessonService.getLessonsInClass(classId);
-        if (lessons != null) {
-            for (var lessonItem : lessons) {
-                java.util.UUID lessonId = lessonItem.id();
-                if (lessonId != null) {
-                    lessonService.deleteLesson(classId, lessonId, userId);
-                }
-            }
-        }
-
-        // usuń wszystkich członków klasy
-        memberRepo.deleteAll(memberRepo.findByIdClassId(classId));
-
-        // na końcu usuń samą klasę
-        classroomRepo.delete(classroom);
-    }
-
     /**
      * Mapuje encję Classroom na DTO.
      */
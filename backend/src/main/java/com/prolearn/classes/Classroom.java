@@ -4,10 +4,14 @@ import com.prolearn.user.User;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.Instant;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 @Entity
 @Table(name = "classes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.classroom")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Classroom {
 
@@ -1,6 +1,12 @@
 package com.prolearn.classes;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -8,4 +14,55 @@ import java.util.UUID;
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
     Optional<Classroom> findByJoinCode(String joinCode);
     Optional<Classroom> findByOwner_IdAndNameIgnoreCase(UUID ownerId, String name);
+
+    // ---- usuwanie zbiorcze (lekcje, zadania, aktywności, testy itd. usuwają kaskady ON DELETE z bazy) ----
+    // Zapytania natywne deklarują tabele (native.spaces) – bez tego Hibernate czyściłby cały cache drugiego poziomu.
+
+    @Modifying
+    @Query("delete from Classroom c where c.id = :id")
+    int deleteClassById(@Param("id") Long id);
+
+    @Query(value = """
+            SELECT count(*) FROM submissions s
+            JOIN tasks t ON t.id = s.task_id
+            JOIN lessons l ON l.id = t.lesson_id
+            WHERE l.class_id = :classId""", nativeQuery = true)
+    long countSubmissionsInClass(@Param("classId") Long classId);
+
+    @Query(value = """
+            SELECT count(*) FROM quiz_attempts q
+            JOIN lesson_activities a ON a.id = q.activity_id
+            JOIN lessons l ON l.id = a.lesson_id
+            WHERE l.class_id = :classId""", nativeQuery = true)
+    long countQuizAttemptsInClass(@Param("classId") Long classId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "submissions"))
+    @Query(value = """
+            DELETE FROM submissions WHERE id IN (
+              SELECT s.id FROM submissions s
+              JOIN tasks t ON t.id = s.task_id
+              JOIN lessons l ON l.id = t.lesson_id
+              WHERE l.class_id = :classId
+              LIMIT :limit)""", nativeQuery = true)
+    int deleteSubmissionsBatch(@Param("classId") Long classId, @Param("limit") int limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "quiz_attempts"))
+    @Query(value = """
+            DELETE FROM quiz_attempts WHERE id IN (
+              SELECT q.id FROM quiz_attempts q
+              JOIN lesson_activities a ON a.id = q.activity_id
+              JOIN lessons l ON l.id = a.lesson_id
+              WHERE l.class_id = :classId
+              LIMIT :limit)""", nativeQuery = true)
+    int deleteQuizAttemptsBatch(@Param("classId") Long classId, @Param("limit") int limit);
+
+    /** Ukrywa klasę na czas usuwania w tle: zwalnia nazwę (unikalną per właściciel) i unieważnia kod dołączenia. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "classes"))
+    @Query(value = """
+            UPDATE classes SET name = name || ' [usuwanie #' || id || ']', join_code = 'del' || id
+            WHERE id = :id""", nativeQuery = true)
+    int detachForPurge(@Param("id") Long id);
 }
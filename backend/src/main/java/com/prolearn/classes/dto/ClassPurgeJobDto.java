@@ -0,0 +1,14 @@
+package com.prolearn.classes.dto;
+
+import com.prolearn.classes.ClassPurgeJob;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ClassPurgeJobDto(UUID id, Long classId, String status, long totalRows, long deletedRows,
+                               String error, Instant createdAt, Instant updatedAt) {
+    public static ClassPurgeJobDto fromEntity(ClassPurgeJob j) {
+        return new ClassPurgeJobDto(j.getId(), j.getClassId(), j.getStatus().name(), j.getTotalRows(), j.getDeletedRows(),
+                j.getError(), j.getCreatedAt(), j.getUpdatedAt());
+    }
+}
@@ -30,8 +30,8 @@ public class CorsConfig {
             c.setAllowedOriginPatterns(List.of("*"));
         }
         c.setAllowedMethods(List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
-        c.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","X-Requested-With"));
-        c.setExposedHeaders(List.of("Authorization","Content-Type"));
+        c.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","X-Requested-With","If-None-Match","Idempotency-Key"));
+        c.setExposedHeaders(List.of("Authorization","Content-Type","Retry-After","ETag"));
     c.setAllowCredentials(false); // używamy Bearer, nie cookies
 
         var source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,57 @@
+package com.prolearn.config;
+
+import com.prolearn.classes.Classroom;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonActivity;
+import com.prolearn.task.ProgrammingTestCase;
+import com.prolearn.task.QuizQuestion;
+import com.prolearn.task.Task;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Czyszczenie cache drugiego poziomu po usunięciach, których Hibernate nie widzi.
+ * Zapisy przez JPA (save/delete, zapytania JPQL) aktualizują cache same; kaskady ON DELETE / SET NULL
+ * w bazie (usunięcie zadania, lekcji, klasy) zostawiłyby w cache wiersze, których już nie ma.
+ */
+@Component
+public class CourseCache {
+
+    private final EntityManagerFactory emf;
+
+    public CourseCache(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /** Po usunięciu zadania: testy i pytania quizu (CASCADE) oraz aktywności wskazujące zadanie (SET NULL). */
+    public void evictTaskContent() {
+        evictAfterCommit(ProgrammingTestCase.class, QuizQuestion.class, LessonActivity.class);
+    }
+
+    /** Po usunięciu lekcji lub klasy – kaskada obejmuje całą treść kursu. */
+    public void evictCourseContent() {
+        evictAfterCommit(Classroom.class, Lesson.class, LessonActivity.class, Task.class,
+                ProgrammingTestCase.class, QuizQuestion.class);
+    }
+
+    // czyścimy od razu i ponownie po commicie – równoległy odczyt mógł w międzyczasie wczytać stary wiersz
+    private void evictAfterCommit(Class<?>... types) {
+        evict(types);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(types);
+                }
+            });
+        }
+    }
+
+    private void evict(Class<?>[] types) {
+        for (Class<?> type : types) emf.getCache().evict(type);
+        emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+}
@@ -1,8 +1,24 @@
 package com.prolearn.config;
 
+import com.prolearn.ratelimit.RateLimitInterceptor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebMvcConfigurer {
     // Miejsce na ewentualne rozszerzenia (formatery, messageConverters etc.)
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public WebConfig(RateLimitInterceptor rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // limity i kontrola przyjęcia dla wykonań kodu
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/tasks/*/run", "/api/tasks/*/run-demo", "/api/tasks/*/submissions", "/api/tasks/*/submit");
+    }
 }
@@ -1,5 +1,6 @@
 package com.prolearn.dev;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.prolearn.classes.ClassService;
 import com.prolearn.classes.Classroom;
 import com.prolearn.classes.dto.ClassroomDto;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Component;
 import com.prolearn.task.TaskRepository;
 import com.prolearn.task.ProgrammingTestCaseRepository;
 import com.prolearn.grading.JsAutoGrader;
+import com.prolearn.submission.AttemptCounter;
 import com.prolearn.submission.SubmissionRepository;
 import com.prolearn.task.Task;
 import com.prolearn.submission.Submission;
@@ -36,9 +38,12 @@ public class DevDataSeeder implements CommandLineRunner {
     private final SubmissionRepository submissionRepo;
     private final ProgrammingTestCaseRepository caseRepo;
     private final JsAutoGrader jsAutoGrader;
+    private final ObjectMapper objectMapper;
+    private final AttemptCounter attemptCounter;
 
     public DevDataSeeder(UserRepository userRepo, ClassService classService, LessonService lessonService,
-                         TaskRepository taskRepo, SubmissionRepository submissionRepo, ProgrammingTestCaseRepository caseRepo, JsAutoGrader jsAutoGrader) {
+                         TaskRepository taskRepo, SubmissionRepository submissionRepo, ProgrammingTestCaseRepository caseRepo, JsAutoGrader jsAutoGrader,
+                         ObjectMapper objectMapper, AttemptCounter attemptCounter) {
         this.userRepo = userRepo;
         this.classService = classService;
         this.lessonService = lessonService;
@@ -46,6 +51,8 @@ public class DevDataSeeder implements CommandLineRunner {
         this.submissionRepo = submissionRepo;
         this.caseRepo = caseRepo;
         this.jsAutoGrader = jsAutoGrader;
+        this.objectMapper = objectMapper;
+        this.attemptCounter = attemptCounter;
     }
 
     @Override
@@ -154,8 +161,8 @@ public class DevDataSeeder implements CommandLineRunner {
                                     s.setStatus(SubmissionStatus.GRADED);
                                     s.setAutoScore(grade.score);
                                     s.setPoints(grade.score);
-                                    s.setTestReport(grade.stdout);
-                                    s.setAttemptNumber(1);
+                                    s.setTestReport(objectMapper.writeValueAsString(grade.tests));
+                                    s.setAttemptNumber(attemptCounter.reserve(t.getId(), student.getId(), t.getMaxAttempts(), "Limit prób został osiągnięty"));
                                     s.setCreatedAt(Instant.now());
                                     submissionRepo.save(s);
                                     System.out.println("DevDataSeeder: created partial submission for task '" + t.getTitle() + "' (points=" + grade.score + ")");
@@ -187,8 +194,8 @@ public class DevDataSeeder implements CommandLineRunner {
                                     s.setStatus(SubmissionStatus.GRADED);
                                     s.setAutoScore(grade.score);
                                     s.setPoints(grade.score);
-                                    s.setTestReport(grade.stdout);
-                                    s.setAttemptNumber(1);
+                                    s.setTestReport(objectMapper.writeValueAsString(grade.tests));
+                                    s.setAttemptNumber(attemptCounter.reserve(t.getId(), student.getId(), t.getMaxAttempts(), "Limit prób został osiągnięty"));
                                     s.setCreatedAt(Instant.now());
                                     submissionRepo.save(s);
                                     System.out.println("DevDataSeeder: created partial submission for task '" + t.getTitle() + "' (points=" + grade.score + ")");
@@ -1,5 +1,6 @@
 package com.prolearn.dev;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.prolearn.grading.JsAutoGrader;
 import com.prolearn.submission.Submission;
 import com.prolearn.submission.SubmissionRepository;
@@ -16,11 +17,14 @@ public class SubmissionsFixer implements CommandLineRunner {
     private final SubmissionRepository submissionRepo;
     private final ProgrammingTestCaseRepository caseRepo;
     private final JsAutoGrader jsAutoGrader;
+    private final ObjectMapper objectMapper;
 
-    public SubmissionsFixer(SubmissionRepository submissionRepo, ProgrammingTestCaseRepository caseRepo, JsAutoGrader jsAutoGrader) {
+    public SubmissionsFixer(SubmissionRepository submissionRepo, ProgrammingTestCaseRepository caseRepo, JsAutoGrader jsAutoGrader,
+                            ObjectMapper objectMapper) {
         this.submissionRepo = submissionRepo;
         this.caseRepo = caseRepo;
         this.jsAutoGrader = jsAutoGrader;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -39,7 +43,7 @@ public class SubmissionsFixer implements CommandLineRunner {
                             s.setCode(fixed);
                             s.setAutoScore(grade.score);
                             s.setPoints(grade.score);
-                            s.setTestReport(grade.stdout);
+                            s.setTestReport(objectMapper.writeValueAsString(grade.tests));
                             submissionRepo.save(s);
                             System.out.println("SubmissionsFixer: fixed submission " + s.getId() + " for task " + s.getTask().getTitle() + " -> score=" + grade.score);
                         }
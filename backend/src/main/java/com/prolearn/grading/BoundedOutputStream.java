@@ -0,0 +1,130 @@
+package com.prolearn.grading;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Przechwytywanie wyjścia programu ucznia o stałej pojemności: zachowuje początek i koniec (po połowie budżetu),
+ * środek tylko zlicza. Po przekroczeniu {@code abortAfter} bajtów wywołuje {@code onAbort} (anulowanie kontekstu)
+ * i przerywa zapis wyjątkiem {@link LimitExceededException}.
+ */
+public final class BoundedOutputStream extends OutputStream {
+
+    /** Wyjście przekroczyło próg przerwania – program jest zatrzymywany. */
+    public static final class LimitExceededException extends RuntimeException {
+        LimitExceededException() {
+            super("Output limit exceeded", null, false, false);
+        }
+    }
+
+    private final byte[] head;
+    private final byte[] tail;
+    private final long abortAfter;
+    private final Runnable onAbort;
+    private int headLen;
+    private int tailPos;
+    private long tailCount;
+    private long total;
+    private volatile boolean aborted;
+
+    /**
+     * @param limitBytes budżet przechowywanych bajtów (początek + koniec)
+     * @param abortAfter po tylu zapisanych bajtach program jest przerywany; 0 = nigdy
+     * @param onAbort    wywoływane raz przy przekroczeniu {@code abortAfter}; może być null
+     */
+    public BoundedOutputStream(int limitBytes, long abortAfter, Runnable onAbort) {
+        int limit = Math.max(2, limitBytes);
+        this.head = new byte[limit / 2];
+        this.tail = new byte[limit - limit / 2];
+        this.abortAfter = abortAfter;
+        this.onAbort = onAbort;
+    }
+
+    public BoundedOutputStream(int limitBytes) {
+        this(limitBytes, 0, null);
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        if (aborted) throw new LimitExceededException();
+        total += len;
+        if (abortAfter > 0 && total > abortAfter) {
+            aborted = true;
+            if (onAbort != null) onAbort.run();
+            throw new LimitExceededException();
+        }
+        int h = Math.min(len, head.length - headLen);
+        if (h > 0) {
+            System.arraycopy(b, off, head, headLen, h);
+            headLen += h;
+            off += h;
+            len -= h;
+        }
+        if (len <= 0) return;
+        if (len >= tail.length) {
+            // zostaje tylko końcówka tego zapisu
+            System.arraycopy(b, off + len - tail.length, tail, 0, tail.length);
+            tailPos = 0;
+        } else {
+            int first = Math.min(len, tail.length - tailPos);
+            System.arraycopy(b, off, tail, tailPos, first);
+            System.arraycopy(b, off + first, tail, 0, len - first);
+            tailPos = (tailPos + len) % tail.length;
+        }
+        tailCount += len;
+    }
+
+    /** Łączna liczba bajtów zapisanych przez program (także odrzuconych). */
+    public synchronized long totalBytes() {
+        return total;
+    }
+
+    /** Liczba bajtów pominiętych między początkiem a końcem. */
+    public synchronized long truncatedBytes() {
+        return Math.max(0, total - headLen - Math.min(tailCount, tail.length));
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /** Początek, znacznik z liczbą pominiętych bajtów (jeśli były) i koniec wyjścia. */
+    public synchronized String toString(Charset charset) {
+        StringBuilder sb = new StringBuilder(new String(head, 0, headLen, charset));
+        long skipped = truncatedBytes();
+        if (skipped > 0) sb.append("\n… [pominięto ").append(skipped).append(" B] …\n");
+        int kept = (int) Math.min(tailCount, tail.length);
+        if (kept > 0) {
+            byte[] ordered = new byte[kept];
+            if (tailCount <= tail.length) {
+                System.arraycopy(tail, 0, ordered, 0, kept);
+            } else {
+                System.arraycopy(tail, tailPos, ordered, 0, tail.length - tailPos);
+                System.arraycopy(tail, 0, ordered, tail.length - tailPos, tailPos);
+            }
+            sb.append(new String(ordered, charset));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toString(StandardCharsets.UTF_8);
+    }
+
+    /** Przycina gotowy napis (np. stdout z Judge0) tą samą regułą początek + koniec. */
+    public static String truncate(String s, int limitBytes) {
+        if (s == null || s.length() <= limitBytes / 3) return s; // UTF-8: max 3 B na znak BMP
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= limitBytes) return s;
+        BoundedOutputStream out = new BoundedOutputStream(limitBytes);
+        out.write(bytes, 0, bytes.length);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
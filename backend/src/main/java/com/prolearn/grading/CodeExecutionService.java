@@ -20,11 +20,17 @@ public class CodeExecutionService {
     private final String judge0Url;
     private final ObjectMapper om = new ObjectMapper();
     private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final GradingMetrics metrics;
+    private final int outputLimitBytes;
 
     public CodeExecutionService(
             @Value("${JUDGE0_URL:}") String envJudge0Url,
-            @Value("${app.judge0-url:}") String propJudge0Url
+            @Value("${app.judge0-url:}") String propJudge0Url,
+            GradingMetrics metrics,
+            @Value("${app.grading.output.limit-bytes:65536}") int outputLimitBytes
     ) {
+        this.metrics = metrics;
+        this.outputLimitBytes = outputLimitBytes;
         String fromEnv = (envJudge0Url == null || envJudge0Url.isBlank()) ? System.getenv("JUDGE0_URL") : envJudge0Url;
         String candidate = (fromEnv != null && !fromEnv.isBlank()) ? fromEnv : propJudge0Url;
         if (candidate == null || candidate.isBlank()) {
@@ -40,10 +46,32 @@ public class CodeExecutionService {
         public String status = null;
         public int exitCode = -1;
         public String raw = null;
+        /** Czas CPU programu (tylko wykonanie w procesie, GraalJS i GraalPy); null dla Judge0. */
+        public Long cpuMs = null;
+        /** Czas ściany programu mierzony przez hosta (tylko wykonanie w procesie); null dla Judge0. */
+        public Long timeMs = null;
     }
 
     public boolean isAvailable() { return judge0Url != null && !judge0Url.isBlank(); }
 
+    /** Lekkie GET /about – zestawia połączenie (DNS, TLS) z Judge0 przed pierwszym zgłoszeniem. */
+    public boolean probe() {
+        if (!isAvailable()) return false;
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(judge0Url + "/about"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        try {
+            return client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     /**
      * Execute code using Judge0 (simple POC). languageId must be a numeric id known by Judge0 or 0 for default.
      */
@@ -63,19 +91,29 @@ public class CodeExecutionService {
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
 
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+        long started = System.nanoTime();
+        HttpResponse<String> resp;
+        try {
+            resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException | InterruptedException e) {
+            metrics.recordJudge0("IO_ERROR", "none", System.nanoTime() - started);
+            throw e;
+        }
         String txt = resp.body();
         ExecResult out = new ExecResult();
         out.raw = txt;
         try {
             JsonNode node = om.readTree(txt);
-            out.stdout = node.path("stdout").asText(null);
-            out.stderr = node.path("stderr").asText(null);
+            // ten sam budżet co przy wykonaniu w procesie – do Submission.stdout/testReport trafia początek i koniec
+            out.stdout = BoundedOutputStream.truncate(node.path("stdout").asText(null), outputLimitBytes);
+            out.stderr = BoundedOutputStream.truncate(node.path("stderr").asText(null), outputLimitBytes);
             out.status = node.path("status").path("description").asText(null);
             out.exitCode = node.path("status").path("id").asInt(-1);
         } catch (Exception e) {
             // ignore parse errors
         }
+        // status.id Judge0: 3 = Accepted, 5 = Time Limit Exceeded, 6 = Compilation Error, 7-12 = Runtime Error, 13+ = błędy wewnętrzne
+        metrics.recordJudge0(String.valueOf(resp.statusCode()), String.valueOf(out.exitCode), System.nanoTime() - started);
         return out;
     }
 }
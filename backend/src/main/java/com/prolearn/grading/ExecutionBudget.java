@@ -0,0 +1,151 @@
+package com.prolearn.grading;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
+import org.graalvm.polyglot.Source;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Budżet jednego wykonania kodu ucznia w GraalVM (GraalJS i GraalPy): limit instrukcji kodu ucznia
+ * (ResourceLimits, deterministyczny) i czas CPU wątku roboczego liczony od początku bieżącego przypadku –
+ * niezależne od obciążenia węzła. Kontekst musi być zbudowany z {@link #resourceLimits()}.
+ */
+final class ExecutionBudget {
+
+    static final String TIME_LIMIT = "Time limit exceeded";
+    static final String STATEMENT_LIMIT = "Time limit exceeded: statement limit";
+    static final String CPU_LIMIT = "Time limit exceeded: CPU time";
+
+    // jedna instancja dla wszystkich kontekstów – GraalVM wymaga tego samego filtra na wspólnym silniku
+    private static final Predicate<Source> STUDENT_CODE = s -> !s.isInternal();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_CLOCK = THREADS.isThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    // czas ściany tylko jako zabezpieczenie (wątek zablokowany poza CPU) – wynik ustala limit instrukcji i CPU
+    private static final int WALL_BACKSTOP_FACTOR = 5;
+    private static final long POLL_MS = 10;
+
+    final AtomicReference<Context> running;
+    final long statements;
+    final long cpuLimitNanos;
+    final long createdAt = System.nanoTime();
+    final AtomicBoolean stopped = new AtomicBoolean();
+    // ustawiane przez GraalVM przy wyczerpaniu limitu – GraalPy nie zawsze zgłasza to jako isResourceExhausted
+    volatile boolean statementLimitHit;
+    volatile Thread worker;
+    volatile int current = -1;
+    volatile long caseCpuStart = -1;
+    volatile long caseWallStart;
+    volatile long finishedCpuMs;
+    volatile long stoppedCpuMs;
+    volatile long finishedWallMs;
+    volatile long stoppedWallMs;
+
+    /** Limity zadania, a gdy ich brak – domyślne {@code defaultStatements} i {@code defaultCpuTimeMs}. */
+    ExecutionBudget(AtomicReference<Context> running, ExecutionLimits limits, long defaultStatements, int defaultCpuTimeMs) {
+        this.running = running;
+        this.statements = limits.statementLimit() != null ? limits.statementLimit() : defaultStatements;
+        int cpuMs = limits.cpuTimeLimitMs() != null ? limits.cpuTimeLimitMs() : defaultCpuTimeMs;
+        this.cpuLimitNanos = TimeUnit.MILLISECONDS.toNanos(cpuMs);
+    }
+
+    ResourceLimits resourceLimits() {
+        return ResourceLimits.newBuilder()
+                .statementLimit(statements, STUDENT_CODE)
+                .onLimit(e -> statementLimitHit = true)
+                .build();
+    }
+
+    /** W wątku roboczym na początku przypadku {@code i} (-1 = kod najwyższego poziomu): świeży budżet. */
+    void begin(int i) {
+        Context c = running.get();
+        if (c != null) c.resetLimits();
+        current = i;
+        caseWallStart = System.nanoTime();
+        caseCpuStart = CPU_CLOCK ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    long caseCpuMillis() {
+        Thread w = worker;
+        if (!CPU_CLOCK || w == null || caseCpuStart < 0) return 0;
+        long now = THREADS.getThreadCpuTime(w.threadId());
+        return now < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(now - caseCpuStart);
+    }
+
+    /** Czas ściany bieżącego przypadku mierzony przez hosta – kod ucznia nie może go podmienić. */
+    long caseWallMillis() {
+        return caseCpuStart < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - caseWallStart);
+    }
+
+    /** Komunikat przekroczonego limitu albo null; wywoływane przez wątek nadzorujący. */
+    String exceeded() {
+        long now = System.nanoTime();
+        if (caseCpuStart < 0) return now - createdAt > cpuLimitNanos * WALL_BACKSTOP_FACTOR ? TIME_LIMIT : null;
+        if (CPU_CLOCK) {
+            Thread w = worker;
+            long cpu = w == null ? -1 : THREADS.getThreadCpuTime(w.threadId());
+            if (cpu >= 0 && cpu - caseCpuStart > cpuLimitNanos) return CPU_LIMIT;
+            return now - caseWallStart > cpuLimitNanos * WALL_BACKSTOP_FACTOR ? TIME_LIMIT : null;
+        }
+        return now - caseWallStart > cpuLimitNanos ? TIME_LIMIT : null;
+    }
+
+    /** Zamyka ujście raportów i anuluje kontekst, zapamiętując czas CPU przerwanego przypadku. */
+    void stop() {
+        if (!stopped.compareAndSet(false, true)) return;
+        stoppedCpuMs = caseCpuMillis();
+        stoppedWallMs = caseWallMillis();
+        Context c = running.get();
+        if (c != null) {
+            try { c.close(true); } catch (Exception ignore) {}
+        }
+    }
+
+    /**
+     * Wykonuje {@code body} w osobnym wątku i co {@link #POLL_MS} ms sprawdza budżet bieżącego przypadku.
+     * Zwraca null albo komunikat błędu; po przekroczeniu limitu kontekst jest od razu anulowany,
+     * więc wątek nie pali CPU do czasu zamknięcia. Pozostałe błędy wykonania formatuje {@code onError}.
+     */
+    String supervise(GradingMetrics metrics, String lang, Callable<?> body, Function<Throwable,String> onError) {
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        long queuedAt = System.nanoTime();
+        Future<?> fut = ex.submit(() -> {
+            metrics.recordQueueWait(lang, System.nanoTime() - queuedAt);
+            worker = Thread.currentThread();
+            Object r = body.call();
+            finishedCpuMs = caseCpuMillis();
+            finishedWallMs = caseWallMillis();
+            return r;
+        });
+        String error = null;
+        try {
+            while (error == null) {
+                try {
+                    fut.get(POLL_MS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException te) {
+                    error = exceeded();
+                }
+            }
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause() == null ? ee : ee.getCause();
+            error = statementLimitHit || cause instanceof PolyglotException pe && pe.isResourceExhausted() ? STATEMENT_LIMIT : onError.apply(cause);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } finally {
+            if (error != null) stop();
+            try { fut.cancel(true); } catch (Exception ignore) {}
+            ex.shutdownNow();
+            try { ex.awaitTermination(1, TimeUnit.SECONDS); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+        }
+        return error;
+    }
+}
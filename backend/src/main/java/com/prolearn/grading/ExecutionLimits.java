@@ -0,0 +1,16 @@
+package com.prolearn.grading;
+
+import com.prolearn.task.Task;
+
+/**
+ * Limity wykonania kodu ucznia zapisane w zadaniu: liczba instrukcji (GraalVM ResourceLimits) i czas CPU
+ * na przypadek. Null oznacza wartość domyślną z {@code app.grading.limits}.
+ */
+public record ExecutionLimits(Long statementLimit, Integer cpuTimeLimitMs) {
+
+    public static final ExecutionLimits DEFAULT = new ExecutionLimits(null, null);
+
+    public static ExecutionLimits of(Task task) {
+        return task == null ? DEFAULT : new ExecutionLimits(task.getStatementLimit(), task.getCpuTimeLimitMs());
+    }
+}
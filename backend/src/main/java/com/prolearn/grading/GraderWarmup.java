@@ -0,0 +1,179 @@
+package com.prolearn.grading;
+
+import com.prolearn.task.ProgrammingTestCase;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rozgrzewka silnika GraalJS po starcie: reprezentatywny korpus gradeWithCases/grade wykonywany
+ * w pętli do wyczerpania budżetu, a przy lokalnym Pythonie (app.grading.python.engine=graalpy) także
+ * jeden przypadek GraalPy na iterację. Do tego czasu wskaźnik "graderWarmup" (grupa readiness) zwraca
+ * OUT_OF_SERVICE, więc nowa instancja dostaje ruch dopiero z rozgrzanym JIT-em.
+ */
+@Component("graderWarmup")
+public class GraderWarmup implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(GraderWarmup.class);
+
+    static final String SOLUTION = """
+            function solve(input) {
+              var parts = String(input).split(/\\s+/).filter(function (s) { return s.length > 0; });
+              var nums = parts.map(Number);
+              var sum = 0;
+              for (var i = 0; i < nums.length; i++) sum += nums[i];
+              var sorted = nums.slice().sort(function (a, b) { return a - b; });
+              var words = {};
+              parts.forEach(function (p) { words[p] = (words[p] || 0) + 1; });
+              return sum + ' ' + sorted.join(',') + ' ' + JSON.stringify(words).length;
+            }
+            """;
+
+    static final String SCRIPT_TESTS = """
+            assert.equal(solve('1 2 3'), '6 1,2,3 19');
+            assert.equal(solve('5'), '5 5 7');
+            console.log('ok');
+            """;
+
+    static final String PY_SOLUTION = """
+            def solve(data):
+                parts = data.split()
+                nums = [int(p) for p in parts]
+                words = {}
+                for p in parts:
+                    words[p] = words.get(p, 0) + 1
+                return str(sum(nums)) + ' ' + ','.join(str(n) for n in sorted(nums)) + ' ' + str(len(words))
+
+            if __name__ == '__main__':
+                import sys
+                print(solve(sys.stdin.read().strip()))
+            """;
+
+    private final JsAutoGrader grader;
+    // null, gdy Python oceniany jest w Judge0
+    private final PyAutoGrader pyGrader;
+    private final CodeExecutionService judge0;
+    private final GradingMetrics metrics;
+    private final boolean enabled;
+    private final long budgetMs;
+    private final int maxIterations;
+    private final boolean judge0Probe;
+    private final List<ProgrammingTestCase> cases = corpusCases();
+
+    private volatile boolean done;
+    private volatile int iterations;
+    private volatile long durationMs;
+
+    public GraderWarmup(JsAutoGrader grader, PyAutoGrader pyGrader, CodeExecutionService judge0, GradingMetrics metrics,
+                        @Value("${app.grading.python.engine:graalpy}") String pythonEngine,
+                        @Value("${app.grading.warmup.enabled:true}") boolean enabled,
+                        @Value("${app.grading.warmup.budget-ms:20000}") long budgetMs,
+                        @Value("${app.grading.warmup.max-iterations:200}") int maxIterations,
+                        @Value("${app.grading.warmup.judge0-probe:false}") boolean judge0Probe) {
+        this.grader = grader;
+        this.pyGrader = "judge0".equalsIgnoreCase(pythonEngine) ? null : pyGrader;
+        this.judge0 = judge0;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.budgetMs = budgetMs;
+        this.maxIterations = maxIterations;
+        this.judge0Probe = judge0Probe;
+        Gauge.builder("grading.warmup.done", this, w -> w.done ? 1 : 0)
+                .description("1 gdy rozgrzewka silnika oceniającego się zakończyła")
+                .register(metrics.registry());
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!enabled || budgetMs <= 0 || maxIterations <= 0) {
+            done = true;
+            return;
+        }
+        Thread t = new Thread(this::run, "grader-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    void run() {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        long first = 0, last = 0;
+        try {
+            int i = 0;
+            while (i < maxIterations && System.nanoTime() < deadline) {
+                long t0 = System.nanoTime();
+                grader.gradeWithCases(SOLUTION, cases);
+                long t1 = System.nanoTime();
+                grader.grade(SOLUTION, SCRIPT_TESTS, 10);
+                long t2 = System.nanoTime();
+                metrics.recordWarmup("cases", t1 - t0);
+                metrics.recordWarmup("script", t2 - t1);
+                if (pyGrader != null) {
+                    pyGrader.execute(PY_SOLUTION, cases.get(i % cases.size()).getInput());
+                    long t3 = System.nanoTime();
+                    metrics.recordWarmup("python", t3 - t2);
+                    t2 = t3;
+                }
+                if (i == 0) first = t2 - t0;
+                last = t2 - t0;
+                iterations = ++i;
+            }
+            if (judge0Probe) {
+                long t0 = System.nanoTime();
+                boolean ok = judge0.probe();
+                metrics.recordWarmup("judge0", System.nanoTime() - t0);
+                if (!ok) log.warn("Judge0 nie odpowiada na próbę rozgrzewkową");
+            }
+        } catch (RuntimeException e) {
+            // rozgrzewka nie może zablokować instancji – błąd tylko logujemy
+            log.warn("Rozgrzewka silnika oceniającego przerwana", e);
+        } finally {
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            done = true;
+            log.info("Rozgrzewka silnika: {} iteracji w {} ms (pierwsza {} ms, ostatnia {} ms)",
+                    iterations, durationMs, TimeUnit.NANOSECONDS.toMillis(first), TimeUnit.NANOSECONDS.toMillis(last));
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder b = done ? Health.up() : Health.outOfService();
+        return b.withDetail("iterations", iterations)
+                .withDetail("durationMs", done ? durationMs : 0)
+                .build();
+    }
+
+    static List<ProgrammingTestCase> corpusCases() {
+        String[][] io = {
+                {"1 2 3", "6 1,2,3 19"},
+                {"5", "5 5 7"},
+                {"10 -2 7 7", "22 -2,7,7,10 21"},
+                {"0 0", "0 0,0 7"},
+                {"3 1 2", "x"}, // celowo błędny – ścieżka porażki też ma być rozgrzana
+        };
+        List<ProgrammingTestCase> list = new ArrayList<>();
+        for (int i = 0; i < io.length; i++) {
+            ProgrammingTestCase c = new ProgrammingTestCase();
+            c.setInput(io[i][0]);
+            c.setExpected(io[i][1]);
+            c.setPoints(2);
+            c.setOrder(i);
+            list.add(c);
+        }
+        return list;
+    }
+}
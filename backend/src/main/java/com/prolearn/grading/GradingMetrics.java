@@ -0,0 +1,180 @@
+package com.prolearn.grading;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metryki oceniania (Micrometer, eksport przez /actuator/prometheus).
+ * Tagi: language, mode (EVAL/IO/MIXED/SCRIPT), outcome (pass/fail/timeout/error).
+ */
+@Component
+public class GradingMetrics {
+
+    public static final String PASS = "pass";
+    public static final String FAIL = "fail";
+    public static final String TIMEOUT = "timeout";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    public GradingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Instancja bez eksportu – dla kodu tworzącego graderów ręcznie (benchmarki, testy). */
+    public static GradingMetrics noop() {
+        return new GradingMetrics(new SimpleMeterRegistry());
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /** Pełne wykonanie w silniku (JsAutoGrader.grade / gradeWithCases). */
+    public void recordExecution(String operation, String language, String mode, String outcome, long nanos) {
+        Timer.builder("grading.execution")
+                .description("Czas wykonania kodu ucznia w silniku oceniającym")
+                .tag("operation", operation)
+                .tag("language", language)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Utworzenie silnika/kontekstu GraalVM. */
+    public void recordContextCreation(String language, long nanos) {
+        Timer.builder("grading.context.creation")
+                .description("Czas tworzenia kontekstu GraalVM")
+                .tag("language", language)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Czas oczekiwania zadania w kolejce executora przed startem wykonania. */
+    public void recordQueueWait(String language, long nanos) {
+        Timer.builder("grading.queue.wait")
+                .description("Czas oczekiwania na wątek wykonujący")
+                .tag("language", language)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Czas oczekiwania w kolejce GradingScheduler; started=false – porzucone po przekroczeniu limitu. */
+    public void recordSchedulerWait(String priority, long nanos, boolean started) {
+        Timer.builder("grading.scheduler.wait")
+                .description("Czas oczekiwania w kolejce priorytetowej oceniania")
+                .tag("priority", priority)
+                .tag("result", started ? "started" : "expired")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Jedna iteracja korpusu rozgrzewkowego (GraderWarmup); workload = cases/script/judge0. */
+    public void recordWarmup(String workload, long nanos) {
+        Timer.builder("grading.warmup.iteration")
+                .description("Czas iteracji rozgrzewki silnika przed gotowością")
+                .tag("workload", workload)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Pojedynczy przypadek testowy. */
+    public void recordCase(String language, String mode, String outcome, long nanos) {
+        Timer.builder("grading.case.duration")
+                .description("Czas wykonania pojedynczego przypadku testowego")
+                .tag("language", language)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Żądanie HTTP do Judge0: status HTTP oraz status wykonania zwrócony przez Judge0. */
+    public void recordJudge0(String httpStatus, String judge0Status, long nanos) {
+        Timer.builder("grading.judge0.request")
+                .description("Opóźnienie żądań do Judge0")
+                .tag("http_status", httpStatus)
+                .tag("status", judge0Status)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Ocena zgłoszenia end-to-end (gradeAuto). */
+    public void recordSubmission(String language, String mode, String outcome, long nanos) {
+        Timer.builder("grading.submission")
+                .description("Czas automatycznej oceny zgłoszenia")
+                .tag("language", language)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("grading.submissions")
+                .description("Liczba ocenionych zgłoszeń")
+                .tag("language", language)
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /** Bajty wyjścia programu pominięte przez {@link BoundedOutputStream}. */
+    public void recordOutputTruncated(String language, long bytes) {
+        registry.summary("grading.output.truncated", "language", language, "unit", "bytes").record(bytes);
+    }
+
+    /** Serializacja raportu testów do JSON. */
+    public void recordReportSerialization(int bytes, long nanos) {
+        Timer.builder("grading.report.serialization")
+                .description("Czas serializacji raportu testów")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        registry.summary("grading.report.size", "unit", "chars").record(bytes);
+    }
+
+    /** Normalizuje nazwę języka do niskokardynalnego tagu. */
+    public static String languageTag(String lang) {
+        if (lang == null || lang.isBlank()) return "unknown";
+        String l = lang.toLowerCase();
+        if (l.equals("javascript") || l.equals("js") || l.equals("node")) return "javascript";
+        if (l.startsWith("py")) return "python";
+        return "other";
+    }
+
+    /** Tryb zestawu przypadków: EVAL, IO, MIXED lub SCRIPT (brak przypadków – stary skrypt testów). */
+    public static String modeTag(boolean hasEval, boolean hasIo) {
+        if (hasEval && hasIo) return "MIXED";
+        if (hasIo) return "IO";
+        if (hasEval) return "EVAL";
+        return "SCRIPT";
+    }
+
+    /** Wynik oceny na podstawie raportu (pola: error, errors, tests, failed). */
+    public static String outcomeOf(Map<String,?> report) {
+        if (report == null || report.containsKey("error")) return ERROR;
+        if (report.get("errors") instanceof List<?> errors && !errors.isEmpty()) {
+            return errors.stream().anyMatch(e -> String.valueOf(e).startsWith("Time limit")) ? TIMEOUT : ERROR;
+        }
+        if (report.get("tests") instanceof List<?> tests) {
+            if (tests.isEmpty()) return ERROR;
+            boolean timeout = tests.stream().anyMatch(t -> t instanceof Map<?,?> m && String.valueOf(m.get("error")).contains("Time limit"));
+            if (timeout) return TIMEOUT;
+            return tests.stream().allMatch(t -> t instanceof Map<?,?> m && Boolean.TRUE.equals(m.get("passed"))) ? PASS : FAIL;
+        }
+        return report.get("failed") instanceof Number n && n.longValue() == 0 ? PASS : FAIL;
+    }
+}
@@ -0,0 +1,276 @@
+package com.prolearn.grading;
+
+import com.prolearn.ratelimit.ThrottledException;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Kolejka wykonań kodu przed JsAutoGrader / CodeExecutionService, obsługiwana przez stałą pulę wątków.
+ * Między priorytetami działa ważone start-time fair queueing (wagi {@code app.grading.weights.*}, domyślnie
+ * SUBMIT 8 : DEMO 4 : RUN 2 : REGRADE 1), więc pełna kolejka zgłoszeń spowalnia uruchomienia, ale ich nie
+ * zagładza; przy remisie wygrywa wyższy priorytet. W obrębie priorytetu kolejka jest sprawiedliwa względem
+ * klas szkolnych, więc jedna klasa spamująca "Uruchom" nie blokuje pozostałych.
+ */
+@Component
+public class GradingScheduler {
+
+    public enum Priority {
+        /** Zgłoszenie ucznia (/submissions, /submit). */
+        SUBMIT,
+        /** Rozwiązanie wzorcowe nauczyciela (/run-demo). */
+        DEMO,
+        /** Uruchomienie próbne ucznia (/run). */
+        RUN,
+        /** Ponowna ocena po zmianie testów (RegradeService) – tylko gdy nie czeka nic na żywo. */
+        REGRADE
+    }
+
+    static final String OVERLOADED = "Serwer jest przeciążony – spróbuj ponownie za chwilę";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Map<Priority, FairQueue> queues = new EnumMap<>(Priority.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final GradingMetrics metrics;
+    private final long queueTimeoutMs;
+    private volatile boolean shutdown;
+    private long seq;
+    // czas wirtualny między priorytetami: znacznik startu ostatnio obsłużonego priorytetu
+    private double virtualTime;
+
+    public GradingScheduler(GradingMetrics metrics, int workers, long queueTimeoutMs) {
+        this(metrics, workers, queueTimeoutMs, 8, 4, 2, 1);
+    }
+
+    @Autowired
+    public GradingScheduler(GradingMetrics metrics,
+                            @Value("${app.grading.workers:0}") int workers,
+                            @Value("${app.grading.queue-timeout-ms:30000}") long queueTimeoutMs,
+                            @Value("${app.grading.weights.submit:8}") double submitWeight,
+                            @Value("${app.grading.weights.demo:4}") double demoWeight,
+                            @Value("${app.grading.weights.run:2}") double runWeight,
+                            @Value("${app.grading.weights.regrade:1}") double regradeWeight) {
+        this.metrics = metrics;
+        this.queueTimeoutMs = queueTimeoutMs;
+        double[] weights = {submitWeight, demoWeight, runWeight, regradeWeight};
+        for (Priority p : Priority.values()) {
+            FairQueue q = new FairQueue(Math.max(0.01, weights[p.ordinal()]));
+            queues.put(p, q);
+            Gauge.builder("grading.scheduler.queued", q, FairQueue::size)
+                    .description("Liczba wykonań oczekujących w kolejce")
+                    .tag("priority", p.name())
+                    .register(metrics.registry());
+        }
+        int n = workers > 0 ? workers : Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int i = 0; i < n; i++) {
+            Thread t = new Thread(this::workLoop, "grading-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            this.workers.add(t);
+        }
+    }
+
+    /**
+     * Wykonuje {@code work} na wątku puli i czeka na wynik. {@code fairKey} to klucz sprawiedliwości
+     * (np. id klasy). Zadanie, które nie wystartuje w ciągu queue-timeout-ms, kończy się 503.
+     */
+    public <T> T execute(Priority priority, Object fairKey, Callable<T> work) {
+        Job<T> job = new Job<>(priority, fairKey == null ? "" : fairKey, work);
+        lock.lock();
+        try {
+            if (shutdown) throw new ThrottledException(HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED, 1);
+            job.seq = seq++;
+            FairQueue q = queues.get(priority);
+            // priorytet wraca do obsługi: nie dostaje kredytu za czas, gdy był pusty
+            if (q.size() == 0) q.start = Math.max(virtualTime, q.finish);
+            q.add(job);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            try {
+                return job.result.get(queueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                if (cancelIfQueued(job)) {
+                    metrics.recordSchedulerWait(priority.name(), System.nanoTime() - job.enqueuedAt, false);
+                    throw new ThrottledException(HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED, 5);
+                }
+                // już się wykonuje – ma własne limity czasu, czekamy do końca
+                return job.result.get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            cancelIfQueued(job);
+            throw new IllegalStateException("Przerwano oczekiwanie na ocenę", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Liczba oczekujących wykonań na żywo (wszystkie priorytety poza REGRADE). */
+    public int liveQueued() {
+        lock.lock();
+        try {
+            int n = 0;
+            for (Priority p : Priority.values()) if (p != Priority.REGRADE) n += queues.get(p).size();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Liczba oczekujących zadań w danym priorytecie. */
+    public int queued(Priority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private boolean cancelIfQueued(Job<?> job) {
+        lock.lock();
+        try {
+            if (job.started) return false;
+            queues.get(job.priority).remove(job);
+            job.result.cancel(false);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            Job<?> job;
+            lock.lock();
+            try {
+                while ((job = next()) == null) {
+                    if (shutdown) return;
+                    available.await();
+                }
+                job.started = true;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            metrics.recordSchedulerWait(job.priority.name(), System.nanoTime() - job.enqueuedAt, true);
+            job.run();
+        }
+    }
+
+    /** Priorytet o najmniejszym znaczniku startu; po obsłudze znacznik przesuwa się o 1 / waga. */
+    private Job<?> next() {
+        FairQueue best = null;
+        for (Priority p : Priority.values()) {
+            FairQueue q = queues.get(p);
+            if (q.size() > 0 && (best == null || q.start < best.start)) best = q;
+        }
+        if (best == null) {
+            virtualTime = 0;
+            for (FairQueue q : queues.values()) q.finish = 0;
+            return null;
+        }
+        virtualTime = best.start;
+        best.finish = best.start + 1.0 / best.weight;
+        best.start = best.finish;
+        return best.poll();
+    }
+
+    private static final class Job<T> {
+        final Priority priority;
+        final Object fairKey;
+        final Callable<T> work;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        long seq;
+        double startTag;
+        boolean started;
+
+        Job(Priority priority, Object fairKey, Callable<T> work) {
+            this.priority = priority;
+            this.fairKey = fairKey;
+            this.work = work;
+        }
+
+        void run() {
+            try {
+                result.complete(work.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * Start-time fair queueing: każde zadanie dostaje znacznik startu max(czas wirtualny, koniec poprzedniego
+     * zadania tej samej klasy); obsługiwane jest zadanie o najmniejszym znaczniku. Przy równych wagach
+     * daje to round-robin między klasami niezależnie od długości ich kolejek.
+     */
+    static final class FairQueue {
+        private final PriorityQueue<Job<?>> queue = new PriorityQueue<>(
+                Comparator.<Job<?>>comparingDouble(j -> j.startTag).thenComparingLong(j -> j.seq));
+        private final Map<Object, Double> lastFinish = new HashMap<>();
+        private double virtualTime;
+        // znaczniki priorytetu w kolejce nadrzędnej (GradingScheduler.next)
+        final double weight;
+        double start;
+        double finish;
+
+        FairQueue(double weight) {
+            this.weight = weight;
+        }
+
+        void add(Job<?> job) {
+            double start = Math.max(virtualTime, lastFinish.getOrDefault(job.fairKey, 0.0));
+            job.startTag = start;
+            lastFinish.put(job.fairKey, start + 1.0);
+            queue.add(job);
+        }
+
+        Job<?> poll() {
+            Job<?> job = queue.poll();
+            if (job != null) virtualTime = job.startTag;
+            if (queue.isEmpty()) {
+                lastFinish.clear();
+                virtualTime = 0;
+            }
+            return job;
+        }
+
+        void remove(Job<?> job) {
+            queue.remove(job);
+        }
+
+        int size() {
+            return queue.size();
+        }
+    }
+}
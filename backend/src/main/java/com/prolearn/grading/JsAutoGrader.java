@@ -1,36 +1,117 @@
 package com.prolearn.grading;
 
+import com.prolearn.task.ProgrammingTestCase;
+import jakarta.annotation.PreDestroy;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.graalvm.polyglot.proxy.ProxyExecutable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Service
 public class JsAutoGrader {
 
+    private static final String LANG = "javascript";
+
+    private static final int MAX_CODE_LENGTH = 20000;
+    private static final int MAX_TESTS_LENGTH = 20000;
+    static final String OUTPUT_LIMIT = "Output limit exceeded";
+    static final String TIME_LIMIT = ExecutionBudget.TIME_LIMIT;
+    static final String STATEMENT_LIMIT = ExecutionBudget.STATEMENT_LIMIT;
+    static final String CPU_LIMIT = ExecutionBudget.CPU_LIMIT;
+
+    private final GradingMetrics metrics;
+    private final int outputLimitBytes;
+    private final long outputAbortBytes;
+    private final long defaultStatementLimit;
+    private final int defaultCpuTimeMs;
+    private final int caseShards;
+    // wspólna, ograniczona pula dla shardów przypadków EVAL; null gdy shardowanie wyłączone
+    private final ExecutorService casePool;
+    // wspólny silnik: skompilowany kod (JIT Truffle) i sparsowane źródła przeżywają pojedynczy kontekst,
+    // więc rozgrzewka przy starcie (GraderWarmup) przyspiesza kolejne oceny
+    private final Engine engine = Engine.newBuilder().build();
+
+    public JsAutoGrader(GradingMetrics metrics) {
+        this(metrics, 65536, 4L << 20, 50_000_000L, 2000, 1, 0);
+    }
+
+    @Autowired
+    public JsAutoGrader(GradingMetrics metrics,
+                        @Value("${app.grading.output.limit-bytes:65536}") int outputLimitBytes,
+                        @Value("${app.grading.output.abort-bytes:4194304}") long outputAbortBytes,
+                        @Value("${app.grading.limits.statements:50000000}") long defaultStatementLimit,
+                        @Value("${app.grading.limits.cpu-time-ms:2000}") int defaultCpuTimeMs,
+                        @Value("${app.grading.cases.shards:1}") int caseShards,
+                        @Value("${app.grading.cases.pool-size:0}") int casePoolSize) {
+        this.metrics = metrics;
+        this.outputLimitBytes = outputLimitBytes;
+        this.outputAbortBytes = outputAbortBytes;
+        this.defaultStatementLimit = defaultStatementLimit;
+        this.defaultCpuTimeMs = defaultCpuTimeMs;
+        this.caseShards = Math.max(1, caseShards);
+        if (this.caseShards > 1) {
+            int size = casePoolSize > 0 ? casePoolSize : Runtime.getRuntime().availableProcessors();
+            AtomicInteger seq = new AtomicInteger();
+            this.casePool = Executors.newFixedThreadPool(size, r -> {
+                Thread t = new Thread(r, "grading-cases-" + seq.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.casePool = null;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (casePool != null) casePool.shutdownNow();
+        try { engine.close(true); } catch (Exception ignore) {}
+    }
+
     public static class GradeResult {
         public final int passed, failed, score;
         public final String stdout;
         public final List<String> errors;
+        /** Wyniki kolejnych przypadków (tylko gradeWithCases); pusta lista dla skryptu testów. */
+        public final List<Map<String,Object>> tests;
 
         public GradeResult(int passed, int failed, String stdout, List<String> errors, int score) {
+            this(passed, failed, stdout, errors, score, List.of());
+        }
+
+        public GradeResult(int passed, int failed, String stdout, List<String> errors, int score, List<Map<String,Object>> tests) {
             this.passed = passed;
             this.failed = failed;
             this.stdout = stdout;
             this.errors = errors;
             this.score = score;
+            this.tests = tests;
         }
     }
 
     public GradeResult grade(String userCode, String testsScript, int maxPoints) {
+        return grade(userCode, testsScript, maxPoints, ExecutionLimits.DEFAULT);
+    }
+
+    public GradeResult grade(String userCode, String testsScript, int maxPoints, ExecutionLimits limits) {
         // Safety: guard against excessively large scripts
-        final int MAX_CODE_LENGTH = 20000;
-        final int MAX_TESTS_LENGTH = 20000;
         if (userCode != null && userCode.length() > MAX_CODE_LENGTH) {
             List<String> errors = new ArrayList<>();
             errors.add("User code too large");
@@ -41,15 +122,18 @@ public class JsAutoGrader {
             errors.add("Tests script too large");
             return new GradeResult(0,1,"",errors,0);
         }
-        Engine engine = Engine.newBuilder().build();
+        long started = System.nanoTime();
 
-        // Zbieranie stdout z JS
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // Zbieranie stdout z JS (ograniczone – pętla z console.log nie zapełni sterty)
+        AtomicReference<Context> running = new AtomicReference<>();
+        BoundedOutputStream baos = capture(running);
+        ExecutionBudget budget = budget(running, limits);
 
         Context.Builder builder = Context.newBuilder("js")
                 .engine(engine)
                 .allowAllAccess(false)              // bezpieczniej
                 .option("js.ecmascript-version", "2022")
+                .resourceLimits(budget.resourceLimits())
                 .out(baos);                         // przechwycenie console.log/print
 
         String tests = (testsScript == null) ? "" : testsScript;
@@ -71,31 +155,18 @@ public class JsAutoGrader {
         List<String> errors = new ArrayList<>();
 
         Context ctx = builder.build();
+        running.set(ctx);
+        ctx.initialize("js"); // inicjalizacja realmu poza budżetem CPU przypadku
+        metrics.recordContextCreation(LANG, System.nanoTime() - started);
         try {
-            ExecutorService ex = Executors.newSingleThreadExecutor();
-            Future<?> fut = ex.submit(() -> {
+            String error = budget.supervise(metrics, LANG, () -> {
+                budget.begin(-1);
                 ctx.eval("js", userCode == null ? "" : userCode);
                 ctx.eval("js", prelude);
                 ctx.eval("js", "__runTests()");
                 return null;
-            });
-
-            try {
-                fut.get(2, TimeUnit.SECONDS); // timeout 2s
-            } catch (TimeoutException te) {
-                fut.cancel(true);
-                errors.add("Time limit exceeded");
-            } catch (ExecutionException ee) {
-                Throwable cause = ee.getCause();
-                errors.add("Runtime: " + (cause == null ? ee.toString() : cause.toString()));
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                errors.add("Interrupted");
-            } finally {
-                try { fut.cancel(true); } catch (Exception ignore) {}
-                ex.shutdownNow();
-                try { ex.awaitTermination(1, TimeUnit.SECONDS); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
-            }
+            }, cause -> baos.isAborted() ? OUTPUT_LIMIT : "Runtime: " + cause);
+            if (error != null) errors.add(error);
         } finally {
             try { ctx.close(true); } catch (Exception ignore) {}
         }
@@ -104,106 +175,372 @@ public class JsAutoGrader {
         int passed = errors.isEmpty() ? 1 : 0;
         int score  = failed == 0 ? maxPoints : Math.max(0, maxPoints - failed);
 
-        String stdout = baos.toString(StandardCharsets.UTF_8);
+        String stdout = collect(baos);
+        metrics.recordExecution("grade", LANG, "SCRIPT", outcome(errors, failed), System.nanoTime() - started);
         return new GradeResult(passed, failed, stdout, errors, score);
     }
 
-    // New: grade with explicit per-test cases (input/expected/points)
-    public GradeResult gradeWithCases(String userCode, java.util.List<com.prolearn.task.ProgrammingTestCase> cases) {
-        // generate JS test script that outputs JSON array of results
-        StringBuilder sb = new StringBuilder();
-        sb.append("var __results = [];\n");
-        for (var c : cases) {
-            String in = c.getInput() == null ? "" : c.getInput().replace("\\","\\\\").replace("\"","\\\"").replace("\n","\\n");
-            String expected = c.getExpected() == null ? "" : c.getExpected().replace("\\","\\\\").replace("\"","\\\"").replace("\n","\\n");
-
-            // Both branches call solve(input) when available; we then compare the stringified result to expected.
-            // EVAL: treat input as a single string argument to solve().
-            // IO: same for JS grader; in non-JS languages IO is handled elsewhere.
-            String runner = "try {\n" +
-                    "  var input = \"" + in + "\";\n" +
-                    "  var __res = null;\n" +
-                    "  try { if (typeof solve === 'function') { __res = solve(input); } else if (typeof main === 'function') { __res = main(input); } } catch(e) { throw e }\n" +
-                    "  var __actualStr = (__res !== null && typeof __res !== 'undefined') ? String(__res) : '';\n" +
-                    "  var __ok = (String(__actualStr).trim() === \"" + expected + "\".trim());\n" +
-                    "  __results.push({passed: __ok, actual: __actualStr, expected: \"" + expected + "\", points: (__ok ? " + c.getPoints() + " : 0)});\n" +
-                    "} catch(e) { __results.push({passed:false, error: String(e), points:0}); }\n";
-            sb.append(runner);
-        }
-        sb.append("print(JSON.stringify(__results));\n");
-
-        String testsScript = sb.toString();
-
-        // reuse existing grade logic but run generated testsScript and parse stdout
-        Engine engine = Engine.newBuilder().build();
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * Ocena przypadkami EVAL: wejścia i oczekiwane wyniki trafiają do kontekstu przez powiązania (ProxyArray),
+     * a wyniki wracają do hosta przez {@code report} – bez sklejania skryptu i bez parsowania stdout.
+     * Zgodność wyniku z oczekiwanym sprawdza host; {@link GradeResult#stdout} zawiera wyłącznie wyjście ucznia.
+     * Każdy przypadek dostaje własny budżet instrukcji i czasu CPU ({@code begin} zeruje limity kontekstu).
+     * Przy {@code app.grading.cases.shards > 1} przypadki są rozdzielane między kilka kontekstów wykonywanych
+     * równolegle na wspólnej puli. Przekroczenie limitu oblewa tylko przerwany przypadek (patrz runShard).
+     */
+    public GradeResult gradeWithCases(String userCode, List<ProgrammingTestCase> cases) {
+        return gradeWithCases(userCode, cases, ExecutionLimits.DEFAULT);
+    }
+
+    public GradeResult gradeWithCases(String userCode, List<ProgrammingTestCase> cases, ExecutionLimits limits) {
+        if (userCode != null && userCode.length() > MAX_CODE_LENGTH) {
+            List<String> errors = new ArrayList<>();
+            errors.add("User code too large");
+            return new GradeResult(0, cases.size(), "", errors, 0, notRun(cases, "User code too large"));
+        }
+        long started = System.nanoTime();
+        int shards = casePool == null ? 1 : Math.min(caseShards, cases.size());
+        Shard all = shards <= 1 ? runShard(userCode, cases, limits) : runSharded(userCode, cases, limits, shards);
+
+        List<Map<String,Object>> tests = all.tests();
+        int passed = 0;
+        int failed = 0;
+        int score = 0;
+        for (Map<String,Object> r : tests) {
+            boolean ok = Boolean.TRUE.equals(r.get("passed"));
+            if (ok) { passed++; score += (Integer) r.get("points"); } else { failed++; }
+            String caseOutcome = ok ? GradingMetrics.PASS : (r.containsKey("error") ? GradingMetrics.ERROR : GradingMetrics.FAIL);
+            metrics.recordCase(LANG, "EVAL", caseOutcome, TimeUnit.MILLISECONDS.toNanos(((Number) r.get("timeMs")).longValue()));
+        }
+
+        metrics.recordExecution("cases", LANG, "EVAL", outcome(all.errors(), failed), System.nanoTime() - started);
+        return new GradeResult(passed, failed, all.stdout(), all.errors(), score, tests);
+    }
+
+    /** Wyniki, wyjście i błędy jednego kontekstu (albo scalone z kilku). */
+    private record Shard(List<Map<String,Object>> tests, String stdout, List<String> errors) {}
+
+    /**
+     * Rozdziela przypadki (wg {@link ProgrammingTestCase#getOrder()}) na {@code shards} kontekstów, na przemian,
+     * żeby ciężkie przypadki nie trafiły do jednego. Pierwszy shard wykonuje wątek wywołujący, pozostałe pula.
+     * Wyniki są scalane w kolejności {@code order}.
+     */
+    private Shard runSharded(String userCode, List<ProgrammingTestCase> cases, ExecutionLimits limits, int shards) {
+        List<ProgrammingTestCase> sorted = new ArrayList<>(cases);
+        sorted.sort(Comparator.comparingInt(ProgrammingTestCase::getOrder)); // stabilne – remisy wg listy
+        List<List<ProgrammingTestCase>> parts = new ArrayList<>(shards);
+        for (int s = 0; s < shards; s++) parts.add(new ArrayList<>());
+        for (int i = 0; i < sorted.size(); i++) parts.get(i % shards).add(sorted.get(i));
+
+        List<Future<Shard>> futures = new ArrayList<>(shards - 1);
+        for (int s = 1; s < shards; s++) {
+            List<ProgrammingTestCase> part = parts.get(s);
+            try {
+                futures.add(casePool.submit(() -> runShard(userCode, part, limits)));
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(runShard(userCode, part, limits)));
+            }
+        }
+        List<Shard> results = new ArrayList<>(shards);
+        results.add(runShard(userCode, parts.get(0), limits));
+        for (int s = 1; s < shards; s++) {
+            try {
+                results.add(futures.get(s - 1).get());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                results.add(new Shard(notRun(parts.get(s), "Interrupted"), "", List.of("Interrupted")));
+            } catch (ExecutionException ee) {
+                String error = "Runtime: " + ee.getCause();
+                results.add(new Shard(notRun(parts.get(s), error), "", List.of(error)));
+            }
+        }
+
+        List<Map<String,Object>> tests = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) tests.add(results.get(i % shards).tests().get(i / shards));
+        StringBuilder stdout = new StringBuilder();
+        List<String> errors = new ArrayList<>();
+        for (Shard r : results) {
+            stdout.append(r.stdout());
+            for (String e : r.errors()) if (!errors.contains(e)) errors.add(e);
+        }
+        return new Shard(tests, stdout.toString(), errors);
+    }
+
+    /**
+     * Wykonuje przypadki shardu po kolei; wyniki w kolejności listy {@code cases}. Przekroczenie limitu oblewa
+     * tylko przerwany przypadek – kolejne biegną dalej w świeżym kontekście ze świeżym budżetem.
+     */
+    private Shard runShard(String userCode, List<ProgrammingTestCase> cases, ExecutionLimits limits) {
+        int n = cases.size();
+        AtomicReferenceArray<Map<String,Object>> reported = new AtomicReferenceArray<>(n);
+        StringBuilder stdout = new StringBuilder();
+        List<String> errors = new ArrayList<>();
+        int from = 0;
+        while (from < n) {
+            Run run = runCases(userCode, cases, limits, from, reported);
+            stdout.append(run.stdout());
+            if (run.error() == null) break;
+            if (!errors.contains(run.error())) errors.add(run.error());
+            // zawiódł kod najwyższego poziomu – każdy kolejny kontekst skończyłby się tak samo
+            if (run.stoppedAt() < 0 || Thread.currentThread().isInterrupted()) break;
+            reported.compareAndSet(run.stoppedAt(), null,
+                    caseResult(cases.get(run.stoppedAt()), null, run.error(), run.stoppedTimeMs(), run.stoppedCpuMs()));
+            from = run.stoppedAt() + 1;
+        }
+
+        // przypadki bez raportu: błąd kodu najwyższego poziomu albo (gdy go nie było) niewykonane
+        List<Map<String,Object>> tests = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<String,Object> r = reported.get(i);
+            tests.add(r != null ? r : caseResult(cases.get(i), null, errors.isEmpty() ? "Nie wykonano" : errors.get(errors.size() - 1), 0, 0));
+        }
+        String out = stdout.length() > outputLimitBytes ? BoundedOutputStream.truncate(stdout.toString(), outputLimitBytes) : stdout.toString();
+        return new Shard(tests, out, errors);
+    }
+
+    /** Wynik jednego kontekstu shardu: błąd i przypadek, który go przerwał (-1 = kod najwyższego poziomu). */
+    private record Run(String stdout, String error, int stoppedAt, long stoppedTimeMs, long stoppedCpuMs) {}
+
+    /** Wykonuje przypadki od {@code from} w jednym kontekście, zapisując raporty do {@code reported}. */
+    private Run runCases(String userCode, List<ProgrammingTestCase> cases, ExecutionLimits limits, int from,
+                         AtomicReferenceArray<Map<String,Object>> reported) {
+        long started = System.nanoTime();
+        AtomicReference<Context> running = new AtomicReference<>();
+        BoundedOutputStream baos = capture(running);
+        ExecutionBudget budget = budget(running, limits);
 
         Context.Builder builder = Context.newBuilder("js")
                 .engine(engine)
                 .allowAllAccess(false)
                 .option("js.ecmascript-version", "2022")
+                .resourceLimits(budget.resourceLimits())
                 .out(baos);
 
-        List<String> errors = new ArrayList<>();
-        String stdout = "";
+        int n = cases.size();
+        Object[] inputs = new Object[n];
+        for (int i = 0; i < n; i++) inputs[i] = cases.get(i).getInput() == null ? "" : cases.get(i).getInput();
+        ProxyExecutable begin = args -> {
+            budget.begin(args[0].asInt());
+            return null;
+        };
+        // po przekroczeniu limitu przerwanie wątku trafia do catch w harnessie – takich raportów nie przyjmujemy
+        ProxyExecutable report = args -> {
+            int i = args[0].asInt();
+            if (i < 0 || i >= n || budget.stopped.get()) return null;
+            String actual = args[1].isNull() ? null : BoundedOutputStream.truncate(args[1].asString(), outputLimitBytes);
+            String error = args[2].isNull() ? null : args[2].asString();
+            // czas mierzy host od begin(i) – Date.now() w kontekście uczeń może podmienić
+            reported.compareAndSet(i, null, caseResult(cases.get(i), actual, error, budget.caseWallMillis(), budget.caseCpuMillis()));
+            return null;
+        };
+
         Context ctx2 = builder.build();
+        running.set(ctx2);
+        ctx2.initialize("js"); // inicjalizacja realmu poza budżetem CPU przypadku
+        metrics.recordContextCreation(LANG, System.nanoTime() - started);
+        String error;
         try {
-            ExecutorService ex = Executors.newSingleThreadExecutor();
-            Future<?> fut = ex.submit(() -> {
+            error = budget.supervise(metrics, LANG, () -> {
+                budget.begin(-1);
                 ctx2.eval("js", userCode == null ? "" : userCode);
-                ctx2.eval("js", "var console = { log: function(){ var s = Array.prototype.map.call(arguments, function(x){ return String(x); }).join(' '); print(s); } };\n");
-                ctx2.eval("js", "function __runTests(){ %TESTS% }".replace("%TESTS%", testsScript));
-                ctx2.eval("js", "__runTests()");
+                ctx2.eval(CONSOLE_SOURCE);
+                ctx2.eval(CASES_HARNESS).execute(ProxyArray.fromArray(inputs), from, begin, report);
                 return null;
-            });
-
-            try {
-                fut.get(2, TimeUnit.SECONDS);
-            } catch (TimeoutException te) {
-                fut.cancel(true);
-                errors.add("Time limit exceeded");
-            } catch (ExecutionException ee) {
-                Throwable cause = ee.getCause();
-                errors.add("Runtime: " + (cause == null ? ee.toString() : cause.toString()));
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                errors.add("Interrupted");
-            } finally {
-                try { fut.cancel(true); } catch (Exception ignore) {}
-                ex.shutdownNow();
-                try { ex.awaitTermination(1, TimeUnit.SECONDS); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
-            }
-            stdout = baos.toString(StandardCharsets.UTF_8);
+            }, cause -> baos.isAborted() ? OUTPUT_LIMIT : "Runtime: " + cause);
         } finally {
             try { ctx2.close(true); } catch (Exception ignore) {}
         }
+        return new Run(collect(baos), error, budget.current, budget.stoppedWallMs, budget.stoppedCpuMs);
+    }
 
-        // try to parse stdout as JSON array of results
-        int passed = 0;
-        int failed = 0;
-        int score = 0;
+    /** Wynik przypadku w formacie raportu (id, input, expected, actual, passed, points, timeMs, cpuMs, error). */
+    private static Map<String,Object> caseResult(ProgrammingTestCase c, String actual, String error, long timeMs, long cpuMs) {
+        String expected = c.getExpected() == null ? "" : c.getExpected();
+        boolean ok = error == null && actual != null && actual.trim().equals(expected.trim());
+        Map<String,Object> r = new HashMap<>();
+        r.put("id", c.getId());
+        r.put("input", c.getInput());
+        r.put("expected", expected);
+        if (actual != null) r.put("actual", actual);
+        r.put("passed", ok);
+        r.put("points", ok ? c.getPoints() : 0);
+        r.put("timeMs", timeMs);
+        r.put("cpuMs", cpuMs);
+        if (error != null) r.put("error", error);
+        return r;
+    }
+
+    private static List<Map<String,Object>> notRun(List<ProgrammingTestCase> cases, String error) {
+        List<Map<String,Object>> tests = new ArrayList<>(cases.size());
+        for (ProgrammingTestCase c : cases) tests.add(caseResult(c, null, error, 0, 0));
+        return tests;
+    }
+
+    /**
+     * Przypadek w trybie IO wykonany w GraalJS zamiast w Judge0 (Node, język 63): wejście trafia na stdin
+     * programu, wynikiem jest całe stdout. Shim udostępnia {@code process.stdin}, {@code require('fs').readFileSync(0)}
+     * i {@code require('readline')}; zdarzenia stdin są dostarczane synchronicznie po wykonaniu kodu ucznia.
+     */
+    public CodeExecutionService.ExecResult runIo(String userCode, String stdin) {
+        return runIo(userCode, stdin, ExecutionLimits.DEFAULT);
+    }
+
+    public CodeExecutionService.ExecResult runIo(String userCode, String stdin, ExecutionLimits limits) {
+        CodeExecutionService.ExecResult res = new CodeExecutionService.ExecResult();
+        if (userCode != null && userCode.length() > MAX_CODE_LENGTH) {
+            res.stdout = "";
+            res.stderr = "User code too large";
+            res.status = "Runtime Error";
+            return res;
+        }
+        long started = System.nanoTime();
+        String input = stdin == null ? "" : stdin;
+        AtomicReference<Context> running = new AtomicReference<>();
+        BoundedOutputStream out = capture(running);
+        BoundedOutputStream err = capture(running);
+        ExecutionBudget budget = budget(running, limits);
+
+        // .in(): kontekst nie może czytać stdin serwera; shim czyta ten sam tekst z powiązania __stdin
+        Context ctx = Context.newBuilder("js")
+                .engine(engine)
+                .allowAllAccess(false)
+                .option("js.ecmascript-version", "2022")
+                .resourceLimits(budget.resourceLimits())
+                .in(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))
+                .out(out)
+                .err(err)
+                .build();
+        running.set(ctx);
+        ctx.initialize("js"); // inicjalizacja realmu poza budżetem CPU przypadku
+        metrics.recordContextCreation(LANG, System.nanoTime() - started);
+        List<String> errors = new ArrayList<>();
         try {
-            String out = stdout.trim();
-            if (!out.isEmpty()) {
-                // find last JSON array in output
-                int i = out.lastIndexOf('[');
-                if (i >= 0) {
-                    String json = out.substring(i);
-                    com.fasterxml.jackson.databind.ObjectMapper om = new com.fasterxml.jackson.databind.ObjectMapper();
-                    var arr = om.readTree(json);
-                    if (arr.isArray()) {
-                        for (var node : arr) {
-                            boolean ok = node.path("passed").asBoolean(false);
-                            int pts = node.path("points").asInt(0);
-                            if (ok) { passed++; score += pts; } else { failed++; }
-                        }
-                    }
+            ctx.getBindings("js").putMember("__stdin", input);
+            String error = budget.supervise(metrics, LANG, () -> {
+                budget.begin(0);
+                try {
+                    ctx.eval("js", IO_PRELUDE);
+                    ctx.eval("js", userCode == null ? "" : userCode);
+                    ctx.eval("js", "__deliverStdin()");
+                } catch (PolyglotException pe) {
+                    if (!isExit(pe)) throw pe;
+                } finally {
+                    ctx.eval("js", "__flushOut()");
                 }
-            }
-        } catch (Exception e) {
-            errors.add("Failed to parse grader output: " + e.toString());
+                return null;
+            }, cause -> out.isAborted() || err.isAborted() ? OUTPUT_LIMIT
+                    : cause instanceof PolyglotException pe ? pe.getMessage() : String.valueOf(cause));
+            if (error != null) errors.add(error);
+        } finally {
+            try { ctx.close(true); } catch (Exception ignore) {}
         }
 
-        return new GradeResult(passed, failed, stdout, errors, score);
+        res.stdout = collect(out);
+        res.cpuMs = errors.isEmpty() ? budget.finishedCpuMs : budget.stoppedCpuMs;
+        res.timeMs = errors.isEmpty() ? budget.finishedWallMs : budget.stoppedWallMs;
+        String stderr = collect(err);
+        if (!errors.isEmpty()) stderr = (stderr.isEmpty() ? "" : stderr + "\n") + String.join("\n", errors);
+        res.stderr = stderr.isEmpty() ? null : stderr;
+        boolean timedOut = errors.stream().anyMatch(e -> e.startsWith("Time limit"));
+        res.status = timedOut ? "Time Limit Exceeded" : (errors.isEmpty() ? "Accepted" : "Runtime Error");
+        res.exitCode = timedOut ? 5 : (errors.isEmpty() ? 3 : 11); // kody statusów jak w Judge0
+        String caseOutcome = timedOut ? GradingMetrics.TIMEOUT : (res.stderr == null ? GradingMetrics.PASS : GradingMetrics.ERROR);
+        long nanos = System.nanoTime() - started;
+        metrics.recordCase(LANG, "IO", caseOutcome, nanos);
+        metrics.recordExecution("io", LANG, "IO", caseOutcome, nanos);
+        return res;
+    }
+
+    private ExecutionBudget budget(AtomicReference<Context> running, ExecutionLimits limits) {
+        return new ExecutionBudget(running, limits, defaultStatementLimit, defaultCpuTimeMs);
+    }
+
+    /** Bufor wyjścia o stałej pojemności; rażące przekroczenie anuluje kontekst z innego wątku. */
+    private BoundedOutputStream capture(AtomicReference<Context> running) {
+        return new BoundedOutputStream(outputLimitBytes, outputAbortBytes, () -> {
+            Context c = running.get();
+            if (c != null) CompletableFuture.runAsync(() -> { try { c.close(true); } catch (Exception ignore) {} });
+        });
+    }
+
+    private String collect(BoundedOutputStream out) {
+        if (out.truncatedBytes() > 0) metrics.recordOutputTruncated(LANG, out.truncatedBytes());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isExit(PolyglotException pe) {
+        if (!pe.isGuestException()) return false;
+        org.graalvm.polyglot.Value v = pe.getGuestObject();
+        return v != null && v.hasMember("__exit");
+    }
+
+    // Minimalne API Node dla programów czytających stdin; process.exit() kończy program bez błędu
+    private static final String IO_PRELUDE = """
+            (function (g) {
+              var pending = '';
+              var handlers = { data: [], end: [], line: [], close: [] };
+              function write(s) {
+                s = pending + String(s);
+                var i = s.lastIndexOf('\\n');
+                if (i < 0) { pending = s; return true; }
+                print(s.substring(0, i));
+                pending = s.substring(i + 1);
+                return true;
+              }
+              function on(ev, cb) { if (handlers[ev]) handlers[ev].push(cb); return this; }
+              var rl = { on: on, once: on, close: function () {}, setPrompt: function () {}, prompt: function () {} };
+              g.process = {
+                argv: ['node', 'main.js'], env: {}, exitCode: 0, platform: 'linux',
+                stdin: { on: on, once: on, setEncoding: function () {}, resume: function () {}, pause: function () {} },
+                stdout: { write: write },
+                stderr: { write: function (s) { printErr(String(s).replace(/\\n$/, '')); return true; } },
+                exit: function (code) { throw { __exit: code || 0 }; }
+              };
+              g.require = function (name) {
+                if (name === 'fs') return { readFileSync: function () { return __stdin; } };
+                if (name === 'readline') return { createInterface: function () { return rl; } };
+                throw new Error("Cannot find module '" + name + "'");
+              };
+              g.__deliverStdin = function () {
+                handlers.data.forEach(function (cb) { cb(__stdin); });
+                handlers.end.forEach(function (cb) { cb(); });
+                if (handlers.line.length || handlers.close.length) {
+                  var lines = __stdin.split(/\\r?\\n/);
+                  if (lines.length && lines[lines.length - 1] === '') lines.pop();
+                  lines.forEach(function (l) { handlers.line.forEach(function (cb) { cb(l); }); });
+                  handlers.close.forEach(function (cb) { cb(); });
+                }
+              };
+              g.__flushOut = function () { if (pending.length) { print(pending); pending = ''; } };
+            })(this);
+            """;
+
+    private static final Source CONSOLE_SOURCE = Source.create("js",
+            "var console = { log: function(){ var s = Array.prototype.map.call(arguments, function(x){ return String(x); }).join(' '); print(s); } };\n");
+
+    // stały kod harnessu – parsowany raz na silnik; 'use strict' odcina kod ucznia od report (solve.caller == null),
+    // a internal(true) wyłącza jego instrukcje z limitu ResourceLimits (liczy się tylko kod ucznia)
+    private static final Source CASES_HARNESS = Source.newBuilder("js", """
+            (function (inputs, from, begin, report) {
+              'use strict';
+              for (var i = from; i < inputs.length; i++) {
+                begin(i);
+                try {
+                  var res = null;
+                  if (typeof solve === 'function') { res = solve(inputs[i]); } else if (typeof main === 'function') { res = main(inputs[i]); }
+                  report(i, (res !== null && typeof res !== 'undefined') ? String(res) : '', null);
+                } catch (e) {
+                  report(i, null, String(e));
+                }
+              }
+            })
+            """, "cases-harness.js").internal(true).buildLiteral();
+
+    private static String outcome(List<String> errors, int failed) {
+        if (!errors.isEmpty()) {
+            return errors.stream().anyMatch(e -> e.startsWith("Time limit")) ? GradingMetrics.TIMEOUT : GradingMetrics.ERROR;
+        }
+        return failed == 0 ? GradingMetrics.PASS : GradingMetrics.FAIL;
     }
 }
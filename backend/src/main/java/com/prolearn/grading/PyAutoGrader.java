@@ -0,0 +1,142 @@
+package com.prolearn.grading;
+
+import jakarta.annotation.PreDestroy;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Wykonanie kodu Pythona w GraalPy zamiast w Judge0 (język 71). Każdy przypadek dostaje świeży kontekst
+ * na wspólnym silniku (jak osobny proces w Judge0), bez dostępu do hosta, plików i sieci. Limity instrukcji
+ * i czasu CPU pilnuje ten sam {@link ExecutionBudget} co w {@link JsAutoGrader}.
+ * Wynik ma kształt {@link CodeExecutionService.ExecResult}, więc wywołujący traktują oba tryby tak samo.
+ */
+@Service
+public class PyAutoGrader {
+
+    private static final String LANG = "python";
+    private static final int MAX_CODE_LENGTH = 20000;
+
+    private final GradingMetrics metrics;
+    // domyślny budżet CPU przypadku – GraalPy jest wolniejszy od GraalJS, więc osobny od app.grading.limits
+    private final int timeLimitMs;
+    private final long defaultStatementLimit;
+    private final int outputLimitBytes;
+    private final long outputAbortBytes;
+    // tworzony leniwie – GraalPy jest ciężki, a przy app.grading.python.engine=judge0 niepotrzebny
+    private volatile Engine engine;
+
+    public PyAutoGrader(GradingMetrics metrics,
+                        @Value("${app.grading.python.time-limit-ms:5000}") int timeLimitMs,
+                        @Value("${app.grading.output.limit-bytes:65536}") int outputLimitBytes,
+                        @Value("${app.grading.output.abort-bytes:4194304}") long outputAbortBytes,
+                        @Value("${app.grading.limits.statements:50000000}") long defaultStatementLimit) {
+        this.metrics = metrics;
+        this.timeLimitMs = timeLimitMs;
+        this.defaultStatementLimit = defaultStatementLimit;
+        this.outputLimitBytes = outputLimitBytes;
+        this.outputAbortBytes = outputAbortBytes;
+    }
+
+    @PreDestroy
+    void close() {
+        Engine e = engine;
+        if (e != null) {
+            try { e.close(true); } catch (Exception ignore) {}
+        }
+    }
+
+    /**
+     * Uruchamia program ze standardowym wejściem {@code stdin} z budżetem jak w GraalJS: limit instrukcji
+     * (ResourceLimits) i czas CPU przypadku; start interpretera nie wlicza się do budżetu.
+     */
+    public CodeExecutionService.ExecResult execute(String source, String stdin) {
+        return execute(source, stdin, ExecutionLimits.DEFAULT);
+    }
+
+    /** Jak {@link #execute(String, String)}, z limitami zadania (null = domyślne). */
+    public CodeExecutionService.ExecResult execute(String source, String stdin, ExecutionLimits limits) {
+        CodeExecutionService.ExecResult res = new CodeExecutionService.ExecResult();
+        if (source != null && source.length() > MAX_CODE_LENGTH) {
+            res.stdout = "";
+            res.stderr = "User code too large";
+            res.status = "Runtime Error";
+            res.exitCode = 11;
+            return res;
+        }
+        long started = System.nanoTime();
+        String input = stdin == null ? "" : stdin;
+        AtomicReference<Context> running = new AtomicReference<>();
+        Runnable cancel = () -> {
+            Context c = running.get();
+            if (c != null) CompletableFuture.runAsync(() -> { try { c.close(true); } catch (Exception ignore) {} });
+        };
+        BoundedOutputStream out = new BoundedOutputStream(outputLimitBytes, outputAbortBytes, cancel);
+        BoundedOutputStream err = new BoundedOutputStream(outputLimitBytes, outputAbortBytes, cancel);
+        ExecutionBudget budget = new ExecutionBudget(running, limits, defaultStatementLimit, timeLimitMs);
+
+        Context ctx = Context.newBuilder(LANG)
+                .engine(engine())
+                .allowAllAccess(false)
+                .resourceLimits(budget.resourceLimits())
+                .in(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))
+                .out(out)
+                .err(err)
+                .build();
+        running.set(ctx);
+        String error;
+        try {
+            ctx.initialize(LANG);
+            metrics.recordContextCreation(LANG, System.nanoTime() - started);
+            Source src = Source.newBuilder(LANG, source == null ? "" : source, "main.py").buildLiteral();
+            error = budget.supervise(metrics, LANG, () -> {
+                budget.begin(0);
+                ctx.eval(src);
+                return null;
+            }, cause -> {
+                if (out.isAborted() || err.isAborted()) return JsAutoGrader.OUTPUT_LIMIT;
+                // sys.exit(0) to zwykłe zakończenie programu
+                if (cause instanceof PolyglotException pe && pe.isExit()) return pe.getExitStatus() == 0 ? null : "Exit code " + pe.getExitStatus();
+                return cause instanceof PolyglotException pe ? pe.getMessage() : String.valueOf(cause);
+            });
+        } finally {
+            try { ctx.close(true); } catch (Exception ignore) {}
+        }
+
+        long truncated = out.truncatedBytes() + err.truncatedBytes();
+        if (truncated > 0) metrics.recordOutputTruncated(LANG, truncated);
+        boolean timedOut = error != null && error.startsWith(ExecutionBudget.TIME_LIMIT);
+        res.stdout = out.toString(StandardCharsets.UTF_8);
+        res.cpuMs = error == null ? budget.finishedCpuMs : budget.stoppedCpuMs;
+        res.timeMs = error == null ? budget.finishedWallMs : budget.stoppedWallMs;
+        String stderr = err.toString(StandardCharsets.UTF_8);
+        if (error != null) stderr = stderr.isEmpty() ? error : stderr + "\n" + error;
+        res.stderr = stderr.isEmpty() ? null : stderr;
+        res.status = timedOut ? "Time Limit Exceeded" : (error == null ? "Accepted" : "Runtime Error");
+        res.exitCode = timedOut ? 5 : (error == null ? 3 : 11); // kody statusów jak w Judge0
+        String caseOutcome = timedOut ? GradingMetrics.TIMEOUT : (res.stderr == null ? GradingMetrics.PASS : GradingMetrics.ERROR);
+        long nanos = System.nanoTime() - started;
+        metrics.recordCase(LANG, "IO", caseOutcome, nanos);
+        metrics.recordExecution("io", LANG, "IO", caseOutcome, nanos);
+        return res;
+    }
+
+    private Engine engine() {
+        Engine e = engine;
+        if (e == null) {
+            synchronized (this) {
+                e = engine;
+                if (e == null) engine = e = Engine.newBuilder().build();
+            }
+        }
+        return e;
+    }
+}
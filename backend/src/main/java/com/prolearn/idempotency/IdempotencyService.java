@@ -0,0 +1,188 @@
+package com.prolearn.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Obsługa nagłówka {@code Idempotency-Key}: pierwsze żądanie z kluczem wykonuje akcję, a jej odpowiedź jest
+ * zapisywana w idempotency_keys razem z hashem żądania; powtórzenie w ciągu TTL dostaje tę samą odpowiedź
+ * bez ponownej oceny. Zajęcie klucza i zapis odpowiedzi to osobne krótkie zapytania – akcja (ocena) biegnie
+ * bez otwartej transakcji i bez połączenia z bazą. Błąd akcji usuwa klucz, a równoległy duplikat czeka
+ * (w węźle na future, między węzłami odpytując wiersz klucza) na wynik pierwszego. Zajęty klucz bez
+ * odpowiedzi wygasa po app.idempotency.in-flight-seconds, więc awaria węzła nie blokuje go na cały TTL.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long PURGE_INTERVAL_MS = 60_000;
+    private static final long POLL_MS = 50;
+
+    private static final String CLAIM_SQL = """
+            INSERT INTO idempotency_keys AS k (user_id, idem_key, endpoint, request_hash, expires_at)
+            VALUES (?, ?, ?, ?, now() + make_interval(secs => ?))
+            ON CONFLICT (user_id, idem_key) DO UPDATE SET
+              endpoint = EXCLUDED.endpoint,
+              request_hash = EXCLUDED.request_hash,
+              response = NULL,
+              created_at = now(),
+              expires_at = EXCLUDED.expires_at
+            WHERE k.expires_at < now()
+            RETURNING true
+            """;
+
+    private record Stored(String endpoint, String requestHash, String response) {}
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final long ttlSeconds;
+    private final long inFlightSeconds;
+    private final long waitMs;
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    public IdempotencyService(JdbcTemplate jdbc,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${app.idempotency.in-flight-seconds:300}") long inFlightSeconds,
+                              @Value("${app.idempotency.wait-ms:30000}") long waitMs) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+        this.ttlSeconds = Math.max(1, ttlSeconds);
+        this.inFlightSeconds = Math.max(1, inFlightSeconds);
+        this.waitMs = Math.max(1, waitMs);
+    }
+
+    /**
+     * Wykonuje {@code action} poza transakcją – akcja sama otwiera krótkie transakcje na odczyt i zapis.
+     * Z kluczem: zwraca zapisaną odpowiedź, jeśli klucz był już użyty dla tego samego {@code endpoint}
+     * i {@code request}; ten sam klucz z innym żądaniem kończy się 422.
+     */
+    public <T> T execute(UUID userId, String endpoint, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (userId == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nagłówek " + HEADER + " może mieć najwyżej " + MAX_KEY_LENGTH + " znaków");
+        }
+        purgeExpired();
+        String hash = hash(endpoint, request);
+        String local = userId + ":" + key;
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> other;
+        // duplikat w tym samym węźle czeka na future zamiast trzymać połączenie z bazą na blokadzie
+        while ((other = inFlight.putIfAbsent(local, mine)) != null) await(other);
+        try {
+            return claimAndRun(userId, endpoint, key, hash, type, action);
+        } finally {
+            inFlight.remove(local, mine);
+            mine.complete(null);
+        }
+    }
+
+    private <T> T claimAndRun(UUID userId, String endpoint, String key, String hash, Class<T> type, Supplier<T> action) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            boolean claimed = !jdbc.query(CLAIM_SQL, (rs, i) -> rs.getBoolean(1), userId, key, endpoint, hash, inFlightSeconds).isEmpty();
+            if (claimed) return run(userId, key, action);
+            List<Stored> rows = jdbc.query("SELECT endpoint, request_hash, response FROM idempotency_keys WHERE user_id = ? AND idem_key = ?",
+                    (rs, i) -> new Stored(rs.getString(1), rs.getString(2), rs.getString(3)), userId, key);
+            // wiersz zniknął (błąd pierwszego żądania albo sprzątanie) – kolejna próba zajęcia klucza
+            if (rows.isEmpty()) continue;
+            Stored s = rows.get(0);
+            if (!s.endpoint().equals(endpoint) || !s.requestHash().equals(hash)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Klucz " + HEADER + " został już użyty z innym żądaniem");
+            }
+            if (s.response() != null) return read(s.response(), type);
+            // duplikat z innego węzła: pierwsze żądanie jeszcze trwa
+            if (System.currentTimeMillis() >= deadline) throw inProgress();
+            sleep();
+        }
+    }
+
+    private <T> T run(UUID userId, String key, Supplier<T> action) {
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            jdbc.update("DELETE FROM idempotency_keys WHERE user_id = ? AND idem_key = ? AND response IS NULL", userId, key);
+            throw e;
+        }
+        try {
+            jdbc.update("UPDATE idempotency_keys SET response = ?, expires_at = now() + make_interval(secs => ?) WHERE user_id = ? AND idem_key = ?",
+                    objectMapper.writeValueAsString(result), ttlSeconds, userId, key);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Nie można zapisać odpowiedzi dla " + HEADER, e);
+        }
+        return result;
+    }
+
+    private <T> T read(String response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Nie można odczytać zapisanej odpowiedzi dla " + HEADER, e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(POLL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private void await(CompletableFuture<Void> other) {
+        try {
+            other.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException ignore) {
+            // future kończy się zawsze normalnie
+        }
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Żądanie z tym kluczem " + HEADER + " jest nadal przetwarzane");
+    }
+
+    /** Usuwa wygasłe klucze najwyżej raz na minutę; wygasły klucz i tak jest nadpisywany przy ponownym użyciu. */
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL_MS || !lastPurge.compareAndSet(last, now)) return;
+        jdbc.update("DELETE FROM idempotency_keys WHERE expires_at < now()");
+    }
+
+    String hash(String endpoint, Object request) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) '\n');
+            md.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
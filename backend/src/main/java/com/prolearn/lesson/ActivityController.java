@@ -1,6 +1,7 @@
 package com.prolearn.lesson;
 
 import com.prolearn.lesson.dto.*;
+import com.prolearn.idempotency.IdempotencyService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.prolearn.security.SecurityUtils;
@@ -28,11 +29,19 @@ public class ActivityController {
     private final LessonService lessonService;
     private final ObjectMapper objectMapper;
     private final com.prolearn.lesson.QuizAttemptRepository quizAttemptRepository;
+    private final com.prolearn.config.CourseCache courseCache;
+    private final LessonDetailCache detailCache;
+    private final IdempotencyService idempotency;
+    private final QuizAttemptRecorder quizAttemptRecorder;
 
     public ActivityController(LessonRepository lessons, LessonActivityRepository activities,
                               TaskRepository tasks, com.prolearn.submission.SubmissionRepository submissionRepository,
                               LessonService lessonService, ObjectMapper objectMapper,
-                              com.prolearn.lesson.QuizAttemptRepository quizAttemptRepository) {
+                              com.prolearn.lesson.QuizAttemptRepository quizAttemptRepository,
+                              com.prolearn.config.CourseCache courseCache,
+                              LessonDetailCache detailCache,
+                              IdempotencyService idempotency,
+                              QuizAttemptRecorder quizAttemptRecorder) {
         this.lessons = lessons;
         this.activities = activities;
         this.tasks = tasks;
@@ -40,6 +49,10 @@ public class ActivityController {
         this.lessonService = lessonService;
         this.objectMapper = objectMapper;
         this.quizAttemptRepository = quizAttemptRepository;
+        this.courseCache = courseCache;
+        this.detailCache = detailCache;
+        this.idempotency = idempotency;
+        this.quizAttemptRecorder = quizAttemptRecorder;
     }
 
     public static record QuizSubmitRequest(List<Integer> answers) {}
@@ -48,9 +61,15 @@ public class ActivityController {
 
     @RolesAllowed({"STUDENT","ROLE_STUDENT","TEACHER","ROLE_TEACHER"})
     @PostMapping(path="/api/activities/{id}/quiz/submit", consumes=MediaType.APPLICATION_JSON_VALUE)
-    public QuizResult submitQuiz(@PathVariable("id") UUID id, @RequestBody QuizSubmitRequest req){
+    public QuizResult submitQuiz(@PathVariable("id") UUID id, @RequestBody QuizSubmitRequest req,
+                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
         UUID userId = SecurityUtils.currentUserId();
         if (userId == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
+        return idempotency.execute(userId, "POST /api/activities/" + id + "/quiz/submit", idempotencyKey, req,
+                QuizResult.class, () -> gradeQuiz(id, req, userId));
+    }
+
+    private QuizResult gradeQuiz(UUID id, QuizSubmitRequest req, UUID userId) {
 
         LessonActivity a = activities.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono aktywności"));
         if (!"QUIZ".equalsIgnoreCase(a.getType())) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Aktywność nie jest quizem");
@@ -58,27 +77,9 @@ public class ActivityController {
         String body = a.getBody();
         if (body == null || body.isBlank()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak treści quizu");
 
-        if (quizAttemptRepository.existsByActivity_IdAndStudentId(id, userId)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quiz został już ukończony");
-        }
-
+        QuizGrader.GradeResult grade;
         try {
-            var grade = QuizGrader.grade(body, req.answers(), objectMapper);
-
-            // persist attempt (best-effort)
-            try {
-                QuizAttempt aTry = new QuizAttempt();
-                aTry.setActivity(a);
-                aTry.setStudentId(userId);
-                aTry.setCorrect(grade.correct());
-                aTry.setTotal(grade.total());
-                aTry.setPoints(grade.points());
-                quizAttemptRepository.save(aTry);
-            } catch (Exception e) {
-                System.err.println("Failed to save quiz attempt: " + e.getMessage());
-            }
-
-            return new QuizResult(grade.correct(), grade.total(), grade.points(), grade.percent());
+            grade = QuizGrader.grade(body, req.answers(), objectMapper);
         } catch (IllegalArgumentException iae) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, iae.getMessage());
         } catch (ResponseStatusException rse) {
@@ -86,6 +87,12 @@ public class ActivityController {
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nieprawidłowa treść quizu: niepoprawny JSON");
         }
+
+        // jedna próba na ucznia: upsert na unikalnym (activity_id, student_id) zamiast exists + save
+        if (!quizAttemptRecorder.record(id, userId, grade.correct(), grade.total(), grade.points())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quiz został już ukończony");
+        }
+        return new QuizResult(grade.correct(), grade.total(), grade.points(), grade.percent());
     }
 
     @RolesAllowed({"TEACHER","ROLE_TEACHER"})
@@ -185,6 +192,7 @@ public class ActivityController {
         a.setBody(req.body());
         if (createdTask != null) a.setTask(createdTask);
 
+        detailCache.invalidate(lessonId);
         return map(activities.save(a));
     }
 
@@ -236,6 +244,7 @@ public class ActivityController {
         }
 
         activities.saveAll(list);
+        detailCache.invalidate(lessonId);
         return list.stream().map(ActivityController::map).toList();
     }
 
@@ -277,6 +286,7 @@ public class ActivityController {
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Nie znaleziono zadania"));
             a.setTask(t);
         }
+        detailCache.invalidate(lessonId);
         return map(activities.save(a));
     }
 
@@ -302,6 +312,7 @@ public class ActivityController {
             }
             a.setBody(req.body());
         }
+        detailCache.invalidate(a.getLesson().getId());
         return map(activities.save(a));
     }
 
@@ -361,6 +372,7 @@ public class ActivityController {
             if (taskId != null) {
                 submissionRepository.deleteByTaskId(taskId);
                 tasks.deleteById(taskId);
+                courseCache.evictTaskContent();
             }
             a.setTask(null);
         }
@@ -370,5 +382,6 @@ public class ActivityController {
         }
 
         activities.delete(a);
+        detailCache.invalidate(a.getLesson().getId());
     }
 }
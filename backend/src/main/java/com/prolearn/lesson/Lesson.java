@@ -3,12 +3,17 @@ package com.prolearn.lesson;
 import com.prolearn.classes.Classroom;
 import com.prolearn.user.User;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
 @Table(name = "lessons")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.lesson")
 public class Lesson {
 
     @Id
@@ -32,6 +37,15 @@ public class Lesson {
     @JoinColumn(name = "class_id", nullable = false)
     private Classroom classroom;
 
+    // wersja do optymistycznego blokowania i ETagów
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @PrePersist
     public void prePersist() {
         if (id == null) id = UUID.randomUUID();
@@ -55,4 +69,8 @@ public class Lesson {
 
     public User getCreatedBy() { return createdBy; }
     public void setCreatedBy(User createdBy) { this.createdBy = createdBy; }
+
+    public Long getVersion() { return version; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
 }
@@ -1,12 +1,18 @@
 package com.prolearn.lesson;
 
 import com.prolearn.task.Task;
+import com.prolearn.util.UuidV7;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
 @Table(name = "lesson_activities")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.activity")
 public class LessonActivity {
     @Id @Column(columnDefinition = "uuid") private UUID id;
 
@@ -26,9 +32,11 @@ public class LessonActivity {
 
     @Column(name = "order_index", nullable = false) private int orderIndex = 0;
     @Column(name = "created_at", nullable = false) private Instant createdAt = Instant.now();
+    @Version @Column(nullable = false) private Long version;
+    @UpdateTimestamp @Column(name = "updated_at", nullable = false) private Instant updatedAt;
 
     @PrePersist void prePersist() {
-        if (id == null) id = UUID.randomUUID();
+        if (id == null) id = UuidV7.generate();
         if (createdAt == null) createdAt = Instant.now();
     }
 
@@ -48,4 +56,6 @@ public class LessonActivity {
     public void setOrderIndex(int orderIndex){this.orderIndex = orderIndex;}
     public Instant getCreatedAt(){return createdAt;}
     public void setCreatedAt(Instant createdAt){this.createdAt = createdAt;}
+    public Long getVersion(){return version;}
+    public Instant getUpdatedAt(){return updatedAt;}
 }
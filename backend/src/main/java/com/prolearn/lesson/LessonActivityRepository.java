@@ -1,10 +1,18 @@
 package com.prolearn.lesson;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.util.List;
 import java.util.UUID;
 
 public interface LessonActivityRepository extends JpaRepository<LessonActivity, UUID> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "course.queries")
+    })
     List<LessonActivity> findAllByLesson_IdOrderByOrderIndexAsc(UUID lessonId);
     void deleteByTask_Id(UUID taskId);
 }
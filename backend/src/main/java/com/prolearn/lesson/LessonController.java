@@ -1,10 +1,12 @@
 package com.prolearn.lesson;
 
-import com.prolearn.lesson.dto.LessonDetailResponse;
+import com.prolearn.api.ETags;
 import com.prolearn.lesson.dto.LessonListItem;
 import jakarta.annotation.security.PermitAll;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,6 +18,7 @@ import java.util.UUID;
 public class LessonController {
 
     private final LessonService lessonService;
+    private final LessonDetailCache detailCache;
 
     @PermitAll
     @GetMapping
@@ -25,8 +28,12 @@ public class LessonController {
 
     @PermitAll
     @GetMapping("/{id}")
-    public LessonDetailResponse get(@PathVariable("id") UUID id) {
-        return lessonService.getLessonDetails(id);
+    public ResponseEntity<byte[]> get(@PathVariable("id") UUID id,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // gotowy JSON (LessonDetailResponse) z pamięci – przy trafieniu bez bazy i bez serializacji
+        LessonDetailCache.Payload payload = detailCache.get(id,
+                () -> lessonService.lessonEtag(id), () -> lessonService.getLessonDetails(id));
+        return ETags.conditional(ifNoneMatch, payload.etag(), payload::json);
     }
 
     @jakarta.annotation.security.RolesAllowed({"TEACHER","ROLE_TEACHER"})
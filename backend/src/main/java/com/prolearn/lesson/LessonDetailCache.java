@@ -0,0 +1,151 @@
+package com.prolearn.lesson;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lokalny (w węźle) cache gotowego JSON-a szczegółów lekcji (GET /api/lessons/{id}) razem z ETagiem.
+ * Trafienie nie dotyka bazy ani Jacksona. Ścieżki zapisu lekcji, aktywności i zadań wołają invalidate();
+ * TTL ogranicza nieaktualność przy kilku instancjach, które nie widzą swoich unieważnień.
+ */
+@Component
+public class LessonDetailCache {
+
+    /** Zserializowana odpowiedź i jej ETag. */
+    public record Payload(String etag, byte[] json) {}
+
+    private record Entry(CompletableFuture<Payload> value, long createdAt) {}
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // zwiększane przy każdym unieważnieniu – wynik zbudowany w trakcie zapisu nie trafia do cache
+    private final AtomicLong generation = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public LessonDetailCache(ObjectMapper objectMapper, MeterRegistry registry,
+                             @Value("${app.lesson-cache.enabled:true}") boolean enabled,
+                             @Value("${app.lesson-cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${app.lesson-cache.max-entries:2000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("lesson.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("lesson.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("lesson.cache.size", entries, Map::size)
+                .description("Liczba lekcji w cache odpowiedzi")
+                .register(registry);
+    }
+
+    /**
+     * Zwraca odpowiedź z cache albo buduje ją raz dla wszystkich równoległych żądań tej samej lekcji.
+     * {@code etag} liczony jest przed {@code body}, więc ETag nigdy nie jest nowszy niż treść.
+     */
+    public Payload get(UUID lessonId, Supplier<String> etag, Supplier<?> body) {
+        if (!enabled) return build(etag, body);
+        long now = System.nanoTime();
+        Entry entry = entries.get(lessonId);
+        if (entry != null && now - entry.createdAt() > ttlNanos) {
+            entries.remove(lessonId, entry);
+            entry = null;
+        }
+        if (entry != null) {
+            hits.increment();
+            return await(lessonId, entry);
+        }
+        misses.increment();
+        long gen = generation.get();
+        Entry mine = new Entry(new CompletableFuture<>(), now);
+        Entry existing = entries.putIfAbsent(lessonId, mine);
+        if (existing != null) return await(lessonId, existing);
+        if (entries.size() > maxEntries) evictOne(lessonId);
+        try {
+            mine.value().complete(build(etag, body));
+        } catch (RuntimeException e) {
+            entries.remove(lessonId, mine);
+            mine.value().completeExceptionally(e);
+            throw e;
+        }
+        if (generation.get() != gen) entries.remove(lessonId, mine);
+        return mine.value().join();
+    }
+
+    /** Unieważnia lekcję od razu i ponownie po commicie bieżącej transakcji. */
+    public void invalidate(UUID lessonId) {
+        if (lessonId == null) return;
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            entries.remove(lessonId);
+        });
+    }
+
+    /** Po usunięciu klasy lub zmianach obejmujących wiele lekcji. */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            entries.clear();
+        });
+    }
+
+    private Payload build(Supplier<String> etag, Supplier<?> body) {
+        String tag = etag.get();
+        try {
+            return new Payload(tag, objectMapper.writeValueAsBytes(body.get()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Nie udało się zserializować lekcji", e);
+        }
+    }
+
+    private Payload await(UUID lessonId, Entry entry) {
+        try {
+            return entry.value().join();
+        } catch (CompletionException e) {
+            entries.remove(lessonId, entry);
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private void evictOne(UUID keep) {
+        Iterator<UUID> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (!it.next().equals(keep)) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
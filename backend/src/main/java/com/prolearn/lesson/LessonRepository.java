@@ -1,11 +1,36 @@
 package com.prolearn.lesson;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 // src/main/java/com/prolearn/lesson/LessonRepository.java
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface LessonRepository extends JpaRepository<Lesson, UUID> {
     List<Lesson> findAllByClassroom_IdOrderByCreatedAtAsc(Long classId);
+
+    // zadania, aktywności, zgłoszenia i próby usuwają kaskady ON DELETE w bazie
+    @Modifying
+    @Query("delete from Lesson l where l.id = :id and l.classroom.id = :classId")
+    int deleteInClass(@Param("id") UUID id, @Param("classId") Long classId);
+
+    // ---- ETagi: skrót (id, wersja) lekcji, jej zadań i aktywności – jedno zapytanie zamiast budowania DTO ----
+
+    String CONTENT_FINGERPRINT = """
+            CAST(l.id AS text) || '.' || l.version
+              || '|' || coalesce((SELECT string_agg(CAST(t.id AS text) || '.' || t.version, ',' ORDER BY t.id)
+                                  FROM tasks t WHERE t.lesson_id = l.id), '')
+              || '|' || coalesce((SELECT string_agg(CAST(a.id AS text) || '.' || a.version, ',' ORDER BY a.id)
+                                  FROM lesson_activities a WHERE a.lesson_id = l.id), '')""";
+
+    @Query(value = "SELECT md5(" + CONTENT_FINGERPRINT + ") FROM lessons l WHERE l.id = :id", nativeQuery = true)
+    Optional<String> contentFingerprint(@Param("id") UUID id);
+
+    @Query(value = "SELECT md5(coalesce(string_agg(" + CONTENT_FINGERPRINT + ", ';' ORDER BY l.id), '')) "
+            + "FROM lessons l WHERE l.class_id = :classId", nativeQuery = true)
+    String classContentFingerprint(@Param("classId") Long classId);
 }
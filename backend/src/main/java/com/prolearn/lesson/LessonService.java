@@ -36,6 +36,8 @@ public class LessonService {
     private final ClassroomRepository classroomRepo;
     private final com.prolearn.lesson.QuizAttemptRepository quizAttemptRepository;
     private final ObjectMapper objectMapper;
+    private final com.prolearn.config.CourseCache courseCache;
+    private final LessonDetailCache detailCache;
     // Removed dependency on ClassService to avoid circular refs; use repositories + local checks instead
 
     /**
@@ -73,6 +75,23 @@ public class LessonService {
         );
     }
 
+    /**
+     * ETag szczegółów lekcji (wersje lekcji, jej zadań i aktywności) albo null, gdy lekcji nie ma.
+     */
+    @Transactional(readOnly = true)
+    public String lessonEtag(UUID lessonId) {
+        Objects.requireNonNull(lessonId, "lessonId");
+        return lessonRepo.contentFingerprint(lessonId).map(h -> com.prolearn.api.ETags.strong("l", h)).orElse(null);
+    }
+
+    /**
+     * ETag listy lekcji w klasie.
+     */
+    @Transactional(readOnly = true)
+    public String classLessonsEtag(Long classId) {
+        return com.prolearn.api.ETags.strong("c" + classId, lessonRepo.classContentFingerprint(classId));
+    }
+
     /**
      * Zwraca listę lekcji w klasie.
      */
@@ -125,6 +144,7 @@ public class LessonService {
         if (content != null) lesson.setContent(content);
 
         lesson = lessonRepo.save(lesson);
+        detailCache.invalidate(lessonId);
         return toListItem(lesson);
     }
 
@@ -191,14 +211,15 @@ public class LessonService {
         Objects.requireNonNull(lessonId, "lessonId");
     requireTeacherMembership(classId, userId);
 
-        Lesson lesson = lessonRepo.findById(lessonId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lesson not found"));
-
-        if (lesson.getClassroom() == null || !lesson.getClassroom().getId().equals(classId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Lesson not in this class");
+        // jedna instrukcja DELETE zamiast ładowania encji; resztę usuwają kaskady
+        if (lessonRepo.deleteInClass(lessonId, classId) == 0) {
+            if (lessonRepo.existsById(lessonId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Lesson not in this class");
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Lesson not found");
         }
-
-        lessonRepo.delete(lesson);
+        courseCache.evictCourseContent();
+        detailCache.invalidate(lessonId);
     }
 
     /**
@@ -241,7 +262,7 @@ public class LessonService {
     // If maxPoints can ever be nullable in the future, adjust here accordingly.
     int totalMaxPoints = tasks.stream().mapToInt(t -> t.getMaxPoints()).sum();
 
-        var submissions = submissionRepo.findByTaskIdIn(taskIds);
+        var submissions = submissionsOf(taskIds);
 
         java.util.Map<java.util.UUID, java.util.Map<java.util.UUID, com.prolearn.submission.Submission>> latestByStudentAndTask = new java.util.HashMap<>();
         for (var s : submissions) {
@@ -319,18 +340,9 @@ public class LessonService {
             }
         }
 
-        var submissions = referencedTaskIds.isEmpty()
-                ? java.util.Collections.<com.prolearn.submission.Submission>emptyList()
-                : submissionRepo.findByTaskIdIn(referencedTaskIds);
+        var submissions = submissionsOf(referencedTaskIds);
 
-        java.util.Map<String, com.prolearn.submission.Submission> latestSubmission = new java.util.HashMap<>();
-        for (var submission : submissions) {
-            String key = submission.getStudent().getId().toString() + "|" + submission.getTask().getId().toString();
-            var prev = latestSubmission.get(key);
-            if (prev == null || (submission.getCreatedAt() != null && prev.getCreatedAt() != null && submission.getCreatedAt().isAfter(prev.getCreatedAt()))) {
-                latestSubmission.put(key, submission);
-            }
-        }
+        java.util.Map<String, com.prolearn.submission.Submission> latestSubmission = latestByStudentAndTask(submissions);
 
         java.util.Map<String, com.prolearn.lesson.QuizAttempt> latestQuizAttempt = new java.util.HashMap<>();
         for (var quiz : quizActivities) {
@@ -402,6 +414,21 @@ public class LessonService {
         return new com.prolearn.lesson.dto.LessonClassProgressDto(classId, lessonId, studentDtos, columnDtos, results);
     }
 
+    /**
+     * Najnowsze zgłoszenie dla każdej pary (uczeń, zadanie); klucz: "studentId|taskId".
+     */
+    static java.util.Map<String, com.prolearn.submission.Submission> latestByStudentAndTask(java.util.List<com.prolearn.submission.Submission> submissions) {
+        java.util.Map<String, com.prolearn.submission.Submission> latestSubmission = new java.util.HashMap<>();
+        for (var submission : submissions) {
+            String key = submission.getStudent().getId().toString() + "|" + submission.getTask().getId().toString();
+            var prev = latestSubmission.get(key);
+            if (prev == null || (submission.getCreatedAt() != null && prev.getCreatedAt() != null && submission.getCreatedAt().isAfter(prev.getCreatedAt()))) {
+                latestSubmission.put(key, submission);
+            }
+        }
+        return latestSubmission;
+    }
+
     /**
      * Returns an overview matrix: students × lessons in the class.
      * Each cell contains aggregated counts (tasksCompleted, totalTasks, pointsEarned, maxPoints).
@@ -460,18 +487,9 @@ public class LessonService {
             }
         }
 
-        var submissions = referencedTaskIds.isEmpty()
-                ? java.util.Collections.<com.prolearn.submission.Submission>emptyList()
-                : submissionRepo.findByTaskIdIn(referencedTaskIds);
+        var submissions = submissionsOf(referencedTaskIds);
 
-        java.util.Map<String, com.prolearn.submission.Submission> latestSubmission = new java.util.HashMap<>();
-        for (var submission : submissions) {
-            String key = submission.getStudent().getId().toString() + "|" + submission.getTask().getId().toString();
-            var prev = latestSubmission.get(key);
-            if (prev == null || (submission.getCreatedAt() != null && prev.getCreatedAt() != null && submission.getCreatedAt().isAfter(prev.getCreatedAt()))) {
-                latestSubmission.put(key, submission);
-            }
-        }
+        java.util.Map<String, com.prolearn.submission.Submission> latestSubmission = latestByStudentAndTask(submissions);
 
         class StudentLessonAggregate {
             int tasksCompleted;
@@ -600,6 +618,14 @@ public class LessonService {
         return columns;
     }
 
+    // zgłoszenie nie jest starsze od tasks.first_submission_at (trigger V41) – granica pomija starsze partycje submissions
+    private java.util.List<com.prolearn.submission.Submission> submissionsOf(java.util.List<java.util.UUID> taskIds) {
+        if (taskIds.isEmpty()) return java.util.Collections.emptyList();
+        return submissionRepo.findFirstSubmissionAt(taskIds)
+                .map(since -> submissionRepo.findByTaskIdInAndCreatedAtGreaterThanEqual(taskIds, since))
+                .orElseGet(java.util.Collections::emptyList);
+    }
+
     private record ActivityColumn(java.util.UUID columnId,
                                   String type,
                                   Lesson lesson,
@@ -1,5 +1,6 @@
 package com.prolearn.lesson;
 
+import com.prolearn.util.UuidV7;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
@@ -32,7 +33,7 @@ public class QuizAttempt {
 
     @PrePersist
     public void prePersist() {
-        if (id == null) id = UUID.randomUUID();
+        if (id == null) id = UuidV7.generate();
         if (createdAt == null) createdAt = Instant.now();
     }
 
@@ -0,0 +1,36 @@
+package com.prolearn.lesson;
+
+import com.prolearn.util.UuidV7;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Zapis jedynej próby quizu ucznia jednym upsertem na unikalnym indeksie (activity_id, student_id):
+ * bez osobnego sprawdzania exists i bez wyścigu przy podwójnym wysłaniu.
+ */
+@Component
+public class QuizAttemptRecorder {
+
+    private static final String RECORD_SQL = """
+            INSERT INTO quiz_attempts (id, activity_id, student_id, correct, total, points, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (activity_id, student_id) DO NOTHING
+            RETURNING id
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public QuizAttemptRecorder(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Zapisuje próbę; false, gdy uczeń ma już próbę tego quizu. */
+    public boolean record(UUID activityId, UUID studentId, int correct, int total, int points) {
+        return !jdbc.query(RECORD_SQL, (rs, i) -> rs.getObject(1),
+                UuidV7.generate(), activityId, studentId, correct, total, points, Timestamp.from(Instant.now())).isEmpty();
+    }
+}
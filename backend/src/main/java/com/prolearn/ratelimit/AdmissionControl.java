@@ -0,0 +1,50 @@
+package com.prolearn.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Globalny limit równoczesnych wykonań kodu. Uruchomienia (RUN) mają niższy próg niż zgłoszenia (SUBMIT),
+ * więc pod obciążeniem są odrzucane jako pierwsze, a zgłoszenia dostają pozostałe miejsca.
+ */
+@Component
+public class AdmissionControl {
+
+    public enum Lane { SUBMIT, RUN }
+
+    private final int maxInFlight;
+    private final int runMaxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public AdmissionControl(@Value("${app.rate-limit.max-in-flight:32}") int maxInFlight,
+                            @Value("${app.rate-limit.run-max-in-flight:20}") int runMaxInFlight,
+                            MeterRegistry registry) {
+        this.maxInFlight = maxInFlight;
+        this.runMaxInFlight = Math.min(runMaxInFlight, maxInFlight);
+        Gauge.builder("admission.in_flight", inFlight, AtomicInteger::get)
+                .description("Liczba wykonań kodu w toku (run + submit)")
+                .register(registry);
+    }
+
+    /** Rezerwuje miejsce; false = brak miejsca w danym torze. Każde true wymaga {@link #release()}. */
+    public boolean tryAcquire(Lane lane) {
+        int limit = lane == Lane.SUBMIT ? maxInFlight : runMaxInFlight;
+        while (true) {
+            int cur = inFlight.get();
+            if (cur >= limit) return false;
+            if (inFlight.compareAndSet(cur, cur + 1)) return true;
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
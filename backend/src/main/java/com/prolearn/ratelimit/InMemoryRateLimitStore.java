@@ -0,0 +1,56 @@
+package com.prolearn.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Kubełki w pamięci procesu – wystarczające dla jednej instancji backendu. */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final int SWEEP_THRESHOLD = 10_000;
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep;
+
+    public InMemoryRateLimitStore() {
+        this(System.nanoTime());
+    }
+
+    InMemoryRateLimitStore(long nowNanos) {
+        this.lastSweep = new AtomicLong(nowNanos - SWEEP_INTERVAL_NANOS);
+    }
+
+    @Override
+    public long tryConsume(String key, TokenBucket.Spec spec) {
+        return tryConsume(key, spec, System.nanoTime());
+    }
+
+    long tryConsume(String key, TokenBucket.Spec spec, long now) {
+        sweep(now);
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(spec, now)).tryConsume(now);
+    }
+
+    @Override
+    public void refund(String key, TokenBucket.Spec spec) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) bucket.refund();
+    }
+
+    /** Skan całej mapy najwyżej raz na sekundę (jeden wątek), a nie przy każdym żądaniu pod obciążeniem. */
+    private void sweep(long now) {
+        if (buckets.size() <= SWEEP_THRESHOLD) return;
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) return;
+        buckets.values().removeIf(b -> b.isIdle(now));
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.prolearn.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Kubełki w tabeli rate_limit_buckets – wspólny limit dla wielu instancji backendu.
+ * Uzupełnienie i zużycie tokenu to jeden atomowy upsert (blokada wiersza tylko na czas instrukcji).
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "jdbc")
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final String REFILLED =
+            "LEAST(EXCLUDED.capacity, b.tokens + EXTRACT(EPOCH FROM now() - b.updated_at) * EXCLUDED.refill_per_second)";
+
+    private static final String CONSUME_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, capacity, refill_per_second, allowed, updated_at)
+            VALUES (?, ? - 1, ?, ?, true, now())
+            ON CONFLICT (bucket_key) DO UPDATE SET
+              tokens = %1$s - CASE WHEN %1$s >= 1 THEN 1 ELSE 0 END,
+              capacity = EXCLUDED.capacity,
+              refill_per_second = EXCLUDED.refill_per_second,
+              allowed = %1$s >= 1,
+              updated_at = now()
+            RETURNING tokens, allowed
+            """.formatted(REFILLED);
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public long tryConsume(String key, TokenBucket.Spec spec) {
+        return jdbc.queryForObject(CONSUME_SQL, (rs, i) -> rs.getBoolean("allowed")
+                        ? 0L
+                        : Math.max(1, spec.millisUntilToken(rs.getDouble("tokens"))),
+                key, spec.capacity(), spec.capacity(), spec.refillPerSecond());
+    }
+
+    @Override
+    public void refund(String key, TokenBucket.Spec spec) {
+        jdbc.update("UPDATE rate_limit_buckets SET tokens = LEAST(capacity, tokens + 1) WHERE bucket_key = ?", key);
+    }
+}
@@ -0,0 +1,81 @@
+package com.prolearn.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Kontrola przyjęcia dla wykonań kodu, przed otwarciem transakcji kontrolera:
+ * /run i /run-demo – tor RUN + limit kubełkowy, zgłoszenia – tor SUBMIT. Najpierw miejsce w torze, potem
+ * tokeny – odrzucenie przy przeciążeniu (503) nie zużywa limitu ucznia.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String OVERLOADED = "Serwer jest przeciążony – spróbuj ponownie za chwilę";
+    private static final String PERMIT_ATTR = RateLimitInterceptor.class.getName() + ".permit";
+
+    private final RunRateLimiter limiter;
+    private final AdmissionControl admission;
+    private final MeterRegistry registry;
+
+    public RateLimitInterceptor(RunRateLimiter limiter, AdmissionControl admission, MeterRegistry registry) {
+        this.limiter = limiter;
+        this.admission = admission;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"POST".equalsIgnoreCase(request.getMethod())) return true;
+        String uri = request.getRequestURI();
+        boolean demo = uri.endsWith("/run-demo");
+        boolean run = !demo && uri.endsWith("/run");
+        AdmissionControl.Lane lane = demo || run ? AdmissionControl.Lane.RUN : AdmissionControl.Lane.SUBMIT;
+        if (!admission.tryAcquire(lane)) {
+            Counter.builder("admission.rejected").tag("lane", lane.name()).register(registry).increment();
+            throw new ThrottledException(HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED, 1);
+        }
+        try {
+            if (demo) limiter.checkDemo(currentUserId());
+            else if (run) limiter.checkRun(currentUserId(), taskId(request));
+        } catch (RuntimeException e) {
+            // afterCompletion nie jest wołane, gdy preHandle rzuca – miejsce w torze trzeba oddać tutaj
+            admission.release();
+            throw e;
+        }
+        request.setAttribute(PERMIT_ATTR, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTR) != null) {
+            request.removeAttribute(PERMIT_ATTR);
+            admission.release();
+        }
+    }
+
+    private static UUID currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getDetails() instanceof UUID id ? id : null;
+    }
+
+    private static UUID taskId(HttpServletRequest request) {
+        Object vars = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (vars instanceof Map<?, ?> m && m.get("taskId") instanceof String s) {
+            try { return UUID.fromString(s); } catch (IllegalArgumentException ignored) { return null; }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.prolearn.ratelimit;
+
+/** Magazyn stanu kubełków tokenów (w pamięci procesu albo współdzielony w PostgreSQL). */
+public interface RateLimitStore {
+
+    /** Zużywa token z kubełka {@code key}; zwraca 0 przy sukcesie albo liczbę milisekund do ponownej próby. */
+    long tryConsume(String key, TokenBucket.Spec spec);
+
+    /** Oddaje token zużyty przez żądanie odrzucone na dalszym etapie (nie ponad pojemność kubełka). */
+    void refund(String key, TokenBucket.Spec spec);
+}
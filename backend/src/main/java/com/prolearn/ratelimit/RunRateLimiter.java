@@ -0,0 +1,63 @@
+package com.prolearn.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/** Limity kubełkowe dla /run (na użytkownika i na zadanie) oraz /run-demo (na nauczyciela). */
+@Service
+public class RunRateLimiter {
+
+    static final String RATE_LIMITED = "Zbyt wiele uruchomień – spróbuj ponownie za chwilę";
+
+    private final RateLimitStore store;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final TokenBucket.Spec userSpec;
+    private final TokenBucket.Spec taskSpec;
+
+    public RunRateLimiter(RateLimitStore store,
+                          MeterRegistry registry,
+                          @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                          @Value("${app.rate-limit.user.capacity:10}") double userCapacity,
+                          @Value("${app.rate-limit.user.refill-per-minute:30}") double userRefillPerMinute,
+                          @Value("${app.rate-limit.task.capacity:300}") double taskCapacity,
+                          @Value("${app.rate-limit.task.refill-per-minute:600}") double taskRefillPerMinute) {
+        this.store = store;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.userSpec = TokenBucket.Spec.perMinute(userCapacity, userRefillPerMinute);
+        this.taskSpec = TokenBucket.Spec.perMinute(taskCapacity, taskRefillPerMinute);
+    }
+
+    /** Student/nauczyciel uruchamia kod zadania. Odrzucenie przez limit zadania oddaje token użytkownika. */
+    public void checkRun(UUID userId, UUID taskId) {
+        if (!enabled) return;
+        if (userId != null) consume("user:" + userId, userSpec, "user");
+        if (taskId == null) return;
+        try {
+            consume("task:" + taskId, taskSpec, "task");
+        } catch (ThrottledException e) {
+            if (userId != null) store.refund("user:" + userId, userSpec);
+            throw e;
+        }
+    }
+
+    /** Nauczyciel uruchamia rozwiązanie wzorcowe. */
+    public void checkDemo(UUID userId) {
+        if (!enabled || userId == null) return;
+        consume("user:" + userId, userSpec, "user");
+    }
+
+    private void consume(String key, TokenBucket.Spec spec, String scope) {
+        long waitMs = store.tryConsume(key, spec);
+        if (waitMs > 0) {
+            Counter.builder("ratelimit.rejected").tag("scope", scope).register(registry).increment();
+            throw new ThrottledException(HttpStatus.TOO_MANY_REQUESTS, RATE_LIMITED, (waitMs + 999) / 1000);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.prolearn.ratelimit;
+
+/**
+ * Kubełek tokenów: pojemność {@code capacity}, uzupełnianie {@code refillPerSecond} tokenów na sekundę.
+ * Każde żądanie zużywa jeden token.
+ */
+public final class TokenBucket {
+
+    /** Parametry kubełka. */
+    public record Spec(double capacity, double refillPerSecond) {
+        public Spec {
+            if (capacity < 1 || refillPerSecond <= 0) throw new IllegalArgumentException("Nieprawidłowe parametry kubełka");
+        }
+
+        public static Spec perMinute(double capacity, double refillPerMinute) {
+            return new Spec(capacity, refillPerMinute / 60.0);
+        }
+
+        /** Czas (ms) do uzupełnienia brakującej części tokenu. */
+        long millisUntilToken(double tokens) {
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / refillPerSecond * 1000);
+        }
+
+        /** Czas (ns), po którym pusty kubełek jest znów pełny. */
+        long nanosToFull() {
+            return (long) (capacity / refillPerSecond * 1_000_000_000L);
+        }
+    }
+
+    private final Spec spec;
+    private double tokens;
+    private long lastNanos;
+
+    public TokenBucket(Spec spec, long nowNanos) {
+        this.spec = spec;
+        this.tokens = spec.capacity();
+        this.lastNanos = nowNanos;
+    }
+
+    /** Zużywa token; zwraca 0 przy sukcesie albo liczbę milisekund do następnego tokenu. */
+    public synchronized long tryConsume(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, spec.millisUntilToken(tokens));
+    }
+
+    /** Oddaje jeden token, nie ponad pojemność. */
+    public synchronized void refund() {
+        tokens = Math.min(spec.capacity(), tokens + 1);
+    }
+
+    /** Kubełek nieużywany na tyle długo, że byłby pełny – można go usunąć bez zmiany zachowania. */
+    synchronized boolean isIdle(long nowNanos) {
+        return nowNanos - lastNanos >= spec.nanosToFull();
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(spec.capacity(), tokens + elapsed / 1e9 * spec.refillPerSecond());
+            lastNanos = nowNanos;
+        }
+    }
+}
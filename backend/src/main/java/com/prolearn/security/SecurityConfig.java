@@ -4,6 +4,7 @@ package com.prolearn.security;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -19,9 +20,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtService jwtService;
+    private final Environment env;
 
-    public SecurityConfig(JwtService jwtService) {
+    public SecurityConfig(JwtService jwtService, Environment env) {
         this.jwtService = jwtService;
+        this.env = env;
     }
 
     @Bean
@@ -41,9 +44,13 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/error").permitAll()
 
-                        // health & swagger
+                        // health, metryki & swagger
                         .requestMatchers("/api/health").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        // metryki bez logowania tylko na osobnym porcie zarządzania (management.server.port),
+                        // który nie jest wystawiany publicznie; na porcie aplikacji wymagają uwierzytelnienia
+                        .requestMatchers(request -> "/actuator/prometheus".equals(request.getRequestURI())
+                                && String.valueOf(request.getLocalPort()).equals(env.getProperty("local.management.port"))).permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").permitAll()
 
                         // auth
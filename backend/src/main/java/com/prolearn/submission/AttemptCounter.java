@@ -0,0 +1,51 @@
+package com.prolearn.submission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rezerwacja kolejnej próby w tabeli submission_attempts. Sprawdzenie limitu i zwiększenie licznika to
+ * jeden upsert – dwa równoczesne zgłoszenia nie przejdą obu, a historia zgłoszeń nie jest skanowana.
+ * Rezerwacja jest zatwierdzana przed oceną (ocena biegnie bez transakcji), więc nieudana ocena lub zapis
+ * musi oddać próbę przez {@link #release}.
+ * Usunięcie zgłoszeń (dowolną ścieżką) przelicza licznik na liczbę pozostałych prób – trigger z V40.
+ */
+@Component
+public class AttemptCounter {
+
+    private static final String RESERVE_SQL = """
+            INSERT INTO submission_attempts AS a (task_id, student_id, used, updated_at)
+            VALUES (?, ?, 1, now())
+            ON CONFLICT (task_id, student_id) DO UPDATE SET used = a.used + 1, updated_at = now()
+            WHERE a.used < ?
+            RETURNING used
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public AttemptCounter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Zwraca numer zarezerwowanej próby (od 1) albo rzuca 400 z {@code limitMessage}, gdy limit
+     * {@code maxAttempts} został osiągnięty.
+     */
+    public int reserve(UUID taskId, UUID studentId, int maxAttempts, String limitMessage) {
+        int max = Math.max(1, maxAttempts);
+        List<Integer> used = jdbc.query(RESERVE_SQL, (rs, i) -> rs.getInt(1), taskId, studentId, max);
+        if (used.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, limitMessage);
+        return used.get(0);
+    }
+
+    /** Oddaje zarezerwowaną próbę, gdy zgłoszenie nie zostało zapisane. */
+    public void release(UUID taskId, UUID studentId) {
+        jdbc.update("UPDATE submission_attempts SET used = used - 1, updated_at = now() WHERE task_id = ? AND student_id = ? AND used > 0",
+                taskId, studentId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.prolearn.submission;
+
+import com.prolearn.classes.ClassService;
+import com.prolearn.submission.dto.BatchGradeRequest;
+import com.prolearn.submission.dto.BatchGradeResponse;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ręczna ocena wielu zgłoszeń zadania naraz: walidacja w jednym przebiegu (zakres punktów, przynależność
+ * zgłoszeń do zadania) i jeden JDBC batch update w jednej transakcji zamiast żądania na zgłoszenie.
+ */
+@Service
+@RequiredArgsConstructor
+public class ManualGradingService {
+
+    private final TaskRepository taskRepo;
+    private final SubmissionRepository submissionRepo;
+    private final ClassService classService;
+    private final JdbcTemplate jdbc;
+
+    @Transactional
+    public BatchGradeResponse gradeBatch(UUID taskId, List<BatchGradeRequest.Entry> grades, UUID teacherId) {
+        Task task = taskRepo.findById(taskId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
+        classService.requireTeacherMembership(task.getLesson().getClassroom().getId(), teacherId);
+
+        int max = task.getMaxPoints();
+        Set<UUID> ids = new HashSet<>();
+        for (BatchGradeRequest.Entry g : grades) {
+            if (!ids.add(g.submissionId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Zgłoszenie " + g.submissionId() + " występuje więcej niż raz");
+            }
+            if (g.manualScore() != null && g.manualScore() > max) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ręczna punktacja musi być w zakresie 0.." + max);
+            }
+        }
+        Set<UUID> found = new HashSet<>(submissionRepo.findIdsByTaskIdAndIdIn(taskId, ids));
+        if (found.size() != ids.size()) {
+            ids.removeAll(found);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zgłoszeń tego zadania: " + ids);
+        }
+
+        // jak w POST /api/submissions/{id}/grade: bez ręcznej oceny obowiązuje wynik automatyczny
+        Instant now = Instant.now();
+        Timestamp gradedAt = Timestamp.from(now);
+        int[][] counts = jdbc.batchUpdate("UPDATE submissions SET manual_score = ?, teacher_comment = ?, "
+                        + "points = COALESCE(?, auto_score, points), status = 'GRADED', graded_at = ?, graded_by = ? "
+                        + "WHERE id = ? AND task_id = ?",
+                grades, grades.size(), (ps, g) -> {
+                    ps.setObject(1, g.manualScore(), Types.INTEGER);
+                    ps.setString(2, g.teacherComment());
+                    ps.setObject(3, g.manualScore(), Types.INTEGER);
+                    ps.setTimestamp(4, gradedAt);
+                    ps.setObject(5, teacherId);
+                    ps.setObject(6, g.submissionId());
+                    ps.setObject(7, taskId);
+                });
+        // feedback leży w submission_payloads razem z resztą treści zgłoszenia
+        jdbc.batchUpdate("UPDATE submission_payloads SET feedback = ? WHERE submission_id = ?",
+                grades, grades.size(), (ps, g) -> {
+                    ps.setString(1, g.teacherComment());
+                    ps.setObject(2, g.submissionId());
+                });
+        int updated = 0;
+        for (int[] batch : counts) for (int n : batch) updated += n >= 0 ? n : 1; // SUCCESS_NO_INFO liczymy jako zapisane
+        return new BatchGradeResponse(taskId, updated, now);
+    }
+}
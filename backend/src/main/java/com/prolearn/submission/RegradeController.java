@@ -0,0 +1,49 @@
+package com.prolearn.submission;
+
+import com.prolearn.security.SecurityUtils;
+import com.prolearn.submission.dto.RegradeJobDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+import java.util.UUID;
+
+@RestController
+@RequestMapping(path = "/api", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class RegradeController {
+
+    private final RegradeService regradeService;
+
+    /** Ponowna ocena zgłoszeń po zmianie testów: 202 z zadaniem w tle (scope=LATEST domyślnie albo ALL). */
+    @PostMapping("/tasks/{taskId}/regrade")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<RegradeJobDto> regrade(@PathVariable("taskId") UUID taskId,
+                                                 @RequestParam(value = "scope", required = false) String scope) {
+        RegradeJob.Scope s;
+        try {
+            s = scope == null ? RegradeJob.Scope.LATEST : RegradeJob.Scope.valueOf(scope.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nieprawidłowy zakres: dozwolone LATEST lub ALL");
+        }
+        RegradeJob job = regradeService.start(taskId, s, requireUser());
+        return ResponseEntity.accepted().body(RegradeJobDto.fromEntity(job));
+    }
+
+    @GetMapping("/regrade-jobs/{jobId}")
+    @PreAuthorize("hasRole('TEACHER')")
+    public RegradeJobDto job(@PathVariable("jobId") UUID jobId) {
+        return RegradeJobDto.fromEntity(regradeService.getJob(jobId, requireUser()));
+    }
+
+    private static UUID requireUser() {
+        UUID userId = SecurityUtils.currentUserId();
+        if (userId == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
+        return userId;
+    }
+}
@@ -0,0 +1,74 @@
+package com.prolearn.submission;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Zadanie ponownej oceny zgłoszeń zadania (tabela regrade_jobs). */
+@Entity
+@Table(name = "regrade_jobs")
+@Getter @Setter @NoArgsConstructor
+public class RegradeJob {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    /** LATEST – ostatnie zgłoszenie każdego ucznia, ALL – wszystkie próby. */
+    public enum Scope { LATEST, ALL }
+
+    @Id
+    private UUID id;
+
+    @Column(name = "task_id", nullable = false)
+    private UUID taskId;
+
+    @Column(name = "requested_by")
+    private UUID requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Scope scope = Scope.LATEST;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(name = "total_rows", nullable = false)
+    private long totalRows;
+
+    @Column(name = "processed_rows", nullable = false)
+    private long processedRows;
+
+    @Column(name = "failed_rows", nullable = false)
+    private long failedRows;
+
+    // kursor keyset (id zgłoszenia) – ostatnia zapisana paczka
+    @Column(name = "last_submission_id")
+    private UUID lastSubmissionId;
+
+    @Column(columnDefinition = "text")
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    // początek bieżącego przebiegu (także po wznowieniu) i ile było wtedy gotowe – podstawa ETA
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "started_rows", nullable = false)
+    private long startedRows;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    // dzierżawa: węzeł wykonujący zadanie i jego ostatni heartbeat (RegradeService)
+    @Column(name = "owner")
+    private UUID owner;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+}
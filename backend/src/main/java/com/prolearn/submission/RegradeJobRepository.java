@@ -0,0 +1,24 @@
+package com.prolearn.submission;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RegradeJobRepository extends JpaRepository<RegradeJob, UUID> {
+    Optional<RegradeJob> findFirstByTaskIdAndStatusIn(UUID taskId, Collection<RegradeJob.Status> statuses);
+
+    @Modifying
+    @Query("""
+            update RegradeJob j set j.processedRows = j.processedRows + :n, j.failedRows = j.failedRows + :failed,
+                   j.lastSubmissionId = :cursor, j.updatedAt = CURRENT_TIMESTAMP
+            where j.id = :id and j.owner = :owner
+            """)
+    int addProgress(@Param("id") UUID id, @Param("owner") UUID owner, @Param("n") long n, @Param("failed") long failed,
+                    @Param("cursor") UUID cursor);
+}
@@ -0,0 +1,347 @@
+package com.prolearn.submission;
+
+import com.prolearn.classes.ClassService;
+import com.prolearn.grading.GradingScheduler;
+import com.prolearn.ratelimit.ThrottledException;
+import com.prolearn.task.ProgrammingTestCase;
+import com.prolearn.task.ProgrammingTestCaseRepository;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Ponowna ocena zgłoszeń zadania po zmianie testów. Zgłoszenia są czytane paczkami (keyset po id),
+ * oceniane równolegle w ograniczonej liczbie wątków z priorytetem REGRADE i zapisywane jednym
+ * JDBC batch update na paczkę razem z kursorem – po restarcie zadanie wznawia się od ostatniej paczki.
+ * Tempo ogranicza limit ocen na sekundę, a przy kolejce ocen na żywo przeliczanie czeka.
+ * Zadanie wykonuje węzeł, który trzyma jego dzierżawę (owner + heartbeat_at); po jej wygaśnięciu przejmuje
+ * je inny węzeł jednym UPDATE … RETURNING, a zapis paczki węzła, który dzierżawę stracił, jest odrzucany.
+ */
+@Service
+public class RegradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegradeService.class);
+    private static final EnumSet<RegradeJob.Status> ACTIVE = EnumSet.of(RegradeJob.Status.PENDING, RegradeJob.Status.RUNNING);
+    private static final long BACKOFF_MS = 250;
+    private static final int MAX_RETRIES = 5;
+    private static final String FROM = " FROM submissions s JOIN submission_payloads p ON p.submission_id = s.id";
+    // SKIP LOCKED: dwa węzły przejmujące jednocześnie nie czekają na siebie i nie dostają tego samego zadania
+    private static final String CLAIM_SQL = """
+            UPDATE regrade_jobs SET owner = ?, heartbeat_at = now()
+            WHERE id IN (SELECT id FROM regrade_jobs WHERE status IN ('PENDING', 'RUNNING')
+                           AND (owner IS NULL OR heartbeat_at IS NULL OR heartbeat_at < now() - make_interval(secs => ?))
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING id
+            """;
+
+    private final RegradeJobRepository jobRepo;
+    private final TaskRepository taskRepo;
+    private final ProgrammingTestCaseRepository testRepo;
+    private final ClassService classService;
+    private final SubmissionGrader grader;
+    private final GradingScheduler scheduler;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final long minIntervalNanos;
+    private final long leaseSeconds;
+    private final UUID nodeId = UUID.randomUUID();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "regrade");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService workers;
+    private final ScheduledExecutorService leases = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "regrade-lease");
+        t.setDaemon(true);
+        return t;
+    });
+    private long nextSlot;
+
+    public RegradeService(RegradeJobRepository jobRepo,
+                          TaskRepository taskRepo,
+                          ProgrammingTestCaseRepository testRepo,
+                          ClassService classService,
+                          SubmissionGrader grader,
+                          GradingScheduler scheduler,
+                          JdbcTemplate jdbc,
+                          PlatformTransactionManager txManager,
+                          @Value("${app.regrade.batch-size:50}") int batchSize,
+                          @Value("${app.regrade.parallelism:2}") int parallelism,
+                          @Value("${app.regrade.max-per-second:20}") double maxPerSecond,
+                          @Value("${app.regrade.lease-seconds:60}") long leaseSeconds) {
+        this.jobRepo = jobRepo;
+        this.taskRepo = taskRepo;
+        this.testRepo = testRepo;
+        this.classService = classService;
+        this.grader = grader;
+        this.scheduler = scheduler;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.minIntervalNanos = maxPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxPerSecond) : 0;
+        this.leaseSeconds = Math.max(3, leaseSeconds);
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "regrade-worker-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Zleca ponowną ocenę zgłoszeń zadania (tylko nauczyciel klasy). Gdy przeliczanie tego zadania
+     * już trwa, zwraca istniejące zadanie.
+     */
+    public RegradeJob start(UUID taskId, RegradeJob.Scope scope, UUID userId) {
+        AtomicBoolean created = new AtomicBoolean();
+        RegradeJob job;
+        try {
+            job = tx.execute(status -> {
+                Task task = taskRepo.findById(taskId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
+                classService.requireTeacherMembership(task.getLesson().getClassroom().getId(), userId);
+                RegradeJob active = jobRepo.findFirstByTaskIdAndStatusIn(taskId, ACTIVE).orElse(null);
+                if (active != null) return active;
+                RegradeJob j = new RegradeJob();
+                j.setId(UUID.randomUUID());
+                j.setTaskId(taskId);
+                j.setRequestedBy(userId);
+                j.setScope(scope == null ? RegradeJob.Scope.LATEST : scope);
+                j.setOwner(nodeId);
+                j.setHeartbeatAt(Instant.now());
+                Long total = jdbc.queryForObject("SELECT count(*)" + FROM + where(j.getScope(), false), Long.class, taskId);
+                j.setTotalRows(total == null ? 0 : total);
+                created.set(true);
+                return jobRepo.save(j);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ponowna ocena tego zadania już trwa");
+        }
+        if (created.get()) {
+            UUID id = job.getId();
+            executor.submit(() -> run(id));
+        }
+        return job;
+    }
+
+    /** Postęp przeliczania – widoczny tylko dla nauczyciela, który je zlecił. */
+    public RegradeJob getJob(UUID jobId, UUID userId) {
+        return jobRepo.findById(jobId)
+                .filter(j -> userId != null && userId.equals(j.getRequestedBy()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania ponownej oceny"));
+    }
+
+    /**
+     * Wznawia zadania przerwane restartem aplikacji i co jedną trzecią dzierżawy odnawia własne oraz
+     * przejmuje porzucone przez inne węzły.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        resumeClaimed();
+        long interval = Math.max(1, leaseSeconds / 3);
+        leases.scheduleWithFixedDelay(this::maintainLeases, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /** Przejmuje zadania bez ważnej dzierżawy i zleca je temu węzłowi; zwraca ich id. */
+    List<UUID> resumeClaimed() {
+        List<UUID> claimed = jdbc.queryForList(CLAIM_SQL, UUID.class, nodeId, leaseSeconds);
+        for (UUID id : claimed) {
+            log.info("Wznawianie ponownej oceny (zadanie {})", id);
+            executor.submit(() -> run(id));
+        }
+        return claimed;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        leases.shutdownNow();
+        executor.shutdownNow();
+        workers.shutdownNow();
+        try {
+            // zwolnienie dzierżawy – inny węzeł wznowi zadania od razu, a nie po jej wygaśnięciu
+            jdbc.update("UPDATE regrade_jobs SET owner = NULL WHERE owner = ? AND status IN ('PENDING', 'RUNNING')", nodeId);
+        } catch (RuntimeException e) {
+            log.debug("Nie zwolniono dzierżaw ponownej oceny", e);
+        }
+    }
+
+    private void maintainLeases() {
+        try {
+            jdbc.update("UPDATE regrade_jobs SET heartbeat_at = now() WHERE owner = ? AND status IN ('PENDING', 'RUNNING')", nodeId);
+            resumeClaimed();
+        } catch (RuntimeException e) {
+            log.warn("Odnowienie dzierżaw ponownej oceny nie powiodło się", e);
+        }
+    }
+
+    void run(UUID jobId) {
+        RegradeJob job = jobRepo.findById(jobId).orElse(null);
+        if (job == null || !ACTIVE.contains(job.getStatus()) || !nodeId.equals(job.getOwner())) return;
+        UUID taskId = job.getTaskId();
+        try {
+            Task task = tx.execute(status -> {
+                Task t = taskRepo.findById(taskId).orElse(null);
+                // klucz sprawiedliwości kolejki (klasa) musi być dostępny poza transakcją
+                if (t != null) SubmissionGrader.classKey(t);
+                return t;
+            });
+            if (task == null) {
+                update(jobId, j -> j.setStatus(RegradeJob.Status.DONE));
+                return;
+            }
+            List<ProgrammingTestCase> cases = testRepo.findByTaskIdOrderByOrderAsc(taskId);
+            update(jobId, j -> {
+                j.setStatus(RegradeJob.Status.RUNNING);
+                j.setStartedAt(Instant.now());
+                j.setStartedRows(j.getProcessedRows());
+            });
+            UUID cursor = job.getLastSubmissionId();
+            while (true) {
+                List<Object[]> batch = nextBatch(taskId, job.getScope(), cursor);
+                if (batch.isEmpty()) break;
+                List<Graded> graded = gradeBatch(task, cases, batch);
+                if (graded == null) return; // przerwane – wznowi się od kursora
+                cursor = (UUID) batch.get(batch.size() - 1)[0];
+                if (!write(jobId, graded, batch.size() - graded.size(), cursor)) {
+                    log.warn("Utracono dzierżawę ponownej oceny zadania {} (zadanie {})", taskId, jobId);
+                    return;
+                }
+            }
+            update(jobId, j -> j.setStatus(RegradeJob.Status.DONE));
+            log.info("Ponownie oceniono zgłoszenia zadania {} (zadanie {})", taskId, jobId);
+        } catch (RuntimeException e) {
+            log.error("Ponowna ocena zadania {} nie powiodła się", taskId, e);
+            update(jobId, j -> {
+                j.setStatus(RegradeJob.Status.FAILED);
+                j.setError(e.getMessage());
+            });
+        }
+    }
+
+    private record Graded(UUID id, Integer autoScore, String testReport, String stdout) {}
+
+    /** Ocena paczki w puli wątków; null, gdy wątek przerwano. Nieudane oceny są pomijane (zostaje stary wynik). */
+    private List<Graded> gradeBatch(Task task, List<ProgrammingTestCase> cases, List<Object[]> batch) {
+        List<Future<Graded>> futures = new ArrayList<>(batch.size());
+        try {
+            for (Object[] row : batch) {
+                throttle();
+                UUID id = (UUID) row[0];
+                String code = (String) row[1];
+                futures.add(workers.submit(() -> gradeOne(task, cases, id, code)));
+            }
+            List<Graded> graded = new ArrayList<>(batch.size());
+            for (Future<Graded> f : futures) {
+                try {
+                    graded.add(f.get());
+                } catch (ExecutionException e) {
+                    log.warn("Ponowna ocena zgłoszenia nie powiodła się", e.getCause());
+                }
+            }
+            return graded;
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private Graded gradeOne(Task task, List<ProgrammingTestCase> cases, UUID id, String code) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            Submission scratch = new Submission();
+            scratch.setCode(code);
+            try {
+                grader.grade(GradingScheduler.Priority.REGRADE, task, scratch, cases);
+                return new Graded(id, scratch.getAutoScore(), scratch.getTestReport(), scratch.getStdout());
+            } catch (ThrottledException e) {
+                // kolejka pełna ocen na żywo – przeliczanie ustępuje i próbuje później
+                if (attempt >= MAX_RETRIES) throw e;
+                Thread.sleep(TimeUnit.SECONDS.toMillis(e.getRetryAfterSeconds()));
+            }
+        }
+    }
+
+    /** Limit ocen na sekundę; dodatkowo czeka, dopóki w kolejce są wykonania na żywo. */
+    private void throttle() throws InterruptedException {
+        while (scheduler.liveQueued() > 0) Thread.sleep(BACKOFF_MS);
+        long now = System.nanoTime();
+        if (nextSlot > now) TimeUnit.NANOSECONDS.sleep(nextSlot - now);
+        nextSlot = Math.max(now, nextSlot) + minIntervalNanos;
+    }
+
+    private List<Object[]> nextBatch(UUID taskId, RegradeJob.Scope scope, UUID cursor) {
+        String sql = "SELECT s.id, blob_get(p.code_hash)" + FROM + where(scope, cursor != null) + " ORDER BY s.id LIMIT ?";
+        Object[] args = cursor == null ? new Object[]{taskId, batchSize} : new Object[]{taskId, cursor, batchSize};
+        return jdbc.query(sql, (rs, i) -> new Object[]{rs.getObject(1, UUID.class), SubmissionBlobCodec.decode(rs.getBytes(2))}, args);
+    }
+
+    private static String where(RegradeJob.Scope scope, boolean afterCursor) {
+        String sql = " WHERE s.task_id = ? AND p.code_hash IS NOT NULL";
+        if (afterCursor) sql += " AND s.id > ?";
+        if (scope != RegradeJob.Scope.ALL) {
+            sql += " AND NOT EXISTS (SELECT 1 FROM submissions n WHERE n.task_id = s.task_id"
+                    + " AND n.student_id = s.student_id AND n.created_at > s.created_at)";
+        }
+        return sql;
+    }
+
+    /**
+     * Wyniki paczki i kursor w jednej krótkiej transakcji; ręczna ocena nauczyciela ma pierwszeństwo.
+     * Zwraca false bez zapisu paczki, gdy zadanie przejął już inny węzeł.
+     */
+    private boolean write(UUID jobId, List<Graded> graded, int failed, UUID cursor) {
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            if (jobRepo.addProgress(jobId, nodeId, graded.size() + failed, failed, cursor) == 0) return false;
+            jdbc.batchUpdate("UPDATE submissions SET auto_score = ?, points = COALESCE(manual_score, ?) WHERE id = ?",
+                    graded, graded.size(), (ps, g) -> {
+                        ps.setObject(1, g.autoScore(), Types.INTEGER);
+                        ps.setObject(2, g.autoScore(), Types.INTEGER);
+                        ps.setObject(3, g.id());
+                    });
+            jdbc.batchUpdate("UPDATE submission_payloads SET report_hash = blob_put(?), stdout_hash = blob_put(?) WHERE submission_id = ?",
+                    graded, graded.size(), (ps, g) -> {
+                        ps.setBytes(1, SubmissionBlobCodec.encode(g.testReport()));
+                        ps.setBytes(2, SubmissionBlobCodec.encode(g.stdout()));
+                        ps.setObject(3, g.id());
+                    });
+            return true;
+        }));
+    }
+
+    private void update(UUID jobId, Consumer<RegradeJob> change) {
+        tx.executeWithoutResult(status -> jobRepo.findById(jobId).filter(j -> nodeId.equals(j.getOwner())).ifPresent(j -> {
+            change.accept(j);
+            j.setUpdatedAt(Instant.now());
+        }));
+    }
+}
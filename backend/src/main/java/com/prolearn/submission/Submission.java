@@ -2,6 +2,7 @@ package com.prolearn.submission;
 
 import com.prolearn.task.Task;
 import com.prolearn.user.User;
+import com.prolearn.util.UuidV7;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
@@ -22,24 +23,12 @@ public class Submission {
     @JoinColumn(name = "student_id")
     private User student;
 
-    @Column(columnDefinition = "text")
-    private String content;   // link/tekst
-
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 16)
     private SubmissionStatus status = SubmissionStatus.SUBMITTED;
 
-    @Column(columnDefinition = "text")
-    private String code;
-
-    @Column(columnDefinition = "text")
-    private String testReport;   // przechowujemy JSON jako TEXT
-
     private Integer autoScore;
 
-    @Column(columnDefinition = "text")
-    private String stdout;
-
     @Column(name = "attempt_number")
     private Integer attemptNumber;
 
@@ -52,9 +41,6 @@ public class Submission {
     @Column
     private Integer points;   // null dopóki nieocenione
 
-    @Column(columnDefinition = "text")
-    private String feedback;
-
     @Column(name = "graded_at")
     private Instant gradedAt;
 
@@ -62,13 +48,25 @@ public class Submission {
     @JoinColumn(name = "graded_by")
     private User gradedBy;
 
-    @Column(name = "created_at", nullable = false)
+    // klucz partycjonowania – bez zmian po zapisie, żeby wiersz nie przenosił się między partycjami
+    @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
+    // treść, kod, raport, stdout i feedback w submission_payloads – pobierane dopiero przy pierwszym odczycie
+    @OneToOne(fetch = FetchType.LAZY, optional = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @JoinColumn(name = "id", insertable = false, updatable = false)
+    private SubmissionPayload payload;
+
     @PrePersist
     void prePersist() {
-        if (id == null) id = UUID.randomUUID();
+        if (id == null) id = UuidV7.generate();
         if (createdAt == null) createdAt = Instant.now();
+        payload().setSubmissionId(id);
+    }
+
+    private SubmissionPayload payload() {
+        if (payload == null) payload = new SubmissionPayload();
+        return payload;
     }
 
     // --- getters/setters ---
@@ -80,8 +78,8 @@ public class Submission {
     public User getStudent() { return student; }
     public void setStudent(User student) { this.student = student; }
 
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public String getContent() { return payload == null ? null : payload.getContent(); }
+    public void setContent(String content) { payload().setContent(content); }
 
     public SubmissionStatus getStatus() { return status; }
     public void setStatus(SubmissionStatus status) { this.status = status; }
@@ -89,8 +87,8 @@ public class Submission {
     public Integer getPoints() { return points; }
     public void setPoints(Integer points) { this.points = points; }
 
-    public String getFeedback() { return feedback; }
-    public void setFeedback(String feedback) { this.feedback = feedback; }
+    public String getFeedback() { return payload == null ? null : payload.getFeedback(); }
+    public void setFeedback(String feedback) { payload().setFeedback(feedback); }
 
     public Instant getGradedAt() { return gradedAt; }
     public void setGradedAt(Instant gradedAt) { this.gradedAt = gradedAt; }
@@ -101,17 +99,17 @@ public class Submission {
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
-    public String getCode() { return code; }
-    public void setCode(String code) { this.code = code; }
+    public String getCode() { return payload == null ? null : payload.getCode(); }
+    public void setCode(String code) { payload().setCode(code); }
 
-    public String getTestReport() { return testReport; }
-    public void setTestReport(String testReport) { this.testReport = testReport; }
+    public String getTestReport() { return payload == null ? null : payload.getTestReport(); }
+    public void setTestReport(String testReport) { payload().setTestReport(testReport); }  // JSON jako TEXT
 
     public Integer getAutoScore() { return autoScore; }
     public void setAutoScore(Integer autoScore) { this.autoScore = autoScore; }
 
-    public String getStdout() { return stdout; }
-    public void setStdout(String stdout) { this.stdout = stdout; }
+    public String getStdout() { return payload == null ? null : payload.getStdout(); }
+    public void setStdout(String stdout) { payload().setStdout(stdout); }
 
     public Integer getAttemptNumber() { return attemptNumber; }
     public void setAttemptNumber(Integer attemptNumber) { this.attemptNumber = attemptNumber; }
@@ -0,0 +1,104 @@
+package com.prolearn.submission;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Format wartości w submission_blobs widziany przez SQL-owe blob_put/blob_get: 32 bajty SHA-256 treści
+ * (klucz, identyczny kod i raporty zapisują się raz), bajt formatu i dane – Deflater albo surowe UTF-8,
+ * gdy kompresja nic nie daje (oraz dla danych przeniesionych migracją V37).
+ */
+@Converter
+public class SubmissionBlobCodec implements AttributeConverter<String, byte[]> {
+
+    static final int HASH_BYTES = 32;
+    private static final byte RAW = 0;
+    private static final byte DEFLATE = 1;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String value) {
+        return encode(value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return decode(stored);
+    }
+
+    public static byte[] encode(String value) {
+        if (value == null) return null;
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        byte[] packed = deflate(raw);
+        boolean compressed = packed.length < raw.length;
+        byte[] body = compressed ? packed : raw;
+        byte[] out = new byte[HASH_BYTES + 1 + body.length];
+        System.arraycopy(sha256(raw), 0, out, 0, HASH_BYTES);
+        out[HASH_BYTES] = compressed ? DEFLATE : RAW;
+        System.arraycopy(body, 0, out, HASH_BYTES + 1, body.length);
+        return out;
+    }
+
+    public static String decode(byte[] stored) {
+        if (stored == null) return null;
+        if (stored.length <= HASH_BYTES) throw new IllegalStateException("Brak treści bloba zgłoszenia");
+        byte[] body = Arrays.copyOfRange(stored, HASH_BYTES + 1, stored.length);
+        byte[] raw = switch (stored[HASH_BYTES]) {
+            case RAW -> body;
+            case DEFLATE -> inflate(body);
+            default -> throw new IllegalStateException("Nieznany format bloba: " + stored[HASH_BYTES]);
+        };
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) out.write(buf, 0, deflater.deflate(buf));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] packed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(packed.length * 4);
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Uszkodzony blob zgłoszenia");
+                }
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Uszkodzony blob zgłoszenia", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] sha256(byte[] raw) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(raw);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.prolearn.submission;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Okresowe usuwanie blobów, do których nie odwołuje się już żadne zgłoszenie (po usunięciu zgłoszeń,
+ * klas albo nadpisaniu raportu przy ponownej ocenie). Kasowane są tylko bloby nieużywane dłużej niż
+ * {@code app.blobs.sweep-grace-hours}, więc blob zapisany przez trwającą transakcję nie znika.
+ */
+@Service
+public class SubmissionBlobSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionBlobSweeper.class);
+    // blob_put odświeża last_used_at raz na dobę – krótsza karencja mogłaby usunąć blob w użyciu
+    private static final long MIN_GRACE_HOURS = 48;
+
+    private static final String SWEEP_SQL = """
+            DELETE FROM submission_blobs WHERE hash IN (
+              SELECT b.hash FROM submission_blobs b
+              WHERE b.last_used_at < now() - make_interval(hours => ?)
+                AND NOT EXISTS (SELECT 1 FROM submission_payloads p WHERE p.code_hash = b.hash)
+                AND NOT EXISTS (SELECT 1 FROM submission_payloads p WHERE p.report_hash = b.hash)
+                AND NOT EXISTS (SELECT 1 FROM submission_payloads p WHERE p.stdout_hash = b.hash)
+              LIMIT ?)
+            AND last_used_at < now() - make_interval(hours => ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final long intervalMinutes;
+    private final int graceHours;
+    private final int batchSize;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "blob-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SubmissionBlobSweeper(JdbcTemplate jdbc,
+                                 @Value("${app.blobs.sweep-interval-minutes:360}") long intervalMinutes,
+                                 @Value("${app.blobs.sweep-grace-hours:168}") int graceHours,
+                                 @Value("${app.blobs.sweep-batch-size:1000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.intervalMinutes = intervalMinutes;
+        this.graceHours = (int) Math.max(MIN_GRACE_HOURS, graceHours);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (intervalMinutes <= 0) return;
+        executor.scheduleWithFixedDelay(this::sweepSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Usuwa nieużywane bloby paczkami (każda paczka to osobna krótka instrukcja); zwraca ich liczbę. */
+    public long sweep() {
+        long total = 0;
+        int n;
+        do {
+            n = jdbc.update(SWEEP_SQL, graceHours, batchSize, graceHours);
+            total += n;
+        } while (n == batchSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private void sweepSafely() {
+        try {
+            long removed = sweep();
+            if (removed > 0) log.info("Usunięto {} nieużywanych blobów zgłoszeń", removed);
+        } catch (Exception e) {
+            log.warn("Sprzątanie blobów zgłoszeń nie powiodło się", e);
+        }
+    }
+}
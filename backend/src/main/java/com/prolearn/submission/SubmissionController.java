@@ -2,8 +2,10 @@ package com.prolearn.submission;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.prolearn.classes.ClassService;
-import com.prolearn.grading.CodeExecutionService;
-import com.prolearn.grading.JsAutoGrader;
+import com.prolearn.grading.GradingScheduler;
+import com.prolearn.idempotency.IdempotencyService;
+import com.prolearn.submission.dto.BatchGradeRequest;
+import com.prolearn.submission.dto.BatchGradeResponse;
 import com.prolearn.submission.dto.ClassSubmissionResponse;
 import com.prolearn.submission.dto.GradeRequest;
 import com.prolearn.submission.dto.SubmissionCreateRequest;
@@ -19,7 +21,9 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -30,136 +34,88 @@ import java.util.*;
 @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE)
 public class SubmissionController {
 
-    private static final EnumSet<SubmissionStatus> ATTEMPT_STATUSES = EnumSet.of(SubmissionStatus.SUBMITTED, SubmissionStatus.GRADED);
-
     private final SubmissionRepository submissions;
     private final TaskRepository tasks;
     private final UserRepository users;
-    private final JsAutoGrader jsAutoGrader;
     private final ProgrammingTestCaseRepository testRepo;
     private final ObjectMapper objectMapper;
     private final ClassService classService;
-    private final CodeExecutionService codeExecutionService;
+    private final SubmissionGrader grader;
+    private final ManualGradingService manualGrading;
+    private final AttemptCounter attempts;
+    private final IdempotencyService idempotency;
+    private final TestReportFilter reportFilter;
+    private final TransactionTemplate tx;
 
     public SubmissionController(SubmissionRepository submissions,
                                 TaskRepository tasks,
                                 UserRepository users,
-                                JsAutoGrader jsAutoGrader,
                                 ProgrammingTestCaseRepository testRepo,
                                 ObjectMapper objectMapper,
                                 ClassService classService,
-                                CodeExecutionService codeExecutionService) {
+                                SubmissionGrader grader,
+                                ManualGradingService manualGrading,
+                                AttemptCounter attempts,
+                                IdempotencyService idempotency,
+                                PlatformTransactionManager txManager) {
         this.submissions = submissions;
         this.tasks = tasks;
         this.users = users;
-        this.jsAutoGrader = jsAutoGrader;
         this.testRepo = testRepo;
         this.objectMapper = objectMapper;
         this.classService = classService;
-        this.codeExecutionService = codeExecutionService;
+        this.grader = grader;
+        this.manualGrading = manualGrading;
+        this.attempts = attempts;
+        this.idempotency = idempotency;
+        this.reportFilter = new TestReportFilter(objectMapper);
+        this.tx = new TransactionTemplate(txManager);
     }
 
     // Filter run results for non-teacher callers: remove hidden tests from the returned 'tests' array
     private Map<String,Object> sanitizeRunOutput(Map<String,Object> out, List<ProgrammingTestCase> casesList, Authentication auth) {
-        if (out == null) return out;
-        boolean callerIsTeacher = false;
-        if (auth != null) {
-            var authNames = auth.getAuthorities().stream().map(a -> a.getAuthority()).toList();
-            callerIsTeacher = authNames.contains("TEACHER") || authNames.contains("ROLE_TEACHER");
-        }
-        if (callerIsTeacher) return out;
-        Object testsObj = out.get("tests");
-        if (!(testsObj instanceof List<?>)) return out;
-        List<?> arr = (List<?>) testsObj;
-        Map<java.util.UUID, ProgrammingTestCase> byId = new HashMap<>();
-        if (casesList != null) for (var c : casesList) byId.put(c.getId(), c);
-        List<Object> filtered = new ArrayList<>();
-        for (int idx = 0; idx < arr.size(); idx++) {
-            Object o = arr.get(idx);
-            if (!(o instanceof Map<?,?>)) continue;
-            Map<?,?> m = (Map<?,?>) o;
-            Object idVal = m.get("id");
-            java.util.UUID uid = null;
-            if (idVal instanceof java.util.UUID) uid = (java.util.UUID) idVal;
-            else if (idVal instanceof String) {
-                try { uid = java.util.UUID.fromString((String) idVal); } catch(Exception ignored) { uid = null; }
-            }
-            if (uid == null) {
-                // If element lacks id, try to align by index with casesList
-                if (casesList != null && idx < casesList.size()) {
-                    ProgrammingTestCase tc = casesList.get(idx);
-                    if (tc == null || tc.isVisible()) filtered.add(m);
-                } else {
-                    // keep when alignment impossible
-                    filtered.add(m);
-                }
-            } else {
-                ProgrammingTestCase tc = byId.get(uid);
-                if (tc == null || tc.isVisible()) filtered.add(m);
-            }
-        }
-        // silent in production: do not log sanitized details here
-        out.put("tests", filtered);
-        // Also sanitize any serialized stdout that may contain the full test array
-        try {
-            Object rawStdout = out.get("stdout");
-                if (rawStdout instanceof String s && casesList != null && !casesList.isEmpty()) {
-                    String trimmed = s.trim();
-                    java.util.List<java.util.Map<String,Object>> parsedList = null;
-                    if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
-                        parsedList = objectMapper.readValue(trimmed, java.util.List.class);
-                    } else {
-                        // try to find last JSON array inside the string
-                        int i = trimmed.lastIndexOf('[');
-                        if (i >= 0) {
-                            try { parsedList = objectMapper.readValue(trimmed.substring(i), java.util.List.class); } catch (Exception ignored) { parsedList = null; }
-                        }
-                    }
-                    if (parsedList != null) {
-                        // Build map of visible tests by id or by index
-                        Map<java.util.UUID, Boolean> visibleById = new HashMap<>();
-                        for (var c : casesList) visibleById.put(c.getId(), c.isVisible());
-                        java.util.List<java.util.Map<String,Object>> outArr = new ArrayList<>();
-                        for (int idx = 0; idx < parsedList.size(); idx++) {
-                            java.util.Map<String,Object> item = parsedList.get(idx);
-                            boolean keep = true;
-                            Object idNode = item.get("id");
-                            java.util.UUID uid = null;
-                            if (idNode instanceof java.util.UUID) uid = (java.util.UUID) idNode;
-                            else if (idNode instanceof String) {
-                                try { uid = java.util.UUID.fromString((String) idNode); } catch(Exception ignored) { uid = null; }
-                            }
-                            if (uid != null) {
-                                Boolean vis = visibleById.get(uid);
-                                if (vis != null && !vis.booleanValue()) keep = false;
-                            } else {
-                                // align by index
-                                if (idx < casesList.size()) {
-                                    ProgrammingTestCase tc = casesList.get(idx);
-                                    if (tc != null && !tc.isVisible()) keep = false;
-                                }
-                            }
-                            if (keep) {
-                                outArr.add(item);
-                            }
-                        }
-                        out.put("stdout", objectMapper.writeValueAsString(outArr));
-                }
-            }
-        } catch (Exception ignored) {}
+        if (out == null || isTeacher(auth)) return out;
+        return reportFilter.filterRunOutput(out, casesList);
+    }
 
-        return out;
+    private static boolean isTeacher(Authentication auth) {
+        if (auth == null) return false;
+        var authNames = auth.getAuthorities().stream().map(a -> a.getAuthority()).toList();
+        return authNames.contains("TEACHER") || authNames.contains("ROLE_TEACHER");
     }
 
     // ---------- Creation & Submission ----------
 
     @RolesAllowed({"STUDENT","ROLE_STUDENT"})
     @PostMapping(value = "/api/tasks/{taskId}/submissions", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Transactional
     public SubmissionResponse create(@PathVariable("taskId") UUID taskId,
                                      @Valid @RequestBody SubmissionCreateRequest req,
+                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                      Authentication auth) {
         UUID studentId = (UUID) auth.getDetails();
+        // ponowienie z tym samym kluczem dostaje zapisaną odpowiedź – bez ponownej oceny i zużycia próby
+        return idempotency.execute(studentId, "POST /api/tasks/" + taskId + "/submissions", idempotencyKey, req,
+                SubmissionResponse.class, () -> createSubmission(taskId, req, studentId, auth));
+    }
+
+    private SubmissionResponse createSubmission(UUID taskId, SubmissionCreateRequest req, UUID studentId, Authentication auth) {
+        // krótka transakcja: zadanie, testy i atomowa rezerwacja próby (zatwierdzona przed oceną)
+        PreparedSubmission prepared = tx.execute(status -> prepareSubmission(taskId, req, studentId));
+        Submission s = prepared.submission();
+        try {
+            // Auto-grade now (JavaScript / Python) – najwyższy priorytet w kolejce; bez transakcji i połączenia z bazą
+            grader.grade(GradingScheduler.Priority.SUBMIT, s.getTask(), s, prepared.cases());
+            return tx.execute(status -> map(submissions.save(s), auth));
+        } catch (RuntimeException e) {
+            // zgłoszenie nie zostało zapisane – próba wraca do ucznia
+            attempts.release(taskId, studentId);
+            throw e;
+        }
+    }
+
+    private record PreparedSubmission(Submission submission, List<ProgrammingTestCase> cases) {}
+
+    private PreparedSubmission prepareSubmission(UUID taskId, SubmissionCreateRequest req, UUID studentId) {
         Task task = tasks.findById(taskId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
 
@@ -167,11 +123,7 @@ public class SubmissionController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Zadanie nie jest zadaniem kodu");
         }
 
-        long priorAttempts = submissions.countByTaskIdAndStudent_IdAndStatusIn(taskId, studentId, ATTEMPT_STATUSES);
-        Integer maxAttempts = task.getMaxAttempts();
-        if (maxAttempts != null && maxAttempts > 0 && priorAttempts >= maxAttempts) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit prób został osiągnięty");
-        }
+        int attemptNumber = attempts.reserve(taskId, studentId, task.getMaxAttempts(), "Limit prób został osiągnięty");
 
         Submission s = new Submission();
         s.setTask(task);
@@ -180,155 +132,35 @@ public class SubmissionController {
         s.setCreatedAt(Instant.now());
         s.setStatus(SubmissionStatus.SUBMITTED);
         s.setCode(req.code());
-        s.setAttemptNumber((int) (priorAttempts + 1));
+        s.setAttemptNumber(attemptNumber);
+        // klucz klasy kolejki ładowany leniwie – jeszcze w otwartej sesji
+        SubmissionGrader.classKey(task);
+        return new PreparedSubmission(s, testRepo.findByTaskIdOrderByOrderAsc(taskId));
+    }
 
-        // Auto-grade now (JavaScript / Python)
-        gradeAuto(task, s);
+    private record LoadedTask(Task task, List<ProgrammingTestCase> cases) {}
 
-        s = submissions.save(s);
-        return map(s, auth);
+    /** Zadanie i jego testy w krótkiej transakcji; uruchomienie kodu biegnie już bez połączenia z bazą. */
+    private LoadedTask loadTask(UUID taskId) {
+        return tx.execute(status -> {
+            Task task = tasks.findById(taskId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
+            SubmissionGrader.classKey(task);
+            return new LoadedTask(task, testRepo.findByTaskIdOrderByOrderAsc(taskId));
+        });
     }
 
     // Alias used by tests expecting method name 'submit'
     @RolesAllowed({"STUDENT","ROLE_STUDENT"})
     @PostMapping(value = "/api/tasks/{taskId}/submit", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Transactional
     public SubmissionResponse submit(@PathVariable("taskId") UUID taskId,
                                      @Valid @RequestBody SubmissionCreateRequest req,
+                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                      Authentication auth) {
-        return create(taskId, req, auth);
+        return create(taskId, req, idempotencyKey, auth);
     }
 
-    private void gradeAuto(Task task, Submission s) {
-        String lang = task.getLanguage();
-        var casesList = testRepo.findByTaskIdOrderByOrderAsc(task.getId());
-        boolean isJs = lang != null && (lang.equalsIgnoreCase("javascript") || lang.equalsIgnoreCase("js") || lang.equalsIgnoreCase("node"));
-        boolean isPy = lang != null && lang.toLowerCase().startsWith("py");
-        Map<String,Object> report = new HashMap<>();
-
-        if (isJs) {
-            if (casesList != null && !casesList.isEmpty()) {
-                boolean hasIO = casesList.stream().anyMatch(c -> "IO".equalsIgnoreCase(c.getMode()));
-                boolean hasEval = casesList.stream().anyMatch(c -> !"IO".equalsIgnoreCase(c.getMode()));
-                List<Map<String,Object>> results = new ArrayList<>();
-                if (hasEval) {
-                    var evalCases = casesList.stream().filter(c -> !"IO".equalsIgnoreCase(c.getMode())).toList();
-                    var evalRes = jsAutoGrader.gradeWithCases(s.getCode(), evalCases);
-                    try {
-                        String out = evalRes.stdout == null ? "" : evalRes.stdout.trim();
-                        if (!out.isEmpty()) {
-                            int i = out.lastIndexOf('[');
-                            if (i >= 0) {
-                                var list = objectMapper.readValue(out.substring(i), List.class);
-                                for (int k=0;k<evalCases.size();k++) {
-                                    Map<String,Object> m = (Map<String,Object>) list.get(k);
-                                    ProgrammingTestCase c = evalCases.get(k);
-                                    m.put("id", c.getId());
-                                    m.putIfAbsent("expected", c.getExpected());
-                                    m.putIfAbsent("input", c.getInput());
-                                    results.add(m);
-                                }
-                            }
-                        }
-                    } catch (Exception ignored) {}
-                }
-                if (hasIO && codeExecutionService.isAvailable()) {
-                    int nodeLangId = 63;
-                    for (ProgrammingTestCase c : casesList) {
-                        if (!"IO".equalsIgnoreCase(c.getMode())) continue;
-                        try {
-                            var exec = codeExecutionService.execute(nodeLangId, s.getCode(), c.getInput());
-                            String actual = exec.stdout == null ? "" : exec.stdout.trim();
-                            boolean ok = (exec.stderr == null || exec.stderr.isBlank()) && actual.equals(c.getExpected() == null ? "" : c.getExpected().trim());
-                            Map<String,Object> tr = new HashMap<>();
-                            tr.put("id", c.getId());
-                            tr.put("input", c.getInput());
-                            tr.put("expected", c.getExpected());
-                            tr.put("actual", actual);
-                            tr.put("passed", ok);
-                            tr.put("points", ok ? c.getPoints() : 0);
-                            if (exec.stderr != null && !exec.stderr.isBlank()) tr.put("error", exec.stderr);
-                            results.add(tr);
-                        } catch (Exception e) {
-                            Map<String,Object> tr = new HashMap<>();
-                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
-                            results.add(tr);
-                        }
-                    }
-                }
-                // sort
-                Map<UUID,Integer> order = new HashMap<>();
-                for (int i=0;i<casesList.size();i++) order.put(casesList.get(i).getId(), i);
-                results.sort((a,b)-> Integer.compare(order.getOrDefault((UUID)a.get("id"),0), order.getOrDefault((UUID)b.get("id"),0)));
-                long passed = results.stream().filter(r -> Boolean.TRUE.equals(r.get("passed"))).count();
-                int score = results.stream().mapToInt(r -> ((Number) r.getOrDefault("points",0)).intValue()).sum();
-                report.put("tests", results);
-                report.put("passed", passed);
-                report.put("failed", results.size() - passed);
-                report.put("maxPoints", task.getMaxPoints());
-                s.setStdout(null);
-                s.setAutoScore(score);
-                s.setPoints(score);
-            } else {
-                var res = jsAutoGrader.grade(s.getCode(), task.getTests(), task.getMaxPoints());
-                report.put("passed", res.passed);
-                report.put("failed", res.failed);
-                report.put("errors", res.errors);
-                report.put("maxPoints", task.getMaxPoints());
-                s.setStdout(res.stdout);
-                s.setAutoScore(res.score);
-                s.setPoints(res.score);
-            }
-        } else if (isPy) {
-            if (casesList == null || casesList.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak skonfigurowanych testów dla tego zadania");
-            List<Map<String,Object>> testResults = new ArrayList<>();
-            if (codeExecutionService.isAvailable()) {
-                int langId = 71; // Python3
-                String userCode = s.getCode();
-                boolean hasSolve = userCode != null && userCode.toLowerCase().contains("def solve");
-                String harness = hasSolve ? "\nif (__name__ == '__main__'):\n    import sys\n    data = sys.stdin.read().strip()\n    try:\n        print(str(solve(data)))\n    except Exception as e:\n        print('__ERROR__'+str(e))\n" : "";
-                for (ProgrammingTestCase c : casesList) {
-                    try {
-                        var exec = codeExecutionService.execute(langId, userCode + harness, c.getInput());
-                        String actual = exec.stdout == null ? "" : exec.stdout.trim();
-                        String stderr = exec.stderr == null ? "" : exec.stderr.trim();
-                        boolean hadError = (stderr != null && !stderr.isBlank()) || actual.startsWith("__ERROR__");
-                        if (actual.startsWith("__ERROR__")) actual = actual.substring("__ERROR__".length());
-                        boolean ok = !hadError && actual.trim().equals(c.getExpected() == null ? "" : c.getExpected().trim());
-                        Map<String,Object> tr = new HashMap<>();
-                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
-                        if (hadError) tr.put("error", (stderr != null && !stderr.isBlank()) ? stderr : (actual.isEmpty() ? "Błąd wykonania" : actual));
-                        testResults.add(tr);
-                    } catch (Exception e) {
-                        Map<String,Object> tr = new HashMap<>();
-                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
-                        testResults.add(tr);
-                    }
-                }
-            } else {
-                for (ProgrammingTestCase c : casesList) {
-                    Map<String,Object> tr = new HashMap<>();
-                    tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", "Wykonywanie Pythona niedostępne (skonfiguruj JUDGE0_URL)");
-                    testResults.add(tr);
-                }
-            }
-            int score = testResults.stream().mapToInt(m -> ((Number) m.getOrDefault("points",0)).intValue()).sum();
-            long passed = testResults.stream().filter(m -> Boolean.TRUE.equals(m.get("passed"))).count();
-            long failed = testResults.size() - passed;
-            report.put("tests", testResults);
-            report.put("passed", passed);
-            report.put("failed", failed);
-            report.put("maxPoints", task.getMaxPoints());
-            s.setStdout(null);
-            s.setAutoScore(score);
-            s.setPoints(score);
-        } else {
-            // unsupported language -> leave ungraded
-            report.put("error", "Nieobsługiwany język: " + lang);
-        }
-        try { s.setTestReport(objectMapper.writeValueAsString(report)); } catch (Exception e) { s.setTestReport("{\"error\":\"Błąd serializacji raportu\"}"); }
-        s.setStatus(SubmissionStatus.GRADED);
-        s.setGradedAt(Instant.now());
+    public SubmissionResponse submit(UUID taskId, SubmissionCreateRequest req, Authentication auth) {
+        return create(taskId, req, null, auth);
     }
 
     // ---------- Run (no persistence) ----------
@@ -337,157 +169,48 @@ public class SubmissionController {
 
     @RolesAllowed({"STUDENT","ROLE_STUDENT","TEACHER","ROLE_TEACHER"})
     @PostMapping(value = "/api/tasks/{taskId}/run", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Transactional
     public Map<String,Object> runCode(@PathVariable("taskId") UUID taskId, @RequestBody RunRequest req, Authentication auth) {
-        Task task = tasks.findById(taskId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
+        LoadedTask loaded = loadTask(taskId);
+        Task task = loaded.task();
         if (!("CODE".equalsIgnoreCase(task.getType()) || "TASK".equalsIgnoreCase(task.getType()))) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Zadanie nie jest zadaniem kodu");
         }
-        var casesList = testRepo.findByTaskIdOrderByOrderAsc(taskId);
+        var casesList = loaded.cases();
         String effectiveLang = (req.language() != null && !req.language().isBlank()) ? req.language() : task.getLanguage();
         String codeToRun = req.code() == null ? "" : req.code();
-
-        if (effectiveLang != null && (effectiveLang.equalsIgnoreCase("javascript") || effectiveLang.equalsIgnoreCase("js") || effectiveLang.equalsIgnoreCase("node"))) {
-            Map<String,Object> out = new HashMap<>();
-            if (casesList != null && !casesList.isEmpty()) {
-                boolean hasIO = casesList.stream().anyMatch(c -> "IO".equalsIgnoreCase(c.getMode()));
-                boolean hasEval = casesList.stream().anyMatch(c -> !"IO".equalsIgnoreCase(c.getMode()));
-                if (hasIO && codeExecutionService.isAvailable()) {
-                    int nodeLangId = 63;
-                    List<Map<String,Object>> results = new ArrayList<>();
-                    if (hasEval) {
-                        var evalCases = casesList.stream().filter(c -> !"IO".equalsIgnoreCase(c.getMode())).toList();
-                        var evalRes = jsAutoGrader.gradeWithCases(codeToRun, evalCases);
-                        try {
-                            String s = evalRes.stdout == null ? "" : evalRes.stdout.trim();
-                            if (!s.isEmpty()) {
-                                int i = s.lastIndexOf('[');
-                                if (i >= 0) {
-                                    var list = objectMapper.readValue(s.substring(i), List.class);
-                                    for (int k=0;k<evalCases.size();k++) {
-                                        Map<String,Object> m = (Map<String,Object>) list.get(k);
-                                        ProgrammingTestCase c = evalCases.get(k);
-                                        m.put("id", c.getId());
-                                        m.putIfAbsent("expected", c.getExpected());
-                                        m.putIfAbsent("input", c.getInput());
-                                        results.add(m);
-                                    }
-                                }
-                            }
-                        } catch (Exception ignored) {}
-                    }
-                    for (ProgrammingTestCase c : casesList) {
-                        if (!"IO".equalsIgnoreCase(c.getMode())) continue;
-                        try {
-                            var exec = codeExecutionService.execute(nodeLangId, codeToRun, c.getInput());
-                            String actual = exec.stdout == null ? "" : exec.stdout.trim();
-                            boolean ok = (exec.stderr == null || exec.stderr.isBlank()) && actual.equals(c.getExpected() == null ? "" : c.getExpected().trim());
-                            Map<String,Object> tr = new HashMap<>();
-                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
-                            if (exec.stderr != null && !exec.stderr.isBlank()) tr.put("error", exec.stderr);
-                            results.add(tr);
-                        } catch (Exception e) {
-                            Map<String,Object> tr = new HashMap<>();
-                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
-                            results.add(tr);
-                        }
-                    }
-                    Map<UUID,Integer> order = new HashMap<>();
-                    for (int i=0;i<casesList.size();i++) order.put(casesList.get(i).getId(), i);
-                    results.sort((a,b)-> Integer.compare(order.getOrDefault((UUID)a.get("id"),0), order.getOrDefault((UUID)b.get("id"),0)));
-                    long passed = results.stream().filter(m -> Boolean.TRUE.equals(m.get("passed"))).count();
-                    int score = results.stream().mapToInt(m -> ((Number)m.getOrDefault("points",0)).intValue()).sum();
-                    out.put("tests", results); out.put("passed", passed); out.put("failed", results.size()-passed); out.put("score", score);
-                    return sanitizeRunOutput(out, casesList, auth);
-                } else {
-                    var res = jsAutoGrader.gradeWithCases(codeToRun, casesList);
-                    out.put("passed", res.passed); out.put("failed", res.failed); out.put("score", res.score); out.put("stdout", res.stdout); out.put("errors", res.errors);
-                    try {
-                        String s = res.stdout == null ? "" : res.stdout.trim();
-                        if (!s.isEmpty()) {
-                            int i = s.lastIndexOf('[');
-                            if (i>=0) {
-                                out.put("tests", objectMapper.readValue(s.substring(i), List.class));
-                            }
-                        }
-                    } catch (Exception ignored) {}
-                    return sanitizeRunOutput(out, casesList, auth);
-                }
-            } else {
-                var res = jsAutoGrader.grade(codeToRun, task.getTests(), task.getMaxPoints());
-                out.put("passed", res.passed); out.put("failed", res.failed); out.put("score", res.score); out.put("stdout", res.stdout); out.put("errors", res.errors);
-                return sanitizeRunOutput(out, casesList, auth);
-            }
-        } else if (effectiveLang != null && (effectiveLang.equalsIgnoreCase("python") || effectiveLang.toLowerCase().startsWith("py"))) {
-            if (casesList == null || casesList.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak skonfigurowanych testów dla tego zadania");
-            List<Map<String,Object>> testResults = new ArrayList<>();
-            if (codeExecutionService.isAvailable()) {
-                int langId = 71;
-                String userCode = codeToRun;
-                boolean hasSolve = userCode != null && userCode.toLowerCase().contains("def solve");
-                String harness = hasSolve ? "\nif (__name__ == '__main__'):\n    import sys\n    data = sys.stdin.read().strip()\n    try:\n        print(str(solve(data)))\n    except Exception as e:\n        print('__ERROR__'+str(e))\n" : "";
-                for (ProgrammingTestCase c : casesList) {
-                    try {
-                        var exec = codeExecutionService.execute(langId, userCode + harness, c.getInput());
-                        String actual = exec.stdout == null ? "" : exec.stdout.trim();
-                        String stderr = exec.stderr == null ? "" : exec.stderr.trim();
-                        boolean hadError = (stderr != null && !stderr.isBlank()) || actual.startsWith("__ERROR__");
-                        if (actual.startsWith("__ERROR__")) actual = actual.substring("__ERROR__".length());
-                        boolean ok = !hadError && actual.trim().equals(c.getExpected() == null ? "" : c.getExpected().trim());
-                        Map<String,Object> tr = new HashMap<>();
-                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
-                        if (hadError) tr.put("error", (stderr != null && !stderr.isBlank()) ? stderr : (actual.isEmpty() ? "Błąd wykonania" : actual));
-                        testResults.add(tr);
-                    } catch (Exception e) {
-                        Map<String,Object> tr = new HashMap<>();
-                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
-                        testResults.add(tr);
-                    }
-                }
-            } else {
-                for (ProgrammingTestCase c : casesList) {
-                    Map<String,Object> tr = new HashMap<>();
-                    tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", "Wykonywanie Pythona niedostępne (skonfiguruj JUDGE0_URL)");
-                    testResults.add(tr);
-                }
-            }
-             Map<String,Object> out = new HashMap<>();
-             out.put("tests", testResults);
-             out.put("passed", testResults.stream().filter(t -> Boolean.TRUE.equals(t.get("passed"))).count());
-             out.put("failed", testResults.stream().filter(t -> !Boolean.TRUE.equals(t.get("passed"))).count());
-             out.put("score", testResults.stream().mapToInt(t -> ((Number)t.get("points")).intValue()).sum());
-             return sanitizeRunOutput(out, casesList, auth);
-        } else {
+        if (!isSupportedLanguage(effectiveLang)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uruchamianie nieobsługiwane dla języka: " + effectiveLang);
         }
+        Map<String,Object> out = grader.run(GradingScheduler.Priority.RUN, codeToRun, effectiveLang, task, casesList);
+        return sanitizeRunOutput(out, casesList, auth);
+    }
+
+    private static boolean isSupportedLanguage(String lang) {
+        return lang != null && (lang.equalsIgnoreCase("javascript") || lang.equalsIgnoreCase("js") || lang.equalsIgnoreCase("node")
+                || lang.equalsIgnoreCase("python") || lang.toLowerCase().startsWith("py"));
     }
 
     // ---------- Demo Run (teacher solution) ----------
 
     @RolesAllowed({"TEACHER","ROLE_TEACHER"})
     @PostMapping(value = "/api/tasks/{taskId}/run-demo", consumes = "application/json", produces = "application/json")
-    @Transactional(readOnly = true)
     public Map<String,Object> runDemo(@PathVariable("taskId") UUID taskId, @RequestBody(required = false) RunRequest req) {
-        Task task = tasks.findById(taskId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
+        LoadedTask loaded = loadTask(taskId);
+        Task task = loaded.task();
         String teacherCode = (req != null && req.code() != null && !req.code().isBlank()) ? req.code() : task.getTeacherSolution();
         if (teacherCode == null || teacherCode.trim().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak rozwiązania wzorcowego (teacherSolution) dla zadania — podaj kod w ciele żądania lub zapisz rozwiązanie demonstracyjne");
         }
-        var casesList = testRepo.findByTaskIdOrderByOrderAsc(taskId);
+        var casesList = loaded.cases();
         String effectiveLang = task.getLanguage();
         if (!("CODE".equalsIgnoreCase(task.getType()) || "TASK".equalsIgnoreCase(task.getType()))) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Task is not a code task");
         }
 
-        Map<String,Object> result;
-        if (effectiveLang != null && (effectiveLang.equalsIgnoreCase("javascript") || effectiveLang.equalsIgnoreCase("js") || effectiveLang.equalsIgnoreCase("node"))) {
-            // Reuse runCode logic with teacherCode
-            result = runCodeInternal(teacherCode, effectiveLang, task, casesList, true);
-        } else if (effectiveLang != null && (effectiveLang.equalsIgnoreCase("python") || effectiveLang.toLowerCase().startsWith("py"))) {
-            result = runCodeInternal(teacherCode, effectiveLang, task, casesList, true);
-        } else {
+        if (!isSupportedLanguage(effectiveLang)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uruchamianie nieobsługiwane dla języka: " + effectiveLang);
         }
+        Map<String,Object> result = grader.run(GradingScheduler.Priority.DEMO, teacherCode, effectiveLang, task, casesList);
 
         // Sanitize hidden tests: null input/expected/actual
         Object testsObj = result.get("tests");
@@ -552,120 +275,6 @@ public class SubmissionController {
         return runDemo(taskId, null);
     }
 
-    // Internal runner used by demo
-    private Map<String,Object> runCodeInternal(String code, String lang, Task task, List<ProgrammingTestCase> casesList, boolean includeIo) {
-        if (lang != null && (lang.equalsIgnoreCase("javascript") || lang.equalsIgnoreCase("js") || lang.equalsIgnoreCase("node"))) {
-            Map<String,Object> out = new HashMap<>();
-            if (casesList != null && !casesList.isEmpty()) {
-                boolean hasIO = includeIo && casesList.stream().anyMatch(c -> "IO".equalsIgnoreCase(c.getMode()));
-                boolean hasEval = casesList.stream().anyMatch(c -> !"IO".equalsIgnoreCase(c.getMode()));
-                if (hasIO && codeExecutionService.isAvailable()) {
-                    int nodeLangId = 63;
-                    List<Map<String,Object>> results = new ArrayList<>();
-                    if (hasEval) {
-                        var evalCases = casesList.stream().filter(c -> !"IO".equalsIgnoreCase(c.getMode())).toList();
-                        var evalRes = jsAutoGrader.gradeWithCases(code, evalCases);
-                        try {
-                            String evalOut = evalRes.stdout == null ? "" : evalRes.stdout.trim();
-                            if (!evalOut.isEmpty()) {
-                                int i = evalOut.lastIndexOf('[');
-                                if (i >= 0) {
-                                    var list = objectMapper.readValue(evalOut.substring(i), List.class);
-                                    for (int k=0;k<evalCases.size();k++) {
-                                        Map<String,Object> m = (Map<String,Object>) list.get(k);
-                                        ProgrammingTestCase c = evalCases.get(k);
-                                        m.put("id", c.getId());
-                                        m.putIfAbsent("expected", c.getExpected());
-                                        m.putIfAbsent("input", c.getInput());
-                                        results.add(m);
-                                    }
-                                }
-                            }
-                        } catch (Exception ignored) {}
-                    }
-                    for (ProgrammingTestCase c : casesList) {
-                        if (!"IO".equalsIgnoreCase(c.getMode())) continue;
-                        try {
-                            var exec = codeExecutionService.execute(nodeLangId, code, c.getInput());
-                            String actual = exec.stdout == null ? "" : exec.stdout.trim();
-                            boolean ok = (exec.stderr == null || exec.stderr.isBlank()) && actual.equals(c.getExpected() == null ? "" : c.getExpected().trim());
-                            Map<String,Object> tr = new HashMap<>();
-                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
-                            if (exec.stderr != null && !exec.stderr.isBlank()) tr.put("error", exec.stderr);
-                            results.add(tr);
-                        } catch (Exception e) {
-                            Map<String,Object> tr = new HashMap<>();
-                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
-                            results.add(tr);
-                        }
-                    }
-                    Map<UUID,Integer> order = new HashMap<>();
-                    for (int i=0;i<casesList.size();i++) order.put(casesList.get(i).getId(), i);
-                    results.sort((a,b)-> Integer.compare(order.getOrDefault((UUID)a.get("id"),0), order.getOrDefault((UUID)b.get("id"),0)));
-                    long passed = results.stream().filter(m -> Boolean.TRUE.equals(m.get("passed"))).count();
-                    int score = results.stream().mapToInt(m -> ((Number)m.getOrDefault("points",0)).intValue()).sum();
-                    out.put("tests", results); out.put("passed", passed); out.put("failed", results.size()-passed); out.put("score", score);
-                    return out;
-                } else {
-                    var res = jsAutoGrader.gradeWithCases(code, casesList);
-                    out.put("passed", res.passed); out.put("failed", res.failed); out.put("score", res.score); out.put("stdout", res.stdout); out.put("errors", res.errors);
-                    try {
-                        String gradedOut = res.stdout == null ? "" : res.stdout.trim();
-                        if (!gradedOut.isEmpty()) {
-                            int i = gradedOut.lastIndexOf('[');
-                            if (i>=0) out.put("tests", objectMapper.readValue(gradedOut.substring(i), List.class));
-                        }
-                    } catch (Exception ignored) {}
-                    return out;
-                }
-            } else {
-                var res = jsAutoGrader.grade(code, task.getTests(), task.getMaxPoints());
-                out.put("passed", res.passed); out.put("failed", res.failed); out.put("score", res.score); out.put("stdout", res.stdout); out.put("errors", res.errors);
-                return out;
-            }
-        } else if (lang != null && (lang.equalsIgnoreCase("python") || lang.toLowerCase().startsWith("py"))) {
-            if (casesList == null || casesList.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak skonfigurowanych testów dla tego zadania");
-            List<Map<String,Object>> testResults = new ArrayList<>();
-            if (codeExecutionService.isAvailable()) {
-                int langId = 71;
-                String userCode = code;
-                boolean hasSolve = userCode != null && userCode.toLowerCase().contains("def solve");
-                String harness = hasSolve ? "\nif (__name__ == '__main__'):\n    import sys\n    data = sys.stdin.read().strip()\n    try:\n        print(str(solve(data)))\n    except Exception as e:\n        print('__ERROR__'+str(e))\n" : "";
-                for (ProgrammingTestCase c : casesList) {
-                    try {
-                        var exec = codeExecutionService.execute(langId, userCode + harness, c.getInput());
-                        String actual = exec.stdout == null ? "" : exec.stdout.trim();
-                        String stderr = exec.stderr == null ? "" : exec.stderr.trim();
-                        boolean hadError = (stderr != null && !stderr.isBlank()) || actual.startsWith("__ERROR__");
-                        if (actual.startsWith("__ERROR__")) actual = actual.substring("__ERROR__".length());
-                        boolean ok = !hadError && actual.trim().equals(c.getExpected() == null ? "" : c.getExpected().trim());
-                        Map<String,Object> tr = new HashMap<>();
-                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
-                        if (hadError) tr.put("error", (stderr != null && !stderr.isBlank()) ? stderr : (actual.isEmpty() ? "Błąd wykonania" : actual));
-                        testResults.add(tr);
-                    } catch (Exception e) {
-                        Map<String,Object> tr = new HashMap<>();
-                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
-                        testResults.add(tr);
-                    }
-                }
-            } else {
-                for (ProgrammingTestCase c : casesList) {
-                    Map<String,Object> tr = new HashMap<>();
-                    tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", "Wykonywanie Pythona niedostępne (skonfiguruj JUDGE0_URL)");
-                    testResults.add(tr);
-                }
-            }
-            Map<String,Object> out = new HashMap<>();
-            out.put("tests", testResults);
-            out.put("passed", testResults.stream().filter(t -> Boolean.TRUE.equals(t.get("passed"))).count());
-            out.put("failed", testResults.stream().filter(t -> !Boolean.TRUE.equals(t.get("passed"))).count());
-            out.put("score", testResults.stream().mapToInt(t -> ((Number)t.get("points")).intValue()).sum());
-            return out;
-        } else {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uruchamianie nieobsługiwane dla języka: " + lang);
-        }
-    }
 
     // ---------- Querying Submissions ----------
 
@@ -754,6 +363,15 @@ public class SubmissionController {
         return map(s, auth);
     }
 
+    /** Ręczna ocena wielu zgłoszeń zadania jednym żądaniem; zwraca tylko podsumowanie. */
+    @RolesAllowed({"TEACHER","ROLE_TEACHER"})
+    @PostMapping(value = "/api/tasks/{taskId}/grades", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchGradeResponse gradeBatch(@PathVariable("taskId") UUID taskId, @Valid @RequestBody BatchGradeRequest req, Authentication auth) {
+        UUID teacherId = (UUID) auth.getDetails();
+        if (teacherId == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Użytkownik nieautoryzowany");
+        return manualGrading.gradeBatch(taskId, req.grades(), teacherId);
+    }
+
     // ---------- Mapping ----------
 
     private SubmissionResponse map(Submission s, Authentication auth) {
@@ -763,98 +381,17 @@ public class SubmissionController {
         Integer points = s.getPoints();
         Integer effectiveScore = manualScore != null ? manualScore : (points != null ? points : autoScore);
 
-        // By default return stored testReport, but sanitize for non-teacher callers
-        String report = s.getTestReport();
-        String sanitizedReport = report;
-        boolean callerIsTeacher = false;
-        if (auth != null) {
-            var authNames = auth.getAuthorities().stream().map(a -> a.getAuthority()).toList();
-            callerIsTeacher = authNames.contains("TEACHER") || authNames.contains("ROLE_TEACHER");
-        }
-        if (!callerIsTeacher && report != null && !report.isBlank() && task != null) {
-            try {
-                var node = objectMapper.readTree(report);
-                com.fasterxml.jackson.databind.JsonNode testsNode = null;
-                boolean nodeWasArray = node.isArray();
-                testsNode = nodeWasArray ? node : node.get("tests");
-                if (testsNode != null && testsNode.isArray()) {
-                    var om = objectMapper;
-                    var filtered = om.createArrayNode();
-                    List<ProgrammingTestCase> cases = testRepo.findByTaskIdOrderByOrderAsc(task.getId());
-                    Map<java.util.UUID, Boolean> visibleById = new HashMap<>();
-                    for (var c : cases) visibleById.put(c.getId(), c.isVisible());
-                    int numCases = cases == null ? 0 : cases.size();
-                    for (int i = 0; i < testsNode.size(); i++) {
-                        var tnode = testsNode.get(i);
-                        var idNode = tnode.get("id");
-                        boolean keep = true;
-                        if (idNode != null && idNode.isTextual()) {
-                            try {
-                                java.util.UUID id = java.util.UUID.fromString(idNode.asText());
-                                Boolean vis = visibleById.get(id);
-                                if (vis != null && !vis.booleanValue()) keep = false;
-                            } catch (Exception ignored) { }
-                        } else {
-                            if (numCases > 0 && testsNode.size() == numCases) {
-                                ProgrammingTestCase tc = cases.get(i);
-                                if (tc != null && !tc.isVisible()) keep = false;
-                            }
-                        }
-                        if (keep) filtered.add(tnode);
-                    }
-                    if (nodeWasArray) {
-                        sanitizedReport = objectMapper.writeValueAsString(filtered);
-                    } else {
-                        ((com.fasterxml.jackson.databind.node.ObjectNode)node).set("tests", filtered);
-                        sanitizedReport = objectMapper.writeValueAsString(node);
-                    }
-                }
-            } catch (Exception ignored) { sanitizedReport = report; }
-        }
-
-        // Sanitize stored stdout for non-teacher callers as well
-        String stdoutVal = s.getStdout();
-        String sanitizedStdout = stdoutVal;
-        if (!callerIsTeacher && stdoutVal != null && task != null) {
-            try {
-                String trimmed = stdoutVal.trim();
-                java.util.List<java.util.Map<String,Object>> arr = null;
-                if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
-                    arr = objectMapper.readValue(trimmed, java.util.List.class);
-                } else {
-                    int i = trimmed.lastIndexOf('[');
-                    if (i >= 0) {
-                        try { arr = objectMapper.readValue(trimmed.substring(i), java.util.List.class); } catch (Exception ignored) { arr = null; }
-                    }
-                }
-                if (arr != null) {
-                    var cases = testRepo.findByTaskIdOrderByOrderAsc(task.getId());
-                    Map<java.util.UUID, Boolean> visibleById = new HashMap<>();
-                    for (var c : cases) visibleById.put(c.getId(), c.isVisible());
-                    java.util.List<java.util.Map<String,Object>> outArr = new ArrayList<>();
-                    for (int idx = 0; idx < arr.size(); idx++) {
-                        java.util.Map<String,Object> item = arr.get(idx);
-                        boolean keep = true;
-                        Object idNode = item.get("id");
-                        java.util.UUID uid = null;
-                        if (idNode instanceof java.util.UUID) uid = (java.util.UUID) idNode;
-                        else if (idNode instanceof String) {
-                            try { uid = java.util.UUID.fromString((String) idNode); } catch(Exception ignored) { uid = null; }
-                        }
-                        if (uid != null) {
-                            Boolean vis = visibleById.get(uid);
-                            if (vis != null && !vis.booleanValue()) keep = false;
-                        } else {
-                            if (idx < cases.size()) {
-                                ProgrammingTestCase tc = cases.get(idx);
-                                if (tc != null && !tc.isVisible()) keep = false;
-                            }
-                        }
-                        if (keep) outArr.add(item);
-                    }
-                    sanitizedStdout = objectMapper.writeValueAsString(outArr);
-                }
-            } catch (Exception ignored) { sanitizedStdout = stdoutVal; }
+        // By default return stored testReport and stdout, but sanitize for non-teacher callers
+        String sanitizedReport = s.getTestReport();
+        String sanitizedStdout = s.getStdout();
+        if (!isTeacher(auth) && task != null) {
+            boolean hasReport = sanitizedReport != null && !sanitizedReport.isBlank();
+            if (hasReport || sanitizedStdout != null) {
+                List<ProgrammingTestCase> cases = testRepo.findByTaskIdOrderByOrderAsc(task.getId());
+                if (hasReport) sanitizedReport = reportFilter.filterReport(sanitizedReport, cases);
+                String filteredStdout = reportFilter.filterStdout(sanitizedStdout, cases);
+                if (filteredStdout != null) sanitizedStdout = filteredStdout;
+            }
         }
 
         return new SubmissionResponse(
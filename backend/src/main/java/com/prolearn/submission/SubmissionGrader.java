@@ -0,0 +1,307 @@
+package com.prolearn.submission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prolearn.grading.CodeExecutionService;
+import com.prolearn.grading.ExecutionLimits;
+import com.prolearn.grading.GradingMetrics;
+import com.prolearn.grading.GradingScheduler;
+import com.prolearn.grading.JsAutoGrader;
+import com.prolearn.grading.PyAutoGrader;
+import com.prolearn.task.ProgrammingTestCase;
+import com.prolearn.task.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Automatyczna ocena zgłoszeń i uruchomienia próbne (JS w GraalJS, Python w GraalPy lub – przy
+ * app.grading.python.engine=judge0 – przez Judge0).
+ * Wykonanie przechodzi przez {@link GradingScheduler} z priorytetem wywołującego i kluczem klasy.
+ */
+@Service
+public class SubmissionGrader {
+
+    private final JsAutoGrader jsAutoGrader;
+    private final PyAutoGrader pyAutoGrader;
+    private final CodeExecutionService codeExecutionService;
+    private final ObjectMapper objectMapper;
+    private final GradingMetrics gradingMetrics;
+    private final GradingScheduler scheduler;
+    private final boolean pythonViaJudge0;
+
+    public SubmissionGrader(JsAutoGrader jsAutoGrader,
+                            PyAutoGrader pyAutoGrader,
+                            CodeExecutionService codeExecutionService,
+                            ObjectMapper objectMapper,
+                            GradingMetrics gradingMetrics,
+                            GradingScheduler scheduler,
+                            @Value("${app.grading.python.engine:graalpy}") String pythonEngine) {
+        this.jsAutoGrader = jsAutoGrader;
+        this.pyAutoGrader = pyAutoGrader;
+        this.pythonViaJudge0 = "judge0".equalsIgnoreCase(pythonEngine);
+        this.codeExecutionService = codeExecutionService;
+        this.objectMapper = objectMapper;
+        this.gradingMetrics = gradingMetrics;
+        this.scheduler = scheduler;
+    }
+
+    /** Ocena zgłoszenia w kolejce z danym priorytetem. Encje muszą być już załadowane (inny wątek). */
+    public void grade(GradingScheduler.Priority priority, Task task, Submission s, List<ProgrammingTestCase> casesList) {
+        scheduler.execute(priority, classKey(task), () -> {
+            gradeAuto(task, s, casesList);
+            return null;
+        });
+    }
+
+    /** Uruchomienie bez zapisu w kolejce z danym priorytetem. */
+    public Map<String,Object> run(GradingScheduler.Priority priority, String code, String lang, Task task, List<ProgrammingTestCase> casesList) {
+        return scheduler.execute(priority, classKey(task), () -> runCode(code, lang, task, casesList));
+    }
+
+    /** Klucz sprawiedliwości kolejki: id klasy zadania (ładowane leniwie, więc w wątku wywołującego). */
+    static Object classKey(Task task) {
+        try {
+            return task.getLesson().getClassroom().getId();
+        } catch (RuntimeException e) {
+            return task.getId();
+        }
+    }
+
+    private boolean pythonAvailable() {
+        return !pythonViaJudge0 || codeExecutionService.isAvailable();
+    }
+
+    private CodeExecutionService.ExecResult executePython(String source, String stdin, ExecutionLimits limits) throws IOException, InterruptedException {
+        if (pythonViaJudge0) return codeExecutionService.execute(71, source, stdin); // Python3 – limity Judge0
+        return pyAutoGrader.execute(source, stdin, limits);
+    }
+
+    /** Czas ściany i CPU przypadku wykonanego w procesie (GraalJS/GraalPy) – te same pola co w przypadkach EVAL. */
+    private static void putTimes(Map<String,Object> tr, CodeExecutionService.ExecResult exec) {
+        if (exec.timeMs != null) tr.put("timeMs", exec.timeMs);
+        if (exec.cpuMs != null) tr.put("cpuMs", exec.cpuMs);
+    }
+
+    /** Ocenia zgłoszenie w bieżącym wątku: ustawia wynik, raport testów, stdout i status GRADED. */
+    void gradeAuto(Task task, Submission s, List<ProgrammingTestCase> casesList) {
+        long started = System.nanoTime();
+        String lang = task.getLanguage();
+        boolean isJs = lang != null && (lang.equalsIgnoreCase("javascript") || lang.equalsIgnoreCase("js") || lang.equalsIgnoreCase("node"));
+        boolean isPy = lang != null && lang.toLowerCase().startsWith("py");
+        Map<String,Object> report = new HashMap<>();
+
+        if (isJs) {
+            if (casesList != null && !casesList.isEmpty()) {
+                boolean hasIO = casesList.stream().anyMatch(c -> "IO".equalsIgnoreCase(c.getMode()));
+                boolean hasEval = casesList.stream().anyMatch(c -> !"IO".equalsIgnoreCase(c.getMode()));
+                List<Map<String,Object>> results = new ArrayList<>();
+                if (hasEval) {
+                    var evalCases = casesList.stream().filter(c -> !"IO".equalsIgnoreCase(c.getMode())).toList();
+                    results.addAll(jsAutoGrader.gradeWithCases(s.getCode(), evalCases, ExecutionLimits.of(task)).tests);
+                }
+                if (hasIO) {
+                    for (ProgrammingTestCase c : casesList) {
+                        if (!"IO".equalsIgnoreCase(c.getMode())) continue;
+                        try {
+                            var exec = jsAutoGrader.runIo(s.getCode(), c.getInput(), ExecutionLimits.of(task));
+                            String actual = exec.stdout == null ? "" : exec.stdout.trim();
+                            boolean ok = (exec.stderr == null || exec.stderr.isBlank()) && actual.equals(c.getExpected() == null ? "" : c.getExpected().trim());
+                            Map<String,Object> tr = new HashMap<>();
+                            tr.put("id", c.getId());
+                            tr.put("input", c.getInput());
+                            tr.put("expected", c.getExpected());
+                            tr.put("actual", actual);
+                            tr.put("passed", ok);
+                            tr.put("points", ok ? c.getPoints() : 0);
+                            putTimes(tr, exec);
+                            if (exec.stderr != null && !exec.stderr.isBlank()) tr.put("error", exec.stderr);
+                            results.add(tr);
+                        } catch (Exception e) {
+                            Map<String,Object> tr = new HashMap<>();
+                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
+                            results.add(tr);
+                        }
+                    }
+                }
+                // sort
+                Map<UUID,Integer> order = new HashMap<>();
+                for (int i=0;i<casesList.size();i++) order.put(casesList.get(i).getId(), i);
+                results.sort((a,b)-> Integer.compare(order.getOrDefault((UUID)a.get("id"),0), order.getOrDefault((UUID)b.get("id"),0)));
+                long passed = results.stream().filter(r -> Boolean.TRUE.equals(r.get("passed"))).count();
+                int score = results.stream().mapToInt(r -> ((Number) r.getOrDefault("points",0)).intValue()).sum();
+                report.put("tests", results);
+                report.put("passed", passed);
+                report.put("failed", results.size() - passed);
+                report.put("maxPoints", task.getMaxPoints());
+                s.setStdout(null);
+                s.setAutoScore(score);
+                s.setPoints(score);
+            } else {
+                var res = jsAutoGrader.grade(s.getCode(), task.getTests(), task.getMaxPoints(), ExecutionLimits.of(task));
+                report.put("passed", res.passed);
+                report.put("failed", res.failed);
+                report.put("errors", res.errors);
+                report.put("maxPoints", task.getMaxPoints());
+                s.setStdout(res.stdout);
+                s.setAutoScore(res.score);
+                s.setPoints(res.score);
+            }
+        } else if (isPy) {
+            if (casesList == null || casesList.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak skonfigurowanych testów dla tego zadania");
+            List<Map<String,Object>> testResults = new ArrayList<>();
+            if (pythonAvailable()) {
+                String userCode = s.getCode();
+                boolean hasSolve = userCode != null && userCode.toLowerCase().contains("def solve");
+                String harness = hasSolve ? "\nif (__name__ == '__main__'):\n    import sys\n    data = sys.stdin.read().strip()\n    try:\n        print(str(solve(data)))\n    except Exception as e:\n        print('__ERROR__'+str(e))\n" : "";
+                for (ProgrammingTestCase c : casesList) {
+                    try {
+                        var exec = executePython(userCode + harness, c.getInput(), ExecutionLimits.of(task));
+                        String actual = exec.stdout == null ? "" : exec.stdout.trim();
+                        String stderr = exec.stderr == null ? "" : exec.stderr.trim();
+                        boolean hadError = (stderr != null && !stderr.isBlank()) || actual.startsWith("__ERROR__");
+                        if (actual.startsWith("__ERROR__")) actual = actual.substring("__ERROR__".length());
+                        boolean ok = !hadError && actual.trim().equals(c.getExpected() == null ? "" : c.getExpected().trim());
+                        Map<String,Object> tr = new HashMap<>();
+                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
+                        putTimes(tr, exec);
+                        if (hadError) tr.put("error", (stderr != null && !stderr.isBlank()) ? stderr : (actual.isEmpty() ? "Błąd wykonania" : actual));
+                        testResults.add(tr);
+                    } catch (Exception e) {
+                        Map<String,Object> tr = new HashMap<>();
+                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
+                        testResults.add(tr);
+                    }
+                }
+            } else {
+                for (ProgrammingTestCase c : casesList) {
+                    Map<String,Object> tr = new HashMap<>();
+                    tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", "Wykonywanie Pythona niedostępne (skonfiguruj JUDGE0_URL)");
+                    testResults.add(tr);
+                }
+            }
+            int score = testResults.stream().mapToInt(m -> ((Number) m.getOrDefault("points",0)).intValue()).sum();
+            long passed = testResults.stream().filter(m -> Boolean.TRUE.equals(m.get("passed"))).count();
+            long failed = testResults.size() - passed;
+            report.put("tests", testResults);
+            report.put("passed", passed);
+            report.put("failed", failed);
+            report.put("maxPoints", task.getMaxPoints());
+            s.setStdout(null);
+            s.setAutoScore(score);
+            s.setPoints(score);
+        } else {
+            // unsupported language -> leave ungraded
+            report.put("error", "Nieobsługiwany język: " + lang);
+        }
+        long serializeStart = System.nanoTime();
+        try {
+            String json = objectMapper.writeValueAsString(report);
+            s.setTestReport(json);
+            gradingMetrics.recordReportSerialization(json.length(), System.nanoTime() - serializeStart);
+        } catch (Exception e) { s.setTestReport("{\"error\":\"Błąd serializacji raportu\"}"); }
+        s.setStatus(SubmissionStatus.GRADED);
+        s.setGradedAt(Instant.now());
+
+        boolean anyIo = casesList != null && casesList.stream().anyMatch(c -> "IO".equalsIgnoreCase(c.getMode()));
+        boolean anyEval = casesList != null && casesList.stream().anyMatch(c -> !"IO".equalsIgnoreCase(c.getMode()));
+        gradingMetrics.recordSubmission(GradingMetrics.languageTag(lang), GradingMetrics.modeTag(anyEval, anyIo),
+                GradingMetrics.outcomeOf(report), System.nanoTime() - started);
+    }
+
+    /** Uruchomienie bez zapisu w bieżącym wątku – wynik zawiera wszystkie testy (także ukryte). */
+    Map<String,Object> runCode(String code, String lang, Task task, List<ProgrammingTestCase> casesList) {
+        if (lang != null && (lang.equalsIgnoreCase("javascript") || lang.equalsIgnoreCase("js") || lang.equalsIgnoreCase("node"))) {
+            Map<String,Object> out = new HashMap<>();
+            if (casesList != null && !casesList.isEmpty()) {
+                boolean hasIO = casesList.stream().anyMatch(c -> "IO".equalsIgnoreCase(c.getMode()));
+                boolean hasEval = casesList.stream().anyMatch(c -> !"IO".equalsIgnoreCase(c.getMode()));
+                if (hasIO) {
+                    List<Map<String,Object>> results = new ArrayList<>();
+                    if (hasEval) {
+                        var evalCases = casesList.stream().filter(c -> !"IO".equalsIgnoreCase(c.getMode())).toList();
+                        results.addAll(jsAutoGrader.gradeWithCases(code, evalCases, ExecutionLimits.of(task)).tests);
+                    }
+                    for (ProgrammingTestCase c : casesList) {
+                        if (!"IO".equalsIgnoreCase(c.getMode())) continue;
+                        try {
+                            var exec = jsAutoGrader.runIo(code, c.getInput(), ExecutionLimits.of(task));
+                            String actual = exec.stdout == null ? "" : exec.stdout.trim();
+                            boolean ok = (exec.stderr == null || exec.stderr.isBlank()) && actual.equals(c.getExpected() == null ? "" : c.getExpected().trim());
+                            Map<String,Object> tr = new HashMap<>();
+                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
+                            putTimes(tr, exec);
+                            if (exec.stderr != null && !exec.stderr.isBlank()) tr.put("error", exec.stderr);
+                            results.add(tr);
+                        } catch (Exception e) {
+                            Map<String,Object> tr = new HashMap<>();
+                            tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
+                            results.add(tr);
+                        }
+                    }
+                    Map<UUID,Integer> order = new HashMap<>();
+                    for (int i=0;i<casesList.size();i++) order.put(casesList.get(i).getId(), i);
+                    results.sort((a,b)-> Integer.compare(order.getOrDefault((UUID)a.get("id"),0), order.getOrDefault((UUID)b.get("id"),0)));
+                    long passed = results.stream().filter(m -> Boolean.TRUE.equals(m.get("passed"))).count();
+                    int score = results.stream().mapToInt(m -> ((Number)m.getOrDefault("points",0)).intValue()).sum();
+                    out.put("tests", results); out.put("passed", passed); out.put("failed", results.size()-passed); out.put("score", score);
+                    return out;
+                } else {
+                    var res = jsAutoGrader.gradeWithCases(code, casesList, ExecutionLimits.of(task));
+                    out.put("passed", res.passed); out.put("failed", res.failed); out.put("score", res.score); out.put("stdout", res.stdout); out.put("errors", res.errors);
+                    out.put("tests", res.tests);
+                    return out;
+                }
+            } else {
+                var res = jsAutoGrader.grade(code, task.getTests(), task.getMaxPoints(), ExecutionLimits.of(task));
+                out.put("passed", res.passed); out.put("failed", res.failed); out.put("score", res.score); out.put("stdout", res.stdout); out.put("errors", res.errors);
+                return out;
+            }
+        } else if (lang != null && (lang.equalsIgnoreCase("python") || lang.toLowerCase().startsWith("py"))) {
+            if (casesList == null || casesList.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak skonfigurowanych testów dla tego zadania");
+            List<Map<String,Object>> testResults = new ArrayList<>();
+            if (pythonAvailable()) {
+                String userCode = code;
+                boolean hasSolve = userCode != null && userCode.toLowerCase().contains("def solve");
+                String harness = hasSolve ? "\nif (__name__ == '__main__'):\n    import sys\n    data = sys.stdin.read().strip()\n    try:\n        print(str(solve(data)))\n    except Exception as e:\n        print('__ERROR__'+str(e))\n" : "";
+                for (ProgrammingTestCase c : casesList) {
+                    try {
+                        var exec = executePython(userCode + harness, c.getInput(), ExecutionLimits.of(task));
+                        String actual = exec.stdout == null ? "" : exec.stdout.trim();
+                        String stderr = exec.stderr == null ? "" : exec.stderr.trim();
+                        boolean hadError = (stderr != null && !stderr.isBlank()) || actual.startsWith("__ERROR__");
+                        if (actual.startsWith("__ERROR__")) actual = actual.substring("__ERROR__".length());
+                        boolean ok = !hadError && actual.trim().equals(c.getExpected() == null ? "" : c.getExpected().trim());
+                        Map<String,Object> tr = new HashMap<>();
+                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", actual); tr.put("passed", ok); tr.put("points", ok ? c.getPoints() : 0);
+                        putTimes(tr, exec);
+                        if (hadError) tr.put("error", (stderr != null && !stderr.isBlank()) ? stderr : (actual.isEmpty() ? "Błąd wykonania" : actual));
+                        testResults.add(tr);
+                    } catch (Exception e) {
+                        Map<String,Object> tr = new HashMap<>();
+                        tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", e.getMessage());
+                        testResults.add(tr);
+                    }
+                }
+            } else {
+                for (ProgrammingTestCase c : casesList) {
+                    Map<String,Object> tr = new HashMap<>();
+                    tr.put("id", c.getId()); tr.put("input", c.getInput()); tr.put("expected", c.getExpected()); tr.put("actual", ""); tr.put("passed", false); tr.put("points", 0); tr.put("error", "Wykonywanie Pythona niedostępne (skonfiguruj JUDGE0_URL)");
+                    testResults.add(tr);
+                }
+            }
+            Map<String,Object> out = new HashMap<>();
+            out.put("tests", testResults);
+            out.put("passed", testResults.stream().filter(t -> Boolean.TRUE.equals(t.get("passed"))).count());
+            out.put("failed", testResults.stream().filter(t -> !Boolean.TRUE.equals(t.get("passed"))).count());
+            out.put("score", testResults.stream().mapToInt(t -> ((Number)t.get("points")).intValue()).sum());
+            return out;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uruchamianie nieobsługiwane dla języka: " + lang);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.prolearn.submission;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utrzymanie partycjonowanej tabeli submissions (V38): kopiowanie historii ze starej tabeli paczkami po id,
+ * zamiana tabel nazwami w jednej krótkiej transakcji i zakładanie partycji na kolejne miesiące.
+ * Stan kopiowania jest w submissions_partition_state, więc restart i kilka węzłów wznawiają od kursora.
+ */
+@Service
+public class SubmissionPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionPartitionService.class);
+
+    private static final String COLUMNS = "id, task_id, student_id, status, points, graded_at, graded_by, created_at, "
+            + "auto_score, attempt_number, manual_score, teacher_comment";
+    private static final String COPY_SQL = """
+            WITH batch AS (SELECT %1$s FROM submissions %2$s ORDER BY id LIMIT ?),
+                 copied AS (INSERT INTO submissions_partitioned (%1$s) SELECT %1$s FROM batch
+                            ON CONFLICT (id, created_at) DO NOTHING)
+            SELECT (SELECT count(*) FROM batch), (SELECT id FROM batch ORDER BY id DESC LIMIT 1)
+            """;
+    // jedno zapytanie = jeden snapshot obu tabel; trigger zapisuje do nowej w tej samej transakcji co do starej
+    private static final String VERIFY_SQL = """
+            SELECT count(*), (SELECT count(*) FROM submissions_partitioned),
+                   count(*) FILTER (WHERE NOT EXISTS (SELECT 1 FROM submissions_partitioned p
+                                                      WHERE p.id = s.id AND p.created_at = s.created_at))
+            FROM submissions s
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final int monthsAhead;
+    private final long intervalMinutes;
+    private final long lockTimeoutMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "submission-partitions");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SubmissionPartitionService(JdbcTemplate jdbc,
+                                      PlatformTransactionManager txManager,
+                                      @Value("${app.partitions.copy-batch-size:2000}") int batchSize,
+                                      @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                      @Value("${app.partitions.interval-minutes:60}") long intervalMinutes,
+                                      @Value("${app.partitions.lock-timeout-ms:5000}") long lockTimeoutMs) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.intervalMinutes = Math.max(1, intervalMinutes);
+        this.lockTimeoutMs = Math.max(100, lockTimeoutMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::maintainSafely, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Zakłada brakujące partycje miesięczne do {@code app.partitions.months-ahead} miesięcy naprzód. */
+    public int ensurePartitions() {
+        Integer created = jdbc.queryForObject(
+                "SELECT create_submission_partitions(current_date, (current_date + make_interval(months => ?))::date)",
+                Integer.class, monthsAhead);
+        return created == null ? 0 : created;
+    }
+
+    /** Dokańcza kopiowanie i zamienia tabele; zwraca true, gdy submissions jest już partycjonowana. */
+    public boolean migrate() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Boolean more = tx.execute(status -> copyBatch());
+            if (more == null) return true;
+            if (!more) return verify() && tx.execute(status -> swap());
+        }
+        return false;
+    }
+
+    /**
+     * Jedna paczka: blokada SHARE wstrzymuje zapisy do starej tabeli tylko na czas paczki, więc kopia nie
+     * rozmija się z triggerem przenoszącym bieżące zmiany. Zwraca null po zamianie, false gdy nie ma już co kopiować.
+     */
+    private Boolean copyBatch() {
+        List<Object[]> state = jdbc.query("SELECT last_id, swapped_at FROM submissions_partition_state WHERE id = 1 FOR UPDATE",
+                (rs, i) -> new Object[]{rs.getObject(1, UUID.class), rs.getObject(2)});
+        if (state.isEmpty() || state.get(0)[1] != null) return null;
+        UUID cursor = (UUID) state.get(0)[0];
+
+        jdbc.execute("SET LOCAL lock_timeout = '" + lockTimeoutMs + "ms'");
+        jdbc.execute("LOCK TABLE submissions IN SHARE MODE");
+        String sql = COPY_SQL.formatted(COLUMNS, cursor == null ? "" : "WHERE id > ?");
+        Object[] args = cursor == null ? new Object[]{batchSize} : new Object[]{cursor, batchSize};
+        Object[] result = jdbc.queryForObject(sql, (rs, i) -> new Object[]{rs.getLong(1), rs.getObject(2, UUID.class)}, args);
+        long copied = (long) result[0];
+        if (copied == 0) return false;
+        jdbc.update("UPDATE submissions_partition_state SET last_id = ?, copied = copied + ? WHERE id = 1", result[1], copied);
+        return true;
+    }
+
+    /**
+     * Sprawdzenie kopii bez blokad: kursor przeszedł całą starą tabelę, a od tego momentu każdą zmianę przenosi
+     * trigger, więc zgodność widoczna teraz utrzymuje się aż do usunięcia starej tabeli. Przy niezgodności
+     * kursor wraca na początek i kopia się powtarza.
+     */
+    private boolean verify() {
+        long[] rows = jdbc.queryForObject(VERIFY_SQL, (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+        if (rows[0] == rows[1] && rows[2] == 0) return true;
+        log.warn("Kopia submissions niezgodna ({} wobec {} wierszy, brakuje {}) – kopiowanie od początku", rows[1], rows[0], rows[2]);
+        jdbc.update("UPDATE submissions_partition_state SET last_id = NULL, copied = 0 WHERE id = 1 AND swapped_at IS NULL");
+        return false;
+    }
+
+    /** Zamiana pod blokadą ACCESS EXCLUSIVE obejmującą tylko usunięcie starej tabeli i zmiany nazw. */
+    private boolean swap() {
+        Object swapped = jdbc.queryForObject("SELECT swapped_at FROM submissions_partition_state WHERE id = 1 FOR UPDATE", Object.class);
+        if (swapped != null) return true;
+
+        jdbc.execute("SET LOCAL lock_timeout = '" + lockTimeoutMs + "ms'");
+        jdbc.execute("LOCK TABLE submissions, submissions_partitioned IN ACCESS EXCLUSIVE MODE");
+        jdbc.execute("DROP TABLE submissions");
+        jdbc.execute("ALTER TABLE submissions_partitioned RENAME TO submissions");
+        jdbc.execute("ALTER TABLE submissions RENAME CONSTRAINT submissions_partitioned_pkey TO submissions_pkey");
+        jdbc.execute("ALTER TABLE submissions RENAME CONSTRAINT chk_submissions_part_status TO chk_submissions_status");
+        jdbc.execute("ALTER INDEX idx_submissions_part_task RENAME TO idx_submissions_task");
+        jdbc.execute("ALTER INDEX idx_submissions_part_student RENAME TO idx_submissions_student");
+        jdbc.execute("DROP FUNCTION submissions_mirror()");
+        jdbc.update("UPDATE submissions_partition_state SET swapped_at = now() WHERE id = 1");
+        log.info("Tabela submissions jest partycjonowana");
+        return true;
+    }
+
+    private void maintainSafely() {
+        try {
+            int created = ensurePartitions();
+            if (created > 0) log.info("Utworzono {} partycji submissions", created);
+            migrate();
+        } catch (Exception e) {
+            log.warn("Utrzymanie partycji submissions nie powiodło się (ponowienie za {} min)", intervalMinutes, e);
+        }
+    }
+}
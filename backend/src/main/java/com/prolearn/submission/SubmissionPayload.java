@@ -0,0 +1,61 @@
+package com.prolearn.submission;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnTransformer;
+
+import java.util.UUID;
+
+/**
+ * Duże pola zgłoszenia (treść, kod, raport testów, stdout, feedback) w tabeli submission_payloads 1:1
+ * z submissions. Ładowane leniwie przez {@link Submission}, więc listy wyników i statusów ich nie pobierają.
+ * Kod, raport i stdout są w submission_blobs (skompresowane, wspólne dla identycznych treści) – tu tylko hash.
+ */
+@Entity
+@Table(name = "submission_payloads")
+@BatchSize(size = 50)
+public class SubmissionPayload {
+
+    @Id
+    @Column(name = "submission_id", columnDefinition = "uuid")
+    private UUID submissionId;
+
+    @Column(columnDefinition = "text")
+    private String content;
+
+    @Convert(converter = SubmissionBlobCodec.class)
+    @Column(name = "code_hash", columnDefinition = "bytea")
+    @ColumnTransformer(read = "blob_get(code_hash)", write = "blob_put(?)")
+    private String code;
+
+    @Convert(converter = SubmissionBlobCodec.class)
+    @Column(name = "report_hash", columnDefinition = "bytea")
+    @ColumnTransformer(read = "blob_get(report_hash)", write = "blob_put(?)")
+    private String testReport;
+
+    @Convert(converter = SubmissionBlobCodec.class)
+    @Column(name = "stdout_hash", columnDefinition = "bytea")
+    @ColumnTransformer(read = "blob_get(stdout_hash)", write = "blob_put(?)")
+    private String stdout;
+
+    @Column(columnDefinition = "text")
+    private String feedback;
+
+    public UUID getSubmissionId() { return submissionId; }
+    void setSubmissionId(UUID submissionId) { this.submissionId = submissionId; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public String getTestReport() { return testReport; }
+    public void setTestReport(String testReport) { this.testReport = testReport; }
+
+    public String getStdout() { return stdout; }
+    public void setStdout(String stdout) { this.stdout = stdout; }
+
+    public String getFeedback() { return feedback; }
+    public void setFeedback(String feedback) { this.feedback = feedback; }
+}
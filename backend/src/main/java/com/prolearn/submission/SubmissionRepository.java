@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -21,14 +22,24 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
     Optional<Submission> findTopByTaskIdAndStudent_IdOrderByCreatedAtDesc(UUID taskId, UUID studentId);
     List<Submission> findByTaskIdAndStudent_IdOrderByCreatedAtAsc(UUID taskId, UUID studentId);
     List<Submission> findByTaskIdOrderByCreatedAtAsc(UUID taskId);
+    // listy z pełną odpowiedzią (kod, raport) – treść w tym samym zapytaniu zamiast leniwie
+    @EntityGraph(attributePaths = {"payload"})
     List<Submission> findByTaskIdOrderByCreatedAtDesc(UUID taskId);
+    @EntityGraph(attributePaths = {"payload"})
     List<Submission> findByStudentIdOrderByCreatedAtDesc(UUID studentId);
-    List<Submission> findByTaskIdIn(List<UUID> taskIds);
+    // wyniki i statusy (postęp lekcji/klasy) – bez submission_payloads; since zawęża skan do nowszych partycji
+    List<Submission> findByTaskIdInAndCreatedAtGreaterThanEqual(List<UUID> taskIds, Instant since);
+    // najstarsze zgłoszenie zadań, utrzymywane triggerem przy każdym INSERT (V41); puste, gdy zgłoszeń nie ma
+    @Query(value = "SELECT min(first_submission_at) FROM tasks WHERE id IN (:taskIds)", nativeQuery = true)
+    Optional<Instant> findFirstSubmissionAt(@Param("taskIds") Collection<UUID> taskIds);
     void deleteByTaskId(UUID taskId);
+
+    @Query("select s.id from Submission s where s.task.id = :taskId and s.id in :ids")
+    List<UUID> findIdsByTaskIdAndIdIn(@Param("taskId") UUID taskId, @Param("ids") Collection<UUID> ids);
     void deleteByTaskIdAndStudent_Id(UUID taskId, UUID studentId);
     long countByTaskIdAndStudent_IdAndStatusIn(UUID taskId, UUID studentId, Collection<SubmissionStatus> statuses);
 
-    @EntityGraph(attributePaths = {"task", "task.lesson", "task.lesson.classroom", "student"})
+    @EntityGraph(attributePaths = {"task", "task.lesson", "task.lesson.classroom", "student", "payload"})
     List<Submission> findByTask_Lesson_Classroom_IdOrderByCreatedAtDesc(Long classId);
 
 }
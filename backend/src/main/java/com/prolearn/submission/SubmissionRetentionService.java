@@ -0,0 +1,88 @@
+package com.prolearn.submission;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retencja raportów testów i stdout: dla prób starszych niż {@code app.retention.payload-days}, po których uczeń
+ * wysłał nowszą próbę tego samego zadania, odwołania do blobów są usuwane (kod, wynik i komentarz zostają).
+ * Osierocone bloby sprząta potem {@link SubmissionBlobSweeper}. Warunek na created_at ogranicza skan do starych partycji.
+ */
+@Service
+public class SubmissionRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionRetentionService.class);
+
+    private static final String PRUNE_SQL = """
+            UPDATE submission_payloads SET report_hash = NULL, stdout_hash = NULL
+            WHERE submission_id IN (
+              SELECT s.id FROM submissions s JOIN submission_payloads p ON p.submission_id = s.id
+              WHERE s.created_at < now() - make_interval(days => ?)
+                AND (p.report_hash IS NOT NULL OR p.stdout_hash IS NOT NULL)
+                AND EXISTS (SELECT 1 FROM submissions n WHERE n.task_id = s.task_id
+                            AND n.student_id = s.student_id AND n.created_at > s.created_at)
+              LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int payloadDays;
+    private final int batchSize;
+    private final long intervalMinutes;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "submission-retention");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SubmissionRetentionService(JdbcTemplate jdbc,
+                                      @Value("${app.retention.payload-days:0}") int payloadDays,
+                                      @Value("${app.retention.batch-size:1000}") int batchSize,
+                                      @Value("${app.retention.interval-minutes:1440}") long intervalMinutes) {
+        this.jdbc = jdbc;
+        this.payloadDays = payloadDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (payloadDays <= 0 || intervalMinutes <= 0) return;
+        executor.scheduleWithFixedDelay(this::pruneSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Usuwa raporty i stdout starych, nieostatnich prób paczkami; zwraca liczbę zmienionych zgłoszeń. */
+    public long prune() {
+        if (payloadDays <= 0) return 0;
+        long total = 0;
+        int n;
+        do {
+            n = jdbc.update(PRUNE_SQL, payloadDays, batchSize);
+            total += n;
+        } while (n == batchSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private void pruneSafely() {
+        try {
+            long pruned = prune();
+            if (pruned > 0) log.info("Usunięto raporty i stdout {} starych prób", pruned);
+        } catch (Exception e) {
+            log.warn("Retencja raportów zgłoszeń nie powiodła się", e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.prolearn.submission;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.prolearn.task.ProgrammingTestCase;
+
+import java.util.*;
+
+/**
+ * Usuwa ukryte testy z wyników uruchomień i zapisanych raportów przed pokazaniem ich uczniowi.
+ * Element bez id jest dopasowywany do przypadku po indeksie.
+ */
+final class TestReportFilter {
+
+    private final ObjectMapper objectMapper;
+
+    TestReportFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** Filtruje listę 'tests' oraz tablicę JSON zapisaną w 'stdout' wyniku uruchomienia. */
+    Map<String,Object> filterRunOutput(Map<String,Object> out, List<ProgrammingTestCase> casesList) {
+        if (out == null) return out;
+        Object testsObj = out.get("tests");
+        if (!(testsObj instanceof List<?> arr)) return out;
+        Map<UUID, ProgrammingTestCase> byId = new HashMap<>();
+        if (casesList != null) for (var c : casesList) byId.put(c.getId(), c);
+        List<Object> filtered = new ArrayList<>();
+        for (int idx = 0; idx < arr.size(); idx++) {
+            Object o = arr.get(idx);
+            if (!(o instanceof Map<?,?> m)) continue;
+            UUID uid = parseId(m.get("id"));
+            if (uid == null) {
+                // If element lacks id, try to align by index with casesList
+                if (casesList != null && idx < casesList.size()) {
+                    ProgrammingTestCase tc = casesList.get(idx);
+                    if (tc == null || tc.isVisible()) filtered.add(m);
+                } else {
+                    // keep when alignment impossible
+                    filtered.add(m);
+                }
+            } else {
+                ProgrammingTestCase tc = byId.get(uid);
+                if (tc == null || tc.isVisible()) filtered.add(m);
+            }
+        }
+        out.put("tests", filtered);
+        // Also sanitize any serialized stdout that may contain the full test array
+        try {
+            if (out.get("stdout") instanceof String s && casesList != null && !casesList.isEmpty()) {
+                String filteredStdout = filterStdout(s, casesList);
+                if (filteredStdout != null) out.put("stdout", filteredStdout);
+            }
+        } catch (Exception ignored) {}
+        return out;
+    }
+
+    /** Filtruje zapisany raport (obiekt z polem 'tests' albo sama tablica). Przy błędzie zwraca raport bez zmian. */
+    String filterReport(String report, List<ProgrammingTestCase> cases) {
+        if (report == null || report.isBlank()) return report;
+        try {
+            JsonNode node = objectMapper.readTree(report);
+            boolean nodeWasArray = node.isArray();
+            JsonNode testsNode = nodeWasArray ? node : node.get("tests");
+            if (testsNode == null || !testsNode.isArray()) return report;
+            ArrayNode filtered = objectMapper.createArrayNode();
+            Map<UUID, Boolean> visibleById = visibility(cases);
+            int numCases = cases == null ? 0 : cases.size();
+            for (int i = 0; i < testsNode.size(); i++) {
+                JsonNode tnode = testsNode.get(i);
+                JsonNode idNode = tnode.get("id");
+                boolean keep = true;
+                if (idNode != null && idNode.isTextual()) {
+                    try {
+                        Boolean vis = visibleById.get(UUID.fromString(idNode.asText()));
+                        if (vis != null && !vis) keep = false;
+                    } catch (Exception ignored) { }
+                } else if (numCases > 0 && testsNode.size() == numCases) {
+                    ProgrammingTestCase tc = cases.get(i);
+                    if (tc != null && !tc.isVisible()) keep = false;
+                }
+                if (keep) filtered.add(tnode);
+            }
+            if (nodeWasArray) return objectMapper.writeValueAsString(filtered);
+            ((ObjectNode) node).set("tests", filtered);
+            return objectMapper.writeValueAsString(node);
+        } catch (Exception ignored) {
+            return report;
+        }
+    }
+
+    /**
+     * Filtruje tablicę wyników JSON znalezioną w stdout (całe stdout albo ostatnia tablica).
+     * Zwraca null, gdy stdout nie zawiera tablicy wyników.
+     */
+    String filterStdout(String stdout, List<ProgrammingTestCase> cases) {
+        if (stdout == null) return null;
+        try {
+            String trimmed = stdout.trim();
+            List<Map<String,Object>> arr = null;
+            if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                arr = objectMapper.readValue(trimmed, List.class);
+            } else {
+                int i = trimmed.lastIndexOf('[');
+                if (i >= 0) {
+                    try { arr = objectMapper.readValue(trimmed.substring(i), List.class); } catch (Exception ignored) { arr = null; }
+                }
+            }
+            if (arr == null) return null;
+            Map<UUID, Boolean> visibleById = visibility(cases);
+            List<Map<String,Object>> outArr = new ArrayList<>();
+            for (int idx = 0; idx < arr.size(); idx++) {
+                Map<String,Object> item = arr.get(idx);
+                boolean keep = true;
+                UUID uid = parseId(item.get("id"));
+                if (uid != null) {
+                    Boolean vis = visibleById.get(uid);
+                    if (vis != null && !vis) keep = false;
+                } else if (cases != null && idx < cases.size()) {
+                    ProgrammingTestCase tc = cases.get(idx);
+                    if (tc != null && !tc.isVisible()) keep = false;
+                }
+                if (keep) outArr.add(item);
+            }
+            return objectMapper.writeValueAsString(outArr);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static Map<UUID, Boolean> visibility(List<ProgrammingTestCase> cases) {
+        Map<UUID, Boolean> visibleById = new HashMap<>();
+        if (cases != null) for (var c : cases) visibleById.put(c.getId(), c.isVisible());
+        return visibleById;
+    }
+
+    private static UUID parseId(Object idVal) {
+        if (idVal instanceof UUID u) return u;
+        if (idVal instanceof String s) {
+            try { return UUID.fromString(s); } catch (Exception ignored) { return null; }
+        }
+        return null;
+    }
+}
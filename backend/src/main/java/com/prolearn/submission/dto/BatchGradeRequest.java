@@ -0,0 +1,20 @@
+package com.prolearn.submission.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchGradeRequest(
+        @NotEmpty @Size(max = 500) List<@Valid @NotNull Entry> grades
+) {
+    public record Entry(
+            @NotNull UUID submissionId,
+            @Min(0) Integer manualScore,
+            @Size(max = 10000) String teacherComment
+    ) {}
+}
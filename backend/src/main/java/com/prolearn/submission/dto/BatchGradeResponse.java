@@ -0,0 +1,6 @@
+package com.prolearn.submission.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record BatchGradeResponse(UUID taskId, int updated, Instant gradedAt) {}
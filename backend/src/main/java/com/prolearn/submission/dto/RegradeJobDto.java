@@ -0,0 +1,25 @@
+package com.prolearn.submission.dto;
+
+import com.prolearn.submission.RegradeJob;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/** Postęp ponownej oceny; {@code etaSeconds} liczone z tempa bieżącego przebiegu (null, gdy nieznane). */
+public record RegradeJobDto(UUID id, UUID taskId, String scope, String status, long totalRows, long processedRows,
+                            long failedRows, Long etaSeconds, String error, Instant createdAt, Instant updatedAt) {
+    public static RegradeJobDto fromEntity(RegradeJob j) {
+        return new RegradeJobDto(j.getId(), j.getTaskId(), j.getScope().name(), j.getStatus().name(), j.getTotalRows(),
+                j.getProcessedRows(), j.getFailedRows(), eta(j), j.getError(), j.getCreatedAt(), j.getUpdatedAt());
+    }
+
+    private static Long eta(RegradeJob j) {
+        if (j.getStatus() == RegradeJob.Status.DONE || j.getStatus() == RegradeJob.Status.FAILED) return 0L;
+        long done = j.getProcessedRows() - j.getStartedRows();
+        if (j.getStartedAt() == null || done <= 0) return null;
+        long elapsedMs = Duration.between(j.getStartedAt(), j.getUpdatedAt()).toMillis();
+        long remaining = Math.max(0, j.getTotalRows() - j.getProcessedRows());
+        return remaining * Math.max(elapsedMs, 1) / done / 1000;
+    }
+}
@@ -1,10 +1,14 @@
 package com.prolearn.task;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.UUID;
 
 @Entity
 @Table(name = "programming_test_cases")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.test-case")
 public class ProgrammingTestCase {
 
     @Id
@@ -1,7 +1,10 @@
 package com.prolearn.task;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,6 +13,11 @@ import java.util.UUID;
 
 @Repository
 public interface ProgrammingTestCaseRepository extends JpaRepository<ProgrammingTestCase, UUID> {
+    // wynik w cache zapytań – czytane przy każdym /run i zgłoszeniu
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "course.queries")
+    })
     List<ProgrammingTestCase> findByTaskIdOrderByOrderAsc(UUID taskId);
 
     @Query("select coalesce(sum(t.points),0) from ProgrammingTestCase t where t.task.id = :taskId")
@@ -1,6 +1,7 @@
 package com.prolearn.task;
 
 import com.prolearn.submission.Submission;
+import com.prolearn.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -47,7 +48,7 @@ public class QuizAnswer {
     @PrePersist
     public void prePersist() {
         if (id == null) {
-            id = UUID.randomUUID();
+            id = UuidV7.generate();
         }
         if (answeredAt == null) {
             answeredAt = Instant.now();
@@ -2,6 +2,7 @@ package com.prolearn.task;
 
 import com.prolearn.lesson.Lesson;
 import com.prolearn.lesson.LessonRepository;
+import com.prolearn.submission.AttemptCounter;
 import com.prolearn.submission.Submission;
 import com.prolearn.submission.SubmissionRepository;
 import com.prolearn.submission.SubmissionStatus;
@@ -28,9 +29,9 @@ public class QuizService {
     private final QuizAnswerRepository answerRepo;
     private final LessonRepository lessonRepo;
     private final SubmissionRepository submissionRepo;
+    private final AttemptCounter attemptCounter;
     private final UserRepository userRepo;
-
-        private static final List<SubmissionStatus> ATTEMPT_STATUSES = List.of(SubmissionStatus.SUBMITTED, SubmissionStatus.GRADED);
+    private final com.prolearn.lesson.LessonDetailCache lessonDetailCache;
 
     /**
      * Tworzy zadanie typu QUIZ z pytaniami.
@@ -70,6 +71,7 @@ public class QuizService {
                     .build();
             questionRepo.save(Objects.requireNonNull(question));
         }
+        lessonDetailCache.invalidate(lessonId);
 
         return toQuizDto(task);
     }
@@ -122,16 +124,13 @@ public class QuizService {
         User student = userRepo.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Nie znaleziono użytkownika"));
 
-                long attemptsUsed = submissionRepo.countByTaskIdAndStudent_IdAndStatusIn(taskId, userId, ATTEMPT_STATUSES);
-                if (attemptsUsed >= task.getMaxAttempts()) {
-                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Brak dostępnych prób dla tego zadania");
-                }
+                int attemptNumber = attemptCounter.reserve(taskId, userId, task.getMaxAttempts(), "Brak dostępnych prób dla tego zadania");
 
                 Submission submission = new Submission();
                 submission.setTask(task);
                 submission.setStudent(student);
                 submission.setStatus(SubmissionStatus.SUBMITTED);
-                submission.setAttemptNumber((int) attemptsUsed + 1);
+                submission.setAttemptNumber(attemptNumber);
                 submission.setAutoScore(null);
                 submission.setManualScore(null);
                 submission.setTeacherComment(null);
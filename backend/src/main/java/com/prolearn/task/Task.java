@@ -2,11 +2,16 @@ package com.prolearn.task;
 
 import com.prolearn.lesson.Lesson;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
 @Table(name = "tasks")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course.task")
 public class Task {
 
     @Id
@@ -58,6 +63,22 @@ public class Task {
     @Column(nullable = false)
     private String gradingMode = "AUTO";
 
+    // limity wykonania kodu ucznia; null = domyślne z app.grading.limits
+    @Column(name = "statement_limit")
+    private Long statementLimit;
+
+    @Column(name = "cpu_time_limit_ms")
+    private Integer cpuTimeLimitMs;
+
+    // wersja do optymistycznego blokowania i ETagów (GET /api/tasks/{id})
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @PrePersist
     public void prePersist() {
         if (id == null) id = UUID.randomUUID();
@@ -125,4 +146,14 @@ public class Task {
 
     public String getTeacherSolution() { return teacherSolution; }
     public void setTeacherSolution(String teacherSolution) { this.teacherSolution = teacherSolution; }
+
+    public Long getStatementLimit() { return statementLimit; }
+    public void setStatementLimit(Long statementLimit) { this.statementLimit = statementLimit; }
+
+    public Integer getCpuTimeLimitMs() { return cpuTimeLimitMs; }
+    public void setCpuTimeLimitMs(Integer cpuTimeLimitMs) { this.cpuTimeLimitMs = cpuTimeLimitMs; }
+
+    public Long getVersion() { return version; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
 }
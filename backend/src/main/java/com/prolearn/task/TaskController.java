@@ -1,10 +1,13 @@
 package com.prolearn.task;
 
+import com.prolearn.api.ETags;
 import com.prolearn.task.dto.CreateTaskDto;
 import com.prolearn.task.dto.TaskDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,12 +27,15 @@ public class TaskController {
     }
 
     @GetMapping("/tasks/{id}")
-    public PublicTaskView getPublic(@PathVariable("id") UUID id) {
-        Task task = service.getTask(id);
-        UUID lessonId = task.getLesson() != null ? task.getLesson().getId() : null;
-    return new PublicTaskView(task.getId(), lessonId, task.getTitle(), task.getDescription(),
-        task.getMaxPoints(), task.getMaxAttempts(), task.getAllowRunBeforeSubmit(), task.getLockAfterSubmit(),
-        task.getCreatedAt(), task.getType(), task.getLanguage(), task.getStarterCode());
+    public ResponseEntity<PublicTaskView> getPublic(@PathVariable("id") UUID id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.taskEtag(id), () -> {
+            Task task = service.getTask(id);
+            UUID lessonId = task.getLesson() != null ? task.getLesson().getId() : null;
+            return new PublicTaskView(task.getId(), lessonId, task.getTitle(), task.getDescription(),
+                    task.getMaxPoints(), task.getMaxAttempts(), task.getAllowRunBeforeSubmit(), task.getLockAfterSubmit(),
+                    task.getCreatedAt(), task.getType(), task.getLanguage(), task.getStarterCode());
+        });
     }
 
     @GetMapping("/tasks/{id}/teacher")
@@ -42,14 +48,16 @@ public class TaskController {
     public record TaskUpdateRequest(String title, String description, Integer maxPoints,
                                     String starterCode, String tests, String gradingMode, String language,
                                     String teacherSolution,
-                                    Integer maxAttempts, Boolean allowRunBeforeSubmit, Boolean lockAfterSubmit) {}
+                                    Integer maxAttempts, Boolean allowRunBeforeSubmit, Boolean lockAfterSubmit,
+                                    Long statementLimit, Integer cpuTimeLimitMs) {}
 
     @PatchMapping(path="/tasks/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('TEACHER')")
     public TaskDto update(@PathVariable("id") UUID id, @RequestBody TaskUpdateRequest req){
         return service.update(id, req.title(), req.description(), req.maxPoints(),
         req.starterCode(), req.tests(), req.gradingMode(), req.language(), req.teacherSolution(),
-        req.maxAttempts(), req.allowRunBeforeSubmit(), req.lockAfterSubmit());
+        req.maxAttempts(), req.allowRunBeforeSubmit(), req.lockAfterSubmit(),
+        req.statementLimit(), req.cpuTimeLimitMs());
     }
 
     @DeleteMapping("/tasks/{id}")
@@ -1,11 +1,19 @@
 package com.prolearn.task;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface TaskRepository extends JpaRepository<Task, UUID> {
     List<Task> findAllByLesson_IdOrderByCreatedAtAsc(UUID lessonId);
     // find tasks for all lessons that belong to a classroom (single query)
     List<Task> findAllByLesson_Classroom_IdOrderByCreatedAtAsc(Long classId);
+
+    // sama wersja (ETag) – bez ładowania encji
+    @Query("select t.version from Task t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
 }
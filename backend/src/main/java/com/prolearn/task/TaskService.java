@@ -20,6 +20,8 @@ public class TaskService {
     private final LessonRepository lessonRepo;
     private final ProgrammingTestCaseRepository testRepo;
     private final com.prolearn.lesson.LessonActivityRepository activityRepo;
+    private final com.prolearn.config.CourseCache courseCache;
+    private final com.prolearn.lesson.LessonDetailCache lessonDetailCache;
 
     /**
      * Tworzy nowe zadanie.
@@ -45,8 +47,11 @@ public class TaskService {
         task.setTests(req.tests);
         task.setGradingMode(req.gradingMode != null ? req.gradingMode : "AUTO");
         task.setTeacherSolution(req.teacherSolution);
+        task.setStatementLimit(req.statementLimit);
+        task.setCpuTimeLimitMs(req.cpuTimeLimitMs);
 
         task = taskRepo.save(Objects.requireNonNull(task, "task"));
+        lessonDetailCache.invalidate(lessonId);
         return toDto(task);
     }
 
@@ -56,7 +61,8 @@ public class TaskService {
     @Transactional
     public TaskDto update(UUID taskId, String title, String description, Integer maxPoints,
                           String starterCode, String tests, String gradingMode, String language, String teacherSolution,
-                          Integer maxAttempts, Boolean allowRunBeforeSubmit, Boolean lockAfterSubmit) {
+                          Integer maxAttempts, Boolean allowRunBeforeSubmit, Boolean lockAfterSubmit,
+                          Long statementLimit, Integer cpuTimeLimitMs) {
         Objects.requireNonNull(taskId, "taskId");
     Task task = taskRepo.findById(taskId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
@@ -72,6 +78,19 @@ public class TaskService {
     if (maxAttempts != null) task.setMaxAttempts(maxAttempts < 1 ? 1 : maxAttempts);
         if (allowRunBeforeSubmit != null) task.setAllowRunBeforeSubmit(allowRunBeforeSubmit);
         if (lockAfterSubmit != null) task.setLockAfterSubmit(lockAfterSubmit);
+        // 0 przywraca domyślny limit serwera
+        if (statementLimit != null) {
+            if (statementLimit != 0 && statementLimit < 1000) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit instrukcji musi wynosić co najmniej 1000");
+            }
+            task.setStatementLimit(statementLimit == 0 ? null : statementLimit);
+        }
+        if (cpuTimeLimitMs != null) {
+            if (cpuTimeLimitMs != 0 && (cpuTimeLimitMs < 100 || cpuTimeLimitMs > 10000)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit czasu CPU musi mieścić się w zakresie 100–10000 ms");
+            }
+            task.setCpuTimeLimitMs(cpuTimeLimitMs == 0 ? null : cpuTimeLimitMs);
+        }
 
         // Walidacja spójności: suma punktów testów musi być RÓWNA maksymalnym punktom zadania, jeśli istnieją testy
         Integer sum = testRepo.sumPointsByTaskId(task.getId());
@@ -82,6 +101,7 @@ public class TaskService {
         }
 
         task = taskRepo.save(Objects.requireNonNull(task, "task"));
+        lessonDetailCache.invalidate(task.getLesson().getId());
         return toDto(task);
     }
 
@@ -98,6 +118,9 @@ public class TaskService {
             activityRepo.deleteByTask_Id(task.getId());
         } catch (Exception ignore) {}
         taskRepo.delete(Objects.requireNonNull(task, "task"));
+        // testy i pytania quizu usuwa kaskada w bazie – poza wiedzą cache drugiego poziomu
+        courseCache.evictTaskContent();
+        lessonDetailCache.invalidate(task.getLesson().getId());
     }
 
     /**
@@ -110,6 +133,15 @@ public class TaskService {
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nie znaleziono zadania"));
     }
 
+    /**
+     * ETag publicznego widoku zadania albo null, gdy zadania nie ma.
+     */
+    @Transactional(readOnly = true)
+    public String taskEtag(UUID taskId) {
+        Objects.requireNonNull(taskId, "taskId");
+        return taskRepo.findVersionById(taskId).map(v -> com.prolearn.api.ETags.strong("t", taskId, v)).orElse(null);
+    }
+
     /**
      * Mapuje encję Task na TaskDto.
      */
@@ -129,6 +161,8 @@ public class TaskService {
         dto.starterCode = task.getStarterCode();
         dto.tests = task.getTests();
         dto.gradingMode = task.getGradingMode();
+        dto.statementLimit = task.getStatementLimit();
+        dto.cpuTimeLimitMs = task.getCpuTimeLimitMs();
         dto.teacherSolution = task.getTeacherSolution();
         return dto;
     }
@@ -42,6 +42,14 @@ public class CreateTaskDto {
     
     public String gradingMode; // "AUTO"
 
+    // Optional execution limits for student code (null = server defaults)
+    @Min(value = 1000, message = "Limit instrukcji musi wynosić co najmniej 1000")
+    public Long statementLimit;
+
+    @Min(value = 100, message = "Limit czasu CPU musi wynosić co najmniej 100 ms")
+    @Max(value = 10000, message = "Limit czasu CPU nie może przekroczyć 10000 ms")
+    public Integer cpuTimeLimitMs;
+
     // Optional hidden teacher solution used for demo test runs (never exposed publicly)
     @Size(max = 50000, message = "Rozwiązanie nauczyciela nie może przekraczać 50000 znaków")
     public String teacherSolution;
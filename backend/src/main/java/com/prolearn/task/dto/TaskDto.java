@@ -18,6 +18,8 @@ public class TaskDto {
     public String starterCode;
     public String tests;
     public String gradingMode;
+    public Long statementLimit;
+    public Integer cpuTimeLimitMs;
     // teacher-only hidden solution (never sent to students via public endpoints)
     public String teacherSolution;
 }
@@ -0,0 +1,33 @@
+package com.prolearn.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identyfikatory UUIDv7 (RFC 9562): 48 bitów czasu unixowego w ms, 12-bitowy licznik w obrębie milisekundy
+ * i 62 bity losowe. Kolejne wartości z jednego węzła rosną, więc wstawienia trafiają na koniec indeksu
+ * klucza głównego zamiast w losowe miejsca B-drzewa. Dotychczasowe losowe UUID (v4) pozostają poprawne.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // (ms << 12) | licznik – przepełnienie licznika przesuwa czas o 1 ms, kolejność zostaje zachowana
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {}
+
+    public static UUID generate() {
+        long now = System.currentTimeMillis() << 12;
+        long seq = LAST.updateAndGet(prev -> Math.max(prev + 1, now));
+        long msb = (seq >>> 12) << 16 | 0x7000L | (seq & 0xFFFL);
+        long lsb = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /** Czas utworzenia zapisany w UUIDv7 (ms od epoki). */
+    public static long timestamp(UUID id) {
+        if (id.version() != 7) throw new IllegalArgumentException("Nie jest UUIDv7: " + id);
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
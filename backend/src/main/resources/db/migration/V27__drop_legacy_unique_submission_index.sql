@@ -0,0 +1,3 @@
+-- V3 utworzył ux_submissions_task_student jako UNIQUE INDEX, a V19 usuwał tylko CONSTRAINT o tej nazwie,
+-- więc indeks blokował drugą próbę ucznia dla tego samego zadania.
+DROP INDEX IF EXISTS ux_submissions_task_student;
@@ -0,0 +1,9 @@
+-- Stan kubełków tokenów dla limitów /run i /run-demo (app.rate-limit.store=jdbc, wiele instancji)
+CREATE TABLE IF NOT EXISTS rate_limit_buckets (
+    bucket_key        VARCHAR(100) PRIMARY KEY,
+    tokens            DOUBLE PRECISION NOT NULL,
+    capacity          DOUBLE PRECISION NOT NULL,
+    refill_per_second DOUBLE PRECISION NOT NULL,
+    allowed           BOOLEAN NOT NULL DEFAULT TRUE,
+    updated_at        TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,18 @@
+-- Asynchroniczne usuwanie dużych klas (ClassPurgeService) z postępem
+CREATE TABLE class_purge_jobs (
+    id           UUID PRIMARY KEY,
+    class_id     BIGINT NOT NULL,
+    requested_by UUID REFERENCES users(id) ON DELETE SET NULL,
+    status       VARCHAR(20) NOT NULL,
+    total_rows   BIGINT NOT NULL DEFAULT 0,
+    deleted_rows BIGINT NOT NULL DEFAULT 0,
+    error        TEXT,
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at   TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_class_purge_jobs_status ON class_purge_jobs(status);
+
+-- Kaskady ON DELETE z V24 potrzebują indeksów po stronie dziecka, inaczej każde usunięcie skanuje całą tabelę
+CREATE INDEX IF NOT EXISTS idx_quiz_attempts_activity ON quiz_attempts(activity_id);
+CREATE INDEX IF NOT EXISTS idx_activities_task ON lesson_activities(task_id);
@@ -0,0 +1,7 @@
+-- Wersje treści (optymistyczne blokowanie @Version) – podstawa ETagów dla lekcji, zadań i aktywności
+ALTER TABLE lessons           ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+                              ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE tasks             ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+                              ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE lesson_activities ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+                              ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
@@ -0,0 +1,3 @@
+-- Limity wykonania kodu ucznia per zadanie (NULL = wartości domyślne z app.grading.limits)
+ALTER TABLE tasks ADD COLUMN statement_limit BIGINT,
+                  ADD COLUMN cpu_time_limit_ms INTEGER;
@@ -0,0 +1,21 @@
+-- Ponowna ocena zgłoszeń zadania po zmianie testów (RegradeService); kursor pozwala wznowić po restarcie
+CREATE TABLE regrade_jobs (
+    id                 UUID PRIMARY KEY,
+    task_id            UUID NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+    requested_by       UUID REFERENCES users(id) ON DELETE SET NULL,
+    scope              VARCHAR(10) NOT NULL,
+    status             VARCHAR(20) NOT NULL,
+    total_rows         BIGINT NOT NULL DEFAULT 0,
+    processed_rows     BIGINT NOT NULL DEFAULT 0,
+    failed_rows        BIGINT NOT NULL DEFAULT 0,
+    last_submission_id UUID,
+    error              TEXT,
+    created_at         TIMESTAMPTZ NOT NULL DEFAULT now(),
+    started_at         TIMESTAMPTZ,
+    started_rows       BIGINT NOT NULL DEFAULT 0,
+    updated_at         TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_regrade_jobs_status ON regrade_jobs(status);
+-- co najwyżej jedno aktywne przeliczenie na zadanie
+CREATE UNIQUE INDEX ux_regrade_jobs_active_task ON regrade_jobs(task_id) WHERE status IN ('PENDING', 'RUNNING');
@@ -0,0 +1,14 @@
+-- Licznik wykorzystanych prób (zadanie, uczeń) – rezerwacja próby jednym atomowym upsertem zamiast count(*)
+CREATE TABLE submission_attempts (
+    task_id    UUID NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+    student_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    used       INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (task_id, student_id)
+);
+
+INSERT INTO submission_attempts (task_id, student_id, used)
+SELECT task_id, student_id, count(*)
+FROM submissions
+WHERE status IN ('SUBMITTED', 'GRADED')
+GROUP BY task_id, student_id;
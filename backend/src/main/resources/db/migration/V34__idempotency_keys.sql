@@ -0,0 +1,13 @@
+-- Klucze Idempotency-Key dla wysyłania zgłoszeń i quizów: hash żądania i zapisana odpowiedź do powtórzenia
+CREATE TABLE idempotency_keys (
+    user_id      UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    idem_key     VARCHAR(255) NOT NULL,
+    endpoint     VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response     TEXT,
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at   TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (user_id, idem_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,12 @@
+-- Jedna próba quizu na ucznia: unikalny indeks zamiast sprawdzania exists przed zapisem.
+-- Z duplikatów zostaje najwcześniejsza próba (tak jak liczyło ją dotychczasowe sprawdzenie).
+DELETE FROM quiz_attempts qa
+USING quiz_attempts first
+WHERE first.activity_id = qa.activity_id
+  AND first.student_id = qa.student_id
+  AND (first.created_at, first.id) < (qa.created_at, qa.id);
+
+CREATE UNIQUE INDEX ux_quiz_attempts_activity_student ON quiz_attempts (activity_id, student_id);
+
+-- indeks z V29 jest prefiksem nowego
+DROP INDEX IF EXISTS idx_quiz_attempts_activity;
@@ -0,0 +1,21 @@
+-- Podział pionowy submissions: duże kolumny tekstowe w osobnej tabeli 1:1, żeby zapytania o wyniki i statusy
+-- czytały tylko wąskie wiersze. Klucz obcy odroczony – Hibernate może wstawić treść przed wierszem zgłoszenia.
+CREATE TABLE submission_payloads (
+    submission_id UUID PRIMARY KEY REFERENCES submissions(id) ON DELETE CASCADE DEFERRABLE INITIALLY DEFERRED,
+    content       TEXT,
+    code          TEXT,
+    test_report   TEXT,
+    stdout        TEXT,
+    feedback      TEXT
+);
+
+INSERT INTO submission_payloads (submission_id, content, code, test_report, stdout, feedback)
+SELECT id, content, code, test_report, stdout, feedback
+FROM submissions;
+
+ALTER TABLE submissions
+    DROP COLUMN content,
+    DROP COLUMN code,
+    DROP COLUMN test_report,
+    DROP COLUMN stdout,
+    DROP COLUMN feedback;
@@ -0,0 +1,61 @@
+-- Kod, raport testów i stdout zgłoszeń w tabeli blobów adresowanej treścią (SHA-256): identyczne wartości
+-- zapisują się raz, nowe są kompresowane w aplikacji (Deflater). Format: 32 B hash | bajt formatu | dane.
+CREATE TABLE submission_blobs (
+    hash         BYTEA PRIMARY KEY,
+    data         BYTEA NOT NULL,
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT now(),
+    last_used_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Zapis: wstawia blob, jeśli go nie ma, i zwraca hash do zapisania w submission_payloads.
+-- Ponowne użycie odświeża last_used_at (najwyżej raz na dobę), żeby sprzątanie nie usunęło bloba w locie.
+CREATE FUNCTION blob_put(enc BYTEA) RETURNS BYTEA
+LANGUAGE plpgsql STRICT AS $$
+DECLARE
+    h BYTEA := substring(enc FROM 1 FOR 32);
+BEGIN
+    INSERT INTO submission_blobs AS b (hash, data)
+    VALUES (h, substring(enc FROM 33))
+    ON CONFLICT (hash) DO UPDATE SET last_used_at = now()
+    WHERE b.last_used_at < now() - interval '1 day';
+    RETURN h;
+END
+$$;
+
+-- Odczyt: hash | dane, w formacie oczekiwanym przez SubmissionBlobCodec.
+CREATE FUNCTION blob_get(h BYTEA) RETURNS BYTEA
+LANGUAGE sql STABLE STRICT AS $$
+    SELECT h || b.data FROM submission_blobs b WHERE b.hash = h
+$$;
+
+ALTER TABLE submission_payloads
+    ADD COLUMN code_hash   BYTEA,
+    ADD COLUMN report_hash BYTEA,
+    ADD COLUMN stdout_hash BYTEA;
+
+-- istniejące wartości bez kompresji (bajt formatu 0) – SQL nie ma Deflatera, hash liczony tak samo
+INSERT INTO submission_blobs (hash, data)
+SELECT DISTINCT ON (h) h, decode('00', 'hex') || convert_to(v, 'UTF8')
+FROM (
+    SELECT sha256(convert_to(code, 'UTF8')) AS h, code AS v FROM submission_payloads WHERE code IS NOT NULL
+    UNION ALL
+    SELECT sha256(convert_to(test_report, 'UTF8')), test_report FROM submission_payloads WHERE test_report IS NOT NULL
+    UNION ALL
+    SELECT sha256(convert_to(stdout, 'UTF8')), stdout FROM submission_payloads WHERE stdout IS NOT NULL
+) v;
+
+UPDATE submission_payloads SET
+    code_hash   = sha256(convert_to(code, 'UTF8')),
+    report_hash = sha256(convert_to(test_report, 'UTF8')),
+    stdout_hash = sha256(convert_to(stdout, 'UTF8'));
+
+ALTER TABLE submission_payloads
+    DROP COLUMN code,
+    DROP COLUMN test_report,
+    DROP COLUMN stdout;
+
+-- sprzątanie szuka blobów bez odwołań
+CREATE INDEX idx_submission_payloads_code_hash ON submission_payloads (code_hash);
+CREATE INDEX idx_submission_payloads_report_hash ON submission_payloads (report_hash);
+CREATE INDEX idx_submission_payloads_stdout_hash ON submission_payloads (stdout_hash);
+CREATE INDEX idx_submission_blobs_last_used_at ON submission_blobs (last_used_at);
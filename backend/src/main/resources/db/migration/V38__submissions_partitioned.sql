@@ -0,0 +1,107 @@
+-- Partycjonowanie submissions po created_at (miesięcznie). Wprowadzane online: tu powstaje pusta tabela
+-- partycjonowana i trigger przenoszący bieżące zmiany, historię kopiuje w tle SubmissionPartitionService,
+-- a na końcu w krótkiej transakcji zamienia tabele nazwami.
+CREATE TABLE submissions_partitioned (
+    id              UUID NOT NULL,
+    task_id         UUID NOT NULL REFERENCES tasks(id) ON DELETE CASCADE,
+    student_id      UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    status          VARCHAR(16) NOT NULL DEFAULT 'SUBMITTED'
+                    CONSTRAINT chk_submissions_part_status CHECK (status IN ('SUBMITTED','GRADED')),
+    points          INTEGER,
+    graded_at       TIMESTAMP WITHOUT TIME ZONE,
+    graded_by       UUID REFERENCES users(id),
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    auto_score      INTEGER,
+    attempt_number  INTEGER,
+    manual_score    INTEGER,
+    teacher_comment VARCHAR(1024),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE submissions_default PARTITION OF submissions_partitioned DEFAULT;
+
+CREATE INDEX idx_submissions_part_task ON submissions_partitioned (task_id, student_id, created_at);
+CREATE INDEX idx_submissions_part_student ON submissions_partitioned (student_id);
+
+-- Miesięczne partycje submissions_rrrr_mm od from_month do to_month włącznie; istniejące są pomijane.
+-- Rodzicem jest submissions_partitioned do zamiany nazw, potem submissions.
+CREATE FUNCTION create_submission_partitions(from_month DATE, to_month DATE) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+  parent  TEXT := CASE WHEN EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('submissions'))
+                       THEN 'submissions' ELSE 'submissions_partitioned' END;
+  m       DATE := date_trunc('month', from_month)::date;
+  created INTEGER := 0;
+  part    TEXT;
+BEGIN
+  WHILE m <= to_month LOOP
+    part := 'submissions_' || to_char(m, 'YYYY_MM');
+    IF to_regclass(part) IS NULL THEN
+      EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                     part, parent, m, (m + interval '1 month')::date);
+      created := created + 1;
+    END IF;
+    m := (m + interval '1 month')::date;
+  END LOOP;
+  RETURN created;
+END $$;
+
+SELECT create_submission_partitions(
+    COALESCE((SELECT min(created_at) FROM submissions), now())::date,
+    (now() + interval '3 months')::date);
+
+-- Na tabeli partycjonowanej nie da się założyć klucza obcego do samego id (unikalne jest tylko (id, created_at)),
+-- więc kaskadę do treści i odpowiedzi quizu przejmuje trigger – od razu, żeby zachowanie nie zmieniło się przy zamianie.
+ALTER TABLE quiz_answers DROP CONSTRAINT IF EXISTS quiz_answers_submission_id_fkey;
+ALTER TABLE submission_payloads DROP CONSTRAINT IF EXISTS submission_payloads_submission_id_fkey;
+
+CREATE FUNCTION submissions_delete_children() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+  DELETE FROM quiz_answers WHERE submission_id = OLD.id;
+  DELETE FROM submission_payloads WHERE submission_id = OLD.id;
+  RETURN OLD;
+END $$;
+
+CREATE TRIGGER trg_submissions_delete_children AFTER DELETE ON submissions
+    FOR EACH ROW EXECUTE FUNCTION submissions_delete_children();
+CREATE TRIGGER trg_submissions_delete_children AFTER DELETE ON submissions_partitioned
+    FOR EACH ROW EXECUTE FUNCTION submissions_delete_children();
+
+-- Zmiany w starej tabeli w trakcie kopiowania trafiają od razu do nowej. Aktualizacja nie może iść przez
+-- DELETE + INSERT, bo usunięcie z nowej tabeli uruchomiłoby kaskadę do treści zgłoszenia.
+CREATE FUNCTION submissions_mirror() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    DELETE FROM submissions_partitioned WHERE id = OLD.id AND created_at = OLD.created_at;
+    RETURN NULL;
+  END IF;
+  IF TG_OP = 'UPDATE' THEN
+    UPDATE submissions_partitioned
+    SET task_id = NEW.task_id, student_id = NEW.student_id, status = NEW.status, points = NEW.points,
+        graded_at = NEW.graded_at, graded_by = NEW.graded_by, created_at = NEW.created_at,
+        auto_score = NEW.auto_score, attempt_number = NEW.attempt_number, manual_score = NEW.manual_score,
+        teacher_comment = NEW.teacher_comment
+    WHERE id = OLD.id AND created_at = OLD.created_at;
+    IF FOUND THEN RETURN NULL; END IF;
+  END IF;
+  INSERT INTO submissions_partitioned (id, task_id, student_id, status, points, graded_at, graded_by, created_at,
+                                       auto_score, attempt_number, manual_score, teacher_comment)
+  VALUES (NEW.id, NEW.task_id, NEW.student_id, NEW.status, NEW.points, NEW.graded_at, NEW.graded_by, NEW.created_at,
+          NEW.auto_score, NEW.attempt_number, NEW.manual_score, NEW.teacher_comment)
+  ON CONFLICT (id, created_at) DO NOTHING;
+  RETURN NULL;
+END $$;
+
+CREATE TRIGGER trg_submissions_mirror AFTER INSERT OR UPDATE OR DELETE ON submissions
+    FOR EACH ROW EXECUTE FUNCTION submissions_mirror();
+
+-- Stan kopiowania (jeden wiersz): kursor po id starej tabeli i moment zamiany
+CREATE TABLE submissions_partition_state (
+    id         INTEGER PRIMARY KEY CHECK (id = 1),
+    last_id    UUID,
+    copied     BIGINT NOT NULL DEFAULT 0,
+    swapped_at TIMESTAMPTZ
+);
+INSERT INTO submissions_partition_state (id) VALUES (1);
@@ -0,0 +1,4 @@
+-- Dzierżawa zadania ponownej oceny: węzeł, który je wykonuje, i jego ostatni sygnał życia. Inny węzeł
+-- przejmuje zadanie dopiero po wygaśnięciu dzierżawy, więc restart kilku instancji nie ocenia go podwójnie.
+ALTER TABLE regrade_jobs ADD COLUMN owner UUID;
+ALTER TABLE regrade_jobs ADD COLUMN heartbeat_at TIMESTAMPTZ;
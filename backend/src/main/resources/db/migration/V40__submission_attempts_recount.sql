@@ -0,0 +1,28 @@
+-- Licznik prób idzie za usunięciami zgłoszeń (reset ucznia, paczki usuwania klasy): po każdej instrukcji
+-- DELETE pary (zadanie, uczeń) z usuniętych wierszy dostają liczbę pozostałych prób, jak przy zasileniu w V33.
+CREATE FUNCTION submissions_recount_attempts() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+  UPDATE submission_attempts a
+  SET used = (SELECT count(*) FROM submissions s
+              WHERE s.task_id = a.task_id AND s.student_id = a.student_id
+                AND s.status IN ('SUBMITTED', 'GRADED')),
+      updated_at = now()
+  FROM (SELECT DISTINCT task_id, student_id FROM deleted_submissions) d
+  WHERE a.task_id = d.task_id AND a.student_id = d.student_id;
+  RETURN NULL;
+END $$;
+
+CREATE TRIGGER trg_submissions_recount_attempts AFTER DELETE ON submissions
+    REFERENCING OLD TABLE AS deleted_submissions
+    FOR EACH STATEMENT EXECUTE FUNCTION submissions_recount_attempts();
+
+-- przed zamianą tabel (V38) także na nowej tabeli, żeby trigger przeszedł na submissions razem z nią
+DO $$
+BEGIN
+  IF to_regclass('submissions_partitioned') IS NOT NULL THEN
+    CREATE TRIGGER trg_submissions_recount_attempts AFTER DELETE ON submissions_partitioned
+        REFERENCING OLD TABLE AS deleted_submissions
+        FOR EACH STATEMENT EXECUTE FUNCTION submissions_recount_attempts();
+  END IF;
+END $$;
@@ -0,0 +1,33 @@
+-- Dolna granica created_at zgłoszeń zadania dla zapytań postępu: z warunkiem created_at >= first_submission_at
+-- planista pomija starsze partycje submissions (V38). Granica jest dokładna, bo ustawia ją każdy INSERT,
+-- a created_at zgłoszenia nie zmienia się po zapisie; usunięcia mogą ją tylko zostawić niższą niż trzeba.
+ALTER TABLE tasks ADD COLUMN first_submission_at TIMESTAMP WITHOUT TIME ZONE;
+
+UPDATE tasks t SET first_submission_at = s.since
+FROM (SELECT task_id, min(created_at) AS since FROM submissions GROUP BY task_id) s
+WHERE t.id = s.task_id;
+
+-- wiersz zadania blokowany tylko przy przesunięciu granicy (zwykle pierwsze zgłoszenie), nie przy każdym
+CREATE FUNCTION submissions_first_submission_at() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+  UPDATE tasks t
+  SET first_submission_at = n.since
+  FROM (SELECT task_id, min(created_at) AS since FROM inserted_submissions GROUP BY task_id) n
+  WHERE t.id = n.task_id AND (t.first_submission_at IS NULL OR t.first_submission_at > n.since);
+  RETURN NULL;
+END $$;
+
+CREATE TRIGGER trg_submissions_first_submission_at AFTER INSERT ON submissions
+    REFERENCING NEW TABLE AS inserted_submissions
+    FOR EACH STATEMENT EXECUTE FUNCTION submissions_first_submission_at();
+
+-- przed zamianą tabel (V38) także na nowej tabeli, żeby trigger przeszedł na submissions razem z nią
+DO $$
+BEGIN
+  IF to_regclass('submissions_partitioned') IS NOT NULL THEN
+    CREATE TRIGGER trg_submissions_first_submission_at AFTER INSERT ON submissions_partitioned
+        REFERENCING NEW TABLE AS inserted_submissions
+        FOR EACH STATEMENT EXECUTE FUNCTION submissions_first_submission_at();
+  END IF;
+END $$;
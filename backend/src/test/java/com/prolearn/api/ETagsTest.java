@@ -0,0 +1,39 @@
+package com.prolearn.api;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ETagsTest {
+
+    @Test
+    public void notModifiedSkipsBody() {
+        String etag = ETags.strong("t", "abc", 3);
+        Assertions.assertEquals("\"t-abc-3\"", etag);
+
+        AtomicInteger built = new AtomicInteger();
+        ResponseEntity<String> res = ETags.conditional("\"x\", W/" + etag, etag, () -> {
+            built.incrementAndGet();
+            return "body";
+        });
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, res.getStatusCode());
+        Assertions.assertEquals(etag, res.getHeaders().getETag());
+        Assertions.assertNull(res.getBody());
+        Assertions.assertEquals(0, built.get());
+    }
+
+    @Test
+    public void changedVersionReturnsBody() {
+        ResponseEntity<String> res = ETags.conditional("\"t-abc-2\"", ETags.strong("t", "abc", 3), () -> "body");
+        Assertions.assertEquals(HttpStatus.OK, res.getStatusCode());
+        Assertions.assertEquals("body", res.getBody());
+        Assertions.assertEquals("\"t-abc-3\"", res.getHeaders().getETag());
+
+        ResponseEntity<String> missing = ETags.conditional("*", null, () -> "fallback");
+        Assertions.assertEquals(HttpStatus.OK, missing.getStatusCode());
+        Assertions.assertNull(missing.getHeaders().getETag());
+    }
+}
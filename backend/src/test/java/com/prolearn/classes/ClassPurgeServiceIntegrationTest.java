@@ -0,0 +1,175 @@
+package com.prolearn.classes;
+
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.submission.SubmissionBlobCodec;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Usuwanie klas na prawdziwej bazie z małym progiem (3 wiersze) i paczkami po 2: małe klasy znikają od razu,
+ * duże są ukrywane i kasowane w tle aż do DONE; zadania przerwane restartem są wznawiane, a błąd kończy się FAILED.
+ * Bez @Transactional – zadanie w tle działa w osobnym wątku i własnych transakcjach.
+ */
+@SpringBootTest(properties = {"app.purge.async-threshold=3", "app.purge.batch-size=2"})
+class ClassPurgeServiceIntegrationTest {
+
+    @Autowired ClassPurgeService purgeService;
+    @Autowired ClassPurgeJobRepository jobRepo;
+    @Autowired ClassService classService;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired TaskRepository taskRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired JdbcTemplate jdbc;
+
+    private User teacher;
+
+    @Test
+    void smallClassIsDeletedImmediately() {
+        Fixture f = fixture(2, 1);
+
+        assertTrue(purgeService.deleteClass(f.classId, teacher.getId()).isEmpty(), "3 wiersze – bez zadania w tle");
+
+        assertGone(f);
+    }
+
+    @Test
+    void largeClassIsHiddenAndPurgedInBatches() throws Exception {
+        Fixture f = fixture(5, 2);
+
+        Optional<ClassPurgeJob> job = purgeService.deleteClass(f.classId, teacher.getId());
+
+        assertTrue(job.isPresent());
+        assertEquals(7, job.get().getTotalRows());
+        assertEquals(0, count("SELECT count(*) FROM class_members WHERE class_id = ?", f.classId), "klasa znika z list od razu");
+        ClassPurgeJob done = awaitFinished(job.get().getId());
+        assertEquals(ClassPurgeJob.Status.DONE, done.getStatus());
+        assertEquals(7, done.getDeletedRows(), "postęp liczony po każdej paczce");
+        assertNull(done.getError());
+        assertGone(f);
+    }
+
+    @Test
+    void pendingJobIsResumedAfterRestart() throws Exception {
+        Fixture f = fixture(5, 0);
+        jdbc.update("UPDATE classes SET join_code = 'del' || id WHERE id = ?", f.classId);
+        jdbc.update("DELETE FROM class_members WHERE class_id = ?", f.classId);
+        UUID jobId = UUID.randomUUID();
+        jdbc.update("INSERT INTO class_purge_jobs (id, class_id, requested_by, status, total_rows, deleted_rows, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'RUNNING', 5, 2, now(), now())", jobId, f.classId, teacher.getId());
+
+        purgeService.resumePending();
+
+        ClassPurgeJob done = awaitFinished(jobId);
+        assertEquals(ClassPurgeJob.Status.DONE, done.getStatus());
+        assertEquals(7, done.getDeletedRows(), "wznowienie dolicza do zapisanego postępu");
+        assertGone(f);
+    }
+
+    @Test
+    void failureIsRecordedOnJob() throws Exception {
+        Fixture f = fixture(5, 0);
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        String function = "test_block_class_delete_" + suffix;
+        jdbc.execute("CREATE FUNCTION " + function + "() RETURNS trigger LANGUAGE plpgsql AS "
+                + "$$ BEGIN RAISE EXCEPTION 'blokada usuwania klasy'; END $$");
+        jdbc.execute("CREATE TRIGGER trg_" + function + " BEFORE DELETE ON classes FOR EACH ROW WHEN (OLD.id = " + f.classId
+                + ") EXECUTE FUNCTION " + function + "()");
+        try {
+            ClassPurgeJob job = purgeService.deleteClass(f.classId, teacher.getId()).orElseThrow();
+
+            ClassPurgeJob failed = awaitFinished(job.getId());
+            assertEquals(ClassPurgeJob.Status.FAILED, failed.getStatus());
+            assertNotNull(failed.getError());
+            assertTrue(failed.getError().contains("blokada usuwania klasy"), failed.getError());
+            assertEquals(5, failed.getDeletedRows(), "paczki przed błędem zostają zatwierdzone");
+            assertEquals(1, count("SELECT count(*) FROM classes WHERE id = ?", f.classId));
+        } finally {
+            jdbc.execute("DROP TRIGGER IF EXISTS trg_" + function + " ON classes");
+            jdbc.execute("DROP FUNCTION IF EXISTS " + function + "()");
+            jdbc.update("DELETE FROM classes WHERE id = ?", f.classId);
+        }
+    }
+
+    private record Fixture(Long classId, UUID lessonId, UUID taskId) {}
+
+    /** Klasa z {@code submissions} zgłoszeniami i {@code attempts} próbami quizów (każda w osobnej aktywności). */
+    private Fixture fixture(int submissions, int attempts) {
+        teacher = user(Role.TEACHER);
+        User student = user(Role.STUDENT);
+        var dto = classService.createClass("Klasa-Purge-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        classService.joinClass(dto.joinCode(), student.getId());
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Purge lesson");
+        lesson.setContent("purge");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(dto.id()).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        Task t = new Task();
+        t.setLesson(lesson);
+        t.setTitle("Purge task");
+        t.setDescription("desc");
+        t.setMaxPoints(10);
+        t.setLanguage("javascript");
+        t.setType("CODE");
+        t = taskRepo.save(t);
+        for (int i = 0; i < submissions; i++) {
+            UUID id = UUID.randomUUID();
+            jdbc.update("INSERT INTO submissions (id, task_id, student_id, status, points, auto_score, attempt_number) "
+                    + "VALUES (?, ?, ?, 'GRADED', 5, 5, ?)", id, t.getId(), student.getId(), i + 1);
+            jdbc.update("INSERT INTO submission_payloads (submission_id, code_hash) VALUES (?, blob_put(?))",
+                    id, SubmissionBlobCodec.encode("function solve(x){return x}"));
+        }
+        for (int i = 0; i < attempts; i++) {
+            UUID activity = UUID.randomUUID();
+            jdbc.update("INSERT INTO lesson_activities (id, lesson_id, order_index, a_type, title) VALUES (?, ?, ?, 'QUIZ', 'Quiz')",
+                    activity, lesson.getId(), i);
+            jdbc.update("INSERT INTO quiz_attempts (id, activity_id, student_id, correct, total, points) VALUES (?, ?, ?, 1, 2, 1)",
+                    UUID.randomUUID(), activity, student.getId());
+        }
+        return new Fixture(dto.id(), lesson.getId(), t.getId());
+    }
+
+    private void assertGone(Fixture f) {
+        assertEquals(0, count("SELECT count(*) FROM classes WHERE id = ?", f.classId));
+        assertEquals(0, count("SELECT count(*) FROM class_members WHERE class_id = ?", f.classId));
+        assertEquals(0, count("SELECT count(*) FROM submissions WHERE task_id = ?", f.taskId));
+        assertEquals(0, count("SELECT count(*) FROM quiz_attempts q JOIN lesson_activities a ON a.id = q.activity_id WHERE a.lesson_id = ?", f.lessonId));
+        assertEquals(0, count("SELECT count(*) FROM lessons WHERE id = ?", f.lessonId), "lekcje usuwa kaskada");
+    }
+
+    private int count(String sql, Object arg) {
+        return jdbc.queryForObject(sql, Integer.class, arg);
+    }
+
+    private ClassPurgeJob awaitFinished(UUID jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ClassPurgeJob j = jobRepo.findById(jobId).orElseThrow();
+            if (j.getStatus() == ClassPurgeJob.Status.DONE || j.getStatus() == ClassPurgeJob.Status.FAILED) return j;
+            Thread.sleep(50);
+        }
+        fail("zadanie usuwania nie zakończyło się w czasie");
+        return null;
+    }
+
+    private User user(Role role) {
+        User u = new User();
+        u.setEmail(role.name().toLowerCase() + "+purge-" + UUID.randomUUID() + "@tests.local");
+        u.setPasswordHash("x");
+        u.setRole(role);
+        return userRepo.save(u);
+    }
+}
@@ -0,0 +1,38 @@
+package com.prolearn.grading;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedOutputStreamTest {
+
+    @Test
+    public void keepsHeadAndTailWithinBudget() {
+        BoundedOutputStream out = new BoundedOutputStream(8);
+        for (char c = 'a'; c <= 'z'; c++) out.write(c);
+        Assertions.assertEquals(26, out.totalBytes());
+        Assertions.assertEquals(18, out.truncatedBytes());
+        Assertions.assertEquals("abcd\n… [pominięto 18 B] …\nwxyz", out.toString(StandardCharsets.UTF_8));
+
+        BoundedOutputStream small = new BoundedOutputStream(8);
+        small.write("abcdef".getBytes(StandardCharsets.UTF_8), 0, 6);
+        Assertions.assertEquals("abcdef", small.toString());
+
+        Assertions.assertEquals("short", BoundedOutputStream.truncate("short", 8));
+        Assertions.assertEquals("0123\n… [pominięto 8 B] …\ncdef", BoundedOutputStream.truncate("0123456789abcdef", 8));
+    }
+
+    @Test
+    public void abortsOnceWhenGrosslyExceeded() {
+        AtomicInteger aborts = new AtomicInteger();
+        BoundedOutputStream out = new BoundedOutputStream(4, 10, aborts::incrementAndGet);
+        byte[] chunk = "xxxxxx".getBytes(StandardCharsets.UTF_8);
+        out.write(chunk, 0, chunk.length);
+        Assertions.assertThrows(BoundedOutputStream.LimitExceededException.class, () -> out.write(chunk, 0, chunk.length));
+        Assertions.assertThrows(BoundedOutputStream.LimitExceededException.class, () -> out.write('y'));
+        Assertions.assertTrue(out.isAborted());
+        Assertions.assertEquals(1, aborts.get());
+    }
+}
@@ -0,0 +1,39 @@
+package com.prolearn.grading;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+public class GraderWarmupTest {
+
+    @Test
+    public void corpusGradesAsExpectedAndReportsReady() {
+        GradingMetrics metrics = GradingMetrics.noop();
+        JsAutoGrader grader = new JsAutoGrader(metrics);
+        PyAutoGrader pyGrader = new PyAutoGrader(metrics, 20_000, 65536, 4L << 20, 50_000_000L);
+        try {
+            GraderWarmup warmup = new GraderWarmup(grader, pyGrader, null, metrics, "graalpy", true, 60_000, 2, false);
+            Assertions.assertEquals(Status.OUT_OF_SERVICE, warmup.health().getStatus());
+
+            warmup.run();
+
+            Assertions.assertTrue(warmup.isDone());
+            Assertions.assertEquals(Status.UP, warmup.health().getStatus());
+            Assertions.assertEquals(2, warmup.health().getDetails().get("iterations"));
+            Assertions.assertEquals(2, metrics.registry().get("grading.warmup.iteration").tag("workload", "cases").timer().count());
+            Assertions.assertEquals(2, metrics.registry().get("grading.warmup.iteration").tag("workload", "python").timer().count());
+
+            // korpus ma 4 poprawne przypadki i 1 celowo błędny; skrypt assert przechodzi
+            JsAutoGrader.GradeResult cases = grader.gradeWithCases(GraderWarmup.SOLUTION, GraderWarmup.corpusCases());
+            Assertions.assertEquals(4, cases.passed, cases.stdout);
+            Assertions.assertEquals(1, cases.failed);
+            JsAutoGrader.GradeResult script = grader.grade(GraderWarmup.SOLUTION, GraderWarmup.SCRIPT_TESTS, 10);
+            Assertions.assertTrue(script.errors.isEmpty(), String.valueOf(script.errors));
+            var py = pyGrader.execute(GraderWarmup.PY_SOLUTION, "1 2 3 3");
+            Assertions.assertEquals("9 1,2,3,3 3", py.stdout.trim(), py.stderr);
+        } finally {
+            grader.close();
+            pyGrader.close();
+        }
+    }
+}
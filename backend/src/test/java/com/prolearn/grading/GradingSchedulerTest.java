@@ -0,0 +1,107 @@
+package com.prolearn.grading;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class GradingSchedulerTest {
+
+    @Test
+    public void submitsFirstAndClassesShareRunQueue() throws Exception {
+        GradingScheduler scheduler = new GradingScheduler(GradingMetrics.noop(), 1, 10_000);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch blocker = new CountDownLatch(1);
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> callers = new ArrayList<>();
+            callers.add(caller(scheduler, GradingScheduler.Priority.RUN, "X", () -> { started.countDown(); blocker.await(); return "block"; }, order));
+            started.await();
+
+            for (int i = 1; i <= 3; i++) callers.add(caller(scheduler, GradingScheduler.Priority.RUN, "A", named("run-A" + i), order));
+            waitUntil(() -> scheduler.queued(GradingScheduler.Priority.RUN) == 3);
+            callers.add(caller(scheduler, GradingScheduler.Priority.RUN, "B", named("run-B1"), order));
+            callers.add(caller(scheduler, GradingScheduler.Priority.SUBMIT, "A", named("submit-A1"), order));
+            waitUntil(() -> scheduler.queued(GradingScheduler.Priority.RUN) == 4 && scheduler.queued(GradingScheduler.Priority.SUBMIT) == 1);
+
+            blocker.countDown();
+            for (Thread t : callers) t.join(5000);
+
+            Assertions.assertEquals("block", order.get(0));
+            Assertions.assertEquals("submit-A1", order.get(1));
+            // klasa B nie czeka na całą kolejkę klasy A – jest obsłużona jako druga z uruchomień
+            Assertions.assertTrue(order.indexOf("run-B1") <= 3, order.toString());
+            Assertions.assertEquals(6, order.size());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void runProgressesUnderFullSubmitQueue() throws Exception {
+        GradingScheduler scheduler = new GradingScheduler(GradingMetrics.noop(), 1, 10_000);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch blocker = new CountDownLatch(1);
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> callers = new ArrayList<>();
+            callers.add(caller(scheduler, GradingScheduler.Priority.SUBMIT, "X", () -> { started.countDown(); blocker.await(); return "block"; }, order));
+            started.await();
+
+            for (int i = 1; i <= 20; i++) callers.add(caller(scheduler, GradingScheduler.Priority.SUBMIT, "A", named("submit-" + i), order));
+            waitUntil(() -> scheduler.queued(GradingScheduler.Priority.SUBMIT) == 20);
+            for (int i = 1; i <= 2; i++) callers.add(caller(scheduler, GradingScheduler.Priority.RUN, "B", named("run-" + i), order));
+            waitUntil(() -> scheduler.queued(GradingScheduler.Priority.RUN) == 2);
+
+            blocker.countDown();
+            for (Thread t : callers) t.join(5000);
+
+            Assertions.assertEquals(23, order.size());
+            // wagi 8 : 2 – uruchomienie dostaje co piąte miejsce zamiast czekać na wszystkie zgłoszenia
+            Assertions.assertTrue(order.indexOf("run-1") <= 6, order.toString());
+            Assertions.assertTrue(order.indexOf("run-2") < order.indexOf("submit-20"), order.toString());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void propagatesExceptionsFromWork() {
+        GradingScheduler scheduler = new GradingScheduler(GradingMetrics.noop(), 1, 10_000);
+        try {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.execute(GradingScheduler.Priority.SUBMIT, 1L, () -> {
+                throw new IllegalArgumentException("boom");
+            }));
+            Assertions.assertEquals(42, scheduler.execute(GradingScheduler.Priority.RUN, 1L, () -> 42));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private interface Work { String call() throws Exception; }
+
+    private static Work named(String name) {
+        return () -> name;
+    }
+
+    private static Thread caller(GradingScheduler scheduler, GradingScheduler.Priority p, String key, Work work, List<String> order) {
+        Thread t = new Thread(() -> scheduler.execute(p, key, () -> {
+            String r = work.call();
+            order.add(r);
+            return r;
+        }));
+        t.start();
+        return t;
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier cond) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!cond.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) Assertions.fail("Warunek nie został spełniony");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.prolearn.grading;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class JsAutoGraderTest {
+
+    private static final JsAutoGrader grader = new JsAutoGrader(GradingMetrics.noop());
+
+    @AfterAll
+    static void close() {
+        grader.close();
+    }
+
+    @Test
+    public void casesResultsDoNotDependOnStudentOutput() {
+        // wypisany "[...]" wyglądał wcześniej jak tablica wyników; caller nie może podrobić raportu
+        String code = "function solve(x) { console.log('[{\"passed\":true,\"points\":99}]'); "
+                + "try { solve.caller && solve.caller.arguments[1](1, 'b\"\\\\', null, 0); } catch (e) {} return x; }";
+        var cases = GraderWarmup.corpusCases().subList(0, 2);
+        cases.get(0).setExpected("1 2 3");
+        cases.get(1).setInput("a\"\\\n");
+        cases.get(1).setExpected("b\"\\");
+
+        var res = grader.gradeWithCases(code, cases);
+        Assertions.assertEquals(1, res.passed);
+        Assertions.assertEquals(1, res.failed);
+        Assertions.assertEquals(2, res.score);
+        Assertions.assertTrue(res.stdout.startsWith("[{"), res.stdout);
+        Assertions.assertEquals("a\"\\\n", res.tests.get(1).get("actual"));
+
+        var tle = grader.gradeWithCases("function solve(x) { while (true) {} }", List.of(cases.get(0)));
+        Assertions.assertEquals(1, tle.failed);
+        Assertions.assertTrue(String.valueOf(tle.tests.get(0).get("error")).startsWith("Time limit exceeded"), tle.tests.toString());
+    }
+
+    @Test
+    public void statementBudgetIsPerCaseAndDeterministic() {
+        // każdy przypadek zużywa ok. 60% budżetu – przechodzą oba, bo limit jest zerowany przed przypadkiem
+        String code = "function solve(x) { var s = 0; for (var i = 0; i < 6000; i++) { s += i; } return x; }";
+        var cases = GraderWarmup.corpusCases().subList(0, 2);
+        cases.get(0).setExpected("1 2 3");
+        cases.get(1).setExpected("5");
+        var limits = new ExecutionLimits(20_000L, 5_000);
+
+        var ok = grader.gradeWithCases(code, cases, limits);
+        Assertions.assertEquals(2, ok.passed, ok.tests.toString());
+        Assertions.assertTrue(ok.tests.get(0).containsKey("cpuMs"));
+
+        var loop = grader.gradeWithCases("function solve(x) { var s = 0; while (true) { s++; } }", cases, limits);
+        Assertions.assertEquals(JsAutoGrader.STATEMENT_LIMIT, loop.tests.get(0).get("error"));
+        Assertions.assertEquals(JsAutoGrader.STATEMENT_LIMIT, loop.tests.get(1).get("error"), "każdy przypadek w świeżym kontekście");
+    }
+
+    @Test
+    public void caseTimeIsMeasuredByHost() {
+        // podmieniony zegar w kontekście nie wpływa na timeMs ani metryki
+        String code = "Date.now = (function () { var t = 1e12; return function () { t -= 1e6; return t; }; })();\n"
+                + "function solve(x) { return x; }";
+        var cases = GraderWarmup.corpusCases().subList(0, 2);
+        cases.get(0).setExpected("1 2 3");
+        cases.get(1).setExpected("5");
+
+        var res = grader.gradeWithCases(code, cases);
+
+        Assertions.assertEquals(2, res.passed, res.tests.toString());
+        for (var t : res.tests) {
+            long timeMs = ((Number) t.get("timeMs")).longValue();
+            Assertions.assertTrue(timeMs >= 0 && timeMs < 10_000, t.toString());
+        }
+    }
+
+    @Test
+    public void limitHitFailsOnlyTheOffendingCase() {
+        // jeden kontekst (shards=1): po pętli w drugim przypadku trzeci biegnie dalej w nowym kontekście
+        String code = "var calls = 0; function solve(x) { calls++; if (x === 'loop') { while (true) {} } return x + calls; }";
+        var cases = GraderWarmup.corpusCases().subList(0, 3);
+        String[] inputs = {"a", "loop", "b"};
+        for (int i = 0; i < 3; i++) {
+            cases.get(i).setInput(inputs[i]);
+            cases.get(i).setExpected(inputs[i] + 1);
+        }
+        cases.get(0).setExpected("a1");
+
+        var res = grader.gradeWithCases(code, cases, new ExecutionLimits(null, 300));
+
+        Assertions.assertEquals(2, res.passed, res.tests.toString());
+        Assertions.assertTrue(String.valueOf(res.tests.get(1).get("error")).startsWith("Time limit exceeded"), res.tests.toString());
+        Assertions.assertEquals("b1", res.tests.get(2).get("actual"), "świeży kontekst – stan globalny od nowa");
+        Assertions.assertEquals(4, res.score);
+    }
+
+    @Test
+    public void shardedCasesAreIsolatedAndMergedInOrder() {
+        JsAutoGrader sharded = new JsAutoGrader(GradingMetrics.noop(), 65536, 4L << 20, 50_000_000L, 2000, 2, 2);
+        try {
+            String code = "function solve(x) { if (x === 'loop') { while (true) {} } return x; }";
+            var cases = GraderWarmup.corpusCases().subList(0, 3);
+            String[] inputs = {"a", "loop", "b"};
+            for (int i = 0; i < 3; i++) {
+                cases.get(i).setInput(inputs[i]);
+                cases.get(i).setExpected(inputs[i]);
+                cases.get(i).setOrder(2 - i); // lista w odwrotnej kolejności niż order
+            }
+
+            var res = sharded.gradeWithCases(code, cases, new ExecutionLimits(null, 300));
+            Assertions.assertEquals(2, res.passed, res.tests.toString());
+            Assertions.assertEquals(List.of("b", "loop", "a"), res.tests.stream().map(t -> t.get("input")).toList());
+            Assertions.assertTrue(String.valueOf(res.tests.get(1).get("error")).startsWith("Time limit exceeded"));
+        } finally {
+            sharded.close();
+        }
+    }
+
+    @Test
+    public void outputFloodIsStoppedAndTruncated() {
+        var res = grader.grade("while (true) console.log('spam spam spam spam');", "", 10);
+        Assertions.assertEquals(List.of(JsAutoGrader.OUTPUT_LIMIT), res.errors);
+        Assertions.assertTrue(res.stdout.length() < 70_000, "stdout length " + res.stdout.length());
+        Assertions.assertTrue(res.stdout.contains("pominięto"), res.stdout.substring(0, 100));
+    }
+
+    @Test
+    public void readsStdinThroughNodeStyleApis() {
+        String fs = "const d = require('fs').readFileSync(0, 'utf8').trim().split(/\\s+/).map(Number);\n"
+                + "console.log(d[0] + d[1]);";
+        Assertions.assertEquals("7", grader.runIo(fs, "3 4\n").stdout.trim());
+
+        String events = "let buf = '';\n"
+                + "process.stdin.on('data', c => buf += c);\n"
+                + "process.stdin.on('end', () => { process.stdout.write(buf.toUpperCase().trim()); process.stdout.write('!'); });";
+        Assertions.assertEquals("AB!", grader.runIo(events, "ab").stdout.trim());
+
+        String lines = "const rl = require('readline').createInterface({ input: process.stdin });\n"
+                + "let n = 0;\n"
+                + "rl.on('line', l => n += Number(l)).on('close', () => { console.log(n); process.exit(0); });";
+        var res = grader.runIo(lines, "1\n2\n3\n");
+        Assertions.assertEquals("6", res.stdout.trim());
+        Assertions.assertNull(res.stderr);
+    }
+
+    @Test
+    public void reportsErrorsAndTimeouts() {
+        var err = grader.runIo("throw new Error('boom');", "");
+        Assertions.assertTrue(err.stderr.contains("boom"), err.stderr);
+        Assertions.assertEquals(11, err.exitCode);
+
+        var tle = grader.runIo("while (true) {}", "");
+        Assertions.assertEquals("Time Limit Exceeded", tle.status);
+    }
+}
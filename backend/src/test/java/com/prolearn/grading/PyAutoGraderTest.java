@@ -0,0 +1,77 @@
+package com.prolearn.grading;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PyAutoGraderTest {
+
+    private static final PyAutoGrader grader = new PyAutoGrader(GradingMetrics.noop(), 20_000, 65536, 4L << 20, 50_000_000L);
+
+    @AfterAll
+    static void close() {
+        grader.close();
+    }
+
+    @Test
+    public void runsStdinProgramsAndSolveHarness() {
+        var io = grader.execute("import sys\na, b = map(int, sys.stdin.read().split())\nprint(a + b)\n", "3 4\n");
+        Assertions.assertEquals("7", io.stdout.trim());
+        Assertions.assertNull(io.stderr);
+
+        String harness = "\nif (__name__ == '__main__'):\n    import sys\n    data = sys.stdin.read().strip()\n    print(str(solve(data)))\n";
+        var solve = grader.execute("def solve(data):\n    return data[::-1]\n" + harness, "abc");
+        Assertions.assertEquals("cba", solve.stdout.trim());
+
+        var exit = grader.execute("print('x')\nraise SystemExit(0)\n", "");
+        Assertions.assertNull(exit.stderr);
+    }
+
+    @Test
+    public void sandboxAndErrors() {
+        var fs = grader.execute("open('/etc/passwd').read()\n", "");
+        Assertions.assertTrue(fs.stderr.contains("PermissionError"), fs.stderr);
+
+        var err = grader.execute("1/0\n", "");
+        Assertions.assertTrue(err.stderr.contains("ZeroDivisionError"), err.stderr);
+        Assertions.assertEquals(11, err.exitCode);
+    }
+
+    @Test
+    public void infiniteLoopHitsStatementLimit() {
+        PyAutoGrader limited = new PyAutoGrader(GradingMetrics.noop(), 20_000, 65536, 4L << 20, 100_000L);
+        try {
+            var loop = limited.execute("while True:\n    pass\n", "");
+            Assertions.assertEquals("Time Limit Exceeded", loop.status, loop.stderr);
+            Assertions.assertEquals(5, loop.exitCode);
+            Assertions.assertTrue(loop.stderr.contains(JsAutoGrader.STATEMENT_LIMIT), loop.stderr);
+        } finally {
+            limited.close();
+        }
+    }
+
+    @Test
+    public void taskLimitsOverrideDefaultsAndTimesAreReported() {
+        String loop = "s = 0\nfor i in range(100000):\n    s += i\nprint(s)\n";
+        var ok = grader.execute(loop, "");
+        Assertions.assertEquals("4999950000", ok.stdout.trim(), ok.stderr);
+        Assertions.assertNotNull(ok.cpuMs);
+        Assertions.assertNotNull(ok.timeMs);
+
+        var limited = grader.execute(loop, "", new ExecutionLimits(1_000L, null));
+        Assertions.assertEquals(5, limited.exitCode, limited.stderr);
+        Assertions.assertTrue(limited.stderr.contains(JsAutoGrader.STATEMENT_LIMIT), limited.stderr);
+    }
+
+    @Test
+    public void busyLoopHitsCpuBudget() {
+        PyAutoGrader limited = new PyAutoGrader(GradingMetrics.noop(), 300, 65536, 4L << 20, Long.MAX_VALUE);
+        try {
+            var loop = limited.execute("x = 0\nwhile True:\n    x += 1\n", "");
+            Assertions.assertEquals(5, loop.exitCode, loop.stderr);
+            Assertions.assertTrue(loop.stderr.startsWith(JsAutoGrader.TIME_LIMIT), loop.stderr);
+        } finally {
+            limited.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.prolearn.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prolearn.classes.ClassService;
+import com.prolearn.classes.ClassroomRepository;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.submission.SubmissionController;
+import com.prolearn.submission.SubmissionRepository;
+import com.prolearn.submission.dto.SubmissionCreateRequest;
+import com.prolearn.submission.dto.SubmissionResponse;
+import com.prolearn.task.ProgrammingTestCase;
+import com.prolearn.task.ProgrammingTestCaseRepository;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idempotency-Key na prawdziwej bazie: bez @Transactional, bo serwis sam zatwierdza klucz i odpowiedź,
+ * a akcja (ocena) biegnie poza transakcją.
+ */
+@SpringBootTest
+class IdempotencyIntegrationTest {
+
+    record Result(String value) {}
+
+    @Autowired IdempotencyService idempotency;
+    @Autowired SubmissionController submissionController;
+    @Autowired SubmissionRepository submissionRepo;
+    @Autowired TaskRepository taskRepo;
+    @Autowired ProgrammingTestCaseRepository caseRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired ClassService classService;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper objectMapper;
+
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        student = user(Role.STUDENT);
+    }
+
+    @AfterEach
+    void clearAuth() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void replayReturnsStoredResponseWithoutRegrading() {
+        Task task = task("javascript");
+        ProgrammingTestCase c = new ProgrammingTestCase();
+        c.setTask(task);
+        c.setInput("abc");
+        c.setExpected("abc");
+        c.setPoints(10);
+        c.setOrder(0);
+        caseRepo.save(c);
+
+        var auth = studentAuth();
+        var req = new SubmissionCreateRequest("idem", "function solve(input){return input}");
+        String key = UUID.randomUUID().toString();
+
+        SubmissionResponse first = submissionController.create(task.getId(), req, key, auth);
+        SubmissionResponse again = submissionController.create(task.getId(), req, key, auth);
+
+        assertEquals(first.id(), again.id());
+        assertEquals(first.points(), again.points());
+        assertEquals(1, submissionRepo.findByTaskIdAndStudent_IdOrderByCreatedAtAsc(task.getId(), student.getId()).size(),
+                "powtórzenie nie może utworzyć ani ocenić drugiego zgłoszenia");
+        assertEquals(1, jdbc.queryForObject("SELECT used FROM submission_attempts WHERE task_id = ? AND student_id = ?",
+                Integer.class, task.getId(), student.getId()), "powtórzenie nie zużywa próby");
+    }
+
+    @Test
+    void failedGradingReleasesReservedAttempt() {
+        // zadanie Pythona bez testów: ocena rzuca 400 już po zatwierdzonej rezerwacji próby
+        Task task = task("python");
+        var auth = studentAuth();
+        var req = new SubmissionCreateRequest("idem", "def solve(x):\n    return x");
+
+        var ex = assertThrows(ResponseStatusException.class, () -> submissionController.create(task.getId(), req, null, auth));
+
+        assertEquals(400, ex.getStatusCode().value());
+        assertEquals(0, jdbc.queryForObject("SELECT used FROM submission_attempts WHERE task_id = ? AND student_id = ?",
+                Integer.class, task.getId(), student.getId()), "nieudana ocena oddaje próbę");
+        assertTrue(submissionRepo.findByTaskIdAndStudent_IdOrderByCreatedAtAsc(task.getId(), student.getId()).isEmpty());
+    }
+
+    @Test
+    void actionRunsOutsideTransaction() {
+        Result withKey = idempotency.execute(student.getId(), "POST /x", UUID.randomUUID().toString(), new Result("a"), Result.class,
+                () -> new Result("tx=" + TransactionSynchronizationManager.isActualTransactionActive()));
+        Result withoutKey = idempotency.execute(student.getId(), "POST /x", null, new Result("a"), Result.class,
+                () -> new Result("tx=" + TransactionSynchronizationManager.isActualTransactionActive()));
+
+        assertEquals("tx=false", withKey.value());
+        assertEquals("tx=false", withoutKey.value());
+    }
+
+    @Test
+    void abandonedClaimIsTakenOverAfterInFlightLease() {
+        // klucz zajęty przez węzeł, który padł w trakcie oceny: bez odpowiedzi, dzierżawa już minęła
+        String key = UUID.randomUUID().toString();
+        jdbc.update("INSERT INTO idempotency_keys (user_id, idem_key, endpoint, request_hash, expires_at) VALUES (?, ?, 'POST /x', ?, now() - interval '1 second')",
+                student.getId(), key, idempotency.hash("POST /x", new Result("a")));
+
+        Result result = idempotency.execute(student.getId(), "POST /x", key, new Result("a"), Result.class, () -> new Result("ok"));
+
+        assertEquals("ok", result.value());
+        assertTrue(jdbc.queryForObject("SELECT expires_at > now() + interval '30 seconds' FROM idempotency_keys WHERE user_id = ? AND idem_key = ?",
+                Boolean.class, student.getId(), key), "zapisana odpowiedź żyje przez TTL");
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+        idempotency.execute(student.getId(), "POST /x", key, new Result("a"), Result.class,
+                () -> new Result("run-" + calls.incrementAndGet()));
+
+        var ex = assertThrows(ResponseStatusException.class, () -> idempotency.execute(student.getId(), "POST /x", key,
+                new Result("b"), Result.class, () -> new Result("run-" + calls.incrementAndGet())));
+        assertEquals(422, ex.getStatusCode().value());
+        var otherEndpoint = assertThrows(ResponseStatusException.class, () -> idempotency.execute(student.getId(), "POST /y", key,
+                new Result("a"), Result.class, () -> new Result("run-" + calls.incrementAndGet())));
+        assertEquals(422, otherEndpoint.getStatusCode().value());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedActionReleasesKey() {
+        String key = UUID.randomUUID().toString();
+        assertThrows(IllegalStateException.class, () -> idempotency.execute(student.getId(), "POST /x", key, new Result("a"),
+                Result.class, () -> { throw new IllegalStateException("ocena nie powiodła się"); }));
+
+        Result retry = idempotency.execute(student.getId(), "POST /x", key, new Result("a"), Result.class, () -> new Result("ok"));
+        assertEquals("ok", retry.value());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForInFlightResult() throws Exception {
+        assertDuplicateWaits(idempotency);
+    }
+
+    @Test
+    void duplicateFromAnotherNodeWaitsForStoredResponse() throws Exception {
+        // osobna instancja = osobna mapa oczekujących, jak na drugim węźle; odpytuje wiersz klucza do zapisu odpowiedzi
+        assertDuplicateWaits(new IdempotencyService(jdbc, objectMapper, 60, 300, 10_000));
+    }
+
+    private void assertDuplicateWaits(IdempotencyService second) throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Result> first = pool.submit(() -> idempotency.execute(student.getId(), "POST /x", key, new Result("a"), Result.class, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return new Result("first");
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<Result> duplicate = pool.submit(() -> second.execute(student.getId(), "POST /x", key, new Result("a"), Result.class,
+                    () -> new Result("run-" + calls.incrementAndGet())));
+
+            assertThrows(TimeoutException.class, () -> duplicate.get(300, TimeUnit.MILLISECONDS), "duplikat powinien czekać");
+            release.countDown();
+            assertEquals("first", first.get(10, TimeUnit.SECONDS).value());
+            assertEquals("first", duplicate.get(10, TimeUnit.SECONDS).value());
+            assertEquals(1, calls.get());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Task task(String language) {
+        User teacher = user(Role.TEACHER);
+        var dto = classService.createClass("Klasa-Idem-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        classService.joinClass(dto.joinCode(), student.getId());
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Idem lesson");
+        lesson.setContent("idem");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(dto.id()).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        Task task = new Task();
+        task.setLesson(lesson);
+        task.setTitle("Idem task");
+        task.setDescription("desc");
+        task.setMaxPoints(10);
+        task.setLanguage(language);
+        task.setType("CODE");
+        task.setGradingMode("AUTO");
+        task.setMaxAttempts(3);
+        return taskRepo.save(task);
+    }
+
+    private TestingAuthenticationToken studentAuth() {
+        var auth = new TestingAuthenticationToken(student.getEmail(), null, "STUDENT", "ROLE_STUDENT");
+        auth.setDetails(student.getId());
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        return auth;
+    }
+
+    private User user(Role role) {
+        User u = new User();
+        u.setEmail(role.name().toLowerCase() + "+idem-" + UUID.randomUUID() + "@tests.local");
+        u.setPasswordHash("x");
+        u.setRole(role);
+        return userRepo.save(u);
+    }
+}
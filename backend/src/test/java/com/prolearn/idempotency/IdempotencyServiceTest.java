@@ -0,0 +1,23 @@
+package com.prolearn.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prolearn.lesson.ActivityController;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService(null, new ObjectMapper(), 60, 300, 1000);
+
+    @Test
+    public void requestHashDependsOnEndpointAndBody() {
+        var req = new ActivityController.QuizSubmitRequest(List.of(1, 0, 2));
+        String h = service.hash("POST /api/activities/a/quiz/submit", req);
+        Assertions.assertEquals(64, h.length());
+        Assertions.assertEquals(h, service.hash("POST /api/activities/a/quiz/submit", new ActivityController.QuizSubmitRequest(List.of(1, 0, 2))));
+        Assertions.assertNotEquals(h, service.hash("POST /api/activities/b/quiz/submit", req));
+        Assertions.assertNotEquals(h, service.hash("POST /api/activities/a/quiz/submit", new ActivityController.QuizSubmitRequest(List.of(1, 0, 1))));
+    }
+}
@@ -12,9 +12,16 @@ import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 
@@ -87,4 +94,87 @@ public class ActivityControllerIntegrationTest {
         Assertions.assertEquals(uid, first.getStudentId());
         Assertions.assertEquals(1, first.getCorrect());
     }
+
+    @Test
+    public void submitQuizTwice_keepsFirstAttemptAndRejectsRepeat() throws Exception {
+        var a = quizActivity();
+        var auth = studentAuth(UUID.randomUUID());
+
+        submit(a.getId(), auth, 0).andExpect(status().isOk());
+        submit(a.getId(), auth, 1)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Quiz został już ukończony"));
+
+        var attempts = quizAttemptRepository.findAllByActivity_IdOrderByCreatedAtDesc(a.getId());
+        Assertions.assertEquals(1, attempts.size());
+        Assertions.assertEquals(1, attempts.get(0).getCorrect(), "powtórka nie nadpisuje jedynej próby");
+    }
+
+    @Test
+    public void concurrentQuizSubmits_recordSingleAttemptWithoutServerError() throws Exception {
+        var a = quizActivity();
+        var auth = studentAuth(UUID.randomUUID());
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                int answer = i % 2;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return submit(a.getId(), auth, answer).andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+            int ok = 0;
+            for (var r : results) {
+                int status = r.get();
+                if (status == 200) ok++;
+                else Assertions.assertEquals(400, status, "konflikt na unikalnym indeksie to 400, nie 500");
+            }
+            Assertions.assertEquals(1, ok);
+        } finally {
+            pool.shutdownNow();
+        }
+        Assertions.assertEquals(1, quizAttemptRepository.findAllByActivity_IdOrderByCreatedAtDesc(a.getId()).size());
+    }
+
+    private LessonActivity quizActivity() {
+        var teacher = new com.prolearn.user.User();
+        teacher.setEmail("teacher+quiz-" + UUID.randomUUID() + "@tests.local");
+        teacher.setPasswordHash("x");
+        teacher.setRole(com.prolearn.user.Role.TEACHER);
+        teacher = userRepository.save(teacher);
+        var classroom = new com.prolearn.classes.Classroom();
+        classroom.setName("QuizClass-" + UUID.randomUUID().toString().substring(0, 5));
+        classroom.setJoinCode("Q" + UUID.randomUUID().toString().replace("-", "").substring(0, 7));
+        classroom.setOwner(teacher);
+        classroom = classroomRepository.save(classroom);
+        var lesson = new Lesson();
+        lesson.setTitle("Quiz lesson");
+        lesson.setContent("");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroom);
+        lessonRepository.save(lesson);
+        var a = new LessonActivity();
+        a.setLesson(lesson);
+        a.setType("QUIZ");
+        a.setTitle("Q1");
+        a.setBody("{\"maxPoints\":10,\"questions\":[{\"text\":\"Q1\",\"choices\":[{\"text\":\"A\",\"correct\":true},{\"text\":\"B\"}]}]}");
+        return activityRepository.save(a);
+    }
+
+    private static UsernamePasswordAuthenticationToken studentAuth(UUID studentId) {
+        var auth = new UsernamePasswordAuthenticationToken("student", null, List.of(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_STUDENT")));
+        auth.setDetails(studentId);
+        return auth;
+    }
+
+    private org.springframework.test.web.servlet.ResultActions submit(UUID activityId, UsernamePasswordAuthenticationToken auth, int answer) throws Exception {
+        return mockMvc.perform(post("/api/activities/" + activityId + "/quiz/submit")
+                .with(authentication(auth))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(java.util.Map.of("answers", List.of(answer)))));
+    }
 }
@@ -0,0 +1,64 @@
+package com.prolearn.lesson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LessonDetailCacheTest {
+
+    private final LessonDetailCache cache = new LessonDetailCache(new ObjectMapper(), new SimpleMeterRegistry(), true, 300, 100);
+
+    @Test
+    public void servesFromMemoryUntilInvalidated() {
+        UUID id = UUID.randomUUID();
+        AtomicInteger builds = new AtomicInteger();
+
+        LessonDetailCache.Payload first = cache.get(id, () -> "\"v1\"", () -> Map.of("n", builds.incrementAndGet()));
+        LessonDetailCache.Payload second = cache.get(id, () -> "\"v1\"", () -> Map.of("n", builds.incrementAndGet()));
+        Assertions.assertEquals(1, builds.get());
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals("{\"n\":1}", new String(first.json(), StandardCharsets.UTF_8));
+
+        cache.invalidate(id);
+        LessonDetailCache.Payload third = cache.get(id, () -> "\"v2\"", () -> Map.of("n", builds.incrementAndGet()));
+        Assertions.assertEquals(2, builds.get());
+        Assertions.assertEquals("\"v2\"", third.etag());
+    }
+
+    @Test
+    public void writeDuringBuildIsNotCached() {
+        UUID id = UUID.randomUUID();
+        AtomicInteger builds = new AtomicInteger();
+        cache.get(id, () -> "\"v1\"", () -> {
+            builds.incrementAndGet();
+            cache.invalidate(id); // zapis nauczyciela w trakcie budowania odpowiedzi
+            return Map.of();
+        });
+        cache.get(id, () -> "\"v2\"", () -> {
+            builds.incrementAndGet();
+            return Map.of();
+        });
+        Assertions.assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void missingLessonIsNotCached() {
+        UUID id = UUID.randomUUID();
+        AtomicInteger builds = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThrows(ResponseStatusException.class, () -> cache.get(id, () -> null, () -> {
+                builds.incrementAndGet();
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Lesson not found");
+            }));
+        }
+        Assertions.assertEquals(2, builds.get());
+    }
+}
@@ -0,0 +1,129 @@
+package com.prolearn.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+public class RateLimitTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void bucketAllowsBurstThenRefills() {
+        TokenBucket bucket = new TokenBucket(new TokenBucket.Spec(3, 1), 0);
+        Assertions.assertEquals(0, bucket.tryConsume(0));
+        Assertions.assertEquals(0, bucket.tryConsume(0));
+        Assertions.assertEquals(0, bucket.tryConsume(0));
+        long wait = bucket.tryConsume(0);
+        Assertions.assertTrue(wait > 0 && wait <= 1000, "wait=" + wait);
+        Assertions.assertEquals(0, bucket.tryConsume(SECOND));
+        Assertions.assertTrue(bucket.tryConsume(SECOND) > 0);
+        // nie przekracza pojemności po długiej przerwie
+        long later = 100 * SECOND;
+        for (int i = 0; i < 3; i++) Assertions.assertEquals(0, bucket.tryConsume(later));
+        Assertions.assertTrue(bucket.tryConsume(later) > 0);
+    }
+
+    @Test
+    public void limiterRejectsWithRetryAfter() {
+        var limiter = new RunRateLimiter(new InMemoryRateLimitStore(), new SimpleMeterRegistry(), true, 2, 1, 100, 100);
+        UUID user = UUID.randomUUID();
+        UUID task = UUID.randomUUID();
+        limiter.checkRun(user, task);
+        limiter.checkRun(user, task);
+        ThrottledException ex = Assertions.assertThrows(ThrottledException.class, () -> limiter.checkRun(user, task));
+        Assertions.assertEquals(429, ex.getStatusCode().value());
+        Assertions.assertTrue(ex.getRetryAfterSeconds() >= 1);
+        Assertions.assertNotNull(ex.getHeaders().getFirst("Retry-After"));
+        // inny uczeń ma własny kubełek
+        limiter.checkRun(UUID.randomUUID(), task);
+    }
+
+    @Test
+    public void admissionShedsRunBeforeSubmit() {
+        var admission = new AdmissionControl(3, 2, new SimpleMeterRegistry());
+        Assertions.assertTrue(admission.tryAcquire(AdmissionControl.Lane.RUN));
+        Assertions.assertTrue(admission.tryAcquire(AdmissionControl.Lane.RUN));
+        Assertions.assertFalse(admission.tryAcquire(AdmissionControl.Lane.RUN));
+        Assertions.assertTrue(admission.tryAcquire(AdmissionControl.Lane.SUBMIT));
+        Assertions.assertFalse(admission.tryAcquire(AdmissionControl.Lane.SUBMIT));
+        admission.release();
+        Assertions.assertFalse(admission.tryAcquire(AdmissionControl.Lane.RUN));
+        Assertions.assertTrue(admission.tryAcquire(AdmissionControl.Lane.SUBMIT));
+    }
+
+    @Test
+    public void taskLimitRejectionRefundsUserToken() {
+        var limiter = new RunRateLimiter(new InMemoryRateLimitStore(), new SimpleMeterRegistry(), true, 2, 1, 1, 1);
+        UUID user = UUID.randomUUID();
+        UUID task = UUID.randomUUID();
+        limiter.checkRun(UUID.randomUUID(), task); // wyczerpuje limit zadania
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThrows(ThrottledException.class, () -> limiter.checkRun(user, task));
+        }
+        // uczeń nadal ma pełny kubełek na inne zadania
+        limiter.checkRun(user, UUID.randomUUID());
+        limiter.checkRun(user, UUID.randomUUID());
+    }
+
+    @Test
+    public void sheddingDoesNotSpendStudentTokens() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var limiter = new RunRateLimiter(new InMemoryRateLimitStore(), registry, true, 1, 1, 100, 100);
+        var admission = new AdmissionControl(1, 1, registry);
+        var interceptor = new RateLimitInterceptor(limiter, admission, registry);
+        UUID user = UUID.randomUUID();
+        var auth = new TestingAuthenticationToken("s", null, "ROLE_STUDENT");
+        auth.setDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        try {
+            Assertions.assertTrue(admission.tryAcquire(AdmissionControl.Lane.SUBMIT)); // tor zajęty
+            ThrottledException shed = Assertions.assertThrows(ThrottledException.class,
+                    () -> interceptor.preHandle(runRequest(), new MockHttpServletResponse(), null));
+            Assertions.assertEquals(503, shed.getStatusCode().value());
+            admission.release();
+
+            // jedyny token ucznia nie przepadł przy 503
+            var ok = runRequest();
+            Assertions.assertTrue(interceptor.preHandle(ok, new MockHttpServletResponse(), null));
+            interceptor.afterCompletion(ok, new MockHttpServletResponse(), null, null);
+            ThrottledException limited = Assertions.assertThrows(ThrottledException.class,
+                    () -> interceptor.preHandle(runRequest(), new MockHttpServletResponse(), null));
+            Assertions.assertEquals(429, limited.getStatusCode().value());
+            // 429 oddaje miejsce w torze
+            Assertions.assertEquals(0, admission.inFlight());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    public void idleBucketsAreSweptAtMostOncePerSecond() {
+        long start = 10 * SECOND;
+        var store = new InMemoryRateLimitStore(start);
+        var spec = new TokenBucket.Spec(1, 1000);
+        for (int i = 0; i <= 10_000; i++) store.tryConsume("k" + i, spec, start);
+        long later = start + SECOND / 10; // kubełki już pełne (bezczynne)
+        store.tryConsume("a", spec, later);
+        Assertions.assertEquals(1, store.size(), "pierwszy przekroczony próg sprząta");
+        for (int i = 0; i <= 10_000; i++) store.tryConsume("m" + i, spec, later);
+        store.tryConsume("b", spec, later + SECOND / 2);
+        Assertions.assertTrue(store.size() > 10_000, "drugi skan dopiero po sekundzie");
+        store.tryConsume("c", spec, later + 2 * SECOND);
+        Assertions.assertEquals(1, store.size());
+    }
+
+    private static MockHttpServletRequest runRequest() {
+        var request = new MockHttpServletRequest("POST", "/api/tasks/t/run");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("taskId", UUID.randomUUID().toString()));
+        return request;
+    }
+}
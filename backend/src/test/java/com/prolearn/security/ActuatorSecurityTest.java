@@ -0,0 +1,38 @@
+package com.prolearn.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+class ActuatorSecurityTest {
+
+    @Autowired TestRestTemplate rest;
+    @LocalServerPort int serverPort;
+    @LocalManagementPort int managementPort;
+
+    @Test
+    void prometheusIsAnonymousOnlyOnManagementPort() {
+        var scrape = rest.getForEntity("http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+        assertEquals(200, scrape.getStatusCode().value());
+        assertTrue(scrape.getBody().contains("jvm_"), "powinny być metryki w formacie Prometheus");
+
+        var publicPort = rest.getForEntity("http://localhost:" + serverPort + "/actuator/prometheus", String.class);
+        assertEquals(401, publicPort.getStatusCode().value());
+    }
+
+    @Test
+    void otherActuatorEndpointsStillNeedAuthOnManagementPort() {
+        var metrics = rest.getForEntity("http://localhost:" + managementPort + "/actuator/metrics", String.class);
+        assertEquals(401, metrics.getStatusCode().value());
+        var health = rest.getForEntity("http://localhost:" + managementPort + "/actuator/health/liveness", String.class);
+        assertEquals(200, health.getStatusCode().value());
+    }
+}
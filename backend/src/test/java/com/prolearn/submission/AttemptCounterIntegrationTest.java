@@ -0,0 +1,123 @@
+package com.prolearn.submission;
+
+import com.prolearn.classes.ClassService;
+import com.prolearn.classes.ClassroomRepository;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Licznik submission_attempts po usunięciu zgłoszeń: reset ucznia i paczki usuwania klasy przeliczają go
+ * na liczbę pozostałych prób, więc uczeń nie zostaje z limitem wyczerpanym przez usunięte próby.
+ * Kolejne próby nie trafiają też na dawny unikalny indeks (task_id, student_id) usuwany przez V27.
+ */
+@SpringBootTest
+@Transactional
+class AttemptCounterIntegrationTest {
+
+    @Autowired AttemptCounter attempts;
+    @Autowired SubmissionRepository submissionRepo;
+    @Autowired TaskRepository taskRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired ClassService classService;
+    @Autowired JdbcTemplate jdbc;
+
+    private User student;
+    private Task task;
+    private Long classId;
+
+    @BeforeEach
+    void setUp() {
+        User teacher = user(Role.TEACHER);
+        student = user(Role.STUDENT);
+        var dto = classService.createClass("Klasa-Attempts-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        classId = dto.id();
+        classService.joinClass(dto.joinCode(), student.getId());
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Attempts lesson");
+        lesson.setContent("attempts");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(classId).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        task = new Task();
+        task.setLesson(lesson);
+        task.setTitle("Attempts task");
+        task.setDescription("desc");
+        task.setMaxPoints(10);
+        task.setLanguage("javascript");
+        task.setType("CODE");
+        task.setMaxAttempts(2);
+        task = taskRepo.saveAndFlush(task);
+    }
+
+    @Test
+    void deletingStudentSubmissionsRestoresAttempts() {
+        submit();
+        submit();
+        assertThrows(ResponseStatusException.class, this::submit, "limit 2 prób");
+
+        submissionRepo.deleteByTaskIdAndStudent_Id(task.getId(), student.getId());
+        submissionRepo.flush();
+
+        assertEquals(0, used());
+        assertEquals(1, submit(), "numeracja prób zaczyna się od nowa");
+    }
+
+    @Test
+    void classPurgeBatchesRecountRemainingAttempts() {
+        submit();
+        submit();
+
+        assertEquals(1, classroomRepo.deleteSubmissionsBatch(classId, 1));
+        assertEquals(1, used());
+        assertEquals(1, classroomRepo.deleteSubmissionsBatch(classId, 1));
+        assertEquals(0, used());
+    }
+
+    @Test
+    void legacyUniqueIndexDoesNotBlockNextAttempt() {
+        // V27: indeks z V3 przetrwał V19 i odrzucał drugą próbę mimo limitu z licznika
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM pg_indexes WHERE indexname = 'ux_submissions_task_student'", Integer.class));
+        assertEquals(1, submit());
+        assertEquals(2, submit(), "druga próba tego samego zadania mieści się w limicie");
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM submissions WHERE task_id = ? AND student_id = ?",
+                Integer.class, task.getId(), student.getId()));
+    }
+
+    private int submit() {
+        int attempt = attempts.reserve(task.getId(), student.getId(), task.getMaxAttempts(), "Limit prób został osiągnięty");
+        jdbc.update("INSERT INTO submissions (id, task_id, student_id, status, attempt_number) VALUES (?, ?, ?, 'SUBMITTED', ?)",
+                UUID.randomUUID(), task.getId(), student.getId(), attempt);
+        return attempt;
+    }
+
+    private int used() {
+        return jdbc.queryForObject("SELECT used FROM submission_attempts WHERE task_id = ? AND student_id = ?",
+                Integer.class, task.getId(), student.getId());
+    }
+
+    private User user(Role role) {
+        User u = new User();
+        u.setEmail(role.name().toLowerCase() + "+attempts-" + UUID.randomUUID() + "@tests.local");
+        u.setPasswordHash("x");
+        u.setRole(role);
+        return userRepo.saveAndFlush(u);
+    }
+}
@@ -84,6 +84,8 @@ class AutoGradingIntegrationTest {
         c.setPoints(10);
         c.setOrder(0);
         caseRepo.save(c);
+        // licznik prób (AttemptCounter) zapisuje przez JDBC – encje testu muszą być już w bazie
+        caseRepo.flush();
 
         // authenticate as student
         UUID studentId = student.getId();
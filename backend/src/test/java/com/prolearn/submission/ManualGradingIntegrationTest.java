@@ -0,0 +1,180 @@
+package com.prolearn.submission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prolearn.classes.ClassService;
+import com.prolearn.classes.ClassroomRepository;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/tasks/{taskId}/grades: walidacja całej paczki przed zapisem i jeden zapis punktów,
+ * komentarza, feedbacku w submission_payloads i graded_by.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class ManualGradingIntegrationTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper mapper;
+    @Autowired TaskRepository taskRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired ClassService classService;
+    @Autowired JdbcTemplate jdbc;
+
+    private User teacher;
+    private User student;
+    private Task task;
+    private UUID first;
+    private UUID second;
+
+    @BeforeEach
+    void setUp() {
+        teacher = user(Role.TEACHER);
+        student = user(Role.STUDENT);
+        var dto = classService.createClass("Klasa-Grades-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        classService.joinClass(dto.joinCode(), student.getId());
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Grades lesson");
+        lesson.setContent("grades");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(dto.id()).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        task = task(lesson);
+        first = submission(task, 4);
+        second = submission(task, 7);
+    }
+
+    @Test
+    void duplicateSubmissionIdIsRejected() throws Exception {
+        grade(task.getId(), entry(first, 5, "a"), entry(first, 6, "b")).andExpect(status().isBadRequest());
+        assertNotGraded(first);
+    }
+
+    @Test
+    void scoreAboveMaxPointsIsRejected() throws Exception {
+        grade(task.getId(), entry(first, 5, "ok"), entry(second, 11, "za dużo")).andExpect(status().isBadRequest());
+        assertNotGraded(first);
+        assertNotGraded(second);
+    }
+
+    @Test
+    void submissionOfAnotherTaskIsNotFound() throws Exception {
+        Task other = task(task.getLesson());
+        UUID foreign = submission(other, 3);
+
+        grade(task.getId(), entry(first, 5, "ok"), entry(foreign, 5, "obce")).andExpect(status().isNotFound());
+        assertNotGraded(first);
+        assertNotGraded(foreign);
+    }
+
+    @Test
+    void gradesWholeBatch() throws Exception {
+        grade(task.getId(), entry(first, 9, "Dobrze"), entry(second, null, "Bez zmian punktów"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+
+        Map<String, Object> graded = row(first);
+        assertEquals(9, graded.get("points"));
+        assertEquals(9, graded.get("manual_score"));
+        assertEquals("Dobrze", graded.get("teacher_comment"));
+        assertEquals("Dobrze", graded.get("feedback"));
+        assertEquals("GRADED", graded.get("status"));
+        assertEquals(teacher.getId(), graded.get("graded_by"));
+        assertNotNull(graded.get("graded_at"));
+
+        Map<String, Object> auto = row(second);
+        assertEquals(7, auto.get("points"), "bez ręcznej oceny obowiązuje wynik automatyczny");
+        assertNull(auto.get("manual_score"));
+        assertEquals("Bez zmian punktów", auto.get("feedback"));
+        assertEquals(teacher.getId(), auto.get("graded_by"));
+    }
+
+    private ResultActions grade(UUID taskId, Map<?, ?>... entries) throws Exception {
+        var auth = new UsernamePasswordAuthenticationToken(teacher.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_TEACHER")));
+        auth.setDetails(teacher.getId());
+        return mockMvc.perform(post("/api/tasks/" + taskId + "/grades")
+                .with(authentication(auth))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(Map.of("grades", List.of(entries)))));
+    }
+
+    private static Map<String, Object> entry(UUID submissionId, Integer manualScore, String comment) {
+        Map<String, Object> e = new HashMap<>();
+        e.put("submissionId", submissionId);
+        e.put("manualScore", manualScore);
+        e.put("teacherComment", comment);
+        return e;
+    }
+
+    private Map<String, Object> row(UUID submissionId) {
+        return jdbc.queryForMap("SELECT s.points, s.manual_score, s.teacher_comment, s.status, s.graded_by, s.graded_at, p.feedback "
+                + "FROM submissions s JOIN submission_payloads p ON p.submission_id = s.id WHERE s.id = ?", submissionId);
+    }
+
+    private void assertNotGraded(UUID submissionId) {
+        Map<String, Object> r = row(submissionId);
+        assertNull(r.get("manual_score"));
+        assertNull(r.get("graded_by"));
+        assertNull(r.get("feedback"));
+    }
+
+    private Task task(Lesson lesson) {
+        Task t = new Task();
+        t.setLesson(lesson);
+        t.setTitle("Grades task");
+        t.setDescription("desc");
+        t.setMaxPoints(10);
+        t.setLanguage("javascript");
+        t.setType("CODE");
+        t.setGradingMode("MANUAL");
+        return taskRepo.saveAndFlush(t);
+    }
+
+    private UUID submission(Task t, int autoScore) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO submissions (id, task_id, student_id, status, points, auto_score, attempt_number) "
+                + "VALUES (?, ?, ?, 'SUBMITTED', ?, ?, 1)", id, t.getId(), student.getId(), autoScore, autoScore);
+        jdbc.update("INSERT INTO submission_payloads (submission_id, code_hash) VALUES (?, blob_put(?))",
+                id, SubmissionBlobCodec.encode("function solve(x){return x}"));
+        return id;
+    }
+
+    private User user(Role role) {
+        User u = new User();
+        u.setEmail(role.name().toLowerCase() + "+grades-" + UUID.randomUUID() + "@tests.local");
+        u.setPasswordHash("x");
+        u.setRole(role);
+        return userRepo.saveAndFlush(u);
+    }
+}
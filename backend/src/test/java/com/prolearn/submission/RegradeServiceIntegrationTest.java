@@ -0,0 +1,169 @@
+package com.prolearn.submission;
+
+import com.prolearn.classes.ClassService;
+import com.prolearn.classes.ClassroomRepository;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.task.ProgrammingTestCase;
+import com.prolearn.task.ProgrammingTestCaseRepository;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ponowna ocena na prawdziwej bazie: paczki po 2 (keyset po id), wznowienie od kursora po przejęciu
+ * wygasłej dzierżawy i brak przejęcia zadania, którego węzeł żyje. Bez @Transactional – serwis zapisuje
+ * paczki we własnych transakcjach na osobnym wątku.
+ */
+@SpringBootTest(properties = {"app.regrade.batch-size=2", "app.regrade.max-per-second=0", "app.regrade.lease-seconds=300"})
+class RegradeServiceIntegrationTest {
+
+    private static final String SOLUTION = "function solve(input){return input}";
+
+    @Autowired RegradeService regradeService;
+    @Autowired RegradeJobRepository jobRepo;
+    @Autowired TaskRepository taskRepo;
+    @Autowired ProgrammingTestCaseRepository caseRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired ClassService classService;
+    @Autowired JdbcTemplate jdbc;
+
+    private User teacher;
+    private Task task;
+    private List<UUID> submissions;
+
+    @BeforeEach
+    void setUp() {
+        teacher = user(Role.TEACHER);
+        User student = user(Role.STUDENT);
+        var dto = classService.createClass("Klasa-Regrade-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        classService.joinClass(dto.joinCode(), student.getId());
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Regrade lesson");
+        lesson.setContent("regrade");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(dto.id()).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        task = new Task();
+        task.setLesson(lesson);
+        task.setTitle("Regrade task");
+        task.setDescription("desc");
+        task.setMaxPoints(10);
+        task.setLanguage("javascript");
+        task.setType("CODE");
+        task.setGradingMode("AUTO");
+        task = taskRepo.save(task);
+        ProgrammingTestCase c = new ProgrammingTestCase();
+        c.setTask(task);
+        c.setInput("abc");
+        c.setExpected("abc");
+        c.setPoints(10);
+        c.setOrder(0);
+        caseRepo.save(c);
+
+        // pięć prób ze starym wynikiem 0; nowe testy dają 10 punktów
+        submissions = new ArrayList<>();
+        Instant at = Instant.now().minus(1, ChronoUnit.HOURS);
+        for (int i = 0; i < 5; i++) {
+            UUID id = UUID.randomUUID();
+            jdbc.update("INSERT INTO submissions (id, task_id, student_id, status, points, auto_score, attempt_number, created_at) "
+                    + "VALUES (?, ?, ?, 'GRADED', 0, 0, ?, ?)", id, task.getId(), student.getId(), i + 1, Timestamp.from(at.plusSeconds(i)));
+            jdbc.update("INSERT INTO submission_payloads (submission_id, code_hash) VALUES (?, blob_put(?))",
+                    id, SubmissionBlobCodec.encode(SOLUTION));
+            submissions.add(id);
+        }
+        // kolejność jak w PostgreSQL (bajty bez znaku), nie UUID.compareTo
+        submissions.sort(Comparator.comparing(UUID::toString));
+    }
+
+    @Test
+    void regradesAllAttemptsInKeysetBatches() throws Exception {
+        RegradeJob job = regradeService.start(task.getId(), RegradeJob.Scope.ALL, teacher.getId());
+        assertEquals(5, job.getTotalRows());
+
+        RegradeJob done = awaitFinished(job.getId());
+
+        assertEquals(RegradeJob.Status.DONE, done.getStatus(), done.getError());
+        assertEquals(5, done.getProcessedRows());
+        assertEquals(0, done.getFailedRows());
+        assertEquals(submissions.get(4), done.getLastSubmissionId(), "kursor na ostatnim id");
+        for (UUID id : submissions) assertEquals(10, autoScore(id));
+    }
+
+    @Test
+    void claimsExpiredLeaseAndResumesFromCursor() throws Exception {
+        // przebieg innego węzła przerwany po pierwszej paczce: kursor na drugim id, heartbeat sprzed godziny
+        UUID jobId = job(submissions.get(1), "now() - interval '1 hour'");
+
+        assertTrue(regradeService.resumeClaimed().contains(jobId));
+        RegradeJob done = awaitFinished(jobId);
+
+        assertEquals(RegradeJob.Status.DONE, done.getStatus(), done.getError());
+        assertEquals(5, done.getProcessedRows());
+        assertEquals(0, autoScore(submissions.get(0)), "paczka przed kursorem nie jest oceniana ponownie");
+        assertEquals(0, autoScore(submissions.get(1)));
+        for (UUID id : submissions.subList(2, 5)) assertEquals(10, autoScore(id));
+    }
+
+    @Test
+    void doesNotClaimJobWithLiveLease() {
+        UUID jobId = job(null, "now()");
+        try {
+            assertFalse(regradeService.resumeClaimed().contains(jobId));
+            RegradeJob job = jobRepo.findById(jobId).orElseThrow();
+            assertEquals(RegradeJob.Status.RUNNING, job.getStatus());
+            assertEquals(0, job.getProcessedRows());
+        } finally {
+            jobRepo.deleteById(jobId);
+        }
+    }
+
+    private UUID job(UUID cursor, String heartbeat) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO regrade_jobs (id, task_id, requested_by, scope, status, total_rows, processed_rows, "
+                        + "last_submission_id, owner, heartbeat_at) VALUES (?, ?, ?, 'ALL', 'RUNNING', 5, ?, ?, ?, " + heartbeat + ")",
+                id, task.getId(), teacher.getId(), cursor == null ? 0 : 2, cursor, UUID.randomUUID());
+        return id;
+    }
+
+    private RegradeJob awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            RegradeJob job = jobRepo.findById(jobId).orElseThrow();
+            if (job.getStatus() == RegradeJob.Status.DONE || job.getStatus() == RegradeJob.Status.FAILED) return job;
+            Thread.sleep(50);
+        }
+        return fail("Ponowna ocena nie zakończyła się");
+    }
+
+    private int autoScore(UUID submissionId) {
+        return jdbc.queryForObject("SELECT auto_score FROM submissions WHERE id = ?", Integer.class, submissionId);
+    }
+
+    private User user(Role role) {
+        User u = new User();
+        u.setEmail(role.name().toLowerCase() + "+regrade-" + UUID.randomUUID() + "@tests.local");
+        u.setPasswordHash("x");
+        u.setRole(role);
+        return userRepo.save(u);
+    }
+}
@@ -0,0 +1,38 @@
+package com.prolearn.submission;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class SubmissionBlobCodecTest {
+
+    @Test
+    public void roundTripCompressesAndKeysByContent() {
+        String code = "function solve(input){ return input.split(' ').map(Number).reduce((a,b)=>a+b,0); }\n".repeat(20);
+        byte[] enc = SubmissionBlobCodec.encode(code);
+        Assertions.assertTrue(enc.length < code.length() / 4, "enc=" + enc.length);
+        Assertions.assertEquals(code, SubmissionBlobCodec.decode(enc));
+        // ten sam kod – ten sam klucz, inny kod – inny
+        byte[] same = SubmissionBlobCodec.encode(new String(code));
+        byte[] other = SubmissionBlobCodec.encode(code + " ");
+        Assertions.assertArrayEquals(key(enc), key(same));
+        Assertions.assertFalse(Arrays.equals(key(enc), key(other)));
+        Assertions.assertNull(SubmissionBlobCodec.encode(null));
+        Assertions.assertNull(SubmissionBlobCodec.decode(null));
+    }
+
+    @Test
+    public void shortAndMigratedValuesAreStoredRaw() {
+        String s = "ok ąę";
+        byte[] enc = SubmissionBlobCodec.encode(s);
+        Assertions.assertEquals(SubmissionBlobCodec.HASH_BYTES + 1 + s.getBytes(StandardCharsets.UTF_8).length, enc.length);
+        Assertions.assertEquals(s, SubmissionBlobCodec.decode(enc));
+        Assertions.assertEquals("", SubmissionBlobCodec.decode(SubmissionBlobCodec.encode("")));
+    }
+
+    private static byte[] key(byte[] enc) {
+        return Arrays.copyOf(enc, SubmissionBlobCodec.HASH_BYTES);
+    }
+}
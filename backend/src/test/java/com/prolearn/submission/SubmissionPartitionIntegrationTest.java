@@ -0,0 +1,226 @@
+package com.prolearn.submission;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partycjonowanie submissions (V38) na osobnej, świeżo zmigrowanej bazie: wspólna baza testów jest już
+ * po zamianie tabel, a kopia i zamiana są jednokierunkowe. Historia powstaje przed V38 (Flyway do V37).
+ */
+@SpringBootTest
+class SubmissionPartitionIntegrationTest {
+
+    @Autowired JdbcTemplate admin;
+    @Value("${spring.datasource.url}") String url;
+    @Value("${spring.datasource.username}") String user;
+    @Value("${spring.datasource.password}") String password;
+
+    private final String database = "prolearn_part_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private UUID teacherId, studentId, taskId;
+
+    @BeforeEach
+    void createDatabase() {
+        admin.execute("CREATE DATABASE " + database);
+        dataSource = new DriverManagerDataSource(url.substring(0, url.lastIndexOf('/') + 1) + database, user, password);
+        jdbc = new JdbcTemplate(dataSource);
+        migrate("37");
+        teacherId = user("TEACHER");
+        studentId = user("STUDENT");
+        UUID lessonId = UUID.randomUUID();
+        jdbc.update("INSERT INTO lessons (id, title, content, created_by) VALUES (?, 'Partycje', 'x', ?)", lessonId, teacherId);
+        taskId = UUID.randomUUID();
+        jdbc.update("INSERT INTO tasks (id, lesson_id, title) VALUES (?, ?, 'Zadanie')", taskId, lessonId);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        admin.execute("DROP DATABASE IF EXISTS " + database + " WITH (FORCE)");
+    }
+
+    @Test
+    void copiesHistoryKeepsLiveChangesAndSwapsTables() {
+        Instant now = Instant.now();
+        UUID[] history = new UUID[5];
+        for (int i = 0; i < history.length; i++) history[i] = submission(now.minus(20L * i, ChronoUnit.DAYS), i + 1);
+        migrate(null);
+        SubmissionPartitionService service = new SubmissionPartitionService(jdbc, new DataSourceTransactionManager(dataSource), 2, 3, 60, 5000);
+        service.ensurePartitions();
+
+        // zmiany w trakcie kopiowania: trigger przenosi je od razu, kopia ich nie dubluje ani nie wskrzesza
+        jdbc.update("UPDATE submissions SET points = 99 WHERE id = ?", history[1]);
+        jdbc.update("DELETE FROM submissions WHERE id = ?", history[2]);
+        UUID live = submission(now, 7);
+        // wiersz spoza starej tabeli: weryfikacja przed zamianą musi go wykryć i cofnąć kursor
+        UUID stray = UUID.randomUUID();
+        jdbc.update("INSERT INTO submissions_partitioned (id, task_id, student_id, created_at) VALUES (?, ?, ?, now())", stray, taskId, studentId);
+
+        assertFalse(service.migrate());
+        assertNull(jdbc.queryForObject("SELECT swapped_at FROM submissions_partition_state", Object.class));
+        assertEquals(0L, jdbc.queryForObject("SELECT copied FROM submissions_partition_state", Long.class));
+        assertNull(jdbc.queryForObject("SELECT last_id FROM submissions_partition_state", UUID.class), "kursor wraca na początek");
+
+        jdbc.update("DELETE FROM submissions_partitioned WHERE id = ?", stray);
+        assertTrue(service.migrate());
+
+        assertNotNull(jdbc.queryForObject("SELECT swapped_at FROM submissions_partition_state", Object.class));
+        assertEquals(5L, jdbc.queryForObject("SELECT copied FROM submissions_partition_state", Long.class), "kopia paczkami po 2");
+        assertEquals("p", jdbc.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = 'submissions'::regclass", String.class));
+        assertNull(jdbc.queryForObject("SELECT to_regclass('submissions_partitioned')::text", String.class));
+        assertEquals(5, jdbc.queryForObject("SELECT count(*) FROM submissions", Integer.class));
+        assertEquals(99, jdbc.queryForObject("SELECT points FROM submissions WHERE id = ?", Integer.class, history[1]));
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM submissions WHERE id = ?", Integer.class, history[2]));
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM submissions WHERE id = ?", Integer.class, live));
+        assertEquals("submissions_" + Timestamp.from(now).toLocalDateTime().toLocalDate().toString().substring(0, 7).replace('-', '_'),
+                jdbc.queryForObject("SELECT tableoid::regclass::text FROM submissions WHERE id = ?", String.class, live));
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM pg_indexes WHERE tablename = 'submissions' AND indexname = 'idx_submissions_task'", Integer.class));
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM pg_trigger WHERE tgrelid = 'submissions'::regclass "
+                + "AND tgname = 'trg_submissions_recount_attempts'", Integer.class), "licznik prób przechodzi z tabelą (V40)");
+
+        // po zamianie kolejne uruchomienie nic nie robi, a nowe zgłoszenia trafiają do partycji
+        assertTrue(service.migrate());
+        submission(now, 8);
+        assertEquals(6, jdbc.queryForObject("SELECT count(*) FROM submissions", Integer.class));
+    }
+
+    @Test
+    void deletingSubmissionRemovesPayloadAndQuizAnswersBeforeAndAfterSwap() {
+        migrate(null);
+        UUID before = submissionWithChildren();
+        jdbc.update("DELETE FROM submissions WHERE id = ?", before);
+        assertNoChildren(before);
+
+        UUID kept = submissionWithChildren();
+        assertTrue(new SubmissionPartitionService(jdbc, new DataSourceTransactionManager(dataSource), 100, 3, 60, 5000).migrate());
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM submission_payloads WHERE submission_id = ?", Integer.class, kept),
+                "zamiana nie może usuwać treści zgłoszeń");
+
+        UUID after = submissionWithChildren();
+        jdbc.update("DELETE FROM submissions WHERE id = ?", after);
+        assertNoChildren(after);
+        // kaskada z zadania przechodzi przez partycje do treści
+        jdbc.update("DELETE FROM tasks WHERE id = ?", taskId);
+        assertNoChildren(kept);
+    }
+
+    @Test
+    void retentionDropsReportsOfOldSupersededAttemptsOnly() {
+        migrate(null);
+        Instant now = Instant.now();
+        UUID first = submission(now.minus(60, ChronoUnit.DAYS), 1);
+        UUID second = submission(now.minus(45, ChronoUnit.DAYS), 2);
+        UUID third = submission(now.minus(40, ChronoUnit.DAYS), 3);
+        UUID recent = submission(now.minus(1, ChronoUnit.DAYS), 4);
+        for (UUID id : new UUID[]{first, second, third, recent}) payload(id);
+        // ostatnia próba innego ucznia – nie ma nowszej, więc zostaje
+        UUID otherStudent = user("STUDENT");
+        UUID other = UUID.randomUUID();
+        jdbc.update("INSERT INTO submissions (id, task_id, student_id, created_at) VALUES (?, ?, ?, ?)",
+                other, taskId, otherStudent, Timestamp.from(now.minus(90, ChronoUnit.DAYS)));
+        payload(other);
+
+        long pruned = new SubmissionRetentionService(jdbc, 30, 1, 1440).prune();
+
+        assertEquals(3, pruned, "paczki po 1 aż do wyczerpania");
+        for (UUID id : new UUID[]{first, second, third}) {
+            assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM submission_payloads WHERE submission_id = ? AND (report_hash IS NOT NULL OR stdout_hash IS NOT NULL)", Integer.class, id));
+            assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM submission_payloads WHERE submission_id = ? AND code_hash IS NOT NULL", Integer.class, id), "kod zostaje");
+        }
+        for (UUID id : new UUID[]{recent, other}) {
+            assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM submission_payloads WHERE submission_id = ? AND report_hash IS NOT NULL AND stdout_hash IS NOT NULL", Integer.class, id));
+        }
+        assertEquals(0, new SubmissionRetentionService(jdbc, 30, 1, 1440).prune());
+    }
+
+    @Test
+    void firstSubmissionBoundFollowsInsertsAndSkipsOlderPartitions() {
+        migrate(null);
+        Instant now = Instant.now();
+        assertNull(firstSubmissionAt());
+        submission(now, 1);
+        assertNotNull(firstSubmissionAt(), "trigger V41 na tabeli przed zamianą");
+        assertTrue(new SubmissionPartitionService(jdbc, new DataSourceTransactionManager(dataSource), 100, 3, 60, 5000).migrate());
+        assertEquals(1, jdbc.queryForObject("SELECT count(*) FROM pg_trigger WHERE tgrelid = 'submissions'::regclass "
+                + "AND tgname = 'trg_submissions_first_submission_at'", Integer.class), "granica przechodzi z tabelą");
+
+        submission(now.minus(40, ChronoUnit.DAYS), 2);
+        Timestamp since = firstSubmissionAt();
+        assertEquals(jdbc.queryForObject("SELECT min(created_at) FROM submissions WHERE task_id = ?", Timestamp.class, taskId), since,
+                "starsze zgłoszenie obniża granicę");
+
+        // miesiąc sprzed granicy (zgłoszenie sprzed 40 dni trafiło do partycji domyślnej)
+        LocalDate olderMonth = since.toLocalDateTime().toLocalDate().minusMonths(3).withDayOfMonth(1);
+        String older = "submissions_" + olderMonth.toString().substring(0, 7).replace('-', '_');
+        jdbc.queryForObject("SELECT create_submission_partitions(?::date, ?::date)", Integer.class, olderMonth.toString(), olderMonth.toString());
+        assertTrue(plan(Timestamp.valueOf(olderMonth.atStartOfDay())).contains(older), "bez granicy skan obejmuje starszą partycję");
+        String plan = plan(since);
+        assertFalse(plan.contains(older), "partycja starsza niż granica pominięta:\n" + plan);
+    }
+
+    private String plan(Timestamp since) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN SELECT * FROM submissions WHERE task_id = ? AND created_at >= ?",
+                String.class, taskId, since));
+    }
+
+    private Timestamp firstSubmissionAt() {
+        return jdbc.queryForObject("SELECT first_submission_at FROM tasks WHERE id = ?", Timestamp.class, taskId);
+    }
+
+    private void migrate(String target) {
+        var config = Flyway.configure().dataSource(dataSource).locations("classpath:db/migration");
+        if (target != null) config.target(target);
+        config.load().migrate();
+    }
+
+    private UUID user(String role) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO users (id, email, password_hash, role) VALUES (?, ?, 'x', ?)", id, id + "@part.local", role);
+        return id;
+    }
+
+    private UUID submission(Instant createdAt, int attempt) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("INSERT INTO submissions (id, task_id, student_id, status, points, created_at, attempt_number) VALUES (?, ?, ?, 'GRADED', ?, ?, ?)",
+                id, taskId, studentId, attempt, Timestamp.from(createdAt), attempt);
+        return id;
+    }
+
+    private void payload(UUID submissionId) {
+        jdbc.update("INSERT INTO submission_payloads (submission_id, code_hash, report_hash, stdout_hash) VALUES (?, blob_put(?), blob_put(?), blob_put(?))",
+                submissionId, SubmissionBlobCodec.encode("code " + submissionId), SubmissionBlobCodec.encode("{\"tests\":[]}"),
+                SubmissionBlobCodec.encode("stdout"));
+    }
+
+    private UUID submissionWithChildren() {
+        UUID id = submission(Instant.now(), 1);
+        payload(id);
+        UUID question = UUID.randomUUID();
+        jdbc.update("INSERT INTO quiz_questions (id, task_id, question, option_a, option_b, correct_answer) VALUES (?, ?, 'q', 'a', 'b', 'A')",
+                question, taskId);
+        jdbc.update("INSERT INTO quiz_answers (id, submission_id, question_id, selected_answer, is_correct) VALUES (?, ?, ?, 'A', true)",
+                UUID.randomUUID(), id, question);
+        return id;
+    }
+
+    private void assertNoChildren(UUID submissionId) {
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM submission_payloads WHERE submission_id = ?", Integer.class, submissionId));
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM quiz_answers WHERE submission_id = ?", Integer.class, submissionId));
+    }
+}
@@ -0,0 +1,147 @@
+package com.prolearn.submission;
+
+import com.prolearn.classes.ClassService;
+import com.prolearn.classes.ClassroomRepository;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.task.Task;
+import com.prolearn.task.TaskRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Treść zgłoszeń w submission_payloads (V36): zapytania postępu i podsumowań nie ładują treści,
+ * a widok szczegółów nadal zwraca kod i feedback. Bez @Transactional – każde żądanie to osobna sesja.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SubmissionPayloadSplitIntegrationTest {
+
+    private static final String PAYLOAD = SubmissionPayload.class.getName();
+
+    @Autowired MockMvc mockMvc;
+    @Autowired SubmissionRepository submissionRepo;
+    @Autowired TaskRepository taskRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired ClassService classService;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired EntityManagerFactory emf;
+
+    private User teacher;
+    private Long classId;
+    private Lesson lesson;
+    private Task task;
+    private UUID submissionId;
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        teacher = user(Role.TEACHER);
+        User student = user(Role.STUDENT);
+        var dto = classService.createClass("Klasa-Payload-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        classService.joinClass(dto.joinCode(), student.getId());
+        classId = dto.id();
+        lesson = new Lesson();
+        lesson.setTitle("Payload lesson");
+        lesson.setContent("payload");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(classId).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        Task t = new Task();
+        t.setLesson(lesson);
+        t.setTitle("Payload task");
+        t.setDescription("desc");
+        t.setMaxPoints(10);
+        t.setLanguage("javascript");
+        t.setType("CODE");
+        task = taskRepo.save(t);
+        for (int i = 1; i <= 3; i++) {
+            submissionId = UUID.randomUUID();
+            jdbc.update("INSERT INTO submissions (id, task_id, student_id, status, points, auto_score, attempt_number) "
+                    + "VALUES (?, ?, ?, 'GRADED', ?, ?, ?)", submissionId, task.getId(), student.getId(), i * 3, i * 3, i);
+            jdbc.update("INSERT INTO submission_payloads (submission_id, code_hash, feedback) VALUES (?, blob_put(?), ?)",
+                    submissionId, SubmissionBlobCodec.encode("function solve(x){return " + i + "}"), "Próba " + i);
+        }
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void progressQueryLeavesPayloadUnloaded() {
+        Instant since = submissionRepo.findFirstSubmissionAt(List.of(task.getId())).orElseThrow();
+        stats.clear();
+
+        List<Submission> list = submissionRepo.findByTaskIdInAndCreatedAtGreaterThanEqual(List.of(task.getId()), since);
+
+        assertEquals(3, list.size());
+        for (Submission s : list) {
+            assertFalse(emf.getPersistenceUnitUtil().isLoaded(s, "payload"), "treść tylko jako leniwe proxy");
+        }
+        assertEquals(0, stats.getEntityStatistics(PAYLOAD).getLoadCount());
+        assertEquals(1, stats.getPrepareStatementCount(), "jedno zapytanie, bez dociągania treści");
+    }
+
+    @Test
+    void dashboardsDoNotReadPayloads() throws Exception {
+        var auth = teacherAuth();
+        stats.clear();
+
+        mockMvc.perform(get("/api/lessons/" + lesson.getId() + "/summary").with(authentication(auth)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/classes/" + classId + "/progress/overview").with(authentication(auth)))
+                .andExpect(status().isOk());
+
+        assertEquals(0, stats.getEntityStatistics(PAYLOAD).getLoadCount(), "postęp liczony bez submission_payloads");
+    }
+
+    @Test
+    void detailViewReturnsCodeAndFeedback() throws Exception {
+        stats.clear();
+
+        mockMvc.perform(get("/api/submissions/" + submissionId).with(authentication(teacherAuth())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("function solve(x){return 3}"))
+                .andExpect(jsonPath("$.feedback").value("Próba 3"))
+                .andExpect(jsonPath("$.points").value(9));
+
+        assertEquals(1, stats.getEntityStatistics(PAYLOAD).getLoadCount(), "szczegóły dociągają treść jednego zgłoszenia");
+    }
+
+    private UsernamePasswordAuthenticationToken teacherAuth() {
+        var auth = new UsernamePasswordAuthenticationToken(teacher.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_TEACHER")));
+        auth.setDetails(teacher.getId());
+        return auth;
+    }
+
+    private User user(Role role) {
+        User u = new User();
+        u.setEmail(role.name().toLowerCase() + "+payload-" + UUID.randomUUID() + "@tests.local");
+        u.setPasswordHash("x");
+        u.setRole(role);
+        return userRepo.save(u);
+    }
+}
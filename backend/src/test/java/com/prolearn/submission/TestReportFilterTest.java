@@ -0,0 +1,48 @@
+package com.prolearn.submission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prolearn.task.ProgrammingTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class TestReportFilterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TestReportFilter filter = new TestReportFilter(mapper);
+
+    private static ProgrammingTestCase tc(long n, boolean visible) {
+        ProgrammingTestCase c = new ProgrammingTestCase();
+        c.setId(new UUID(0L, n));
+        c.setVisible(visible);
+        return c;
+    }
+
+    @Test
+    public void removesHiddenTestsFromStoredReport() throws Exception {
+        var cases = List.of(tc(1, true), tc(2, false));
+        String report = "{\"passed\":2,\"tests\":[{\"id\":\"" + cases.get(0).getId() + "\"},{\"id\":\"" + cases.get(1).getId() + "\"}]}";
+        var node = mapper.readTree(filter.filterReport(report, cases));
+        Assertions.assertEquals(1, node.get("tests").size());
+        Assertions.assertEquals(2, node.get("passed").asInt());
+    }
+
+    @Test
+    public void alignsStdoutResultsByIndex() throws Exception {
+        var cases = List.of(tc(1, false), tc(2, true));
+        String out = filter.filterStdout("log\n[{\"passed\":true},{\"passed\":false}]", cases);
+        var node = mapper.readTree(out);
+        Assertions.assertEquals(1, node.size());
+        Assertions.assertFalse(node.get(0).get("passed").asBoolean());
+        Assertions.assertNull(filter.filterStdout("brak tablicy", cases));
+    }
+
+    @Test
+    public void filtersRunOutputTests() {
+        var cases = List.of(tc(1, true), tc(2, false));
+        Map<String,Object> out = new HashMap<>();
+        out.put("tests", new ArrayList<>(List.of(Map.of("id", cases.get(0).getId()), Map.of("id", cases.get(1).getId().toString()))));
+        var res = filter.filterRunOutput(out, cases);
+        Assertions.assertEquals(1, ((List<?>) res.get("tests")).size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.prolearn.task;
+
+import com.prolearn.classes.ClassService;
+import com.prolearn.classes.ClassroomRepository;
+import com.prolearn.lesson.Lesson;
+import com.prolearn.lesson.LessonRepository;
+import com.prolearn.user.Role;
+import com.prolearn.user.User;
+import com.prolearn.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache drugiego poziomu (READ_WRITE, ehcache.xml) na prawdziwej bazie: odczyt po zapisie przez serwis
+ * widzi nową wartość, a zapytanie o testy zadania z cache zapytań uwzględnia nowy test. Bez @Transactional –
+ * każdy odczyt to osobna sesja, więc trafienie pochodzi z L2, nie z kontekstu utrwalania.
+ */
+@SpringBootTest
+class SecondLevelCacheIntegrationTest {
+
+    @Autowired TaskService taskService;
+    @Autowired TaskRepository taskRepo;
+    @Autowired ProgrammingTestCaseRepository caseRepo;
+    @Autowired LessonRepository lessonRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired ClassroomRepository classroomRepo;
+    @Autowired ClassService classService;
+    @Autowired EntityManagerFactory emf;
+
+    private Task task;
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        User teacher = new User();
+        teacher.setEmail("teacher+l2-" + UUID.randomUUID() + "@tests.local");
+        teacher.setPasswordHash("x");
+        teacher.setRole(Role.TEACHER);
+        teacher = userRepo.save(teacher);
+        var dto = classService.createClass("Klasa-L2-" + UUID.randomUUID().toString().substring(0, 5), teacher.getId());
+        Lesson lesson = new Lesson();
+        lesson.setTitle("L2 lesson");
+        lesson.setContent("l2");
+        lesson.setCreatedBy(teacher);
+        lesson.setClassroom(classroomRepo.findById(dto.id()).orElseThrow());
+        lesson = lessonRepo.save(lesson);
+        Task t = new Task();
+        t.setLesson(lesson);
+        t.setTitle("Przed zmianą");
+        t.setDescription("desc");
+        t.setMaxPoints(10);
+        t.setLanguage("javascript");
+        t.setType("CODE");
+        task = taskRepo.save(t);
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    void readAfterUpdateSeesNewValue() {
+        assertEquals("Przed zmianą", taskService.getTask(task.getId()).getTitle());
+        assertTrue(emf.getCache().contains(Task.class, task.getId()), "zadanie trafia do cache po pierwszym odczycie");
+        long hits = stats.getSecondLevelCacheHitCount();
+        taskService.getTask(task.getId());
+        assertTrue(stats.getSecondLevelCacheHitCount() > hits, "drugi odczyt z cache");
+
+        taskService.update(task.getId(), "Po zmianie", null, 8, null, null, null, null, null, null, null, null, null, null);
+
+        hits = stats.getSecondLevelCacheHitCount();
+        Task reread = taskService.getTask(task.getId());
+        assertEquals("Po zmianie", reread.getTitle());
+        assertEquals(8, reread.getMaxPoints());
+        assertTrue(stats.getSecondLevelCacheHitCount() > hits, "nowa wartość podana z cache, nie tylko z bazy");
+    }
+
+    @Test
+    void cachedTestCaseQuerySeesNewCase() {
+        assertTrue(caseRepo.findByTaskIdOrderByOrderAsc(task.getId()).isEmpty());
+        long queryHits = stats.getQueryCacheHitCount();
+        assertTrue(caseRepo.findByTaskIdOrderByOrderAsc(task.getId()).isEmpty());
+        assertTrue(stats.getQueryCacheHitCount() > queryHits, "powtórzone zapytanie z cache zapytań");
+
+        ProgrammingTestCase c = new ProgrammingTestCase();
+        c.setTask(task);
+        c.setInput("abc");
+        c.setExpected("abc");
+        c.setPoints(10);
+        c.setOrder(0);
+        caseRepo.save(c);
+
+        var cases = caseRepo.findByTaskIdOrderByOrderAsc(task.getId());
+        assertEquals(1, cases.size(), "zapis unieważnia wyniki zapytań o tabelę testów");
+        assertEquals("abc", cases.get(0).getExpected());
+    }
+}
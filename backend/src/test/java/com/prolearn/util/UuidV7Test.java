@@ -0,0 +1,30 @@
+package com.prolearn.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+public class UuidV7Test {
+
+    @Test
+    public void idsAreVersion7AndStrictlyIncreasing() {
+        long before = System.currentTimeMillis();
+        Set<UUID> seen = new HashSet<>();
+        UUID prev = UuidV7.generate();
+        // więcej niż 4096 w jednej milisekundzie – licznik przechodzi na kolejną
+        for (int i = 0; i < 20_000; i++) {
+            UUID id = UuidV7.generate();
+            Assertions.assertEquals(7, id.version());
+            Assertions.assertEquals(2, id.variant());
+            Assertions.assertTrue(Long.compareUnsigned(id.getMostSignificantBits(), prev.getMostSignificantBits()) > 0, prev + " >= " + id);
+            Assertions.assertTrue(seen.add(id));
+            prev = id;
+        }
+        long ts = UuidV7.timestamp(prev);
+        Assertions.assertTrue(ts >= before && ts <= System.currentTimeMillis() + 100, "ts=" + ts);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UuidV7.timestamp(UUID.randomUUID()));
+    }
+}
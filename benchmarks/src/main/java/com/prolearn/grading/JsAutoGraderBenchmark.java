@@ -0,0 +1,72 @@
+package com.prolearn.grading;
+
+import com.prolearn.task.ProgrammingTestCase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsAutoGrader.gradeWithCases w stanie ustalonym (rozgrzany JIT hosta) oraz generowanie skryptu harness.
+ * Wariant "zimny" (pierwsze wywołanie w świeżej JVM) jest w {@link JsAutoGraderColdBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dpolyglot.engine.WarnInterpreterOnly=false"})
+@State(Scope.Benchmark)
+public class JsAutoGraderBenchmark {
+
+    static final String SOLUTION = """
+            function solve(input) {
+              var parts = input.split(',').map(Number);
+              var sum = 0;
+              for (var i = 0; i < parts.length; i++) sum += parts[i];
+              return sum;
+            }
+            """;
+
+    @Param({"5", "50"})
+    int cases;
+
+    JsAutoGrader grader;
+    List<ProgrammingTestCase> testCases;
+
+    @Setup
+    public void setup() {
+        grader = new JsAutoGrader(GradingMetrics.noop());
+        testCases = testCases(cases);
+    }
+
+    @Benchmark
+    public JsAutoGrader.GradeResult gradeWithCasesWarm() {
+        return grader.gradeWithCases(SOLUTION, testCases);
+    }
+
+    /** Deterministyczne przypadki: suma liczb 1..k (k = numer przypadku). */
+    static List<ProgrammingTestCase> testCases(int n) {
+        List<ProgrammingTestCase> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            StringBuilder in = new StringBuilder();
+            int sum = 0;
+            for (int k = 1; k <= i + 1; k++) {
+                if (k > 1) in.append(',');
+                in.append(k);
+                sum += k;
+            }
+            ProgrammingTestCase c = new ProgrammingTestCase();
+            c.setId(new UUID(0L, i));
+            c.setInput(in.toString());
+            c.setExpected(String.valueOf(sum));
+            c.setPoints(1);
+            c.setOrder(i);
+            c.setVisible(i % 2 == 0);
+            c.setMode("EVAL");
+            list.add(c);
+        }
+        return list;
+    }
+}
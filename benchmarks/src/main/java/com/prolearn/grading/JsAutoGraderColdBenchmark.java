@@ -0,0 +1,37 @@
+package com.prolearn.grading;
+
+import com.prolearn.task.ProgrammingTestCase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pierwsze wywołanie gradeWithCases w świeżej JVM (zimny silnik GraalJS i zimny JIT hosta),
+ * czyli to, co widzi pierwszy uczeń po starcie instancji. Każdy fork to jedna próbka.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dpolyglot.engine.WarnInterpreterOnly=false"})
+@State(Scope.Benchmark)
+public class JsAutoGraderColdBenchmark {
+
+    @Param({"5"})
+    int cases;
+
+    JsAutoGrader grader;
+    List<ProgrammingTestCase> testCases;
+
+    @Setup
+    public void setup() {
+        grader = new JsAutoGrader(GradingMetrics.noop());
+        testCases = JsAutoGraderBenchmark.testCases(cases);
+    }
+
+    @Benchmark
+    public JsAutoGrader.GradeResult gradeWithCasesCold() {
+        return grader.gradeWithCases(JsAutoGraderBenchmark.SOLUTION, testCases);
+    }
+}
@@ -0,0 +1,154 @@
+package com.prolearn.lesson;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zapytanie postępu lekcji (findByTaskIdIn) przed i po przeniesieniu treści zgłoszeń do submission_payloads:
+ * "wide" czyta wszystkie kolumny jak dawna encja, "split" tylko wąskie wiersze submissions. Po trialu wypisuje
+ * bajty danych odebrane na jedno żądanie; zajętość sterty: {@code -Djmh.args="DashboardQuery -prof gc"}
+ * (gc.alloc.rate.norm). Wymaga PostgreSQL ({@code docker compose up db}); połączenie ze zmiennych
+ * BENCH_DB_URL, BENCH_DB_USER, BENCH_DB_PASSWORD.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardQueryBenchmark {
+
+    private static final String NARROW = "s.id, s.task_id, s.student_id, s.status, s.points, s.auto_score, s.manual_score, "
+            + "s.attempt_number, s.created_at";
+
+    @Param({"wide", "split"})
+    String layout;
+
+    @Param({"300"})
+    int students;
+
+    @Param({"20"})
+    int tasks;
+
+    @Param({"3"})
+    int attempts;
+
+    Connection conn;
+    Array taskIds;
+    long bytes;
+    long requests;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        conn = DriverManager.getConnection(
+                env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/prolearn?reWriteBatchedInserts=true"),
+                env("BENCH_DB_USER", "prolearn"),
+                env("BENCH_DB_PASSWORD", "prolearn"));
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_payloads, bench_submissions");
+            st.execute("CREATE TABLE bench_submissions (id UUID PRIMARY KEY, task_id UUID NOT NULL, student_id UUID NOT NULL, "
+                    + "status VARCHAR(16), points INTEGER, auto_score INTEGER, manual_score INTEGER, attempt_number INTEGER, "
+                    + "created_at TIMESTAMPTZ NOT NULL, content TEXT, code TEXT, test_report TEXT, stdout TEXT, feedback TEXT)");
+            st.execute("CREATE INDEX ON bench_submissions (task_id)");
+            st.execute("CREATE TABLE bench_payloads (submission_id UUID PRIMARY KEY, content TEXT, code TEXT, "
+                    + "test_report TEXT, stdout TEXT, feedback TEXT)");
+        }
+        Random rnd = new Random(42);
+        // typowe rozmiary: kod ~2 KB, raport JSON ~4 KB, stdout ~1 KB
+        String code = "x".repeat(2048), report = "r".repeat(4096), stdout = "o".repeat(1024);
+        List<UUID> ids = new ArrayList<>();
+        for (int t = 0; t < tasks; t++) ids.add(new UUID(1L, t));
+        conn.setAutoCommit(false);
+        boolean split = "split".equals(layout);
+        try (PreparedStatement sub = conn.prepareStatement("INSERT INTO bench_submissions VALUES (?, ?, ?, 'GRADED', ?, ?, NULL, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement pay = conn.prepareStatement("INSERT INTO bench_payloads VALUES (?, ?, ?, ?, ?, ?)")) {
+            Instant base = Instant.parse("2025-01-01T08:00:00Z");
+            for (int s = 0; s < students; s++) {
+                for (UUID task : ids) {
+                    for (int a = 1; a <= attempts; a++) {
+                        UUID id = UUID.randomUUID();
+                        int points = rnd.nextInt(11);
+                        sub.setObject(1, id);
+                        sub.setObject(2, task);
+                        sub.setObject(3, new UUID(2L, s));
+                        sub.setInt(4, points);
+                        sub.setInt(5, points);
+                        sub.setInt(6, a);
+                        sub.setTimestamp(7, Timestamp.from(base.plusSeconds(rnd.nextInt(86_400 * 30))));
+                        for (int c = 8; c <= 12; c++) sub.setString(c, null);
+                        if (split) {
+                            pay.setObject(1, id);
+                            pay.setString(2, "demo");
+                            pay.setString(3, code);
+                            pay.setString(4, report);
+                            pay.setString(5, stdout);
+                            pay.setString(6, null);
+                            pay.addBatch();
+                        } else {
+                            sub.setString(8, "demo");
+                            sub.setString(9, code);
+                            sub.setString(10, report);
+                            sub.setString(11, stdout);
+                        }
+                        sub.addBatch();
+                    }
+                }
+                sub.executeBatch();
+                if (split) pay.executeBatch();
+            }
+        }
+        conn.commit();
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE bench_submissions");
+            st.execute("ANALYZE bench_payloads");
+        }
+        conn.commit();
+        taskIds = conn.createArrayOf("uuid", ids.toArray());
+    }
+
+    @Benchmark
+    public int progressQuery() throws SQLException {
+        String sql = "wide".equals(layout)
+                ? "SELECT " + NARROW + ", s.content, s.code, s.test_report, s.stdout, s.feedback FROM bench_submissions s WHERE s.task_id = ANY (?)"
+                : "SELECT " + NARROW + " FROM bench_submissions s WHERE s.task_id = ANY (?)";
+        int rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, taskIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                int cols = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    for (int c = 1; c <= cols; c++) {
+                        byte[] v = rs.getBytes(c);
+                        if (v != null) bytes += v.length;
+                    }
+                    rows++;
+                }
+            }
+        }
+        conn.commit();
+        requests++;
+        return rows;
+    }
+
+    @TearDown(Level.Trial)
+    public void drop() throws SQLException {
+        System.out.printf("%n[%s] %.1f KB danych na żądanie%n", layout, bytes / 1024.0 / Math.max(1, requests));
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_payloads, bench_submissions");
+        }
+        conn.commit();
+        conn.close();
+    }
+
+    private static String env(String name, String def) {
+        String v = System.getenv(name);
+        return v == null || v.isBlank() ? def : v;
+    }
+}
@@ -0,0 +1,65 @@
+package com.prolearn.lesson;
+
+import com.prolearn.submission.Submission;
+import com.prolearn.task.Task;
+import com.prolearn.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/** Wybór najnowszego zgłoszenia na parę (uczeń, zadanie) używany przez getClassProgress. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LatestSubmissionBenchmark {
+
+    @Param({"30", "300"})
+    int students;
+
+    @Param({"20"})
+    int tasks;
+
+    @Param({"3"})
+    int attempts;
+
+    List<Submission> submissions;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        List<Task> taskList = new ArrayList<>();
+        for (int t = 0; t < tasks; t++) {
+            Task task = new Task();
+            task.setId(new UUID(1L, t));
+            taskList.add(task);
+        }
+        Instant base = Instant.parse("2025-01-01T08:00:00Z");
+        submissions = new ArrayList<>(students * tasks * attempts);
+        for (int s = 0; s < students; s++) {
+            User student = new User();
+            student.setId(new UUID(2L, s));
+            for (Task task : taskList) {
+                for (int a = 0; a < attempts; a++) {
+                    Submission sub = new Submission();
+                    sub.setStudent(student);
+                    sub.setTask(task);
+                    sub.setCreatedAt(base.plusSeconds(rnd.nextInt(86_400 * 30)));
+                    sub.setPoints(rnd.nextInt(11));
+                    submissions.add(sub);
+                }
+            }
+        }
+        // findByTaskIdIn nie gwarantuje kolejności
+        Collections.shuffle(submissions, rnd);
+    }
+
+    @Benchmark
+    public Map<String, Submission> latestByStudentAndTask() {
+        return LessonService.latestByStudentAndTask(submissions);
+    }
+}
@@ -0,0 +1,54 @@
+package com.prolearn.lesson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** QuizGrader.grade dla dużych quizów (parsowanie treści + liczenie poprawnych odpowiedzi). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class QuizGraderBenchmark {
+
+    @Param({"20", "200", "2000"})
+    int questions;
+
+    ObjectMapper objectMapper;
+    String body;
+    List<Integer> answers;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        Random rnd = new Random(42);
+        var root = objectMapper.createObjectNode();
+        root.put("maxPoints", 100);
+        var qs = root.putArray("questions");
+        answers = new ArrayList<>(questions);
+        for (int i = 0; i < questions; i++) {
+            var q = qs.addObject();
+            q.put("text", "Pytanie " + i + ": ile wynosi " + i + " + " + i + "?");
+            var choices = q.putArray("choices");
+            int correct = rnd.nextInt(4);
+            for (int c = 0; c < 4; c++) {
+                var ch = choices.addObject();
+                ch.put("text", "Odpowiedź " + c);
+                ch.put("correct", c == correct);
+            }
+            answers.add(rnd.nextInt(4));
+        }
+        body = objectMapper.writeValueAsString(root);
+    }
+
+    @Benchmark
+    public QuizGrader.GradeResult grade() throws Exception {
+        return QuizGrader.grade(body, answers, objectMapper);
+    }
+}
@@ -0,0 +1,88 @@
+package com.prolearn.submission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prolearn.task.ProgrammingTestCase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtrowanie ukrytych testów: wynik /run (sanitizeRunOutput) oraz zapisany raport i stdout (map()).
+ * Co drugi przypadek jest ukryty.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TestReportFilterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int tests;
+
+    TestReportFilter filter;
+    List<ProgrammingTestCase> cases;
+    List<Map<String,Object>> runTests;
+    String report;
+    String stdout;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        filter = new TestReportFilter(objectMapper);
+        cases = new ArrayList<>(tests);
+        runTests = new ArrayList<>(tests);
+        List<Map<String,Object>> stdoutTests = new ArrayList<>(tests);
+        for (int i = 0; i < tests; i++) {
+            ProgrammingTestCase c = new ProgrammingTestCase();
+            c.setId(new UUID(3L, i));
+            c.setVisible(i % 2 == 0);
+            c.setOrder(i);
+            c.setPoints(1);
+            c.setInput("input-" + i);
+            c.setExpected("expected-" + i);
+            cases.add(c);
+
+            Map<String,Object> t = new LinkedHashMap<>();
+            t.put("id", c.getId().toString());
+            t.put("input", c.getInput());
+            t.put("expected", c.getExpected());
+            t.put("actual", i % 3 == 0 ? "wrong-" + i : c.getExpected());
+            t.put("passed", i % 3 != 0);
+            t.put("points", i % 3 != 0 ? 1 : 0);
+            runTests.add(t);
+
+            // wyniki harnessu JS nie mają id – dopasowanie po indeksie
+            Map<String,Object> raw = new LinkedHashMap<>(t);
+            raw.remove("id");
+            stdoutTests.add(raw);
+        }
+        Map<String,Object> rep = new LinkedHashMap<>();
+        rep.put("tests", runTests);
+        rep.put("passed", tests - tests / 3);
+        rep.put("failed", tests / 3);
+        rep.put("maxPoints", tests);
+        report = objectMapper.writeValueAsString(rep);
+        stdout = "log line\n" + objectMapper.writeValueAsString(stdoutTests);
+    }
+
+    @Benchmark
+    public Map<String,Object> runOutput() {
+        Map<String,Object> out = new HashMap<>();
+        out.put("tests", runTests);
+        out.put("stdout", stdout);
+        return filter.filterRunOutput(out, cases);
+    }
+
+    @Benchmark
+    public String storedReport() {
+        return filter.filterReport(report, cases);
+    }
+
+    @Benchmark
+    public String storedStdout() {
+        return filter.filterStdout(stdout, cases);
+    }
+}
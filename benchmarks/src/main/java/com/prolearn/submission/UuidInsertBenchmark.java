@@ -0,0 +1,115 @@
+package com.prolearn.submission;
+
+import com.prolearn.util.UuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wstawianie kilku milionów wierszy do tabeli o kształcie submissions z kluczem UUID: losowe v4 (dotychczas),
+ * UUIDv7 i przejście z v4 na v7 w połowie (stare identyfikatory zostają). Po każdej iteracji wypisuje rozmiar
+ * indeksu klucza głównego i tabeli. Wymaga PostgreSQL ({@code docker compose up db}); połączenie ze zmiennych
+ * BENCH_DB_URL, BENCH_DB_USER, BENCH_DB_PASSWORD.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidInsertBenchmark {
+
+    @Param({"random", "v7", "mixed"})
+    String ids;
+
+    @Param({"3000000"})
+    int rows;
+
+    @Param({"5000"})
+    int batchSize;
+
+    Connection conn;
+    String table;
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        conn = DriverManager.getConnection(
+                env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/prolearn?reWriteBatchedInserts=true"),
+                env("BENCH_DB_USER", "prolearn"),
+                env("BENCH_DB_PASSWORD", "prolearn"));
+        table = "bench_uuid_" + ids;
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + table);
+            st.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, task_id UUID NOT NULL, "
+                    + "created_at TIMESTAMPTZ NOT NULL, points INTEGER)");
+        }
+        conn.setAutoCommit(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("TRUNCATE " + table);
+        }
+        conn.commit();
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        UUID taskId = new UUID(1L, 1L);
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + table + " (id, task_id, created_at, points) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                ps.setObject(1, nextId(i));
+                ps.setObject(2, taskId);
+                ps.setTimestamp(3, now);
+                ps.setInt(4, i % 11);
+                ps.addBatch();
+                if ((i + 1) % batchSize == 0) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+        return rows;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportSizes() throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT pg_relation_size('" + table + "_pkey'), pg_relation_size('" + table + "')")) {
+            rs.next();
+            System.out.printf("%n[%s] rows=%d pkey=%.1f MB table=%.1f MB%n",
+                    ids, rows, rs.getLong(1) / 1048576.0, rs.getLong(2) / 1048576.0);
+        }
+        conn.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void drop() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + table);
+        }
+        conn.commit();
+        conn.close();
+    }
+
+    private UUID nextId(int i) {
+        return switch (ids) {
+            case "v7" -> UuidV7.generate();
+            // pierwsza połowa jak dotychczasowe dane, druga po wdrożeniu UUIDv7
+            case "mixed" -> i < rows / 2 ? UUID.randomUUID() : UuidV7.generate();
+            default -> UUID.randomUUID();
+        };
+    }
+
+    private static String env(String name, String def) {
+        String v = System.getenv(name);
+        return v == null || v.isBlank() ? def : v;
+    }
+}
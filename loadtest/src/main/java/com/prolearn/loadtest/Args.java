@@ -0,0 +1,42 @@
+package com.prolearn.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Proste argumenty w postaci "--klucz wartość" (flaga bez wartości = "true"). */
+final class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Args(String[] argv) {
+        for (int i = 0; i < argv.length; i++) {
+            String a = argv[i];
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Nieznany argument: " + a);
+            String key = a.substring(2);
+            if (i + 1 < argv.length && !argv[i + 1].startsWith("--")) {
+                values.put(key, argv[++i]);
+            } else {
+                values.put(key, "true");
+            }
+        }
+    }
+
+    String string(String key, String def) {
+        String v = values.get(key);
+        if (v != null) return v;
+        String env = System.getenv("LOADTEST_" + key.toUpperCase().replace('-', '_'));
+        return env != null ? env : def;
+    }
+
+    int integer(String key, int def) {
+        return Integer.parseInt(string(key, String.valueOf(def)));
+    }
+
+    long longValue(String key, long def) {
+        return Long.parseLong(string(key, String.valueOf(def)));
+    }
+
+    boolean flag(String key) {
+        return Boolean.parseBoolean(string(key, "false"));
+    }
+}
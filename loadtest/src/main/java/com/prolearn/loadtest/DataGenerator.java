@@ -0,0 +1,279 @@
+package com.prolearn.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Generator syntetycznego zbioru danych: N klas × M uczniów × K lekcji (po T zadań) × A prób.
+ * Zapisuje bezpośrednio do PostgreSQL paczkami JDBC (schemat musi być już zmigrowany przez Flyway)
+ * i tworzy manifest dla {@link LoadDriver}.
+ *
+ * <pre>
+ * --jdbc-url jdbc:postgresql://localhost:5432/prolearn --db-user prolearn --db-password prolearn
+ * --classes 10 --students 30 --lessons 8 --tasks 3 --attempts 2 --batch 1000 --seed 42
+ * --prefix lt --password Test123! --manifest target/loadtest-manifest.json --clean
+ * </pre>
+ */
+public final class DataGenerator {
+
+    static final String SOLUTION = "function solve(input){ const nums = (String(input||'').match(/-?\\d+/g)||[]).map(Number); return String(nums.reduce((a,b)=>a+b,0)); }";
+    static final String WRONG_SOLUTION = "function solve(input){ return String(input).length; }";
+
+    private final Connection conn;
+    private final int batchSize;
+    private final Random rnd;
+
+    private DataGenerator(Connection conn, int batchSize, long seed) {
+        this.conn = conn;
+        this.batchSize = batchSize;
+        this.rnd = new Random(seed);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        String url = args.string("jdbc-url", "jdbc:postgresql://localhost:5432/prolearn");
+        if (!url.contains("reWriteBatchedInserts")) url += (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+        int classes = args.integer("classes", 10);
+        int students = args.integer("students", 30);
+        int lessons = args.integer("lessons", 8);
+        int tasks = args.integer("tasks", 3);
+        int attempts = args.integer("attempts", 2);
+        String prefix = args.string("prefix", "lt");
+        String password = args.string("password", "Test123!");
+        Path manifestPath = Path.of(args.string("manifest", "target/loadtest-manifest.json"));
+
+        try (Connection conn = DriverManager.getConnection(url, args.string("db-user", "prolearn"), args.string("db-password", "prolearn"))) {
+            conn.setAutoCommit(false);
+            DataGenerator gen = new DataGenerator(conn, args.integer("batch", 1000), args.longValue("seed", 42));
+            if (args.flag("clean")) gen.clean(prefix);
+            long started = System.nanoTime();
+            Manifest manifest = gen.generate(prefix, password, classes, students, lessons, tasks, attempts);
+            manifest.write(manifestPath);
+            long ms = (System.nanoTime() - started) / 1_000_000;
+            long submissions = (long) classes * students * lessons * tasks * attempts;
+            System.out.printf("DataGenerator: %d klas, %d uczniów, %d lekcji, %d zadań, %d zgłoszeń w %d ms (manifest: %s)%n",
+                    classes, (long) classes * students, (long) classes * lessons, (long) classes * lessons * tasks,
+                    submissions, ms, manifestPath.toAbsolutePath());
+        }
+    }
+
+    /** Usuwa dane z poprzedniego przebiegu o tym samym prefiksie (kaskady usuwają lekcje, zadania i zgłoszenia). */
+    void clean(String prefix) throws SQLException {
+        String like = prefix + "-%@load.test";
+        try (PreparedStatement del = conn.prepareStatement(
+                "DELETE FROM classes WHERE owner_id IN (SELECT id FROM users WHERE email LIKE ?)")) {
+            del.setString(1, like);
+            System.out.println("DataGenerator: usunięto klas: " + del.executeUpdate());
+        }
+        try (PreparedStatement del = conn.prepareStatement("DELETE FROM users WHERE email LIKE ?")) {
+            del.setString(1, like);
+            System.out.println("DataGenerator: usunięto użytkowników: " + del.executeUpdate());
+        }
+        conn.commit();
+    }
+
+    Manifest generate(String prefix, String password, int classes, int students, int lessons, int tasks, int attempts) throws SQLException {
+        String hash = new BCryptPasswordEncoder().encode(password);
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        Instant base = Instant.now().minus(30, ChronoUnit.DAYS);
+        List<Manifest.ClassData> result = new ArrayList<>();
+
+        try (PreparedStatement users = conn.prepareStatement(
+                     "INSERT INTO users (id, email, password_hash, role, first_name, last_name, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement cls = conn.prepareStatement(
+                     "INSERT INTO classes (name, join_code, owner_id, created_at) VALUES (?, ?, ?, ?) RETURNING id");
+             PreparedStatement members = conn.prepareStatement(
+                     "INSERT INTO class_members (class_id, member_id, role, created_at) VALUES (?, ?, ?, ?)");
+             PreparedStatement lessonSt = conn.prepareStatement(
+                     "INSERT INTO lessons (id, title, content, created_by, created_at, class_id) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement taskSt = conn.prepareStatement(
+                     "INSERT INTO tasks (id, lesson_id, title, description, max_points, created_at, type, language, starter_code, grading_mode, " +
+                     "max_attempts, allow_run_before_submit, lock_after_submit, teacher_solution) VALUES (?, ?, ?, ?, ?, ?, 'CODE', 'javascript', ?, 'AUTO', ?, true, false, ?)");
+             PreparedStatement caseSt = conn.prepareStatement(
+                     "INSERT INTO programming_test_cases (id, task_id, input_text, expected_text, visible, points, ordering, mode) VALUES (?, ?, ?, ?, ?, ?, ?, 'EVAL')");
+             PreparedStatement activitySt = conn.prepareStatement(
+                     "INSERT INTO lesson_activities (id, lesson_id, a_type, title, body, task_id, order_index, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement submissionSt = conn.prepareStatement(
+                     "INSERT INTO submissions (id, task_id, student_id, status, points, created_at, auto_score, attempt_number, graded_at) " +
+                     "VALUES (?, ?, ?, 'GRADED', ?, ?, ?, ?, ?)");
+             // kod i raport przez blob_put jak w aplikacji – identyczne treści trafiają do submission_blobs raz
+             PreparedStatement payloadSt = conn.prepareStatement(
+                     "INSERT INTO submission_payloads (submission_id, content, code_hash, report_hash) VALUES (?, ?, blob_put(?), blob_put(?))");
+             PreparedStatement attemptSt = conn.prepareStatement(
+                     "INSERT INTO submission_attempts (task_id, student_id, used) VALUES (?, ?, ?)")) {
+
+            // kolejność zależności FK: paczka rodzica jest wysyłana przed paczką dziecka
+            Batch userBatch = new Batch(users);
+            Batch memberBatch = new Batch(members, userBatch);
+            Batch lessonBatch = new Batch(lessonSt, userBatch);
+            Batch taskBatch = new Batch(taskSt, lessonBatch);
+            Batch caseBatch = new Batch(caseSt, taskBatch);
+            Batch activityBatch = new Batch(activitySt, lessonBatch, taskBatch);
+            Batch submissionBatch = new Batch(submissionSt, userBatch, taskBatch);
+            Batch payloadBatch = new Batch(payloadSt, submissionBatch);
+            Batch attemptBatch = new Batch(attemptSt, userBatch, taskBatch);
+            byte[] solutionBlob = blob(SOLUTION), wrongBlob = blob(WRONG_SOLUTION);
+
+            for (int c = 0; c < classes; c++) {
+                UUID teacherId = UUID.randomUUID();
+                String teacherEmail = prefix + "-t" + c + "-" + run + "@load.test";
+                addUser(userBatch, teacherId, teacherEmail, hash, "TEACHER", "Nauczyciel", "T" + c, base);
+
+                List<UUID> studentIds = new ArrayList<>(students);
+                List<String> studentEmails = new ArrayList<>(students);
+                for (int s = 0; s < students; s++) {
+                    UUID sid = UUID.randomUUID();
+                    String email = prefix + "-s" + c + "-" + s + "-" + run + "@load.test";
+                    addUser(userBatch, sid, email, hash, "STUDENT", "Uczeń", "S" + c + "-" + s, base);
+                    studentIds.add(sid);
+                    studentEmails.add(email);
+                }
+                userBatch.flush();
+
+                cls.setString(1, "Klasa testowa " + c + " (" + run + ")");
+                cls.setString(2, joinCode());
+                cls.setObject(3, teacherId);
+                cls.setTimestamp(4, Timestamp.from(base));
+                long classId;
+                try (ResultSet rs = cls.executeQuery()) {
+                    rs.next();
+                    classId = rs.getLong(1);
+                }
+
+                addMember(memberBatch, classId, teacherId, "TEACHER", base);
+                for (UUID sid : studentIds) addMember(memberBatch, classId, sid, "STUDENT", base);
+
+                List<UUID> lessonIds = new ArrayList<>(lessons);
+                List<UUID> taskIds = new ArrayList<>(lessons * tasks);
+                for (int l = 0; l < lessons; l++) {
+                    UUID lessonId = UUID.randomUUID();
+                    Instant lessonAt = base.plus(l, ChronoUnit.DAYS);
+                    lessonBatch.add(lessonId, "Lekcja " + (l + 1), "Treść lekcji " + (l + 1), teacherId, Timestamp.from(lessonAt), classId);
+                    lessonIds.add(lessonId);
+
+                    int order = 0;
+                    activityBatch.add(UUID.randomUUID(), lessonId, "CONTENT", "Wprowadzenie",
+                            "{\"blocks\":[{\"type\":\"markdown\",\"md\":\"# Lekcja " + (l + 1) + "\"}]}", null, order++, Timestamp.from(lessonAt));
+                    for (int t = 0; t < tasks; t++) {
+                        UUID taskId = UUID.randomUUID();
+                        int maxPoints = 3;
+                        taskBatch.add(taskId, lessonId, "Suma " + (l + 1) + "." + (t + 1), "Zwróć sumę liczb z wejścia",
+                                maxPoints, Timestamp.from(lessonAt), "function solve(input){\n  \n}", attempts + 1, SOLUTION);
+                        for (int k = 0; k < 3; k++) {
+                            int a = rnd.nextInt(100), b = rnd.nextInt(100);
+                            caseBatch.add(UUID.randomUUID(), taskId, a + " " + b, String.valueOf(a + b), k < 2, 1, k);
+                        }
+                        activityBatch.add(UUID.randomUUID(), lessonId, "TASK", "Zadanie " + (t + 1), null, taskId, order++, Timestamp.from(lessonAt));
+                        taskIds.add(taskId);
+
+                        for (UUID sid : studentIds) {
+                            for (int a = 1; a <= attempts; a++) {
+                                boolean ok = rnd.nextInt(10) < 7;
+                                int points = ok ? maxPoints : rnd.nextInt(maxPoints);
+                                Instant at = lessonAt.plus(rnd.nextInt(6 * 60) + a * 10L, ChronoUnit.MINUTES);
+                                UUID submissionId = UUID.randomUUID();
+                                submissionBatch.add(submissionId, taskId, sid, points, Timestamp.from(at), points, a, Timestamp.from(at));
+                                payloadBatch.add(submissionId, "load-test", ok ? solutionBlob : wrongBlob, blob(report(points, maxPoints)));
+                            }
+                            if (attempts > 0) attemptBatch.add(taskId, sid, attempts);
+                        }
+                    }
+                }
+                memberBatch.flush();
+                lessonBatch.flush();
+                taskBatch.flush();
+                caseBatch.flush();
+                activityBatch.flush();
+                submissionBatch.flush();
+                payloadBatch.flush();
+                attemptBatch.flush();
+                conn.commit();
+                result.add(new Manifest.ClassData(classId, teacherEmail, studentEmails, lessonIds, taskIds));
+                System.out.printf("DataGenerator: klasa %d/%d (id=%d)%n", c + 1, classes, classId);
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        return new Manifest(prefix, password, result);
+    }
+
+    private static void addUser(Batch b, UUID id, String email, String hash, String role, String first, String last, Instant at) throws SQLException {
+        b.add(id, email, hash, role, first, last, Timestamp.from(at));
+    }
+
+    private static void addMember(Batch b, long classId, UUID memberId, String role, Instant at) throws SQLException {
+        b.add(classId, memberId, role, Timestamp.from(at));
+    }
+
+    private String joinCode() {
+        String alphabet = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+        StringBuilder sb = new StringBuilder(12);
+        for (int i = 0; i < 12; i++) sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+        return sb.toString();
+    }
+
+    /**
+     * Wartość dla blob_put w formacie SubmissionBlobCodec: SHA-256 treści, bajt formatu 0 (bez kompresji) i UTF-8.
+     * Aplikacja odczytuje ten format tak samo jak skompresowany.
+     */
+    private static byte[] blob(String value) {
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[32 + 1 + raw.length];
+        try {
+            System.arraycopy(MessageDigest.getInstance("SHA-256").digest(raw), 0, out, 0, 32);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        System.arraycopy(raw, 0, out, 33, raw.length);
+        return out;
+    }
+
+    /** Raport w tym samym kształcie co zapisuje SubmissionController.gradeAuto. */
+    private static String report(int points, int maxPoints) {
+        StringBuilder sb = new StringBuilder("{\"tests\":[");
+        for (int k = 0; k < maxPoints; k++) {
+            boolean passed = k < points;
+            if (k > 0) sb.append(',');
+            sb.append("{\"passed\":").append(passed)
+                    .append(",\"points\":").append(passed ? 1 : 0)
+                    .append(",\"actual\":\"").append(passed ? "42" : "7").append("\",\"expected\":\"42\"}");
+        }
+        sb.append("],\"passed\":").append(points).append(",\"failed\":").append(maxPoints - points)
+                .append(",\"maxPoints\":").append(maxPoints).append('}');
+        return sb.toString();
+    }
+
+    /** PreparedStatement z automatycznym wysyłaniem co batchSize wierszy. */
+    private final class Batch {
+        private final PreparedStatement st;
+        private final Batch[] parents;
+        private int pending;
+
+        Batch(PreparedStatement st, Batch... parents) {
+            this.st = st;
+            this.parents = parents;
+        }
+
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) st.setObject(i + 1, values[i]);
+            st.addBatch();
+            if (++pending >= batchSize) flush();
+        }
+
+        void flush() throws SQLException {
+            if (pending == 0) return;
+            for (Batch p : parents) p.flush();
+            st.executeBatch();
+            pending = 0;
+        }
+    }
+}
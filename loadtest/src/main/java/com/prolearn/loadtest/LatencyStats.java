@@ -0,0 +1,47 @@
+package com.prolearn.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Próbki opóźnień jednej operacji (w mikrosekundach) wraz z licznikami statusów HTTP. */
+final class LatencyStats {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+
+    /** status <= 0 oznacza błąd transportu (timeout, odrzucone połączenie). */
+    synchronized void record(long micros, int status) {
+        if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+        samples[size++] = micros;
+        statuses.merge(status, 1L, Long::sum);
+        if (status <= 0 || status >= 500) errors++;
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", size);
+        out.put("errors", errors);
+        out.put("throughput", seconds > 0 ? Math.round(size / seconds * 10) / 10.0 : 0.0);
+        out.put("p50Ms", percentile(sorted, 50));
+        out.put("p95Ms", percentile(sorted, 95));
+        out.put("p99Ms", percentile(sorted, 99));
+        out.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1000.0);
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        statuses.forEach((k, v) -> byStatus.put(k <= 0 ? "io_error" : String.valueOf(k), v));
+        out.put("statuses", byStatus);
+        return out;
+    }
+
+    /** Percentyl metodą najbliższej rangi, w milisekundach. */
+    static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0.0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1000.0;
+    }
+}
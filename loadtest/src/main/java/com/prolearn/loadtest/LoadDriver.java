@@ -0,0 +1,231 @@
+package com.prolearn.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sterownik obciążenia: wirtualni uczniowie (wątki wirtualne) odtwarzają mieszankę
+ * logowanie / otwarcie lekcji / uruchomienie / zgłoszenie / panel nauczyciela
+ * na danych z {@link DataGenerator} i raportują przepustowość oraz p50/p95/p99.
+ *
+ * <pre>
+ * --base-url http://localhost:8080 --manifest target/loadtest-manifest.json
+ * --users 100 --duration 60 --ramp-up 10 --think-ms 500
+ * --mix login=5,lesson=40,run=30,submit=10,dashboard=15 --report target/loadtest-report.json
+ * </pre>
+ */
+public final class LoadDriver {
+
+    static final List<String> OPS = List.of("login", "lesson", "run", "submit", "dashboard");
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Manifest manifest;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, LatencyStats> stats = new LinkedHashMap<>();
+    private final Map<Long, String> teacherTokens = new ConcurrentHashMap<>();
+    private final String[] weighted;
+
+    private LoadDriver(String baseUrl, Manifest manifest, Map<String, Integer> mix) {
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.manifest = manifest;
+        for (String op : OPS) stats.put(op, new LatencyStats());
+        List<String> w = new ArrayList<>();
+        mix.forEach((op, weight) -> { for (int i = 0; i < weight; i++) w.add(op); });
+        if (w.isEmpty()) throw new IllegalArgumentException("Pusta mieszanka operacji");
+        this.weighted = w.toArray(String[]::new);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        Manifest manifest = Manifest.read(Path.of(args.string("manifest", "target/loadtest-manifest.json")));
+        int users = args.integer("users", 50);
+        int durationSec = args.integer("duration", 60);
+        int rampUpSec = args.integer("ramp-up", 10);
+        int thinkMs = args.integer("think-ms", 500);
+        Map<String, Integer> mix = parseMix(args.string("mix", "login=5,lesson=40,run=30,submit=10,dashboard=15"));
+
+        LoadDriver driver = new LoadDriver(args.string("base-url", "http://localhost:8080"), manifest, mix);
+        System.out.printf("LoadDriver: %d użytkowników, %d s (rozbieg %d s), mieszanka %s%n", users, durationSec, rampUpSec, mix);
+        double seconds = driver.run(users, durationSec, rampUpSec, thinkMs);
+
+        Map<String, Object> report = driver.report(seconds, users, mix);
+        Path reportPath = Path.of(args.string("report", "target/loadtest-report.json"));
+        if (reportPath.getParent() != null) Files.createDirectories(reportPath.getParent());
+        driver.mapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        driver.print(seconds);
+        System.out.println("Raport: " + reportPath.toAbsolutePath());
+    }
+
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2 || !OPS.contains(kv[0].trim())) throw new IllegalArgumentException("Nieprawidłowa mieszanka: " + part);
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    private double run(int users, int durationSec, int rampUpSec, int thinkMs) throws InterruptedException {
+        List<String[]> students = new ArrayList<>();
+        for (Manifest.ClassData c : manifest.classes()) {
+            for (String email : c.students()) students.add(new String[]{String.valueOf(c.id()), email});
+        }
+        if (students.isEmpty()) throw new IllegalStateException("Manifest nie zawiera uczniów");
+        Map<Long, Manifest.ClassData> byId = new HashMap<>();
+        for (Manifest.ClassData c : manifest.classes()) byId.put(c.id(), c);
+
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(durationSec);
+        long rampStepNanos = users > 1 ? TimeUnit.SECONDS.toNanos(rampUpSec) / users : 0;
+        try (ExecutorService vus = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                String[] student = students.get(u % students.size());
+                Manifest.ClassData cls = byId.get(Long.parseLong(student[0]));
+                long startAt = started + u * rampStepNanos;
+                vus.submit(() -> virtualUser(cls, student[1], startAt, deadline, thinkMs));
+            }
+        }
+        return (System.nanoTime() - started) / 1e9;
+    }
+
+    private Void virtualUser(Manifest.ClassData cls, String email, long startAt, long deadline, int thinkMs) throws InterruptedException {
+        sleepNanos(startAt - System.nanoTime());
+        String token = login(email);
+        while (System.nanoTime() < deadline) {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            String op = weighted[rnd.nextInt(weighted.length)];
+            if (token == null && !"dashboard".equals(op)) op = "login";
+            switch (op) {
+                case "login" -> token = login(email);
+                case "lesson" -> call("lesson", get("/api/lessons/" + pick(cls.lessons(), rnd), token));
+                case "run" -> call("run", post("/api/tasks/" + pick(cls.tasks(), rnd) + "/run",
+                        Map.of("code", rnd.nextInt(4) == 0 ? DataGenerator.WRONG_SOLUTION : DataGenerator.SOLUTION), token));
+                case "submit" -> call("submit", post("/api/tasks/" + pick(cls.tasks(), rnd) + "/submissions",
+                        Map.of("code", DataGenerator.SOLUTION), token));
+                case "dashboard" -> {
+                    String teacher = teacherToken(cls);
+                    if (teacher != null) call("dashboard", get("/api/classes/" + cls.id() + "/progress/overview", teacher));
+                }
+                default -> throw new IllegalStateException(op);
+            }
+            if (thinkMs > 0) sleepNanos(TimeUnit.MILLISECONDS.toNanos(rnd.nextInt(thinkMs / 2, thinkMs * 3 / 2 + 1)));
+        }
+        return null;
+    }
+
+    private String login(String email) {
+        HttpResponse<String> res = call("login", post("/api/auth/login",
+                Map.of("email", email, "password", manifest.password()), null));
+        if (res == null || res.statusCode() != 200) return null;
+        try {
+            JsonNode node = mapper.readTree(res.body());
+            return node.path("token").asText(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Jeden token nauczyciela na klasę (logowanie nauczyciela nie wchodzi do statystyk).
+     * Bez computeIfAbsent – blokujące wywołanie HTTP pod blokadą przypina wątek wirtualny do nośnika.
+     */
+    private String teacherToken(Manifest.ClassData cls) {
+        String cached = teacherTokens.get(cls.id());
+        if (cached != null) return cached;
+        try {
+            HttpResponse<String> res = http.send(post("/api/auth/login",
+                    Map.of("email", cls.teacher(), "password", manifest.password()), null), HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() != 200) return null;
+            String token = mapper.readTree(res.body()).path("token").asText(null);
+            if (token != null) teacherTokens.putIfAbsent(cls.id(), token);
+            return token;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private HttpResponse<String> call(String op, HttpRequest req) {
+        long t0 = System.nanoTime();
+        try {
+            HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+            stats.get(op).record((System.nanoTime() - t0) / 1000, res.statusCode());
+            return res;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            stats.get(op).record((System.nanoTime() - t0) / 1000, 0);
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        return b.build();
+    }
+
+    private HttpRequest post(String path, Map<String, ?> body, String token) {
+        try {
+            HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+            if (token != null) b.header("Authorization", "Bearer " + token);
+            return b.build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> report(double seconds, int users, Map<String, Integer> mix) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("baseUrl", baseUrl);
+        out.put("users", users);
+        out.put("durationSec", Math.round(seconds * 10) / 10.0);
+        out.put("mix", mix);
+        Map<String, Object> ops = new LinkedHashMap<>();
+        stats.forEach((op, s) -> ops.put(op, s.summary(seconds)));
+        out.put("operations", ops);
+        return out;
+    }
+
+    private void print(double seconds) {
+        System.out.printf("%-10s %8s %7s %9s %9s %9s %9s %9s%n", "op", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        stats.forEach((op, s) -> {
+            Map<String, Object> m = s.summary(seconds);
+            System.out.printf("%-10s %8s %7s %9s %9s %9s %9s %9s   %s%n", op, m.get("count"), m.get("errors"), m.get("throughput"),
+                    m.get("p50Ms"), m.get("p95Ms"), m.get("p99Ms"), m.get("maxMs"), m.get("statuses"));
+        });
+    }
+
+    private static <T> T pick(List<T> list, Random rnd) {
+        return list.get(rnd.nextInt(list.size()));
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+}
@@ -0,0 +1,26 @@
+package com.prolearn.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/** Opis wygenerowanego zbioru danych – wejście dla {@link LoadDriver}. */
+record Manifest(String prefix, String password, List<ClassData> classes) {
+
+    record ClassData(long id, String teacher, List<String> students, List<UUID> lessons, List<UUID> tasks) {}
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), this);
+    }
+
+    static Manifest read(Path path) throws IOException {
+        return MAPPER.readValue(path.toFile(), Manifest.class);
+    }
+}